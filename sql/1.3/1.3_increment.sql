@@ -0,0 +1,8 @@
+-- ----------------------------
+-- schedule_task_task_shade add index for task dependency stamp
+-- ----------------------------
+BEGIN;
+
+ALTER TABLE `schedule_task_task_shade` ADD INDEX `index_tenant_deleted_id` (`tenant_id`, `is_deleted`, `id`);
+
+COMMIT;
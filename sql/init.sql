@@ -1667,7 +1667,8 @@ CREATE TABLE `schedule_task_task_shade` (
   `gmt_modified` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '修改时间',
   `is_deleted` tinyint(1) NOT NULL DEFAULT '0' COMMENT '0正常 1逻辑删除',
   PRIMARY KEY (`id`),
-  UNIQUE KEY `index_batch_task_task` (`task_id`,`parent_task_id`)
+  UNIQUE KEY `index_batch_task_task` (`task_id`,`parent_task_id`),
+  KEY `index_tenant_deleted_id` (`tenant_id`,`is_deleted`,`id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8 COLLATE=utf8_bin;
 
 -- ----------------------------
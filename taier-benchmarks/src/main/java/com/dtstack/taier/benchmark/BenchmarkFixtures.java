@@ -0,0 +1,77 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.common.enums.EParamType;
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @Date: 2026/10/18 12:50 AM
+ * @Description: benchmark 共用的数据，参数取自 develop_sys_parameter 和页面上常用的自定义参数写法
+ */
+public class BenchmarkFixtures {
+
+    public static final String CYC_TIME = "20221001000000";
+
+    private static final String[][] SYS_PARAMS = {
+            {"bdp.system.bizdate", "yyyyMMdd-1"},
+            {"bdp.system.cyctime", "yyyyMMddHHmmss"},
+            {"bdp.system.currmonth", "yyyyMM-0"},
+            {"bdp.system.premonth", "yyyyMM-1"},
+            {"bdp.system.bizdate2", "yyyy-MM-dd,-1"},
+    };
+
+    private static final String[] CUSTOMIZE_COMMANDS = {
+            "$[yyyyMMdd-1]",
+            "$[yyyyMMdd+7*1,'-']",
+            "$[yyyyMMdd-10,'-']",
+            "$[add_months(yyyyMM,-1)]",
+            "$[add_months(yyyyMM,-6,'/')]",
+            "$[hh24miss-4/24,'-']",
+            "$[yyyyMMddHH,':']",
+            "$[yyyyMM,':']",
+    };
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @param size 参数个数，前几个为系统参数，其余为自定义参数
+     */
+    public static List<ScheduleTaskParamShade> taskParams(int size) {
+        List<ScheduleTaskParamShade> params = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ScheduleTaskParamShade param = new ScheduleTaskParamShade();
+            param.setTaskId(1L);
+            if (i < SYS_PARAMS.length) {
+                param.setType(EParamType.SYS_TYPE.getType());
+                param.setParamName(SYS_PARAMS[i][0]);
+                param.setParamCommand(SYS_PARAMS[i][1]);
+            } else {
+                param.setType(EParamType.CUSTOMIZE_TYPE.getType());
+                param.setParamName("p_" + i);
+                param.setParamCommand(CUSTOMIZE_COMMANDS[i % CUSTOMIZE_COMMANDS.length]);
+            }
+            params.add(param);
+        }
+        return params;
+    }
+
+    /**
+     * 每个参数在 sql 中引用两次
+     */
+    public static String sql(List<ScheduleTaskParamShade> params) {
+        StringBuilder sql = new StringBuilder("INSERT OVERWRITE TABLE dws_sales_shop_1d PARTITION(ds = '${bdp.system.bizdate}')\nSELECT\n");
+        for (int i = 0; i < params.size(); i++) {
+            String name = params.get(i).getParamName();
+            sql.append(i == 0 ? "  " : " ,").append("sum(case when order_date = '${").append(name)
+                    .append("}' then amount end) AS amount_").append(i).append('\n');
+        }
+        sql.append("FROM dwd_sales_ord_df\nWHERE ds = '${bdp.system.bizdate}'\n");
+        for (ScheduleTaskParamShade param : params) {
+            sql.append("  AND stat_date <> '${").append(param.getParamName()).append("}'\n");
+        }
+        return sql.toString();
+    }
+}
@@ -0,0 +1,144 @@
+package com.dtstack.taier.benchmark;
+
+import com.alibaba.fastjson.JSONObject;
+import com.dtstack.taier.common.client.ClientCache;
+import com.dtstack.taier.common.client.ClientLease;
+import com.dtstack.taier.pluginapi.JobClient;
+import com.dtstack.taier.pluginapi.JobIdentifier;
+import com.dtstack.taier.pluginapi.client.AbstractClient;
+import com.dtstack.taier.pluginapi.client.IClient;
+import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
+import com.dtstack.taier.pluginapi.pojo.JobResult;
+import com.dtstack.taier.pluginapi.util.MD5Util;
+import com.dtstack.taier.pluginapi.util.PublicUtil;
+import com.google.common.collect.Maps;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * ClientCache.acquire 每次借出、归还客户端的开销，pluginInfo 为 600 个配置项，约 50KB
+ * <p>
+ * legacy 为原来每次调用的流程：WorkerOperator 解析一次 json 判空，ClientCache 再解析成 Properties 并计算整个 pluginInfo 的md5；
+ * fingerprint 为现在命中指纹缓存的流程，每次调用都复制一份 pluginInfo 模拟从数据库新读出的字符串
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar ClientCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class ClientCacheBenchmark {
+
+    private static final String TYPE_NAME = "benchmark";
+
+    private static final int CONFIG_SIZE = 600;
+
+    private final Map<String, IClient> legacyCache = Maps.newConcurrentMap();
+
+    private ClientCache clientCache;
+
+    private char[] pluginInfo;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        JSONObject info = new JSONObject();
+        info.put(ConfigConstant.TYPE_NAME_KEY, TYPE_NAME);
+        for (int i = 0; i < CONFIG_SIZE; i++) {
+            info.put("yarn.resourcemanager.config.key." + i, "hdfs://ns1/dtInsight/hadoop/config/value/" + i);
+        }
+        pluginInfo = info.toJSONString().toCharArray();
+
+        clientCache = ClientCache.getInstance(createPluginPath());
+        try (ClientLease lease = clientCache.acquire(new String(pluginInfo))) {
+            legacyCache.put(MD5Util.getMd5String(new String(pluginInfo)), lease.getClient());
+        }
+    }
+
+    @Benchmark
+    public IClient legacy() throws Exception {
+        String info = new String(pluginInfo);
+        JSONObject json = JSONObject.parseObject(info);
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        Properties properties = PublicUtil.jsonStrToObjectWithOutNull(info, Properties.class);
+        properties.getProperty(ConfigConstant.TYPE_NAME_KEY);
+        return legacyCache.get(MD5Util.getMd5String(info));
+    }
+
+    @Benchmark
+    public IClient fingerprint() throws Exception {
+        try (ClientLease lease = clientCache.acquire(new String(pluginInfo))) {
+            return lease.getClient();
+        }
+    }
+
+    /**
+     * 插件目录下只放一个声明 BenchmarkClient 的jar，BenchmarkClient 从父classloader加载
+     */
+    private static String createPluginPath() throws Exception {
+        File pluginPath = Files.createTempDirectory("taier-plugin").toFile();
+        File pluginDir = new File(pluginPath, TYPE_NAME);
+        pluginDir.mkdirs();
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(new File(pluginDir, "benchmark.jar")))) {
+            jar.putNextEntry(new ZipEntry("META-INF/services/" + IClient.class.getName()));
+            jar.write(BenchmarkClient.class.getName().getBytes(StandardCharsets.UTF_8));
+            jar.closeEntry();
+        }
+        pluginPath.deleteOnExit();
+        return pluginPath.getAbsolutePath();
+    }
+
+    public static class BenchmarkClient extends AbstractClient {
+
+        @Override
+        public void init(Properties prop) {
+        }
+
+        @Override
+        public JobResult cancelJob(JobIdentifier jobIdentifier) {
+            return JobResult.createSuccessResult(jobIdentifier.getJobId());
+        }
+
+        @Override
+        public String getJobMaster(JobIdentifier jobIdentifier) {
+            return null;
+        }
+
+        @Override
+        protected JobResult processSubmitJobWithType(JobClient jobClient) {
+            return JobResult.createSuccessResult(jobClient.getJobId());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ClientCacheBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
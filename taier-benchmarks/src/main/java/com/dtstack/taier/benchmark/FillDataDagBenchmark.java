@@ -0,0 +1,117 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.scheduler.server.action.fill.FillDataDag;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 补数据计算 A 集合，nodeSize 个任务，每 20 个任务选一个作为 R 集合:
+ * wide 为 10 层、每层 nodeSize/10 个任务，每个任务依赖上一层随机 3 个任务；
+ * deep 为一条链，每个任务同时依赖前 1、2 个任务(全是菱形，路径数随深度指数增长)
+ * <p>
+ * build 包括建图，compute 只计算 A 集合
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar FillDataDagBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FillDataDagBenchmark {
+
+    private static final int LAYERS = 10;
+
+    @Param({"wide", "deep"})
+    private String shape;
+
+    @Param({"10000"})
+    private int nodeSize;
+
+    private long[] parents;
+
+    private long[] children;
+
+    private Set<Long> run;
+
+    private FillDataDag dag;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        int edgeSize = "wide".equals(shape) ? nodeSize * 3 : nodeSize * 2;
+        parents = new long[edgeSize];
+        children = new long[edgeSize];
+        int edge = 0;
+        if ("wide".equals(shape)) {
+            int width = nodeSize / LAYERS;
+            for (int node = width; node < nodeSize; node++) {
+                int layerStart = (node / width - 1) * width;
+                for (int i = 0; i < 3; i++) {
+                    parents[edge] = layerStart + random.nextInt(width);
+                    children[edge++] = node;
+                }
+            }
+        } else {
+            for (int node = 1; node < nodeSize; node++) {
+                parents[edge] = node - 1;
+                children[edge++] = node;
+                if (node > 1) {
+                    parents[edge] = node - 2;
+                    children[edge++] = node;
+                }
+            }
+        }
+        parents = Arrays.copyOf(parents, edge);
+        children = Arrays.copyOf(children, edge);
+        run = new HashSet<>();
+        for (long node = 0; node < nodeSize; node += 20) {
+            run.add(node);
+        }
+        dag = buildDag();
+    }
+
+    private FillDataDag buildDag() {
+        FillDataDag.Builder builder = FillDataDag.builder();
+        for (int i = 0; i < parents.length; i++) {
+            builder.addEdge(parents[i], children[i]);
+        }
+        return builder.build();
+    }
+
+    @Benchmark
+    public Set<Long> build() {
+        return buildDag().getAllList(run);
+    }
+
+    @Benchmark
+    public Set<Long> compute() {
+        return dag.getAllList(run);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FillDataDagBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
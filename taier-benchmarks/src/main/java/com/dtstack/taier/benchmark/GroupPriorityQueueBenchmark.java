@@ -0,0 +1,88 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.common.queue.IndexedPriorityBlockingQueue;
+import com.dtstack.taier.common.queue.comparator.JobClientComparator;
+import com.dtstack.taier.pluginapi.JobClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GroupPriorityQueue 内存队列的入队、出队吞吐，队列与 GroupPriorityQueue 中的创建方式相同，预先放入 queueSize 个任务:
+ * addTake 为单线程入队后马上出队，addTake4 为 4 个线程同时入队、出队(多个计算资源的入队线程和提交线程竞争同一把锁)
+ * <p>
+ * GroupPriorityQueue 本身依赖 spring 容器和数据库回填，这里只测它的内存队列
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar GroupPriorityQueueBenchmark
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GroupPriorityQueueBenchmark {
+
+    @Param({"5000"})
+    private int queueSize;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private IndexedPriorityBlockingQueue<String, JobClient> queue;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        queue = new IndexedPriorityBlockingQueue<>(Integer.MAX_VALUE, JobClient::getJobId, new JobClientComparator());
+        for (int i = 0; i < queueSize; i++) {
+            queue.offer(newJobClient());
+        }
+    }
+
+    private JobClient newJobClient() {
+        long id = sequence.incrementAndGet();
+        JobClient jobClient = new JobClient();
+        jobClient.setJobId("job_" + id);
+        // 与 JobClient 中的计算方式一致: 生成时间 + 优先级 * 权重，这里用序号代替生成时间
+        jobClient.setPriority(id + (id % 10) * JobClient.PRIORITY_LEVEL_WEIGHT);
+        return jobClient;
+    }
+
+    @Benchmark
+    @Group("addTake")
+    public JobClient addTake() throws InterruptedException {
+        queue.offer(newJobClient());
+        return queue.take();
+    }
+
+    @Benchmark
+    @Group("addTake4")
+    @GroupThreads(4)
+    public JobClient addTake4() throws InterruptedException {
+        queue.offer(newJobClient());
+        return queue.take();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(GroupPriorityQueueBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
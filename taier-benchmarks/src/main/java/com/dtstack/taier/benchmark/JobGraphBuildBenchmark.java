@@ -0,0 +1,146 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.common.enums.EScheduleJobType;
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
+import com.dtstack.taier.scheduler.server.builder.AtomicJobSortWorker;
+import com.dtstack.taier.scheduler.server.builder.CycleJobBuilder;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
+import com.dtstack.taier.scheduler.server.builder.dependency.DependencyManager;
+import com.dtstack.taier.scheduler.service.ScheduleActionService;
+import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一天周期实例生成的吞吐：由 taskSize 个任务构建快照，再为每个任务生成一天的实例和实例依赖，不包含写库。
+ * 任务 i 依赖任务 (i - 1) / 2，每 6 个任务一个自依赖，每 50 个任务一个带 4 个子任务的工作流
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar JobGraphBuildBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobGraphBuildBenchmark {
+
+    private static final String TRIGGER_DAY = "2022-10-01";
+
+    private static final String DATE_RANGE = "\"beginDate\":\"2022-01-01\",\"endDate\":\"2121-01-01\",\"maxRetryNum\":3";
+
+    private static final String[] SCHEDULE_CONFS = {
+            "{\"periodType\":2,\"hour\":1,\"min\":30,\"selfReliance\":0," + DATE_RANGE + "}",
+            "{\"periodType\":1,\"beginHour\":0,\"endHour\":23,\"beginMin\":15,\"endMin\":59,\"gapHour\":2,\"selfReliance\":0," + DATE_RANGE + "}",
+            "{\"periodType\":2,\"hour\":2,\"min\":0,\"selfReliance\":0," + DATE_RANGE + "}",
+            "{\"periodType\":0,\"beginHour\":0,\"endHour\":23,\"beginMin\":0,\"endMin\":59,\"gapMin\":30,\"selfReliance\":0," + DATE_RANGE + "}",
+            "{\"periodType\":2,\"hour\":3,\"min\":10,\"selfReliance\":0," + DATE_RANGE + "}",
+            "{\"periodType\":2,\"hour\":4,\"min\":0,\"selfReliance\":1," + DATE_RANGE + "}",
+    };
+
+    @Param({"1000"})
+    private int taskSize;
+
+    private List<ScheduleTaskShade> taskShades;
+
+    private List<ScheduleTaskTaskShade> taskTaskShades;
+
+    private List<ScheduleTaskShade> rootTasks;
+
+    private BenchmarkJobBuilder jobBuilder;
+
+    @Setup
+    public void setup() {
+        taskShades = new ArrayList<>();
+        taskTaskShades = new ArrayList<>();
+        rootTasks = new ArrayList<>();
+        long subTaskId = taskSize + 1;
+        for (int i = 1; i <= taskSize; i++) {
+            boolean workFlow = i % 50 == 0;
+            ScheduleTaskShade taskShade = task(i, 0L, SCHEDULE_CONFS[i % SCHEDULE_CONFS.length], workFlow);
+            taskShades.add(taskShade);
+            rootTasks.add(taskShade);
+            if (i > 1) {
+                ScheduleTaskTaskShade taskTaskShade = new ScheduleTaskTaskShade();
+                taskTaskShade.setTaskId((long) i);
+                taskTaskShade.setParentTaskId((long) (i - 1) / 2 + 1);
+                taskTaskShades.add(taskTaskShade);
+            }
+            if (workFlow) {
+                for (int j = 0; j < 4; j++) {
+                    taskShades.add(task(subTaskId++, (long) i, taskShade.getScheduleConf(), false));
+                }
+            }
+        }
+        jobBuilder = new BenchmarkJobBuilder();
+    }
+
+    @Benchmark
+    public void buildDay(Blackhole blackhole) throws Exception {
+        JobGraphSnapshot snapshot = new JobGraphSnapshot(taskShades, taskTaskShades);
+        AtomicJobSortWorker sortWorker = new AtomicJobSortWorker();
+        for (ScheduleTaskShade taskShade : rootTasks) {
+            blackhole.consume(jobBuilder.buildJob(taskShade, TRIGGER_DAY, sortWorker, snapshot));
+        }
+    }
+
+    private static ScheduleTaskShade task(long taskId, Long flowId, String scheduleConf, boolean workFlow) {
+        ScheduleTaskShade taskShade = new ScheduleTaskShade();
+        taskShade.setId(taskId);
+        taskShade.setTaskId(taskId);
+        taskShade.setTenantId(1L);
+        taskShade.setName("task_" + taskId);
+        taskShade.setTaskType(workFlow ? EScheduleJobType.WORK_FLOW.getVal() : EScheduleJobType.SPARK_SQL.getVal());
+        taskShade.setComputeType(1);
+        taskShade.setCreateUserId(1L);
+        taskShade.setVersionId(1);
+        taskShade.setFlowId(flowId);
+        taskShade.setScheduleConf(scheduleConf);
+        return taskShade;
+    }
+
+    /**
+     * 不依赖数据库的实例生成器，跨天的父实例都视为已经存在
+     */
+    private static class BenchmarkJobBuilder extends CycleJobBuilder {
+
+        private BenchmarkJobBuilder() {
+            this.dependencyManager = new DependencyManager();
+            this.actionService = new ScheduleActionService();
+            this.scheduleJobService = new ScheduleJobService() {
+                @Override
+                public Set<String> listExistJobKeys(Collection<String> jobKeys) {
+                    return new HashSet<>(jobKeys);
+                }
+            };
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JobGraphBuildBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,137 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.common.util.DtJobIdWorker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * jobId生成吞吐: legacy 为原来 synchronized + 每秒10万上限 + String.format 的实现，
+ * worker 为CAS + 线程预占序号的实现，bulk 为一次获得 100 个jobId
+ * <p>
+ * jobId格式决定了每个节点每秒最多10万个序号，持续压测时两者都会收敛到这个上限，差异主要体现在突发(可借用后面几秒)和多线程竞争下
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar JobIdWorkerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JobIdWorkerBenchmark {
+
+    private static final int BULK_SIZE = 100;
+
+    private final LegacyJobIdWorker legacyWorker = new LegacyJobIdWorker(1);
+
+    private final DtJobIdWorker worker = DtJobIdWorker.getInstance(1, 0);
+
+    @Benchmark
+    @Threads(1)
+    public String legacy1() {
+        return legacyWorker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String legacy8() {
+        return legacyWorker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String legacy32() {
+        return legacyWorker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String worker1() {
+        return worker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String worker8() {
+        return worker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String worker32() {
+        return worker.nextJobId();
+    }
+
+    @Benchmark
+    @Threads(8)
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<String> bulk8() {
+        return worker.nextJobIds(BULK_SIZE);
+    }
+
+    @Benchmark
+    @Threads(32)
+    @OperationsPerInvocation(BULK_SIZE)
+    public List<String> bulk32() {
+        return worker.nextJobIds(BULK_SIZE);
+    }
+
+    /**
+     * 原来的实现
+     */
+    private static class LegacyJobIdWorker {
+
+        private final int network;
+
+        private long sequence;
+
+        private long lastTimestamp;
+
+        private LegacyJobIdWorker(int network) {
+            this.network = network;
+        }
+
+        private synchronized String nextJobId() {
+            long timestamp = System.currentTimeMillis() / 1000;
+            if (timestamp < lastTimestamp) {
+                timestamp = lastTimestamp;
+            }
+            if (lastTimestamp == timestamp) {
+                sequence = sequence + 1;
+                if (sequence > 99999) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = System.currentTimeMillis() / 1000;
+                    }
+                    sequence = 0;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            String jobId = String.valueOf(lastTimestamp).concat(String.format("%03d", network)).concat(String.format("%05d", sequence));
+            return Long.toString(Long.parseLong(jobId), 32);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JobIdWorkerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
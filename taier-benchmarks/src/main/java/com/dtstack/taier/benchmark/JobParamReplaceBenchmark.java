@@ -0,0 +1,68 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+import com.dtstack.taier.scheduler.server.pipeline.JobParamReplace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 提交实例时 sql 的参数替换，paramSize 个参数，每个参数在 sql 中引用两次；cachedTemplate 为按任务版本缓存编译结果
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar JobParamReplaceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JobParamReplaceBenchmark {
+
+    private static final Timestamp VERSION = new Timestamp(System.currentTimeMillis());
+
+    @Param({"20", "200"})
+    private int paramSize;
+
+    private List<ScheduleTaskParamShade> params;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        params = BenchmarkFixtures.taskParams(paramSize);
+        sql = BenchmarkFixtures.sql(params);
+    }
+
+    @Benchmark
+    public String paramReplace() {
+        return JobParamReplace.paramReplace(sql, params, BenchmarkFixtures.CYC_TIME);
+    }
+
+    @Benchmark
+    public String cachedTemplate() {
+        return JobParamReplace.paramReplace(sql, params, BenchmarkFixtures.CYC_TIME, 1L, VERSION);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(JobParamReplaceBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,85 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+import com.dtstack.taier.scheduler.server.pipeline.IPipeline;
+import com.dtstack.taier.scheduler.server.pipeline.PipelineBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每次提交实例都会按组件配置里的 pipeline 获取一次处理链，配置取 PipelineBuilder 注释中的示例；
+ * submitSqlJob 为 sql 任务提交时默认 pipeline 的完整处理(jobId、200 个参数替换、合并到提交参数)
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar PipelineBuilderBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBuilderBenchmark {
+
+    private static final String PIPELINE_CONFIG = "{\"params\":[\"uploadPath\",\"file\",\"jobId\"],"
+            + "\"operator\":[{\"modelParam\":[\"jobparam\",\"url\"]},{\"launch-cmd\":[\"replace\",\"base64\"]},{\"exeArgs\":[\"replace\"]}]}";
+
+    private List<ScheduleTaskParamShade> params;
+
+    private String sql;
+
+    private ScheduleJob scheduleJob;
+
+    private ScheduleTaskShade taskShade;
+
+    @Setup
+    public void setup() {
+        params = BenchmarkFixtures.taskParams(200);
+        sql = BenchmarkFixtures.sql(params);
+        scheduleJob = new ScheduleJob();
+        scheduleJob.setJobId("benchmark_job");
+        scheduleJob.setCycTime(BenchmarkFixtures.CYC_TIME);
+        taskShade = new ScheduleTaskShade();
+        taskShade.setTaskId(1L);
+    }
+
+    @Benchmark
+    public IPipeline buildPipeline() {
+        return PipelineBuilder.buildPipeline(PIPELINE_CONFIG);
+    }
+
+    @Benchmark
+    public Map<String, Object> submitSqlJob() throws Exception {
+        Map<String, Object> actionParam = new HashMap<>();
+        actionParam.put("sqlText", sql);
+        IPipeline pipeline = PipelineBuilder.buildDefaultSqlPipeline();
+        Map<String, Object> pipelineInitMap = PipelineBuilder.getPipelineInitMap(null, scheduleJob, taskShade, params, map -> {
+        });
+        pipeline.execute(actionParam, pipelineInitMap);
+        return actionParam;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PipelineBuilderBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
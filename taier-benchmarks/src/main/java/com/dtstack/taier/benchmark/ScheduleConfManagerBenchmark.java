@@ -0,0 +1,59 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 生成周期实例时每个任务都要解析一次调度配置，每次调用依次解析分钟、小时、天、周、月、cron 六种周期的配置
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar ScheduleConfManagerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleConfManagerBenchmark {
+
+    private static final String DATE_RANGE = "\"beginDate\":\"2022-01-01\",\"endDate\":\"2121-01-01\",\"selfReliance\":0,\"maxRetryNum\":3";
+
+    private static final String[] SCHEDULE_CONFS = {
+            "{\"periodType\":0,\"beginHour\":0,\"endHour\":23,\"beginMin\":0,\"endMin\":59,\"gapMin\":5," + DATE_RANGE + "}",
+            "{\"periodType\":1,\"beginHour\":0,\"endHour\":23,\"beginMin\":15,\"endMin\":59,\"gapHour\":2," + DATE_RANGE + "}",
+            "{\"periodType\":2,\"hour\":1,\"min\":30," + DATE_RANGE + "}",
+            "{\"periodType\":3,\"hour\":8,\"min\":0,\"weekDay\":\"1,3,5\"," + DATE_RANGE + "}",
+            "{\"periodType\":4,\"hour\":6,\"min\":20,\"day\":\"1,15\"," + DATE_RANGE + "}",
+            "{\"periodType\":5,\"corn\":\"0 0/30 8-20 * * ?\"," + DATE_RANGE + "}",
+    };
+
+    @Benchmark
+    @OperationsPerInvocation(6)
+    public void parseFromJson(Blackhole blackhole) throws Exception {
+        for (String scheduleConf : SCHEDULE_CONFS) {
+            blackhole.consume(ScheduleConfManager.parseFromJson(scheduleConf));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ScheduleConfManagerBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,144 @@
+package com.dtstack.taier.benchmark;
+
+import com.cronutils.model.Cron;
+import com.cronutils.model.definition.CronDefinition;
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.text.SimpleDateFormat;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.cronutils.model.CronType.QUARTZ;
+
+/**
+ * 一天周期实例生成中cron计算部分的吞吐，每次调用生成 taskSize 个任务一天的实例:
+ * legacy 为每次调用都重新解析cron的旧实现，compiled 为编译缓存 + 批量计算执行时间；
+ * next、isMatch 为 taskSize 个任务各调用一次
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar ScheduleCornBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScheduleCornBenchmark {
+
+    private static final String[] CRONS = {
+            "0 30 1 * * ?",
+            "0 0/5 0-23 * * ?",
+            "0 15 0-23/2 * * ?",
+            "0 0 8 ? * 1,3,5",
+            "0 20 6 1,15 * ?",
+            "0 0/30 8-20 * * ?",
+    };
+
+    @Param({"1000"})
+    private int taskSize;
+
+    private ScheduleCorn[] corns;
+
+    private Date start;
+
+    private Date end;
+
+    @Setup
+    public void setup() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        start = format.parse("2022-03-01 00:00:00");
+        end = format.parse("2022-03-01 23:59:59");
+        corns = new ScheduleCorn[taskSize];
+        for (int i = 0; i < taskSize; i++) {
+            ScheduleCorn corn = new ScheduleCorn();
+            corn.setCron(CRONS[i % CRONS.length]);
+            corns[i] = corn;
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (ScheduleCorn corn : corns) {
+            String cron = corn.getCron();
+            Date next = legacyIsMatch(cron, start) ? start : legacyNext(cron, start);
+            while (next != null && !next.after(end)) {
+                // 生成实例时计算下一次执行时间
+                blackhole.consume(legacyNext(cron, next));
+                next = legacyNext(cron, next);
+            }
+        }
+    }
+
+    @Benchmark
+    public void compiled(Blackhole blackhole) {
+        for (ScheduleCorn corn : corns) {
+            List<Date> fireTimes = corn.fireTimes(start, end);
+            for (int i = 0; i < fireTimes.size(); i++) {
+                blackhole.consume(i + 1 < fireTimes.size() ? fireTimes.get(i + 1) : corn.next(fireTimes.get(i)));
+            }
+        }
+    }
+
+    /**
+     * 单次计算下一次执行时间
+     */
+    @Benchmark
+    public void next(Blackhole blackhole) {
+        for (ScheduleCorn corn : corns) {
+            blackhole.consume(corn.next(start));
+        }
+    }
+
+    /**
+     * 单次判断是否是执行时间
+     */
+    @Benchmark
+    public void isMatch(Blackhole blackhole) {
+        for (ScheduleCorn corn : corns) {
+            blackhole.consume(corn.isMatch(start));
+        }
+    }
+
+    private static Date legacyNext(String cron, Date date) {
+        ZonedDateTime zonedDateTime = legacyExecutionTime(cron).nextExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
+        return zonedDateTime == null ? null : Date.from(zonedDateTime.toInstant());
+    }
+
+    private static boolean legacyIsMatch(String cron, Date date) {
+        return legacyExecutionTime(cron).isMatch(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+    }
+
+    private static ExecutionTime legacyExecutionTime(String cron) {
+        CronDefinition cronDefinition = CronDefinitionBuilder.instanceDefinitionFor(QUARTZ);
+        Cron quartzCron = new CronParser(cronDefinition).parse(cron);
+        return ExecutionTime.forCron(quartzCron);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ScheduleCornBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
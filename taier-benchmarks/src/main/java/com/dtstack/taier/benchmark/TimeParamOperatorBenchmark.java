@@ -0,0 +1,60 @@
+package com.dtstack.taier.benchmark;
+
+import com.dtstack.taier.common.util.TimeParamOperator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单个时间参数的计算耗时: transform 为系统参数的写法，customize 为 $[...] 的自定义参数写法
+ * <p>
+ * 运行: java -jar taier-benchmarks/target/benchmarks.jar TimeParamOperatorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeParamOperatorBenchmark {
+
+    private static final String[] COMMANDS = {"yyyyMMdd-1", "yyyyMMddHHmmss", "yyyyMM-1", "yyyy-MM-dd,-1"};
+
+    private static final String[] CUSTOMIZE_COMMANDS = {"$[yyyyMMdd+7*1,'-']", "$[add_months(yyyyMM,-1)]", "$[hh24miss-4/24,'-']", "$[yyyyMMddHH,':']"};
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void transform(Blackhole blackhole) {
+        for (String command : COMMANDS) {
+            blackhole.consume(TimeParamOperator.transform(command, BenchmarkFixtures.CYC_TIME));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void customize(Blackhole blackhole) {
+        for (String command : CUSTOMIZE_COMMANDS) {
+            blackhole.consume(TimeParamOperator.dealCustomizeTimeOperator(command, BenchmarkFixtures.CYC_TIME));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(TimeParamOperatorBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
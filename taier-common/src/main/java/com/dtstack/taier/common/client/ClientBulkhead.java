@@ -0,0 +1,215 @@
+package com.dtstack.taier.common.client;
+
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * @Date: 2026/10/17 11:58 PM
+ * @Description: 插件客户端的隔离执行器
+ * <p>
+ * 每个 ClientProxy（一个集群配置或者一个插件的默认客户端）一个执行器，线程数和排队数都有上限，
+ * 某个集群的 RM、JobManager 卡住只会占满自己的执行器，满了之后新的调用直接拒绝，不影响其他集群。
+ * 超时的调用会中断执行线程。
+ * <p>
+ * 开启 client.executor.virtual 并且运行在 JDK 21 及以上时使用虚拟线程，同时执行的调用数仍然受限
+ */
+public class ClientBulkhead {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientBulkhead.class);
+
+    private static volatile int defaultThreads = 10;
+
+    private static volatile int defaultQueueSize = 100;
+
+    private static volatile long defaultTimeout = 300000;
+
+    private static volatile Map<String, Long> methodTimeouts = Collections.emptyMap();
+
+    private static volatile boolean virtualThread = false;
+
+    private final String name;
+
+    private final ExecutorService executor;
+
+    /**
+     * 使用虚拟线程时限制同时执行的调用数，线程池执行时为 null
+     */
+    private final Semaphore permits;
+
+    private final ClientMetrics metrics;
+
+    private final Map<String, MetricTimer> methodTimers = new ConcurrentHashMap<>();
+
+    private final long timeout;
+
+    private final Map<String, Long> timeouts;
+
+    /**
+     * 设置之后新建的执行器的参数
+     *
+     * @param threads       每个执行器的最大线程数
+     * @param queueSize     每个执行器的最大排队数
+     * @param timeout       默认超时时间，毫秒
+     * @param methodTimeout 方法的超时时间，例如 getJobStatus=60000,getJobLog=60000
+     * @param virtual       是否使用虚拟线程
+     */
+    public static void configure(int threads, int queueSize, long timeout, String methodTimeout, boolean virtual) {
+        defaultThreads = Math.max(1, threads);
+        defaultQueueSize = Math.max(0, queueSize);
+        defaultTimeout = timeout;
+        methodTimeouts = parseMethodTimeouts(methodTimeout);
+        virtualThread = virtual;
+    }
+
+    public ClientBulkhead(String name, String pluginName) {
+        this(name, pluginName, defaultThreads, defaultQueueSize, defaultTimeout, methodTimeouts, virtualThread);
+    }
+
+    public ClientBulkhead(String name, String pluginName, int threads, int queueSize, long timeout,
+                          Map<String, Long> timeouts, boolean virtual) {
+        this.name = name;
+        this.metrics = ClientMetrics.get(pluginName);
+        this.timeout = timeout;
+        this.timeouts = timeouts;
+        ExecutorService virtualExecutor = virtual ? newVirtualThreadExecutor() : null;
+        if (virtualExecutor != null) {
+            this.executor = virtualExecutor;
+            this.permits = new Semaphore(threads + queueSize);
+        } else {
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    queueSize > 0 ? new ArrayBlockingQueue<>(queueSize) : new SynchronousQueue<>(),
+                    new CustomThreadFactory(name), new ThreadPoolExecutor.AbortPolicy());
+            // 空闲的集群不占用线程
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            this.executor = threadPoolExecutor;
+            this.permits = null;
+        }
+    }
+
+    /**
+     * 在执行器中调用并等待结果，执行器满时直接拒绝
+     *
+     * @param method 方法名，用于获取超时时间
+     * @throws RejectedExecutionException 执行器已满或者已经关闭
+     */
+    public <T> T call(String method, Callable<T> callable) throws InterruptedException, ExecutionException, TimeoutException {
+        Future<T> future = submit(method, callable);
+        long startTime = System.nanoTime();
+        metrics.recordStart();
+        boolean success = false;
+        try {
+            T result = future.get(getTimeout(method), TimeUnit.MILLISECONDS);
+            success = true;
+            return result;
+        } catch (TimeoutException e) {
+            metrics.recordTimeout();
+            future.cancel(true);
+            LOGGER.warn("{} call {} timeout after {}ms", name, method, getTimeout(method));
+            throw e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } finally {
+            long latency = System.nanoTime() - startTime;
+            metrics.recordEnd(TimeUnit.NANOSECONDS.toMillis(latency), success);
+            methodTimers.computeIfAbsent(method, metrics::methodTimer).record(latency, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public long getTimeout(String method) {
+        Long methodTimeout = timeouts.get(method);
+        return methodTimeout == null ? timeout : methodTimeout;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> Future<T> submit(String method, Callable<T> callable) {
+        if (permits == null) {
+            try {
+                return executor.submit(callable);
+            } catch (RejectedExecutionException e) {
+                throw reject(method);
+            }
+        }
+        if (!permits.tryAcquire()) {
+            throw reject(method);
+        }
+        try {
+            return executor.submit(() -> {
+                try {
+                    return callable.call();
+                } finally {
+                    permits.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            throw reject(method);
+        }
+    }
+
+    private RejectedExecutionException reject(String method) {
+        metrics.recordReject();
+        if (executor.isShutdown()) {
+            return new RejectedExecutionException(String.format("%s is closed, reject call %s", name, method));
+        }
+        LOGGER.warn("{} is full, reject call {}", name, method);
+        return new RejectedExecutionException(String.format("%s is full, reject call %s", name, method));
+    }
+
+    /**
+     * 通过反射创建，编译和运行在 JDK 21 以下时返回 null，使用线程池
+     */
+    private ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            LOGGER.warn("{} virtual thread is not supported by java {}, use thread pool", name, System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    private static Map<String, Long> parseMethodTimeouts(String methodTimeout) {
+        if (StringUtils.isBlank(methodTimeout)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Long> timeouts = new HashMap<>();
+        for (String entry : methodTimeout.split(",")) {
+            int index = entry.indexOf('=');
+            if (index <= 0) {
+                throw new RdosDefineException("client.method.timeout is error, Please enter: for example, getJobStatus=60000,getJobLog=60000");
+            }
+            try {
+                timeouts.put(entry.substring(0, index).trim(), Long.parseLong(entry.substring(index + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new RdosDefineException("client.method.timeout is error, timeout must be long: " + entry);
+            }
+        }
+        return timeouts;
+    }
+}
@@ -20,19 +20,27 @@ package com.dtstack.taier.common.client;
 
 import com.alibaba.fastjson.JSONObject;
 import com.dtstack.taier.common.exception.ClientAccessException;
+import com.dtstack.taier.common.client.ClientLease.RefCountedClient;
 import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
 import com.dtstack.taier.pluginapi.client.IClient;
 import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
 import com.dtstack.taier.pluginapi.util.MD5Util;
 import com.dtstack.taier.pluginapi.util.MathUtil;
 import com.dtstack.taier.pluginapi.util.PublicUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 插件客户端
@@ -48,11 +56,41 @@ public class ClientCache {
 
     private static final String MD5_SUM_KEY = "md5sum";
     private static final String MD5_ZIP_KEY = "md5zip";
+
+    /**
+     * 客户端空闲超过这个时间后淘汰并关闭
+     */
+    private static final long CLIENT_IDLE_TIMEOUT_MINUTES = 60;
+
+    /**
+     * pluginInfo 可能有上百KB，只缓存有限个
+     */
+    private static final int MAX_FINGERPRINT_SIZE = 100;
+
     private String pluginPath;
 
     private Map<String, IClient> defaultClientMap = Maps.newConcurrentMap();
 
-    private Map<String, Map<String, IClient>> cache = Maps.newConcurrentMap();
+    /**
+     * key: typeName + md5sum
+     */
+    private final Cache<String, RefCountedClient> cache = CacheBuilder.newBuilder()
+            .expireAfterAccess(CLIENT_IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+            .removalListener(this::evictClient)
+            .build();
+
+    /**
+     * 没有被淘汰的客户端，采集插件指标时读取，不影响 cache 的访问时间
+     */
+    private final Map<String, RefCountedClient> liveClients = Maps.newConcurrentMap();
+
+    /**
+     * key: pluginInfo, value: 客户端的key，相同的 pluginInfo 不再重复解析和计算md5
+     */
+    private final Cache<String, String> fingerprintCache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_FINGERPRINT_SIZE)
+            .expireAfterAccess(CLIENT_IDLE_TIMEOUT_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     private static ClientCache singleton = new ClientCache();
 
@@ -65,17 +103,36 @@ public class ClientCache {
     }
 
     /**
+     * 借出客户端，调用结束后需要 close 归还，未归还的客户端被淘汰时不会关闭
      *
      * @param pluginInfo 集群配置信息
      * @return
      */
-    public IClient getClient(String pluginInfo) throws ClientAccessException {
+    public ClientLease acquire(String pluginInfo) throws ClientAccessException {
+        for (;;) {
+            // 取到的客户端刚好被淘汰并关闭时重新获取
+            ClientLease lease = getClient(pluginInfo).retain();
+            if (lease != null) {
+                return lease;
+            }
+        }
+    }
+
+    private RefCountedClient getClient(String pluginInfo) throws ClientAccessException {
         String typeName = "";
         try {
             if (StringUtils.isBlank(pluginInfo)) {
                 throw new RdosDefineException("plugin info is empty");
             }
 
+            String clientKey = fingerprintCache.getIfPresent(pluginInfo);
+            if (clientKey != null) {
+                RefCountedClient client = cache.getIfPresent(clientKey);
+                if (client != null) {
+                    return client;
+                }
+            }
+
             Properties properties = PublicUtil.jsonStrToObjectWithOutNull(pluginInfo, Properties.class);
             typeName = properties.getProperty(ConfigConstant.TYPE_NAME_KEY);
             if (StringUtils.isBlank(typeName)) {
@@ -92,26 +149,56 @@ public class ClientCache {
                 properties.setProperty(MD5_SUM_KEY, md5sum);
             }
 
-            Map<String, IClient> clientMap = cache.computeIfAbsent(typeName, k -> Maps.newConcurrentMap());
-            IClient client = clientMap.get(md5sum);
-            if (client == null) {
-                synchronized (clientMap) {
-                    client = clientMap.get(md5sum);
-                    if (client == null) {
-                        client = ClientFactory.buildPluginClient(pluginInfo, pluginPath);
-                        client.init(properties);
-                        clientMap.putIfAbsent(md5sum, client);
-                    }
-                }
-            }
-
+            clientKey = typeName + "_" + md5sum;
+            String key = clientKey;
+            String pluginName = typeName;
+            RefCountedClient client = cache.get(clientKey, () -> {
+                IClient pluginClient = ClientFactory.buildPluginClient(pluginInfo, pluginPath);
+                pluginClient.init(properties);
+                RefCountedClient refCountedClient = new RefCountedClient(key, pluginClient);
+                liveClients.put(key, refCountedClient);
+                registerPluginMetrics(pluginName, key, pluginClient);
+                return refCountedClient;
+            });
+            fingerprintCache.put(pluginInfo, clientKey);
             return client;
         } catch (Throwable e) {
+            if ((e instanceof ExecutionException || e instanceof UncheckedExecutionException) && e.getCause() != null) {
+                e = e.getCause();
+            }
             LOGGER.error("------- typeName {}  plugin info {} get client error ", typeName, pluginInfo, e);
             throw new ClientAccessException(e);
         }
     }
 
+    /**
+     * 配置变更或者长时间不用的客户端被淘汰后，等正在进行的调用全部归还再关闭，释放客户端的线程池
+     */
+    private void evictClient(RemovalNotification<String, RefCountedClient> notification) {
+        LOGGER.info("client:{} is removed, cause:{}", notification.getKey(), notification.getCause());
+        liveClients.remove(notification.getKey(), notification.getValue());
+        notification.getValue().evict();
+    }
+
+    /**
+     * 插件内部的统计注册为 gauge，客户端被淘汰后不再输出，相同配置重新创建客户端后继续输出
+     */
+    private void registerPluginMetrics(String typeName, String clientKey, IClient client) {
+        Map<String, Number> metrics;
+        try {
+            metrics = client.getMetrics();
+        } catch (Throwable e) {
+            LOGGER.warn("client:{} get metrics error", clientKey, e);
+            return;
+        }
+        for (String name : metrics.keySet()) {
+            MetricRegistry.gauge("taier_plugin_" + name, "plugin client internal metric", () -> {
+                RefCountedClient refCountedClient = liveClients.get(clientKey);
+                return refCountedClient == null ? null : refCountedClient.getClient().getMetrics().get(name);
+            }, "plugin", typeName, "client", clientKey);
+        }
+    }
+
     public IClient getDefaultPlugin(String typeName) {
         IClient defaultClient = defaultClientMap.get(typeName);
         try {
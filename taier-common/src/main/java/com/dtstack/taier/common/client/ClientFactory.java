@@ -43,6 +43,10 @@ public class ClientFactory {
     private static Map<String, ClassLoader> pluginClassLoader = Maps.newConcurrentMap();
 
     public static IClient createPluginClass(ClassLoader classLoader) throws Exception {
+        return createPluginClass(classLoader, null);
+    }
+
+    public static IClient createPluginClass(ClassLoader classLoader, String typeName) throws Exception {
         return ClassLoaderCallBackMethod.callbackAndReset(()-> {
             ServiceLoader<IClient> serviceLoader = ServiceLoader.load(IClient.class);
 
@@ -52,7 +56,8 @@ public class ClientFactory {
             if (matchingClient.size() != 1) {
                 throw new RuntimeException("zero or more than one plugin client found" + matchingClient);
             }
-            return new ClientProxy(matchingClient.get(0));
+            IClient client = matchingClient.get(0);
+            return new ClientProxy(client, StringUtils.isBlank(typeName) ? client.getClass().getSimpleName() : typeName);
         }, classLoader, true);
     }
 
@@ -72,7 +77,7 @@ public class ClientFactory {
             return createDtClassLoader(pluginFile);
         });
 
-        return ClientFactory.createPluginClass(classLoader);
+        return ClientFactory.createPluginClass(classLoader, clientTypeStr);
     }
 
 
@@ -0,0 +1,106 @@
+package com.dtstack.taier.common.client;
+
+import com.dtstack.taier.pluginapi.client.IClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @Date: 2026/10/18 10:20 AM
+ * @Description: 从 ClientCache 借出的插件客户端，调用结束后 close 归还
+ * <p>
+ * 客户端被淘汰时如果还有未归还的租约不会立即关闭，最后一个租约归还时再关闭
+ */
+public class ClientLease implements AutoCloseable {
+
+    private final RefCountedClient refCountedClient;
+
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    ClientLease(RefCountedClient refCountedClient) {
+        this.refCountedClient = refCountedClient;
+    }
+
+    public IClient getClient() {
+        return refCountedClient.client;
+    }
+
+    @Override
+    public void close() {
+        if (released.compareAndSet(false, true)) {
+            refCountedClient.release();
+        }
+    }
+
+    /**
+     * 缓存中的客户端和正在使用它的调用数
+     */
+    static class RefCountedClient {
+
+        private static final Logger LOGGER = LoggerFactory.getLogger(RefCountedClient.class);
+
+        private final String key;
+
+        private final IClient client;
+
+        /**
+         * 未归还的租约数，-1 表示已经关闭
+         */
+        private final AtomicInteger refCount = new AtomicInteger();
+
+        private volatile boolean evicted;
+
+        RefCountedClient(String key, IClient client) {
+            this.key = key;
+            this.client = client;
+        }
+
+        IClient getClient() {
+            return client;
+        }
+
+        /**
+         * @return 已经关闭时返回 null，需要重新从缓存获取
+         */
+        ClientLease retain() {
+            for (;;) {
+                int count = refCount.get();
+                if (count < 0) {
+                    return null;
+                }
+                if (refCount.compareAndSet(count, count + 1)) {
+                    return new ClientLease(this);
+                }
+            }
+        }
+
+        void release() {
+            if (refCount.decrementAndGet() == 0 && evicted) {
+                closeIfIdle();
+            }
+        }
+
+        /**
+         * 从缓存淘汰，没有未归还的租约时立即关闭
+         */
+        void evict() {
+            evicted = true;
+            closeIfIdle();
+        }
+
+        private void closeIfIdle() {
+            if (!refCount.compareAndSet(0, -1) || !(client instanceof Closeable)) {
+                return;
+            }
+            try {
+                LOGGER.info("client:{} is evicted and idle, close it", key);
+                ((Closeable) client).close();
+            } catch (Exception e) {
+                LOGGER.warn("close client:{} error", key, e);
+            }
+        }
+    }
+}
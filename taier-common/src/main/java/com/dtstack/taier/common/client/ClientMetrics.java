@@ -0,0 +1,131 @@
+package com.dtstack.taier.common.client;
+
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date: 2026/10/17 11:58 PM
+ * @Description: 插件客户端调用的统计，按插件(typeName)汇总同一插件下所有集群的调用，
+ * 同时注册到 MetricRegistry 输出
+ */
+public class ClientMetrics {
+
+    private static final Map<String, ClientMetrics> PLUGIN_METRICS = new ConcurrentHashMap<>();
+
+    private final String pluginName;
+
+    private final LongAdder callCount;
+
+    private final LongAdder failCount;
+
+    private final LongAdder timeoutCount;
+
+    private final LongAdder rejectCount;
+
+    private final LongAdder totalLatency = new LongAdder();
+
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+
+    private ClientMetrics(String pluginName) {
+        this.pluginName = pluginName;
+        this.callCount = MetricRegistry.counter("taier_client_calls_total", "plugin client calls", "plugin", pluginName);
+        this.failCount = MetricRegistry.counter("taier_client_failures_total", "plugin client failed or timeout calls", "plugin", pluginName);
+        this.timeoutCount = MetricRegistry.counter("taier_client_timeouts_total", "plugin client timeout calls", "plugin", pluginName);
+        this.rejectCount = MetricRegistry.counter("taier_client_rejections_total", "plugin client calls rejected by full executor", "plugin", pluginName);
+        MetricRegistry.gauge("taier_client_active_calls", "plugin client calls waiting for result", activeCount::get, "plugin", pluginName);
+    }
+
+    /**
+     * 方法的耗时统计，同一插件所有集群共用
+     */
+    MetricTimer methodTimer(String method) {
+        return MetricRegistry.timer("taier_client_call_seconds", "plugin client call latency", "plugin", pluginName, "method", method);
+    }
+
+    public static ClientMetrics get(String pluginName) {
+        return PLUGIN_METRICS.computeIfAbsent(pluginName, ClientMetrics::new);
+    }
+
+    /**
+     * @return key: 插件名称
+     */
+    public static Map<String, ClientMetrics> getAll() {
+        return Collections.unmodifiableMap(PLUGIN_METRICS);
+    }
+
+    void recordStart() {
+        activeCount.incrementAndGet();
+    }
+
+    /**
+     * 调用结束，包括正常返回、异常和超时
+     *
+     * @param latency 调用耗时，毫秒
+     */
+    void recordEnd(long latency, boolean success) {
+        activeCount.decrementAndGet();
+        callCount.increment();
+        if (!success) {
+            failCount.increment();
+        }
+        totalLatency.add(latency);
+        maxLatency.accumulateAndGet(latency, Math::max);
+    }
+
+    void recordTimeout() {
+        timeoutCount.increment();
+    }
+
+    void recordReject() {
+        rejectCount.increment();
+    }
+
+    public String getPluginName() {
+        return pluginName;
+    }
+
+    public long getCallCount() {
+        return callCount.sum();
+    }
+
+    public long getFailCount() {
+        return failCount.sum();
+    }
+
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+
+    public long getRejectCount() {
+        return rejectCount.sum();
+    }
+
+    public long getTotalLatency() {
+        return totalLatency.sum();
+    }
+
+    public long getAvgLatency() {
+        long count = callCount.sum();
+        return count == 0 ? 0 : totalLatency.sum() / count;
+    }
+
+    public long getMaxLatency() {
+        return maxLatency.get();
+    }
+
+    /**
+     * 正在执行的调用数
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+}
@@ -32,7 +32,9 @@ import com.google.common.base.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -75,8 +77,10 @@ public class ClientOperator {
         }
 
         try {
-            IClient client = clientCache.getClient(pluginInfo);
-            Object result = client.getJobStatus(jobIdentifier);
+            Object result;
+            try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+                result = lease.getClient().getJobStatus(jobIdentifier);
+            }
 
             if (result == null) {
                 return null;
@@ -89,14 +93,39 @@ public class ClientOperator {
         }
     }
 
+    /**
+     * 同一个集群(pluginInfo)下的任务批量获取状态
+     *
+     * @return key: jobId, 查询异常时为 NOTFOUND
+     */
+    public Map<String, TaskStatus> getJobStatuses(String pluginInfo, List<JobIdentifier> jobIdentifiers) {
+        if (null == pluginInfo || null == jobIdentifiers) {
+            throw new IllegalArgumentException("pluginInfo|jobIdentifiers is null.");
+        }
+
+        try {
+            try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+                Map<String, TaskStatus> statuses = lease.getClient().getJobStatuses(jobIdentifiers);
+                if (statuses != null) {
+                    return statuses;
+                }
+            }
+        } catch (Exception e) {
+            LOGGER.error("getStatuses happens error, job size:{}", jobIdentifiers.size(), e);
+        }
+        Map<String, TaskStatus> notFound = new HashMap<>(jobIdentifiers.size() * 2);
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            notFound.put(jobIdentifier.getJobId(), TaskStatus.NOTFOUND);
+        }
+        return notFound;
+    }
 
     public String getEngineLog(String pluginInfo, JobIdentifier jobIdentifier) {
         checkoutOperator(pluginInfo, jobIdentifier);
 
         String logInfo;
-        try {
-            IClient client = clientCache.getClient(pluginInfo);
-            logInfo = client.getJobLog(jobIdentifier);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            logInfo = lease.getClient().getJobLog(jobIdentifier);
         } catch (Exception e) {
             logInfo = ExceptionUtil.getErrorMessage(e);
         }
@@ -106,9 +135,8 @@ public class ClientOperator {
 
     public String getCheckpoints(String pluginInfo, JobIdentifier jobIdentifier) {
         checkoutOperator(pluginInfo, jobIdentifier);
-        try {
-            IClient client = clientCache.getClient(pluginInfo);
-            return client.getCheckpoints(jobIdentifier);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().getCheckpoints(jobIdentifier);
         } catch (Exception e) {
             throw new RdosDefineException("get job checkpoints:" + jobIdentifier.getEngineJobId() + " exception:" + ExceptionUtil.getErrorMessage(e));
         }
@@ -125,8 +153,9 @@ public class ClientOperator {
         checkoutOperator(jobClient.getPluginInfo(), jobIdentifier);
 
         jobIdentifier.setTimeout(getCheckoutTimeout(jobClient));
-        IClient client = clientCache.getClient(jobClient.getPluginInfo());
-        return client.cancelJob(jobIdentifier);
+        try (ClientLease lease = clientCache.acquire(jobClient.getPluginInfo())) {
+            return lease.getClient().cancelJob(jobIdentifier);
+        }
     }
 
     public Long getCheckoutTimeout(JobClient jobClient) {
@@ -150,13 +179,15 @@ public class ClientOperator {
     }
 
     public JudgeResult judgeSlots(JobClient jobClient) throws ClientAccessException {
-        IClient clusterClient = clientCache.getClient(jobClient.getPluginInfo());
-        return clusterClient.judgeSlots(jobClient);
+        try (ClientLease lease = clientCache.acquire(jobClient.getPluginInfo())) {
+            return lease.getClient().judgeSlots(jobClient);
+        }
     }
 
     public JobResult submitJob(JobClient jobClient) throws ClientAccessException {
-        IClient clusterClient = clientCache.getClient(jobClient.getPluginInfo());
-        return clusterClient.submitJob(jobClient);
+        try (ClientLease lease = clientCache.acquire(jobClient.getPluginInfo())) {
+            return lease.getClient().submitJob(jobClient);
+        }
     }
 
     public ComponentTestResult testConnect(String pluginInfo){
@@ -167,38 +198,42 @@ public class ClientOperator {
     }
 
     public List<List<Object>> executeQuery(String pluginInfo, String sql, String database) throws Exception {
-        IClient client = clientCache.getClient(pluginInfo);
-        return client.executeQuery(sql, database);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().executeQuery(sql, database);
+        }
     }
 
     public String uploadStringToHdfs(String pluginInfo, String bytes, String hdfsPath) throws Exception {
-        IClient client = clientCache.getClient(pluginInfo);
-        return client.uploadStringToHdfs(bytes, hdfsPath);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().uploadStringToHdfs(bytes, hdfsPath);
+        }
     }
 
     public ClusterResource getClusterResource(String pluginInfo) throws ClientAccessException{
-        IClient client = clientCache.getClient(pluginInfo);
-        return client.getClusterResource();
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().getClusterResource();
+        }
     }
 
     public List<FileResult> listFile(String path,boolean isPathPattern, String pluginInfo) throws Exception {
-        IClient client = clientCache.getClient(pluginInfo);
-        return client.listFile(path,isPathPattern);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().listFile(path,isPathPattern);
+        }
     }
 
 
     public List<String> getRollingLogBaseInfo(String pluginInfo, JobIdentifier jobIdentifier) {
         checkoutOperator(pluginInfo, jobIdentifier);
-        try {
-            IClient client = clientCache.getClient(pluginInfo);
-            return client.getRollingLogBaseInfo(jobIdentifier);
+        try (ClientLease lease = clientCache.acquire(pluginInfo)) {
+            return lease.getClient().getRollingLogBaseInfo(jobIdentifier);
         } catch (Exception e) {
             throw new RdosDefineException("get job rollingLogBaseInfo:" + jobIdentifier.getEngineJobId() + " exception:" + ExceptionUtil.getErrorMessage(e));
         }
     }
 
     public CheckResult grammarCheck(JobClient jobClient) throws ClientAccessException {
-        IClient clusterClient = clientCache.getClient(jobClient.getPluginInfo());
-        return clusterClient.grammarCheck(jobClient);
+        try (ClientLease lease = clientCache.acquire(jobClient.getPluginInfo())) {
+            return lease.getClient().grammarCheck(jobClient);
+        }
     }
 }
@@ -20,7 +20,6 @@ package com.dtstack.taier.common.client;
 
 import com.dtstack.taier.common.exception.LimitResourceException;
 import com.dtstack.taier.common.exception.RdosDefineException;
-import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.JobClient;
 import com.dtstack.taier.pluginapi.JobIdentifier;
 import com.dtstack.taier.pluginapi.callback.CallBack;
@@ -33,10 +32,15 @@ import com.dtstack.taier.pluginapi.pojo.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
-import java.util.concurrent.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 代理IClient实现类的proxy
@@ -46,26 +50,30 @@ import java.util.concurrent.*;
  * @author xuchao
  */
 
-public class ClientProxy implements IClient {
+public class ClientProxy implements IClient, Closeable {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientProxy.class);
 
     private IClient targetClient;
 
-    private ExecutorService executorService;
-
-    private long timeout = 300000;
+    private ClientBulkhead bulkhead;
 
     public ClientProxy(IClient targetClient) {
+        this(targetClient, targetClient.getClass().getSimpleName());
+    }
+
+    /**
+     * @param pluginName 插件名称(typeName)，同一插件下所有集群的调用汇总统计
+     */
+    public ClientProxy(IClient targetClient, String pluginName) {
         this.targetClient = targetClient;
-        executorService = new ThreadPoolExecutor(10, 10, 0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory(targetClient.getClass().getSimpleName() + "_" + this.getClass().getSimpleName()));
+        this.bulkhead = new ClientBulkhead(pluginName + "_" + this.getClass().getSimpleName(), pluginName);
     }
 
     @Override
     public void init(Properties prop) throws Exception {
         try {
-            CompletableFuture.supplyAsync(() -> {
+            bulkhead.call("init", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
                         @Override
@@ -77,10 +85,10 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
+            });
         } catch (Exception e) {
             // 初始化失败,关闭线程池
-            executorService.shutdown();
+            bulkhead.shutdown();
             throw new RdosDefineException(e);
         }
     }
@@ -88,7 +96,7 @@ public class ClientProxy implements IClient {
     @Override
     public JobResult submitJob(JobClient jobClient) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("submitJob", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<JobResult>() {
 
@@ -100,8 +108,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -109,7 +117,7 @@ public class ClientProxy implements IClient {
     @Override
     public JobResult cancelJob(JobIdentifier jobIdentifier) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("cancelJob", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<JobResult>() {
 
@@ -121,8 +129,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -130,7 +138,7 @@ public class ClientProxy implements IClient {
     @Override
     public TaskStatus getJobStatus(JobIdentifier jobIdentifier) throws IOException {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getJobStatus", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<TaskStatus>() {
 
@@ -142,8 +150,29 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
+            throw new RdosDefineException(e);
+        }
+    }
+
+    @Override
+    public Map<String, TaskStatus> getJobStatuses(Collection<JobIdentifier> jobIdentifiers) throws IOException {
+        try {
+            return bulkhead.call("getJobStatuses", () -> {
+                try {
+                    return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<Map<String, TaskStatus>>() {
+
+                        @Override
+                        public Map<String, TaskStatus> execute() throws Exception {
+                            return targetClient.getJobStatuses(jobIdentifiers);
+                        }
+                    }, targetClient.getClass().getClassLoader(), true);
+                } catch (Exception e) {
+                    throw new RdosDefineException(e);
+                }
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -151,7 +180,7 @@ public class ClientProxy implements IClient {
     @Override
     public String getJobMaster(JobIdentifier jobIdentifier) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getJobMaster", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
 
@@ -163,8 +192,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -172,7 +201,7 @@ public class ClientProxy implements IClient {
     @Override
     public String getMessageByHttp(String path) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getMessageByHttp", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
 
@@ -184,8 +213,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -193,7 +222,7 @@ public class ClientProxy implements IClient {
     @Override
     public String getJobLog(JobIdentifier jobIdentifier) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getJobLog", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
 
@@ -205,8 +234,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -214,7 +243,7 @@ public class ClientProxy implements IClient {
     @Override
     public JudgeResult judgeSlots(JobClient jobClient) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("judgeSlots", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<JudgeResult>() {
 
@@ -226,7 +255,10 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     return getJudgeResultWithException(e, e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
+            });
+        } catch (RejectedExecutionException e) {
+            // 集群的调用已经排满，按资源不足处理，稍后重试
+            return JudgeResult.notOk(e.getMessage());
         } catch (InterruptedException | ExecutionException | TimeoutException e) {
             return getJudgeResultWithException(e, e.getCause());
         }
@@ -247,7 +279,7 @@ public class ClientProxy implements IClient {
     @Override
     public String getCheckpoints(JobIdentifier jobIdentifier) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getCheckpoints", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
 
@@ -259,8 +291,8 @@ public class ClientProxy implements IClient {
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -268,15 +300,15 @@ public class ClientProxy implements IClient {
     @Override
     public ComponentTestResult testConnect(String pluginInfo) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("testConnect", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.testConnect(pluginInfo),
                             targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -284,15 +316,15 @@ public class ClientProxy implements IClient {
     @Override
     public List<List<Object>> executeQuery(String sql, String database) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("executeQuery", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.executeQuery(sql,database),
                             targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -300,15 +332,15 @@ public class ClientProxy implements IClient {
     @Override
     public String uploadStringToHdfs(String bytes, String hdfsPath) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("uploadStringToHdfs", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.uploadStringToHdfs(bytes,hdfsPath),
                             targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -316,15 +348,15 @@ public class ClientProxy implements IClient {
     @Override
     public ClusterResource getClusterResource() {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("getClusterResource", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.getClusterResource(),
                             targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -342,14 +374,14 @@ public class ClientProxy implements IClient {
     @Override
     public CheckResult grammarCheck(JobClient jobClient) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("grammarCheck", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.grammarCheck(jobClient), targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
@@ -357,16 +389,44 @@ public class ClientProxy implements IClient {
     @Override
     public List<FileResult> listFile(String path,boolean isPathPattern) {
         try {
-            return CompletableFuture.supplyAsync(() -> {
+            return bulkhead.call("listFile", () -> {
                 try {
                     return ClassLoaderCallBackMethod.callbackAndReset(() -> targetClient.listFile(path,isPathPattern), targetClient.getClass().getClassLoader(), true);
                 } catch (Exception e) {
                     throw new RdosDefineException(e);
                 }
-            }, executorService).get(timeout, TimeUnit.MILLISECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
+            });
+        } catch (InterruptedException | ExecutionException | TimeoutException | RejectedExecutionException e) {
             throw new RdosDefineException(e);
         }
     }
 
+    /**
+     * 只读取插件内存中的统计，不经过线程池
+     */
+    @Override
+    public Map<String, Number> getMetrics() {
+        return targetClient.getMetrics();
+    }
+
+    /**
+     * 关闭线程池，已经提交的调用会继续执行完成
+     */
+    @Override
+    public void close() {
+        bulkhead.shutdown();
+        if (targetClient instanceof AutoCloseable) {
+            try {
+                ClassLoaderCallBackMethod.callbackAndReset(new CallBack<String>() {
+                    @Override
+                    public String execute() throws Exception {
+                        ((AutoCloseable) targetClient).close();
+                        return null;
+                    }
+                }, targetClient.getClass().getClassLoader(), true);
+            } catch (Exception e) {
+                LOGGER.warn("close client:{} error", targetClient.getClass().getName(), e);
+            }
+        }
+    }
 }
@@ -19,6 +19,7 @@
 package com.dtstack.taier.common.env;
 
 import com.dtstack.dtcenter.loader.client.ClientCache;
+import com.dtstack.taier.common.client.ClientBulkhead;
 import com.dtstack.taier.common.util.AddressUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.InitializingBean;
@@ -70,12 +71,66 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${nodeZkAddress:}")
     private String nodeZkAddress;
 
+    @Value("${zk.broker.alive.timeout:20000}")
+    private long brokerAliveTimeout;
+
+    @Value("${job.partition.strategy:queueSize}")
+    private String jobPartitionStrategy;
+
+    @Value("${job.partition.node.weights:}")
+    private String jobPartitionNodeWeights;
+
+    @Value("${job.partition.virtual.nodes:160}")
+    private int jobPartitionVirtualNodes;
+
+    @Value("${failover.thread:4}")
+    private int failoverThread;
+
+    @Value("${failover.batch.size:500}")
+    private int failoverBatchSize;
+
+    @Value("${failover.notify.timeout:10000}")
+    private long failoverNotifyTimeout;
+
+    @Value("${queue.refill.low.watermark:0.5}")
+    private double queueRefillLowWatermark;
+
+    @Value("${queue.refill.interval:60000}")
+    private long queueRefillInterval;
+
+    @Value("${job.delay.timer.tick:100}")
+    private long jobDelayTimerTick;
+
+    @Value("${job.delay.timer.wheel.size:512}")
+    private int jobDelayTimerWheelSize;
+
+    @Value("${client.executor.threads:10}")
+    private int clientExecutorThreads;
+
+    @Value("${client.executor.queue.size:100}")
+    private int clientExecutorQueueSize;
+
+    @Value("${client.executor.virtual:false}")
+    private boolean clientExecutorVirtual;
+
+    @Value("${client.timeout:300000}")
+    private long clientTimeout;
+
+    @Value("${client.method.timeout:getJobStatus=60000,getJobStatuses=60000,getJobLog=60000,getCheckpoints=60000}")
+    private String clientMethodTimeout;
+
     @Value("${job.graph.build.cron:22:00:00}")
     private String jobGraphBuildCron;
 
     @Value("${job.acquire.queue.job.interval:3000}")
     private int jobAcquireQueueJobInterval;
 
+    @Value("${job.dependency.index.size:200000}")
+    private int jobDependencyIndexSize;
+
+    @Value("${job.dependency.reconcile.interval:60000}")
+    private long jobDependencyReconcileInterval;
+
     @Value("${job.cyc.time.gap:2}")
     private int jobCycTimeGap;
 
@@ -142,6 +197,27 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${task.status.dealer.pool.size:5}")
     private int taskStatusDealerPoolSize;
 
+    @Value("${task.status.batch.size:200}")
+    private int taskStatusBatchSize;
+
+    @Value("${job.submitted.consumer.size:4}")
+    private int jobSubmittedConsumerSize;
+
+    @Value("${job.submitted.batch.size:100}")
+    private int jobSubmittedBatchSize;
+
+    @Value("${job.submitted.flush.window:50}")
+    private long jobSubmittedFlushWindow;
+
+    @Value("${job.state.journal.enabled:true}")
+    private boolean jobStateJournalEnabled;
+
+    @Value("${job.state.journal.flush.window:200}")
+    private long jobStateJournalFlushWindow;
+
+    @Value("${job.state.journal.batch.size:500}")
+    private int jobStateJournalBatchSize;
+
     @Value("${test.connect.timeout:60}")
     private int testConnectTimeout;
 
@@ -163,6 +239,9 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${fork.join.timeout:300}")
     private Long forkJoinResultTimeOut;
 
+    @Value("${restart.query.batch.size:1000}")
+    private Integer restartQueryBatchSize;
+
     @Value("${job.schedule:true}")
     private boolean openJobSchedule;
 
@@ -226,6 +305,12 @@ public class EnvironmentContext implements InitializingBean {
     @Value("${job.graph.task.limit.size:50}")
     private Integer jobGraphTaskLimitSize;
 
+    @Value("${job.graph.writer.size:4}")
+    private Integer jobGraphWriterSize;
+
+    @Value("${job.graph.writer.queue.size:20000}")
+    private Integer jobGraphWriterQueueSize;
+
     @Value("${select.limit:50}")
     private Integer selectLimit;
 
@@ -253,6 +338,7 @@ public class EnvironmentContext implements InitializingBean {
     @Override
     public void afterPropertiesSet() throws Exception {
         ClientCache.setUserDir(getDataSourcePluginPath());
+        ClientBulkhead.configure(clientExecutorThreads, clientExecutorQueueSize, clientTimeout, clientMethodTimeout, clientExecutorVirtual);
     }
 
     private volatile String localAddress;
@@ -325,6 +411,70 @@ public class EnvironmentContext implements InitializingBean {
         return nodeZkAddress;
     }
 
+    public long getBrokerAliveTimeout() {
+        return brokerAliveTimeout;
+    }
+
+    public String getJobPartitionStrategy() {
+        return jobPartitionStrategy;
+    }
+
+    public String getJobPartitionNodeWeights() {
+        return jobPartitionNodeWeights;
+    }
+
+    public int getJobPartitionVirtualNodes() {
+        return jobPartitionVirtualNodes;
+    }
+
+    public int getFailoverThread() {
+        return failoverThread;
+    }
+
+    public int getFailoverBatchSize() {
+        return failoverBatchSize;
+    }
+
+    public long getFailoverNotifyTimeout() {
+        return failoverNotifyTimeout;
+    }
+
+    public double getQueueRefillLowWatermark() {
+        return queueRefillLowWatermark;
+    }
+
+    public long getQueueRefillInterval() {
+        return queueRefillInterval;
+    }
+
+    public long getJobDelayTimerTick() {
+        return jobDelayTimerTick;
+    }
+
+    public int getJobDelayTimerWheelSize() {
+        return jobDelayTimerWheelSize;
+    }
+
+    public int getClientExecutorThreads() {
+        return clientExecutorThreads;
+    }
+
+    public int getClientExecutorQueueSize() {
+        return clientExecutorQueueSize;
+    }
+
+    public boolean isClientExecutorVirtual() {
+        return clientExecutorVirtual;
+    }
+
+    public long getClientTimeout() {
+        return clientTimeout;
+    }
+
+    public String getClientMethodTimeout() {
+        return clientMethodTimeout;
+    }
+
     public String getJobGraphBuildCron() {
         return jobGraphBuildCron;
     }
@@ -333,6 +483,14 @@ public class EnvironmentContext implements InitializingBean {
         return jobAcquireQueueJobInterval;
     }
 
+    public int getJobDependencyIndexSize() {
+        return jobDependencyIndexSize;
+    }
+
+    public long getJobDependencyReconcileInterval() {
+        return jobDependencyReconcileInterval;
+    }
+
     public int getJobCycTimeGap() {
         return jobCycTimeGap;
     }
@@ -418,6 +576,34 @@ public class EnvironmentContext implements InitializingBean {
         return taskStatusDealerPoolSize;
     }
 
+    public int getTaskStatusBatchSize() {
+        return taskStatusBatchSize;
+    }
+
+    public int getJobSubmittedConsumerSize() {
+        return jobSubmittedConsumerSize;
+    }
+
+    public int getJobSubmittedBatchSize() {
+        return jobSubmittedBatchSize;
+    }
+
+    public long getJobSubmittedFlushWindow() {
+        return jobSubmittedFlushWindow;
+    }
+
+    public boolean isJobStateJournalEnabled() {
+        return jobStateJournalEnabled;
+    }
+
+    public long getJobStateJournalFlushWindow() {
+        return jobStateJournalFlushWindow;
+    }
+
+    public int getJobStateJournalBatchSize() {
+        return jobStateJournalBatchSize;
+    }
+
     public int getTestConnectTimeout() {
         return testConnectTimeout;
     }
@@ -446,6 +632,10 @@ public class EnvironmentContext implements InitializingBean {
         return forkJoinResultTimeOut;
     }
 
+    public Integer getRestartQueryBatchSize() {
+        return restartQueryBatchSize;
+    }
+
     public boolean isOpenJobSchedule() {
         return openJobSchedule;
     }
@@ -530,6 +720,14 @@ public class EnvironmentContext implements InitializingBean {
         return jobGraphTaskLimitSize;
     }
 
+    public Integer getJobGraphWriterSize() {
+        return jobGraphWriterSize;
+    }
+
+    public Integer getJobGraphWriterQueueSize() {
+        return jobGraphWriterQueueSize;
+    }
+
     public String getCreateTableType() {
         return createTableType;
     }
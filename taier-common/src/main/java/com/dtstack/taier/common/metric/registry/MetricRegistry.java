@@ -0,0 +1,177 @@
+package com.dtstack.taier.common.metric.registry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * @Date: 2026/10/18 12:20 AM
+ * @Description: 进程内的指标注册表，按 Prometheus 文本格式输出
+ * <p>
+ * 热点路径只做 LongAdder 累加，gauge 在采集时才读取，采集频率之外没有额外开销。
+ * tags 为 key、value 交替的标签，同名指标的标签 key 需要一致。
+ * 耗时的最大值在每次采集时清零，只支持一个采集方，多个 Prometheus 同时采集时各自只能看到两次采集之间的一部分最大值
+ */
+public class MetricRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricRegistry.class);
+
+    private static final String TYPE_COUNTER = "counter";
+
+    private static final String TYPE_GAUGE = "gauge";
+
+    private static final String TYPE_SUMMARY = "summary";
+
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    /**
+     * key: 指标名 + \0 + 标签，同名的指标排在一起
+     */
+    private static final Map<String, Meter> METERS = new ConcurrentSkipListMap<>();
+
+    private MetricRegistry() {
+    }
+
+    /**
+     * @param name 指标名，以 _seconds 结尾
+     */
+    public static MetricTimer timer(String name, String help, String... tags) {
+        return (MetricTimer) register(name, help, TYPE_SUMMARY, tags, MetricTimer::new);
+    }
+
+    /**
+     * @param name 指标名，以 _total 结尾
+     */
+    public static LongAdder counter(String name, String help, String... tags) {
+        return (LongAdder) register(name, help, TYPE_COUNTER, tags, LongAdder::new);
+    }
+
+    /**
+     * 注册 gauge，已经注册过时保留原来的 supplier
+     *
+     * @param supplier 采集时调用，不能阻塞
+     */
+    public static void gauge(String name, String help, Supplier<Number> supplier, String... tags) {
+        register(name, help, TYPE_GAUGE, tags, () -> supplier);
+    }
+
+    /**
+     * 采集全部指标，耗时的最大值输出后清零，只能由一个采集方调用
+     *
+     * @return Prometheus 文本格式
+     */
+    public static String scrape() {
+        StringBuilder builder = new StringBuilder(4096);
+        StringBuilder maxBuilder = new StringBuilder();
+        String family = null;
+        for (Meter meter : METERS.values()) {
+            if (!meter.name.equals(family)) {
+                appendMax(builder, maxBuilder, family);
+                family = meter.name;
+                builder.append("# HELP ").append(meter.name).append(' ').append(meter.help).append('\n');
+                builder.append("# TYPE ").append(meter.name).append(' ').append(meter.type).append('\n');
+            }
+            if (meter.value instanceof MetricTimer) {
+                MetricTimer timer = (MetricTimer) meter.value;
+                builder.append(meter.name).append("_count").append(meter.labels).append(' ').append(timer.getCount()).append('\n');
+                builder.append(meter.name).append("_sum").append(meter.labels).append(' ').append(timer.getTotalNanos() / NANOS_PER_SECOND).append('\n');
+                maxBuilder.append(meter.name).append("_max").append(meter.labels).append(' ').append(timer.pollMaxNanos() / NANOS_PER_SECOND).append('\n');
+            } else if (meter.value instanceof LongAdder) {
+                builder.append(meter.name).append(meter.labels).append(' ').append(((LongAdder) meter.value).sum()).append('\n');
+            } else {
+                appendGauge(builder, meter);
+            }
+        }
+        appendMax(builder, maxBuilder, family);
+        return builder.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void appendGauge(StringBuilder builder, Meter meter) {
+        Number value;
+        try {
+            value = ((Supplier<Number>) meter.value).get();
+        } catch (Exception e) {
+            LOGGER.warn("collect gauge {}{} error", meter.name, meter.labels, e);
+            return;
+        }
+        if (value != null) {
+            builder.append(meter.name).append(meter.labels).append(' ').append(value.doubleValue()).append('\n');
+        }
+    }
+
+    /**
+     * 耗时的最大值作为单独的 gauge 输出在 summary 后面
+     */
+    private static void appendMax(StringBuilder builder, StringBuilder maxBuilder, String family) {
+        if (maxBuilder.length() == 0) {
+            return;
+        }
+        builder.append("# TYPE ").append(family).append("_max ").append(TYPE_GAUGE).append('\n');
+        builder.append(maxBuilder);
+        maxBuilder.setLength(0);
+    }
+
+    private static Object register(String name, String help, String type, String[] tags, Supplier<Object> valueSupplier) {
+        String labels = formatLabels(tags);
+        Meter meter = METERS.computeIfAbsent(name + '\0' + labels, key -> new Meter(name, help, type, labels, valueSupplier.get()));
+        if (!meter.type.equals(type)) {
+            throw new IllegalArgumentException(String.format("metric %s is already registered as %s", name, meter.type));
+        }
+        return meter.value;
+    }
+
+    private static String formatLabels(String[] tags) {
+        if (tags == null || tags.length == 0) {
+            return "";
+        }
+        if (tags.length % 2 != 0) {
+            throw new IllegalArgumentException("tags must be key value pairs");
+        }
+        StringBuilder builder = new StringBuilder("{");
+        for (int i = 0; i < tags.length; i += 2) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(tags[i]).append("=\"");
+            String value = tags[i + 1] == null ? "" : tags[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c == '\\' || c == '"') {
+                    builder.append('\\').append(c);
+                } else if (c == '\n') {
+                    builder.append("\\n");
+                } else {
+                    builder.append(c);
+                }
+            }
+            builder.append('"');
+        }
+        return builder.append('}').toString();
+    }
+
+    private static class Meter {
+
+        private final String name;
+
+        private final String help;
+
+        private final String type;
+
+        private final String labels;
+
+        private final Object value;
+
+        private Meter(String name, String help, String type, String labels, Object value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.labels = labels;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.dtstack.taier.common.metric.registry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date: 2026/10/18 12:20 AM
+ * @Description: 耗时统计，记录次数、总耗时和两次采集之间的最大耗时
+ */
+public class MetricTimer {
+
+    private final LongAdder count = new LongAdder();
+
+    private final LongAdder totalNanos = new LongAdder();
+
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * @param startNanos 开始时的 System.nanoTime()
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(Math.max(0, duration));
+        count.increment();
+        totalNanos.add(nanos);
+        if (nanos > maxNanos.get()) {
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getTotalTime(TimeUnit unit) {
+        return unit.convert(totalNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxTime(TimeUnit unit) {
+        return unit.convert(maxNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 采集时取出最大耗时并清零，下一次采集只看这段时间内的最大值；有多个采集方时最大值会被其中一个取走
+     */
+    long pollMaxNanos() {
+        return maxNanos.getAndSet(0);
+    }
+
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+}
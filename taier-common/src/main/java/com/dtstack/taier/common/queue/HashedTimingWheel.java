@@ -0,0 +1,235 @@
+package com.dtstack.taier.common.queue;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Date: 2026/10/17 11:55 PM
+ * @Description: 哈希时间轮
+ * <p>
+ * 定时任务按到期时间放入 wheelSize 个槽中，一个线程每 tickDuration 处理一个槽，
+ * 添加、取消定时任务都不阻塞调用线程，定时任务的精度为 tickDuration。
+ * 到期的任务在时间轮线程中执行，只能做入队之类不阻塞的操作
+ */
+public class HashedTimingWheel {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickDuration;
+
+    private final LinkedList<Timeout>[] wheel;
+
+    private final int mask;
+
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+
+    private final AtomicLong expiredTimeouts = new AtomicLong();
+
+    private final Thread workerThread;
+
+    private volatile boolean stopped = false;
+
+    private final long startTime;
+
+    private long tick;
+
+    /**
+     * @param name         线程名称
+     * @param tickDuration 每个槽的时间
+     * @param unit         tickDuration 的单位
+     * @param wheelSize    槽的个数，向上取 2 的幂
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickDuration, TimeUnit unit, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration must be greater than 0: " + tickDuration);
+        }
+        if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+            throw new IllegalArgumentException("wheelSize must be in (0, 2^30]: " + wheelSize);
+        }
+        int normalizedSize = 1;
+        while (normalizedSize < wheelSize) {
+            normalizedSize <<= 1;
+        }
+        this.wheel = new LinkedList[normalizedSize];
+        for (int i = 0; i < normalizedSize; i++) {
+            wheel[i] = new LinkedList<>();
+        }
+        this.mask = normalizedSize - 1;
+        this.tickDuration = unit.toNanos(tickDuration);
+        this.startTime = System.nanoTime();
+        ThreadFactory threadFactory = new CustomThreadFactory(name);
+        this.workerThread = threadFactory.newThread(this::work);
+    }
+
+    /**
+     * 添加定时任务，第一次添加时启动时间轮线程
+     *
+     * @param task  到期执行的任务
+     * @param delay 延迟时间
+     * @param unit  delay 的单位
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("timing wheel is stopped");
+        }
+        start();
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startTime;
+        Timeout timeout = new Timeout(task, deadline);
+        pendingTimeouts.incrementAndGet();
+        newTimeouts.add(timeout);
+        return timeout;
+    }
+
+    public void start() {
+        if (started.compareAndSet(false, true)) {
+            workerThread.start();
+        }
+    }
+
+    public void stop() {
+        stopped = true;
+        workerThread.interrupt();
+    }
+
+    /**
+     * 等待执行的定时任务数
+     */
+    public long getPendingTimeouts() {
+        return pendingTimeouts.get();
+    }
+
+    /**
+     * 已经执行的定时任务数
+     */
+    public long getExpiredTimeouts() {
+        return expiredTimeouts.get();
+    }
+
+    private void work() {
+        while (!stopped) {
+            if (!waitForNextTick()) {
+                break;
+            }
+            transferTimeouts();
+            expireTimeouts(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+        LOGGER.info("timing wheel stopped, pending timeouts:{}", pendingTimeouts.get());
+    }
+
+    private boolean waitForNextTick() {
+        long deadline = tickDuration * (tick + 1);
+        while (true) {
+            long sleepTime = deadline - (System.nanoTime() - startTime);
+            if (sleepTime <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepTime);
+            } catch (InterruptedException e) {
+                if (stopped) {
+                    return false;
+                }
+            }
+        }
+    }
+
+    private void transferTimeouts() {
+        Timeout timeout;
+        while ((timeout = newTimeouts.poll()) != null) {
+            if (timeout.isCancelled()) {
+                continue;
+            }
+            long calculated = timeout.deadline / tickDuration;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+            // 已经过期的任务放入当前槽，马上执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].add(timeout);
+        }
+    }
+
+    private void expireTimeouts(LinkedList<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+            } else if (timeout.remainingRounds <= 0) {
+                iterator.remove();
+                timeout.expire();
+            } else {
+                timeout.remainingRounds--;
+            }
+        }
+    }
+
+    public final class Timeout {
+
+        private static final int INIT = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+
+        private final long deadline;
+
+        private final AtomicInteger state = new AtomicInteger(INIT);
+
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * 取消还没有执行的定时任务
+         *
+         * @return 是否取消成功
+         */
+        public boolean cancel() {
+            if (state.compareAndSet(INIT, CANCELLED)) {
+                pendingTimeouts.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(INIT, EXPIRED)) {
+                return;
+            }
+            pendingTimeouts.decrementAndGet();
+            expiredTimeouts.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.error("timing wheel task error", e);
+            }
+        }
+    }
+}
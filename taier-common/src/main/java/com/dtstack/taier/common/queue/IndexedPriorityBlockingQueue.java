@@ -0,0 +1,348 @@
+package com.dtstack.taier.common.queue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * @Date: 2026/10/17 7:10 PM
+ * @Description: 按key索引的有界阻塞优先级队列
+ * <p>
+ * 二叉堆 + key到堆位置的索引：入队、按key删除为 O(log n)，按key判重为 O(1)，size不加锁。
+ * 同一个key在队列中只会存在一个元素，优先级相同的元素按入队顺序出队，comparator为空时即为FIFO队列。
+ * 元素在队列中时不能修改参与比较的字段
+ */
+public class IndexedPriorityBlockingQueue<K, E> {
+
+    private static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final Function<E, K> keyFunction;
+
+    private final Comparator<? super E> comparator;
+
+    private final int capacity;
+
+    private final Map<K, Node<E>> index;
+
+    private Node<E>[] heap;
+
+    /**
+     * 入队序号，优先级相同时先入队的先出队
+     */
+    private long sequence;
+
+    private volatile int size;
+
+    /**
+     * @param capacity    队列容量，Integer.MAX_VALUE 表示不限制
+     * @param keyFunction 元素的唯一key，不能为空
+     * @param comparator  优先级比较，值小的先出队，为空时按入队顺序出队
+     */
+    @SuppressWarnings("unchecked")
+    public IndexedPriorityBlockingQueue(int capacity, Function<E, K> keyFunction, Comparator<? super E> comparator) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.keyFunction = Objects.requireNonNull(keyFunction);
+        this.comparator = comparator;
+        int initialCapacity = Math.min(capacity, DEFAULT_INITIAL_CAPACITY);
+        this.heap = new Node[initialCapacity];
+        this.index = new HashMap<>(initialCapacity * 2);
+    }
+
+    /**
+     * 非阻塞入队
+     *
+     * @return false: key已存在或队列已满
+     */
+    public boolean offer(E e) {
+        K key = keyOf(e);
+        lock.lock();
+        try {
+            if (index.containsKey(key) || size >= capacity) {
+                return false;
+            }
+            enqueue(key, e);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 入队，队列满时阻塞
+     *
+     * @return false: key已存在
+     */
+    public boolean put(E e) throws InterruptedException {
+        K key = keyOf(e);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                if (index.containsKey(key)) {
+                    return false;
+                }
+                if (size < capacity) {
+                    enqueue(key, e);
+                    return true;
+                }
+                notFull.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 取出优先级最高的元素，队列为空时阻塞
+     */
+    public E take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public E poll() {
+        lock.lock();
+        try {
+            return size == 0 ? null : dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public E peek() {
+        lock.lock();
+        try {
+            return size == 0 ? null : heap[0].element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean containsKey(K key) {
+        lock.lock();
+        try {
+            return index.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(E e) {
+        return e != null && containsKey(keyFunction.apply(e));
+    }
+
+    /**
+     * 按key删除
+     *
+     * @return 被删除的元素，不存在时返回null
+     */
+    public E removeByKey(K key) {
+        lock.lock();
+        try {
+            Node<E> node = index.remove(key);
+            if (node == null) {
+                return null;
+            }
+            removeAt(node.position);
+            notFull.signal();
+            return node.element;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(E e) {
+        return e != null && removeByKey(keyFunction.apply(e)) != null;
+    }
+
+    /**
+     * 按优先级顺序返回当前元素的快照，不影响队列
+     */
+    public List<E> snapshot() {
+        lock.lock();
+        try {
+            Node<E>[] nodes = Arrays.copyOf(heap, size);
+            Arrays.sort(nodes, this::compare);
+            List<E> elements = new ArrayList<>(nodes.length);
+            for (Node<E> node : nodes) {
+                elements.add(node.element);
+            }
+            return elements;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            Arrays.fill(heap, 0, size, null);
+            index.clear();
+            size = 0;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 不加锁，返回最近一次修改后的大小
+     */
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int remainingCapacity() {
+        return capacity - size;
+    }
+
+    private K keyOf(E e) {
+        Objects.requireNonNull(e);
+        return Objects.requireNonNull(keyFunction.apply(e), "element key must not be null");
+    }
+
+    private void enqueue(K key, E e) {
+        if (size >= heap.length) {
+            grow();
+        }
+        Node<E> node = new Node<>(e, sequence++);
+        index.put(key, node);
+        int position = size;
+        size = position + 1;
+        siftUp(position, node);
+        notEmpty.signal();
+    }
+
+    private E dequeue() {
+        Node<E> node = heap[0];
+        index.remove(keyFunction.apply(node.element));
+        removeAt(0);
+        notFull.signal();
+        return node.element;
+    }
+
+    private void removeAt(int position) {
+        int last = size - 1;
+        Node<E> moved = heap[last];
+        heap[last] = null;
+        size = last;
+        if (position == last) {
+            return;
+        }
+        siftDown(position, moved);
+        if (heap[position] == moved) {
+            siftUp(position, moved);
+        }
+    }
+
+    private void siftUp(int position, Node<E> node) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            Node<E> parentNode = heap[parent];
+            if (compare(node, parentNode) >= 0) {
+                break;
+            }
+            setAt(position, parentNode);
+            position = parent;
+        }
+        setAt(position, node);
+    }
+
+    private void siftDown(int position, Node<E> node) {
+        int half = size >>> 1;
+        while (position < half) {
+            int child = (position << 1) + 1;
+            int right = child + 1;
+            if (right < size && compare(heap[right], heap[child]) < 0) {
+                child = right;
+            }
+            if (compare(node, heap[child]) <= 0) {
+                break;
+            }
+            setAt(position, heap[child]);
+            position = child;
+        }
+        setAt(position, node);
+    }
+
+    private void setAt(int position, Node<E> node) {
+        heap[position] = node;
+        node.position = position;
+    }
+
+    private int compare(Node<E> a, Node<E> b) {
+        if (comparator != null) {
+            int result = comparator.compare(a.element, b.element);
+            if (result != 0) {
+                return result;
+            }
+        }
+        return Long.compare(a.sequence, b.sequence);
+    }
+
+    private void grow() {
+        int oldCapacity = heap.length;
+        int newCapacity = oldCapacity < 64 ? oldCapacity * 2 + 2 : oldCapacity + (oldCapacity >> 1);
+        if (newCapacity < 0 || newCapacity > capacity) {
+            newCapacity = capacity;
+        }
+        heap = Arrays.copyOf(heap, newCapacity);
+    }
+
+    private static class Node<E> {
+
+        private final E element;
+
+        private final long sequence;
+
+        private int position;
+
+        private Node(E element, long sequence) {
+            this.element = element;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -4,28 +4,52 @@ import com.dtstack.taier.common.client.ClientOperator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
 /**
  * @author yuebai
  * @date 2021-09-08
+ * <p>
+ * jobId = 32进制(秒级时间戳 + 3位网络号 + 5位序号)，时间戳和序号合并为一个计数器 (秒 * 100000 + 序号)，
+ * 通过CAS推进，一秒内序号用完时直接借用下一秒，不再阻塞等待；每个线程一次预占一段序号，减少CAS竞争。
+ * 借用超过 MAX_AHEAD_SECONDS 秒时挂起到下一秒，不空转占用CPU
  */
 public class DtJobIdWorker {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ClientOperator.class);
 
+    private static final long SEQUENCE_SIZE = 100000L;
+
+    private static final long NETWORK_SIZE = 1000L;
+
+    /**
+     * 最多借用后面几秒的序号
+     */
+    private static final long MAX_AHEAD_SECONDS = 3L;
+
+    /**
+     * 每个线程一次预占的序号数
+     */
+    private static final int BLOCK_SIZE = 64;
+
     private static volatile DtJobIdWorker singleton;
 
     //the last one net work
-    private Integer network;
+    private final Integer network;
 
-    //auto increment sequence
-    private long sequence;
+    //last allocated position: seconds * SEQUENCE_SIZE + sequence
+    private final AtomicLong position;
 
-    //the last build jobId timeStamp
-    private long lastTimestamp = 0L;
+    //thread local block: [next position, end position(exclusive), second]
+    private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[3]);
 
     private DtJobIdWorker(Integer network, long sequence) {
         this.network = network;
-        this.sequence = sequence;
+        this.position = new AtomicLong(sequence - 1);
     }
 
     public static DtJobIdWorker getInstance(Integer network, long sequence) {
@@ -35,6 +59,9 @@ public class DtJobIdWorker {
         if (null == network) {
             throw new IllegalArgumentException("net work can not null");
         }
+        if (network < 0 || network >= NETWORK_SIZE) {
+            throw new IllegalArgumentException("net work must between 0 and 999");
+        }
         if (singleton == null) {
             synchronized (ClientOperator.class) {
                 if (singleton == null) {
@@ -75,41 +102,76 @@ public class DtJobIdWorker {
 
 
     //next JobId
-    public synchronized String nextJobId() {
-        long timestamp = timeGen();
+    public String nextJobId() {
+        long[] block = blocks.get();
+        long second = timeGen();
+        // 预占的序号用完或者已经过了预占时的那一秒，重新预占
+        if (block[0] >= block[1] || block[2] != second) {
+            block[0] = reserve(second, BLOCK_SIZE);
+            block[1] = block[0] + BLOCK_SIZE;
+            block[2] = second;
+        }
+        return toJobId(block[0]++);
+    }
 
-        if (timestamp < lastTimestamp) {
-            LOGGER.error("Clock moved backwards.  lastTimeStamp {} timeStamp {}", lastTimestamp, timestamp);
-            timestamp = lastTimestamp;
+    /**
+     * 批量获得jobId，超过一秒序号数的请求按一秒的序号数拆分预占
+     *
+     * @param size 数量
+     * @return jobId
+     */
+    public List<String> nextJobIds(int size) {
+        if (size <= 0) {
+            return new ArrayList<>(0);
         }
+        List<String> jobIds = new ArrayList<>(size);
+        int remaining = size;
+        while (remaining > 0) {
+            int reserveSize = (int) Math.min(remaining, SEQUENCE_SIZE);
+            long start = reserve(timeGen(), reserveSize);
+            for (int i = 0; i < reserveSize; i++) {
+                jobIds.add(toJobId(start + i));
+            }
+            remaining -= reserveSize;
+        }
+        return jobIds;
+    }
 
-        //increment sequence
-        if (lastTimestamp == timestamp) {
-            sequence = sequence + 1;
-            if (sequence > 99999) {
-                //out of sequence
-                timestamp = tilNextMillis(lastTimestamp);
-                sequence  = 0;
+    /**
+     * 预占连续的序号
+     *
+     * @param second 当前秒
+     * @param size   数量，不超过一秒的序号数
+     * @return 第一个序号的位置
+     */
+    private long reserve(long second, int size) {
+        while (true) {
+            long last = position.get();
+            // 时钟回拨或者序号借用了后面的秒时，在上一次的位置上继续递增
+            long start = Math.max(last + 1, second * SEQUENCE_SIZE);
+            if ((start + size - 1) / SEQUENCE_SIZE > second + MAX_AHEAD_SECONDS) {
+                // 借用的秒数过多时挂起到下一秒等待时钟追上，避免节点重启后生成重复的jobId
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1000 - System.currentTimeMillis() % 1000));
+                second = timeGen();
+                continue;
+            }
+            if (position.compareAndSet(last, start + size - 1)) {
+                return start;
             }
-        } else {
-            sequence = 0;
         }
-        //refresh
-        lastTimestamp = timestamp;
-        String jobId = String.valueOf(lastTimestamp).concat(String.format("%03d", network)).concat(String.format("%05d", sequence));
-        return digits32(Long.parseLong(jobId));
+    }
+
+    /**
+     * 和 String.valueOf(second).concat(String.format("%03d", network)).concat(String.format("%05d", sequence)) 相同的数值
+     */
+    String toJobId(long position) {
+        long second = position / SEQUENCE_SIZE;
+        long sequence = position % SEQUENCE_SIZE;
+        return digits32((second * NETWORK_SIZE + network) * SEQUENCE_SIZE + sequence);
     }
 
     //get seconds
     private long timeGen() {
         return System.currentTimeMillis() / 1000;
     }
-
-    private long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
-        }
-        return timestamp;
-    }
 }
@@ -0,0 +1,107 @@
+package com.dtstack.taier.common.client;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ClientBulkheadTest {
+
+    @Test
+    public void testRejectWhenFull() throws Exception {
+        // 卡住的集群占满自己的执行器后直接拒绝，其他集群不受影响
+        ClientBulkhead hung = new ClientBulkhead("hung", "test_reject", 2, 1, 10000, Collections.emptyMap(), false);
+        ClientBulkhead other = new ClientBulkhead("other", "test_reject", 2, 1, 10000, Collections.emptyMap(), false);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(3);
+        try {
+            for (int i = 0; i < 3; i++) {
+                callers.submit(() -> hung.call("getJobStatus", () -> release.await(10, TimeUnit.SECONDS)));
+            }
+            long startTime = System.currentTimeMillis();
+            while (ClientMetrics.get("test_reject").getActiveCount() < 3) {
+                Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+                Thread.sleep(10);
+            }
+            try {
+                hung.call("getJobStatus", () -> true);
+                Assert.fail("full bulkhead should reject");
+            } catch (RejectedExecutionException e) {
+                Assert.assertTrue(e.getMessage().contains("hung is full"));
+            }
+            Assert.assertEquals("ok", other.call("getJobStatus", () -> "ok"));
+            Assert.assertEquals(1, ClientMetrics.get("test_reject").getRejectCount());
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            hung.shutdown();
+            other.shutdown();
+        }
+    }
+
+    @Test
+    public void testMethodTimeoutInterrupt() throws Exception {
+        ClientBulkhead bulkhead = new ClientBulkhead("timeout", "test_timeout", 1, 0, 10000,
+                Collections.singletonMap("getJobLog", 100L), false);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        try {
+            long startTime = System.currentTimeMillis();
+            try {
+                bulkhead.call("getJobLog", () -> {
+                    try {
+                        Thread.sleep(10000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                    return null;
+                });
+                Assert.fail("call should timeout");
+            } catch (TimeoutException e) {
+                Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+            }
+            // 超时的调用被中断，线程释放给后面的调用
+            Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals("ok", callAfterRelease(bulkhead));
+
+            ClientMetrics metrics = ClientMetrics.get("test_timeout");
+            Assert.assertEquals(1, metrics.getTimeoutCount());
+            Assert.assertEquals(2, metrics.getCallCount());
+            Assert.assertEquals(1, metrics.getFailCount());
+            Assert.assertEquals(10000, bulkhead.getTimeout("getJobStatus"));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+
+    /**
+     * 被中断的任务返回后线程才回到线程池，回到之前提交会被拒绝
+     */
+    private static String callAfterRelease(ClientBulkhead bulkhead) throws Exception {
+        long startTime = System.currentTimeMillis();
+        while (true) {
+            try {
+                return bulkhead.call("getJobStatus", () -> "ok");
+            } catch (RejectedExecutionException e) {
+                Assert.assertTrue(System.currentTimeMillis() - startTime < 5000);
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    public void testVirtualThreadFallback() throws Exception {
+        // JDK 21 以下退回到线程池，JDK 21 及以上使用虚拟线程，都受调用数限制
+        ClientBulkhead bulkhead = new ClientBulkhead("virtual", "test_virtual", 1, 0, 10000, Collections.emptyMap(), true);
+        try {
+            Assert.assertEquals("ok", bulkhead.call("getJobStatus", () -> "ok"));
+        } finally {
+            bulkhead.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.dtstack.taier.common.client;
+
+import com.dtstack.taier.common.client.ClientLease.RefCountedClient;
+import com.dtstack.taier.pluginapi.client.IClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Closeable;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ClientLeaseTest {
+
+    @Test
+    public void testCloseAfterLastRelease() {
+        AtomicInteger closeCount = new AtomicInteger();
+        RefCountedClient refCountedClient = new RefCountedClient("test", closeableClient(closeCount));
+
+        ClientLease first = refCountedClient.retain();
+        ClientLease second = refCountedClient.retain();
+        Assert.assertNotNull(first);
+        Assert.assertSame(first.getClient(), second.getClient());
+
+        // 淘汰时还有调用在使用，不关闭
+        refCountedClient.evict();
+        Assert.assertEquals(0, closeCount.get());
+        first.close();
+        // 重复归还只算一次
+        first.close();
+        Assert.assertEquals(0, closeCount.get());
+        second.close();
+        Assert.assertEquals(1, closeCount.get());
+
+        // 关闭后不能再借出
+        Assert.assertNull(refCountedClient.retain());
+    }
+
+    @Test
+    public void testCloseIdleOnEvict() {
+        AtomicInteger closeCount = new AtomicInteger();
+        RefCountedClient refCountedClient = new RefCountedClient("test", closeableClient(closeCount));
+
+        // 没有淘汰时归还不关闭
+        refCountedClient.retain().close();
+        Assert.assertEquals(0, closeCount.get());
+
+        refCountedClient.evict();
+        Assert.assertEquals(1, closeCount.get());
+        Assert.assertNull(refCountedClient.retain());
+    }
+
+    private static IClient closeableClient(AtomicInteger closeCount) {
+        return (IClient) Proxy.newProxyInstance(ClientLeaseTest.class.getClassLoader(),
+                new Class[]{IClient.class, Closeable.class}, (proxy, method, args) -> {
+                    if ("close".equals(method.getName())) {
+                        closeCount.incrementAndGet();
+                    }
+                    return null;
+                });
+    }
+}
@@ -0,0 +1,44 @@
+package com.dtstack.taier.common.metric.registry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MetricRegistryTest {
+
+    @Test
+    public void testScrapePrometheusFormat() {
+        MetricTimer timer = MetricRegistry.timer("test_submit_seconds", "submit latency", "job_resource", "a");
+        Assert.assertSame(timer, MetricRegistry.timer("test_submit_seconds", "submit latency", "job_resource", "a"));
+        timer.record(100, TimeUnit.MILLISECONDS);
+        timer.record(300, TimeUnit.MILLISECONDS);
+        MetricRegistry.timer("test_submit_seconds", "submit latency", "job_resource", "b").record(1, TimeUnit.SECONDS);
+        MetricRegistry.counter("test_scan_rows_total", "scan rows", "scheduler", "cycle").add(5);
+        AtomicInteger size = new AtomicInteger(3);
+        MetricRegistry.gauge("test_queue_size", "queue size", size::get, "job_resource", "quote\"a");
+        size.set(7);
+
+        String text = MetricRegistry.scrape();
+        Assert.assertTrue(text.contains("# TYPE test_submit_seconds summary\n"));
+        Assert.assertTrue(text.contains("test_submit_seconds_count{job_resource=\"a\"} 2\n"));
+        Assert.assertTrue(text.contains("test_submit_seconds_sum{job_resource=\"a\"} 0.4\n"));
+        Assert.assertTrue(text.contains("# TYPE test_submit_seconds_max gauge\n"));
+        Assert.assertTrue(text.contains("test_submit_seconds_max{job_resource=\"a\"} 0.3\n"));
+        Assert.assertTrue(text.contains("test_submit_seconds_max{job_resource=\"b\"} 1.0\n"));
+        Assert.assertTrue(text.contains("# TYPE test_scan_rows_total counter\ntest_scan_rows_total{scheduler=\"cycle\"} 5\n"));
+        Assert.assertTrue(text.contains("test_queue_size{job_resource=\"quote\\\"a\"} 7.0\n"));
+        // 同一指标的 HELP、TYPE 只输出一次
+        Assert.assertEquals(text.indexOf("# TYPE test_submit_seconds summary"), text.lastIndexOf("# TYPE test_submit_seconds summary"));
+
+        // 最大值在采集后清零
+        Assert.assertTrue(MetricRegistry.scrape().contains("test_submit_seconds_max{job_resource=\"a\"} 0.0\n"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTypeConflict() {
+        MetricRegistry.counter("test_conflict", "conflict");
+        MetricRegistry.timer("test_conflict", "conflict");
+    }
+}
@@ -0,0 +1,83 @@
+package com.dtstack.taier.common.queue;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class HashedTimingWheelTest {
+
+    @Test
+    public void testExpireInDelayOrder() throws Exception {
+        // 槽数少于延迟的 tick 数，需要转多圈
+        HashedTimingWheel timingWheel = new HashedTimingWheel("test", 10, TimeUnit.MILLISECONDS, 8);
+        try {
+            List<Integer> expired = new CopyOnWriteArrayList<>();
+            CountDownLatch latch = new CountDownLatch(3);
+            long startTime = System.currentTimeMillis();
+            timingWheel.newTimeout(() -> {
+                expired.add(300);
+                latch.countDown();
+            }, 300, TimeUnit.MILLISECONDS);
+            timingWheel.newTimeout(() -> {
+                expired.add(50);
+                latch.countDown();
+            }, 50, TimeUnit.MILLISECONDS);
+            timingWheel.newTimeout(() -> {
+                expired.add(150);
+                latch.countDown();
+            }, 150, TimeUnit.MILLISECONDS);
+            Assert.assertEquals(3, timingWheel.getPendingTimeouts());
+
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(System.currentTimeMillis() - startTime >= 300);
+            Assert.assertEquals(50, (int) expired.get(0));
+            Assert.assertEquals(150, (int) expired.get(1));
+            Assert.assertEquals(300, (int) expired.get(2));
+            Assert.assertEquals(0, timingWheel.getPendingTimeouts());
+            Assert.assertEquals(3, timingWheel.getExpiredTimeouts());
+        } finally {
+            timingWheel.stop();
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        HashedTimingWheel timingWheel = new HashedTimingWheel("test", 10, TimeUnit.MILLISECONDS, 64);
+        try {
+            CountDownLatch latch = new CountDownLatch(1);
+            HashedTimingWheel.Timeout cancelled = timingWheel.newTimeout(() -> Assert.fail("cancelled timeout expired"), 50, TimeUnit.MILLISECONDS);
+            timingWheel.newTimeout(latch::countDown, 100, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(cancelled.cancel());
+            Assert.assertFalse(cancelled.cancel());
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertTrue(cancelled.isCancelled());
+            Assert.assertEquals(1, timingWheel.getExpiredTimeouts());
+            Assert.assertEquals(0, timingWheel.getPendingTimeouts());
+        } finally {
+            timingWheel.stop();
+        }
+    }
+
+    @Test
+    public void testManyTimeoutsNotBlockCaller() throws Exception {
+        HashedTimingWheel timingWheel = new HashedTimingWheel("test", 10, TimeUnit.MILLISECONDS, 512);
+        try {
+            int size = 100000;
+            CountDownLatch latch = new CountDownLatch(size);
+            long startTime = System.currentTimeMillis();
+            for (int i = 0; i < size; i++) {
+                timingWheel.newTimeout(latch::countDown, i % 200, TimeUnit.MILLISECONDS);
+            }
+            // 添加定时任务不等待到期
+            Assert.assertTrue(System.currentTimeMillis() - startTime < 2000);
+            Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+            Assert.assertEquals(size, timingWheel.getExpiredTimeouts());
+        } finally {
+            timingWheel.stop();
+        }
+    }
+}
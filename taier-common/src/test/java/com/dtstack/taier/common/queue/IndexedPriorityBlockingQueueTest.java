@@ -0,0 +1,79 @@
+package com.dtstack.taier.common.queue;
+
+import com.dtstack.taier.common.queue.comparator.JobClientComparator;
+import com.dtstack.taier.pluginapi.JobClient;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class IndexedPriorityBlockingQueueTest {
+
+    @Test
+    public void testPriorityAndDuplicate() {
+        IndexedPriorityBlockingQueue<String, JobClient> queue = new IndexedPriorityBlockingQueue<>(Integer.MAX_VALUE, JobClient::getJobId, new JobClientComparator());
+        Random random = new Random(1);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertTrue(queue.offer(jobClient("job" + i, random.nextInt(10))));
+        }
+        Assert.assertFalse(queue.offer(jobClient("job10", 0)));
+        Assert.assertTrue(queue.containsKey("job10"));
+        Assert.assertEquals(1000, queue.size());
+
+        for (int i = 0; i < 1000; i += 3) {
+            Assert.assertNotNull(queue.removeByKey("job" + i));
+        }
+        Assert.assertNull(queue.removeByKey("job0"));
+
+        List<JobClient> polled = new ArrayList<>();
+        JobClient jobClient;
+        while ((jobClient = queue.poll()) != null) {
+            polled.add(jobClient);
+        }
+        Assert.assertEquals(666, polled.size());
+        for (int i = 1; i < polled.size(); i++) {
+            JobClient pre = polled.get(i - 1);
+            JobClient cur = polled.get(i);
+            Assert.assertTrue(pre.getPriority() <= cur.getPriority());
+            // 优先级相同时按入队顺序
+            if (pre.getPriority() == cur.getPriority()) {
+                Assert.assertTrue(Integer.parseInt(pre.getJobId().substring(3)) < Integer.parseInt(cur.getJobId().substring(3)));
+            }
+        }
+        Assert.assertFalse(queue.containsKey("job10"));
+    }
+
+    @Test
+    public void testBoundedFifo() throws Exception {
+        IndexedPriorityBlockingQueue<String, String> queue = new IndexedPriorityBlockingQueue<>(2, s -> s, null);
+        Assert.assertTrue(queue.put("a"));
+        Assert.assertTrue(queue.put("b"));
+        Assert.assertFalse(queue.put("a"));
+        Assert.assertFalse(queue.offer("c"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Boolean> put = executor.submit(() -> queue.put("c"));
+            Assert.assertEquals("a", queue.poll(1, TimeUnit.SECONDS));
+            Assert.assertTrue(put.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals("b", queue.take());
+        Assert.assertEquals("c", queue.take());
+        Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    private JobClient jobClient(String jobId, long priority) {
+        JobClient jobClient = new JobClient();
+        jobClient.setJobId(jobId);
+        jobClient.setPriority(priority);
+        return jobClient;
+    }
+}
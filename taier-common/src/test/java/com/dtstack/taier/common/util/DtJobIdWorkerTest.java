@@ -0,0 +1,80 @@
+package com.dtstack.taier.common.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DtJobIdWorkerTest {
+
+    @Test
+    public void testJobIdFormat() {
+        DtJobIdWorker worker = DtJobIdWorker.getInstance(1, 0);
+        long second = System.currentTimeMillis() / 1000;
+        int network = 1;
+        for (long sequence : new long[]{0L, 1L, 12345L, 99999L}) {
+            String legacy = DtJobIdWorker.digits32(Long.parseLong(String.valueOf(second)
+                    .concat(String.format("%03d", network)).concat(String.format("%05d", sequence))));
+            Assert.assertEquals(legacy, worker.toJobId(second * 100000L + sequence));
+        }
+    }
+
+    @Test
+    public void testBulkLargerThanOneSecond() {
+        DtJobIdWorker worker = DtJobIdWorker.getInstance(1, 0);
+        // 超过一秒的序号数时拆分预占
+        List<String> ids = worker.nextJobIds(250000);
+        Assert.assertEquals(250000, ids.size());
+        Assert.assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    @Test
+    public void testUniqueUnderConcurrency() throws Exception {
+        DtJobIdWorker worker = DtJobIdWorker.getInstance(1, 0);
+        int threads = 32;
+        int perThread = 20000;
+        Set<String> jobIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger total = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<?>[] futures = new Future[threads];
+            for (int i = 0; i < threads; i++) {
+                boolean bulk = i % 4 == 0;
+                futures[i] = executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < perThread; ) {
+                        if (bulk) {
+                            List<String> ids = worker.nextJobIds(100);
+                            jobIds.addAll(ids);
+                            total.addAndGet(ids.size());
+                            j += ids.size();
+                        } else {
+                            jobIds.add(worker.nextJobId());
+                            total.incrementAndGet();
+                            j++;
+                        }
+                    }
+                    return null;
+                });
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assert.assertEquals(threads * perThread, total.get());
+        Assert.assertEquals(total.get(), jobIds.size());
+    }
+}
@@ -42,7 +42,18 @@ public interface ScheduleEngineJobCacheMapper extends BaseMapper<ScheduleEngineJ
 
     List<ScheduleEngineJobCache> listByStage(@Param("startId") Long id, @Param("nodeAddress") String nodeAddress, @Param("stage") Integer stage, @Param("jobResource") String jobResource,@Param("selectJobInfo") Boolean selectJobInfo);
 
+    /**
+     * 按优先级顺序查询节点上某个 stage 的任务
+     *
+     * @param limit 最多查询的任务数
+     */
+    List<ScheduleEngineJobCache> listByStageOrderByPriority(@Param("nodeAddress") String nodeAddress, @Param("stage") Integer stage, @Param("jobResource") String jobResource, @Param("limit") Integer limit);
+
     Long minPriorityByStage(@Param("jobResource") String jobResource, @Param("stages") List<Integer> stages, @Param("nodeAddress") String nodeAddress);
 
     Integer deleteByJobIds(@Param("jobIds") List<String> jobIds);
+
+    Integer updateStageAndPriorityBatch(@Param("jobCaches") List<ScheduleEngineJobCache> jobCaches, @Param("stage") Integer stage, @Param("nodeAddress") String nodeAddress);
+
+    Integer updateStageByJobIdBatch(@Param("jobCaches") List<ScheduleEngineJobCache> jobCaches);
 }
@@ -4,6 +4,7 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.dtstack.taier.dao.domain.ScheduleJobExpand;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -18,4 +19,20 @@ public interface ScheduleJobExpandMapper extends BaseMapper<ScheduleJobExpand> {
                               @Param("isDeleted") Integer isDeleted,
                               @Param("logInfo") String logInfo,
                               @Param("engineLog") String engineLog);
+
+    /**
+     * 多值批量插入实例扩展信息
+     *
+     * @param expands 扩展信息
+     * @return 插入数
+     */
+    Integer insertBatch(@Param("expands") List<ScheduleJobExpand> expands);
+
+    /**
+     * 批量更新实例的 jobExtraInfo 和 logInfo
+     *
+     * @param expands 扩展信息
+     * @return 更新数
+     */
+    Integer updateExtraInfoAndLogBatch(@Param("expands") List<ScheduleJobExpand> expands);
 }
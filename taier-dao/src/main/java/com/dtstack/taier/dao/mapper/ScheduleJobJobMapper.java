@@ -2,6 +2,9 @@ package com.dtstack.taier.dao.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
 
 /**
  * @Auther: dazhi
@@ -11,4 +14,11 @@ import com.dtstack.taier.dao.domain.ScheduleJobJob;
  */
 public interface ScheduleJobJobMapper extends BaseMapper<ScheduleJobJob> {
 
+    /**
+     * 多值批量插入实例依赖
+     *
+     * @param jobJobs 实例依赖
+     * @return 插入数
+     */
+    Integer insertBatch(@Param("jobJobs") List<ScheduleJobJob> jobJobs);
 }
@@ -111,5 +111,47 @@ public interface ScheduleJobMapper extends BaseMapper<ScheduleJob> {
      */
     Integer updateJobStatusAndExecTime(@Param("jobId") String jobId, @Param("status") int status);
 
+    /**
+     * 多值批量插入实例，并回填自增id
+     *
+     * @param jobs 实例
+     * @return 插入数
+     */
+    Integer insertBatch(@Param("jobs") List<ScheduleJob> jobs);
+
+    /**
+     * 批量更新提交成功的实例
+     *
+     * @param jobs 实例，只使用 jobId、engineJobId、applicationId
+     * @return 更新数
+     */
+    Integer updateJobSubmitSuccessBatch(@Param("jobs") List<ScheduleJob> jobs);
+
+    /**
+     * 批量更新实例状态，每个实例的状态不同
+     *
+     * @param jobs 实例，只使用 jobId、status
+     * @return 更新数
+     */
+    Integer updateJobStatusBatch(@Param("jobs") List<ScheduleJob> jobs);
+
+    /**
+     * 批量更新实例状态和结束时间，与 updateJobStatusAndExecTime 相同，结束时间使用状态变更的时间
+     *
+     * @param jobs 实例，只使用 jobId、status、execEndTime
+     * @return 更新数
+     */
+    Integer updateJobStatusAndExecTimeBatch(@Param("jobs") List<ScheduleJob> jobs);
+
+    /**
+     * 容灾迁移实例，只迁移还在原节点(或者没有节点)的实例
+     *
+     * @param nodeAddress    目标节点
+     * @param oldNodeAddress 原节点
+     * @param ids            实例的记录id
+     * @return 更新数
+     */
+    Integer updateNodeAddressFailover(@Param("nodeAddress") String nodeAddress, @Param("oldNodeAddress") String oldNodeAddress, @Param("ids") List<Long> ids);
+
 
 }
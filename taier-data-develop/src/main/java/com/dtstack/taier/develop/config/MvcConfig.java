@@ -20,6 +20,7 @@
 
 package com.dtstack.taier.develop.config;
 
+import com.dtstack.taier.develop.controller.console.MetricsController;
 import com.dtstack.taier.develop.interceptor.LoginInterceptor;
 import com.dtstack.taier.pluginapi.constrant.ConfigConstant;
 import org.springframework.context.annotation.Bean;
@@ -73,7 +74,7 @@ public class MvcConfig extends DelegatingWebMvcConfiguration {
 
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
-        registry.addInterceptor(loginInterceptor()).addPathPatterns("/**");
+        registry.addInterceptor(loginInterceptor()).addPathPatterns("/**").excludePathPatterns(MetricsController.METRICS_PATH);
         super.addInterceptors(registry);
     }
 
@@ -98,6 +99,7 @@ public class MvcConfig extends DelegatingWebMvcConfiguration {
         configurer.addPathPrefix(ConfigConstant.REQUEST_PREFIX,
                 c -> (c.isAnnotationPresent(RestController.class) ||
                 c.isAnnotationPresent(Controller.class)) && c.getName().contains("com.dtstack.taier")
+                        && c != MetricsController.class
         );
     }
 
@@ -0,0 +1,34 @@
+package com.dtstack.taier.develop.controller.console;
+
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @Date: 2026/10/18 12:20 AM
+ * @Description: Prometheus 采集调度和插件客户端的指标，不加 /taier 前缀、不需要登录。
+ * 耗时最大值在每次采集后清零，每个节点只配置一个采集方
+ */
+@RestController
+@Api(value = "/metrics", tags = {"监控指标"})
+public class MetricsController {
+
+    public static final String METRICS_PATH = "/metrics";
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    @GetMapping(value = METRICS_PATH)
+    @ApiOperation("Prometheus 格式的指标")
+    public void metrics(HttpServletResponse response) throws IOException {
+        byte[] body = MetricRegistry.scrape().getBytes(StandardCharsets.UTF_8);
+        response.setContentType(CONTENT_TYPE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -1,10 +0,0 @@
-package com.dtstack.taier.develop.graph;
-
-/**
- * @author leon
- * @date 2022-08-01 18:45
- **/
-public interface GraphNode<V> {
-
-    V val();
-}
@@ -1,10 +0,0 @@
-package com.dtstack.taier.develop.graph;
-
-/**
- * @author leon
- * @date 2022-08-02 13:59
- **/
-public interface IdProvider<I> {
-
-    I id();
-}
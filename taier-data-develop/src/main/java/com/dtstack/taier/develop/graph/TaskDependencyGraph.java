@@ -0,0 +1,91 @@
+package com.dtstack.taier.develop.graph;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Date: 2026/10/18 3:50 AM
+ * @Description: 内存中的任务依赖图，上下游都用邻接表保存，线程安全
+ * <p>
+ * 给任务 taskId 设置上游 parentTaskIds 时，新的环一定经过 taskId，
+ * 只要从 taskId 往下游遍历一次，看能否到达其中一个上游即可，时间复杂度 O(下游节点数 + 边数)
+ */
+public class TaskDependencyGraph {
+
+    private final Map<Long, Set<Long>> parents = new HashMap<>();
+
+    private final Map<Long, Set<Long>> children = new HashMap<>();
+
+    public synchronized void addEdge(Long parentTaskId, Long taskId) {
+        parents.computeIfAbsent(taskId, k -> new HashSet<>()).add(parentTaskId);
+        children.computeIfAbsent(parentTaskId, k -> new HashSet<>()).add(taskId);
+    }
+
+    /**
+     * 替换任务的全部上游，与 schedule_task_task_shade 先删后插保持一致
+     *
+     * @return 删除的上游数
+     */
+    public synchronized int replaceParents(Long taskId, Collection<Long> parentTaskIds) {
+        int removed = removeParents(taskId);
+        for (Long parentTaskId : parentTaskIds) {
+            addEdge(parentTaskId, taskId);
+        }
+        return removed;
+    }
+
+    /**
+     * @return 删除的上游数
+     */
+    public synchronized int removeParents(Long taskId) {
+        Set<Long> oldParents = parents.remove(taskId);
+        if (oldParents == null) {
+            return 0;
+        }
+        for (Long parentTaskId : oldParents) {
+            Set<Long> siblings = children.get(parentTaskId);
+            if (siblings != null) {
+                siblings.remove(taskId);
+                if (siblings.isEmpty()) {
+                    children.remove(parentTaskId);
+                }
+            }
+        }
+        return oldParents.size();
+    }
+
+    /**
+     * @return 把 taskId 的上游设置为 parentTaskIds 后是否成环
+     */
+    public synchronized boolean isLoop(Long taskId, Collection<Long> parentTaskIds) {
+        Set<Long> targets = new HashSet<>(parentTaskIds);
+        if (targets.contains(taskId)) {
+            return true;
+        }
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        stack.push(taskId);
+        visited.add(taskId);
+        while (!stack.isEmpty()) {
+            for (Long child : children.getOrDefault(stack.pop(), Collections.emptySet())) {
+                if (targets.contains(child)) {
+                    return true;
+                }
+                if (visited.add(child)) {
+                    stack.push(child);
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized int edgeSize() {
+        return parents.values().stream().mapToInt(Set::size).sum();
+    }
+}
@@ -76,6 +76,7 @@ import com.dtstack.taier.develop.service.datasource.impl.DatasourceService;
 import com.dtstack.taier.develop.service.develop.ITaskSaver;
 import com.dtstack.taier.develop.service.develop.TaskConfiguration;
 import com.dtstack.taier.develop.service.develop.saver.AbstractTaskSaver;
+import com.dtstack.taier.develop.service.schedule.TaskDependencyIndex;
 import com.dtstack.taier.develop.service.schedule.TaskService;
 import com.dtstack.taier.develop.service.task.TaskTemplateService;
 import com.dtstack.taier.develop.service.user.UserService;
@@ -171,6 +172,9 @@ public class DevelopTaskService extends ServiceImpl<DevelopTaskMapper, Task> {
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private TaskDependencyIndex taskDependencyIndex;
+
     @Autowired
     private DevelopSysParamService developSysParamService;
 
@@ -488,6 +492,10 @@ public class DevelopTaskService extends ServiceImpl<DevelopTaskMapper, Task> {
                             for (ScheduleTaskTaskShade taskTaskShade : keys.values()) {
                                 scheduleTaskTaskService.insert(taskTaskShade);
                             }
+                            keys.values().stream()
+                                    .collect(Collectors.groupingBy(ScheduleTaskTaskShade::getTaskId))
+                                    .forEach((taskId, taskTasks) -> taskDependencyIndex.replaceParents(taskTasks.get(0).getTenantId(), taskId,
+                                            taskTasks.stream().map(ScheduleTaskTaskShade::getParentTaskId).collect(Collectors.toList())));
                         }
                     } catch (Exception e) {
                         LOGGER.error("send task error {} ", subTask.getName(), e);
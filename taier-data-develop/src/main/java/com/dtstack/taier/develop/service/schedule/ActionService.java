@@ -213,7 +213,8 @@ public class ActionService {
                     sqlText = sqlText.replaceAll("(\"password\"[^\"]+\")([^\"]+)(\")", "$1******$3");
                 }
             }
-            sqlText = JobParamReplace.paramReplace(sqlText, taskParamsToReplace, scheduleJob.getCycTime());
+            sqlText = JobParamReplace.paramReplace(sqlText, taskParamsToReplace, scheduleJob.getCycTime(),
+                    scheduleTaskShade.getTaskId(), scheduleTaskShade.getGmtModified());
             jobLogVO.setSqlText(sqlText);
             Timestamp execStartTime = scheduleJob.getExecStartTime();
             Timestamp execEndTime = scheduleJob.getExecEndTime();
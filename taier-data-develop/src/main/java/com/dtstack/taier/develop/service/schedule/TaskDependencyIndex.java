@@ -0,0 +1,236 @@
+package com.dtstack.taier.develop.service.schedule;
+
+import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
+import com.dtstack.taier.develop.graph.TaskDependencyGraph;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Date: 2026/10/18 4:00 AM
+ * @Description: 按租户缓存的任务依赖图，发布任务时在内存中判断依赖是否成环
+ * <p>
+ * 启动时加载全部依赖，本节点的修改在事务提交后同步到内存，事务回滚时不修改。
+ * 其他节点的修改不会同步过来，判断前先比较该租户依赖的条数和最大 id，不一致时重新加载该租户的依赖。
+ * 本节点修改后重新查询条数和最大 id，与本次修改后预期的一致时更新内存中的版本，不一致说明其他节点也有修改，保留旧版本下次重新加载。
+ * 查询依赖 schedule_task_task_shade 的 (tenant_id, is_deleted, id) 索引
+ */
+@Component
+public class TaskDependencyIndex implements InitializingBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TaskDependencyIndex.class);
+
+    private static final long EXPIRE_MINUTES = 10;
+
+    @Autowired
+    private TaskTaskService taskTaskService;
+
+    private final Cache<Long, TenantGraph> graphs = CacheBuilder.newBuilder()
+            .expireAfterAccess(EXPIRE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    @Override
+    public void afterPropertiesSet() {
+        rebuild();
+    }
+
+    /**
+     * 重新加载全部租户的依赖
+     */
+    public void rebuild() {
+        try {
+            long startTime = System.currentTimeMillis();
+            Map<Long, List<ScheduleTaskTaskShade>> tenantTaskTasks = new HashMap<>();
+            for (ScheduleTaskTaskShade taskTaskShade : listTaskTask(null)) {
+                if (taskTaskShade.getTenantId() == null) {
+                    continue;
+                }
+                tenantTaskTasks.computeIfAbsent(taskTaskShade.getTenantId(), k -> new ArrayList<>()).add(taskTaskShade);
+            }
+            graphs.invalidateAll();
+            tenantTaskTasks.forEach((tenantId, taskTasks) -> graphs.put(tenantId, build(taskTasks)));
+            LOGGER.info("rebuild task dependency index tenant {} cost {}ms", tenantTaskTasks.size(), System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // 加载失败时按租户延迟加载
+            LOGGER.error("rebuild task dependency index error", e);
+        }
+    }
+
+    /**
+     * @return 把 taskId 的上游设置为 parentTaskIds 后是否成环
+     */
+    public boolean isLoop(Long tenantId, Long taskId, Collection<Long> parentTaskIds) {
+        if (CollectionUtils.isEmpty(parentTaskIds)) {
+            return false;
+        }
+        TenantGraph tenantGraph = graphs.getIfPresent(tenantId);
+        Stamp stamp = queryStamp(tenantId);
+        if (tenantGraph == null || !tenantGraph.stamp.equals(stamp)) {
+            tenantGraph = build(listTaskTask(tenantId));
+            LOGGER.info("reload task dependency index tenant {} edge {}", tenantId, tenantGraph.graph.edgeSize());
+            // 事务中查询到的依赖可能包含未提交的修改，提交后再放入缓存
+            TenantGraph loaded = tenantGraph;
+            afterCommit(() -> graphs.put(tenantId, loaded));
+        }
+        return tenantGraph.graph.isLoop(taskId, parentTaskIds);
+    }
+
+    /**
+     * 任务提交后替换任务的全部上游
+     */
+    public void replaceParents(Long tenantId, Long taskId, Collection<Long> parentTaskIds) {
+        afterCommit(() -> {
+            TenantGraph tenantGraph = graphs.getIfPresent(tenantId);
+            if (tenantGraph != null) {
+                int removed = tenantGraph.graph.replaceParents(taskId, parentTaskIds);
+                refreshStamp(tenantId, tenantGraph, removed, parentTaskIds.size());
+            }
+        });
+    }
+
+    /**
+     * 任务删除后删除任务的全部上游，任务 id 全局唯一，不需要租户
+     */
+    public void removeParents(Long taskId) {
+        afterCommit(() -> {
+            for (Map.Entry<Long, TenantGraph> entry : graphs.asMap().entrySet()) {
+                int removed = entry.getValue().graph.removeParents(taskId);
+                if (removed > 0) {
+                    refreshStamp(entry.getKey(), entry.getValue(), removed, 0);
+                }
+            }
+        });
+    }
+
+    /**
+     * 本节点修改依赖后更新版本，数据库中的版本与本次修改后的预期不一致时保留旧版本，下次判断时重新加载
+     *
+     * @param removed 删除的依赖条数
+     * @param added   新增的依赖条数
+     */
+    private void refreshStamp(Long tenantId, TenantGraph tenantGraph, int removed, int added) {
+        try {
+            Stamp old = tenantGraph.stamp;
+            Stamp current = queryStamp(tenantId);
+            boolean expected = current.count == old.count - removed + added
+                    && (added > 0 ? current.maxId > old.maxId : current.maxId <= old.maxId);
+            if (expected) {
+                tenantGraph.stamp = current;
+            }
+        } catch (Exception e) {
+            LOGGER.warn("refresh task dependency stamp tenant {} error", tenantId, e);
+        }
+    }
+
+    /**
+     * 存在事务时在事务提交后执行，否则立即执行
+     */
+    private void afterCommit(Runnable runnable) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            runnable.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                runnable.run();
+            }
+        });
+    }
+
+    private List<ScheduleTaskTaskShade> listTaskTask(Long tenantId) {
+        return taskTaskService.lambdaQuery()
+                .select(ScheduleTaskTaskShade::getId, ScheduleTaskTaskShade::getTenantId, ScheduleTaskTaskShade::getTaskId, ScheduleTaskTaskShade::getParentTaskId)
+                .eq(tenantId != null, ScheduleTaskTaskShade::getTenantId, tenantId)
+                .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+    }
+
+    /**
+     * 依赖先删后插，新插入的依赖 id 一定更大，条数和最大 id 都不变时依赖没有变化
+     */
+    private Stamp queryStamp(Long tenantId) {
+        Integer count = taskTaskService.lambdaQuery()
+                .eq(ScheduleTaskTaskShade::getTenantId, tenantId)
+                .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                .count();
+        ScheduleTaskTaskShade maxTaskTask = taskTaskService.lambdaQuery()
+                .select(ScheduleTaskTaskShade::getId)
+                .eq(ScheduleTaskTaskShade::getTenantId, tenantId)
+                .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                .orderByDesc(ScheduleTaskTaskShade::getId)
+                .last("limit 1")
+                .one();
+        return new Stamp(count == null ? 0 : count, maxTaskTask == null ? 0L : maxTaskTask.getId());
+    }
+
+    private TenantGraph build(List<ScheduleTaskTaskShade> taskTasks) {
+        TaskDependencyGraph graph = new TaskDependencyGraph();
+        long maxId = 0L;
+        for (ScheduleTaskTaskShade taskTaskShade : taskTasks) {
+            graph.addEdge(taskTaskShade.getParentTaskId(), taskTaskShade.getTaskId());
+            maxId = Math.max(maxId, taskTaskShade.getId());
+        }
+        return new TenantGraph(graph, new Stamp(taskTasks.size(), maxId));
+    }
+
+    private static class TenantGraph {
+
+        private final TaskDependencyGraph graph;
+
+        /**
+         * 数据库中依赖的版本，加载时设置，本节点修改后确认没有其他节点的修改时更新
+         */
+        private volatile Stamp stamp;
+
+        private TenantGraph(TaskDependencyGraph graph, Stamp stamp) {
+            this.graph = graph;
+            this.stamp = stamp;
+        }
+    }
+
+    private static class Stamp {
+
+        private final int count;
+
+        private final long maxId;
+
+        private Stamp(int count, long maxId) {
+            this.count = count;
+            this.maxId = maxId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Stamp stamp = (Stamp) o;
+            return count == stamp.count && maxId == stamp.maxId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, maxId);
+        }
+    }
+}
@@ -13,9 +13,6 @@ import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
 import com.dtstack.taier.dao.domain.User;
 import com.dtstack.taier.dao.mapper.ScheduleTaskShadeMapper;
 import com.dtstack.taier.dao.pager.PageResult;
-import com.dtstack.taier.develop.graph.FlatDirectedGraphLoopJudge;
-import com.dtstack.taier.develop.graph.GenericFlatFlatDirectedGraphLoopJudge;
-import com.dtstack.taier.develop.graph.adapter.ScheduleTaskTaskShadeFlatGraphSideAdapterFlat;
 import com.dtstack.taier.develop.mapstruct.task.ScheduleTaskMapstructTransfer;
 import com.dtstack.taier.develop.service.user.UserService;
 import com.dtstack.taier.develop.vo.schedule.ReturnScheduleTaskVO;
@@ -36,7 +33,6 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -59,6 +55,9 @@ public class TaskService extends ServiceImpl<ScheduleTaskShadeMapper, ScheduleTa
     @Autowired
     private ScheduleTaskShadeInfoService scheduleTaskShadeInfoService;
 
+    @Autowired
+    private TaskDependencyIndex taskDependencyIndex;
+
     /**
      * 根据任务id获得任务
      *
@@ -116,7 +115,9 @@ public class TaskService extends ServiceImpl<ScheduleTaskShadeMapper, ScheduleTa
         this.lambdaUpdate().eq(ScheduleTaskShade::getTaskId, taskId).update(scheduleTaskShade);
 
         // 直接删除任务依赖
-        return tasktaskService.lambdaUpdate().eq(ScheduleTaskTaskShade::getTaskId, taskId).remove();
+        boolean removed = tasktaskService.lambdaUpdate().eq(ScheduleTaskTaskShade::getTaskId, taskId).remove();
+        taskDependencyIndex.removeParents(taskId);
+        return removed;
     }
 
     /**
@@ -179,35 +180,14 @@ public class TaskService extends ServiceImpl<ScheduleTaskShadeMapper, ScheduleTa
             scheduleTaskTaskShadeList.add(scheduleTaskTaskShade);
         }
         // 成环判断
-        if (checkLoop(scheduleTaskTaskShadeList)) {
+        if (taskDependencyIndex.isLoop(scheduleTaskShade.getTenantId(), scheduleTaskShade.getTaskId(), parentTaskIdList)) {
             throw new DtCenterDefException(ErrorCode.TASK_DEPENDENCY_IS_LOOP);
         }
         // 删除任务依赖
         tasktaskService.lambdaUpdate().eq(ScheduleTaskTaskShade::getTaskId, scheduleTaskShade.getTaskId()).remove();
-        return tasktaskService.saveBatch(scheduleTaskTaskShadeList);
-    }
-
-    private boolean checkLoop(List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList) {
-        if (CollectionUtils.isEmpty(scheduleTaskTaskShadeList)) {
-            return false;
-        }
-        Function<List<Long>, List<ScheduleTaskTaskShadeFlatGraphSideAdapterFlat>> parentProvider =
-                taskIds -> ScheduleTaskTaskShadeFlatGraphSideAdapterFlat.build(tasktaskService.listByIds(taskIds));
-
-        Function<List<Long>, List<ScheduleTaskTaskShadeFlatGraphSideAdapterFlat>> childProvider = parentIds -> {
-            List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList1 = tasktaskService.lambdaQuery()
-                    .in(ScheduleTaskTaskShade::getParentTaskId, parentIds)
-                    .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                    .list();
-            return ScheduleTaskTaskShadeFlatGraphSideAdapterFlat.build(scheduleTaskTaskShadeList1);
-        };
-
-        List<ScheduleTaskTaskShadeFlatGraphSideAdapterFlat> adapters = ScheduleTaskTaskShadeFlatGraphSideAdapterFlat.build(scheduleTaskTaskShadeList);
-
-        FlatDirectedGraphLoopJudge<Long, Long, ScheduleTaskTaskShadeFlatGraphSideAdapterFlat> loopJudge
-                = new GenericFlatFlatDirectedGraphLoopJudge<>(adapters);
-
-        return loopJudge.isLoop(parentProvider, childProvider);
+        boolean saved = tasktaskService.saveBatch(scheduleTaskTaskShadeList);
+        taskDependencyIndex.replaceParents(scheduleTaskShade.getTenantId(), scheduleTaskShade.getTaskId(), parentTaskIdList);
+        return saved;
     }
 
     /**
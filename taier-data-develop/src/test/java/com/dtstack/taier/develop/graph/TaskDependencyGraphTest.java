@@ -0,0 +1,56 @@
+package com.dtstack.taier.develop.graph;
+
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class TaskDependencyGraphTest {
+
+    @Test
+    public void testIsLoop() {
+        // 1 -> 2 -> 3 -> 4, 1 -> 5
+        TaskDependencyGraph graph = new TaskDependencyGraph();
+        graph.addEdge(1L, 2L);
+        graph.addEdge(2L, 3L);
+        graph.addEdge(3L, 4L);
+        graph.addEdge(1L, 5L);
+        Assert.assertEquals(4, graph.edgeSize());
+
+        // 自依赖
+        Assert.assertTrue(graph.isLoop(3L, Collections.singletonList(3L)));
+        // 上游是自己的下游
+        Assert.assertTrue(graph.isLoop(1L, Collections.singletonList(4L)));
+        Assert.assertTrue(graph.isLoop(2L, Lists.newArrayList(5L, 3L)));
+        // 不成环
+        Assert.assertFalse(graph.isLoop(4L, Lists.newArrayList(1L, 5L)));
+        Assert.assertFalse(graph.isLoop(5L, Collections.singletonList(4L)));
+        Assert.assertFalse(graph.isLoop(6L, Collections.singletonList(1L)));
+        // 判断不修改依赖
+        Assert.assertEquals(4, graph.edgeSize());
+    }
+
+    @Test
+    public void testReplaceAndRemoveParents() {
+        TaskDependencyGraph graph = new TaskDependencyGraph();
+        graph.addEdge(1L, 2L);
+        graph.addEdge(2L, 3L);
+        Assert.assertTrue(graph.isLoop(1L, Collections.singletonList(3L)));
+
+        // 3 的上游从 2 换成 4 后，1 -> 2 和 4 -> 3 不再连通
+        Assert.assertEquals(1, graph.replaceParents(3L, Collections.singletonList(4L)));
+        Assert.assertEquals(2, graph.edgeSize());
+        Assert.assertFalse(graph.isLoop(1L, Collections.singletonList(3L)));
+        Assert.assertTrue(graph.isLoop(4L, Collections.singletonList(3L)));
+
+        Assert.assertEquals(1, graph.removeParents(3L));
+        Assert.assertEquals(1, graph.edgeSize());
+        Assert.assertFalse(graph.isLoop(4L, Collections.singletonList(3L)));
+        // 删除没有上游的任务
+        Assert.assertEquals(0, graph.removeParents(1L));
+        Assert.assertEquals(1, graph.edgeSize());
+        Assert.assertTrue(graph.isLoop(2L, Collections.singletonList(2L)));
+        Assert.assertFalse(graph.isLoop(2L, Collections.singletonList(1L)));
+    }
+}
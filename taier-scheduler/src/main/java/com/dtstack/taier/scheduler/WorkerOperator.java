@@ -18,7 +18,6 @@
 
 package com.dtstack.taier.scheduler;
 
-import com.alibaba.fastjson.JSONObject;
 import com.dtstack.taier.common.client.ClientOperator;
 import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.pluginapi.JobClient;
@@ -34,6 +33,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -42,6 +43,8 @@ public class WorkerOperator {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(WorkerOperator.class);
 
+    private static final String NULL_JSON = "null";
+
     @Autowired
     private PluginWrapper pluginWrapper;
 
@@ -50,8 +53,7 @@ public class WorkerOperator {
 
     private void buildPluginInfo(JobClient jobClient) {
         try {
-            JSONObject info = JSONObject.parseObject(jobClient.getPluginInfo());
-            if (null != info && !info.isEmpty()) {
+            if (isNotEmptyPluginInfo(jobClient.getPluginInfo())) {
                 return;
             }
             pluginWrapper.wrapperJobClient(jobClient);
@@ -61,10 +63,37 @@ public class WorkerOperator {
         }
     }
 
+    /**
+     * pluginInfo 不为空并且不是空json、null，只检查首尾字符，不解析整个 pluginInfo
+     */
+    private boolean isNotEmptyPluginInfo(String pluginInfo) {
+        if (StringUtils.isBlank(pluginInfo)) {
+            return false;
+        }
+        int start = 0;
+        int end = pluginInfo.length() - 1;
+        while (Character.isWhitespace(pluginInfo.charAt(start))) {
+            start++;
+        }
+        while (Character.isWhitespace(pluginInfo.charAt(end))) {
+            end--;
+        }
+        if (pluginInfo.startsWith(NULL_JSON, start) && end - start + 1 == NULL_JSON.length()) {
+            return false;
+        }
+        if (pluginInfo.charAt(start) == '{') {
+            int next = start + 1;
+            while (next < end && Character.isWhitespace(pluginInfo.charAt(next))) {
+                next++;
+            }
+            return next != end;
+        }
+        return true;
+    }
+
     private String getPluginInfo(JobIdentifier jobIdentifier) {
         if (null != jobIdentifier) {
-            JSONObject info = JSONObject.parseObject(jobIdentifier.getPluginInfo());
-            if (null != info && !info.isEmpty()) {
+            if (isNotEmptyPluginInfo(jobIdentifier.getPluginInfo())) {
                 return jobIdentifier.getPluginInfo();
             }
         }
@@ -103,6 +132,38 @@ public class WorkerOperator {
         return status;
     }
 
+    /**
+     * 按集群(pluginInfo)分组后批量获取任务状态，pluginInfo 获取失败的任务不在返回结果中
+     *
+     * @param jobIdentifiers 任务标识
+     * @return key: jobId
+     */
+    public Map<String, TaskStatus> getJobStatuses(List<JobIdentifier> jobIdentifiers) {
+        Map<String, List<JobIdentifier>> pluginJobs = new LinkedHashMap<>();
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            try {
+                String pluginInfo = this.getPluginInfo(jobIdentifier);
+                if (null == pluginInfo) {
+                    LOGGER.error("jobId:{} pluginInfo is null", jobIdentifier.getJobId());
+                    continue;
+                }
+                pluginJobs.computeIfAbsent(pluginInfo, k -> Lists.newArrayList()).add(jobIdentifier);
+            } catch (Exception e) {
+                LOGGER.error("jobId:{} get pluginInfo error", jobIdentifier.getJobId(), e);
+            }
+        }
+
+        Map<String, TaskStatus> statuses = new HashMap<>(jobIdentifiers.size() * 2);
+        for (Map.Entry<String, List<JobIdentifier>> entry : pluginJobs.entrySet()) {
+            Map<String, TaskStatus> pluginStatuses = clientOperator.getJobStatuses(entry.getKey(), entry.getValue());
+            for (JobIdentifier jobIdentifier : entry.getValue()) {
+                TaskStatus status = pluginStatuses.get(jobIdentifier.getJobId());
+                statuses.put(jobIdentifier.getJobId(), null == status ? TaskStatus.NOTFOUND : status);
+            }
+        }
+        return statuses;
+    }
+
     public String getEngineLog(JobIdentifier jobIdentifier) {
         String engineLog = clientOperator.getEngineLog(this.getPluginInfo(jobIdentifier), jobIdentifier);
         if (null == engineLog) {
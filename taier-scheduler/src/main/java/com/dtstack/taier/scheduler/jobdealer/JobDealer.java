@@ -202,6 +202,7 @@ public class JobDealer implements InitializingBean, ApplicationContextAware {
             boolean rs = groupPriorityQueue.add(jobClient, judgeBlock, insert);
             if (!rs) {
                 saveCache(jobClient, jobResource, EJobCacheStage.DB.getStage(), insert);
+                groupPriorityQueue.checkSpilled();
             }
             return rs;
         } catch (Exception e) {
@@ -226,6 +227,13 @@ public class JobDealer implements InitializingBean, ApplicationContextAware {
         return groupPriorityQueue;
     }
 
+    /**
+     * 其他节点迁移来的任务写入数据库后，通知各队列从数据库补充任务
+     */
+    public void requestRefill() {
+        priorityQueueMap.values().forEach(GroupPriorityQueue::requestRefill);
+    }
+
     public void updateJobStatus(String jobId, Integer status) {
         scheduleJobService.updateJobStatusByJobIds(Lists.newArrayList(jobId), status,null);
         LOGGER.info("jobId:{} update job status:{}.", jobId, status);
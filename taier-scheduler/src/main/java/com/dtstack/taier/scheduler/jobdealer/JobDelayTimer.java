@@ -0,0 +1,53 @@
+package com.dtstack.taier.scheduler.jobdealer;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.queue.HashedTimingWheel;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Date: 2026/10/17 11:55 PM
+ * @Description: 所有计算资源共用的延迟时间轮，资源不足、重试、重启的任务延迟后重新进入队列，不占用提交线程
+ */
+@Component
+public class JobDelayTimer implements InitializingBean, DisposableBean {
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private HashedTimingWheel timingWheel;
+
+    @Override
+    public void afterPropertiesSet() {
+        timingWheel = new HashedTimingWheel(this.getClass().getSimpleName(), environmentContext.getJobDelayTimerTick(),
+                TimeUnit.MILLISECONDS, environmentContext.getJobDelayTimerWheelSize());
+        timingWheel.start();
+    }
+
+    /**
+     * 延迟执行，task 在时间轮线程中执行，不能阻塞
+     *
+     * @param task  到期执行的任务
+     * @param delay 延迟时间，毫秒
+     */
+    public HashedTimingWheel.Timeout schedule(Runnable task, long delay) {
+        return timingWheel.newTimeout(task, delay, TimeUnit.MILLISECONDS);
+    }
+
+    public long getPendingSize() {
+        return timingWheel.getPendingTimeouts();
+    }
+
+    public long getExpiredCount() {
+        return timingWheel.getExpiredTimeouts();
+    }
+
+    @Override
+    public void destroy() {
+        timingWheel.stop();
+    }
+}
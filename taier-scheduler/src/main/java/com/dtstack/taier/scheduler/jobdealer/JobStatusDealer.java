@@ -23,6 +23,8 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.dtstack.taier.common.BlockCallerPolicy;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
 import com.dtstack.taier.common.util.LogCountUtil;
 import com.dtstack.taier.common.util.TaskParamsUtils;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
@@ -40,9 +42,11 @@ import com.dtstack.taier.scheduler.enums.EJobLogType;
 import com.dtstack.taier.scheduler.jobdealer.bo.JobLogInfo;
 import com.dtstack.taier.scheduler.jobdealer.bo.JobStatusFrequency;
 import com.dtstack.taier.scheduler.jobdealer.cache.ShardCache;
+import com.dtstack.taier.scheduler.jobdealer.cache.ShardJob;
 import com.dtstack.taier.scheduler.jobdealer.cache.ShardManager;
 import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -51,7 +55,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
@@ -61,7 +67,8 @@ import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -84,6 +91,11 @@ public class JobStatusDealer implements Runnable {
      */
     private final static int NOT_FOUND_LIMIT_INTERVAL = 3 * 60 * 1000;
 
+    /**
+     * 常驻的实例记录超过这个时间从数据库重新加载一次，兜底数据库中被外部修改的状态
+     */
+    private final static long JOB_RECORD_REFRESH_INTERVAL = 5 * 60 * 1000L;
+
     public static final long INTERVAL = 3500;
     private final static int MULTIPLES = 5;
     private int logOutput = 0;
@@ -102,6 +114,8 @@ public class JobStatusDealer implements Runnable {
 
     private int taskStatusDealerPoolSize;
 
+    private int taskStatusBatchSize;
+
     /**
      * 记录job 连续某个状态的频次
      */
@@ -109,6 +123,11 @@ public class JobStatusDealer implements Runnable {
 
     private ExecutorService taskStatusPool;
 
+    /**
+     * 一次检查从开始到所有批次处理完成的耗时
+     */
+    private MetricTimer tickTimer;
+
     @Override
     public void run() {
         try {
@@ -116,32 +135,41 @@ public class JobStatusDealer implements Runnable {
                 LOGGER.debug("jobResource:{} start again gap:[{} ms]...", jobResource, INTERVAL * MULTIPLES);
             }
 
-            List<Map.Entry<String, Integer>> jobs = new ArrayList<>(shardManager.getShard().entrySet());
+            List<ShardJob> jobs = new ArrayList<>(shardManager.getShard().values());
             if (jobs.isEmpty()){
                 return;
             }
 
-            jobs = jobs.stream().filter(job -> !TaskStatus.needClean(job.getValue())).collect(Collectors.toList());
+            long startTime = System.nanoTime();
+            jobs = jobs.stream().filter(job -> !TaskStatus.needClean(job.getStatus())).collect(Collectors.toList());
 
             Semaphore buildSemaphore = new Semaphore(taskStatusDealerPoolSize);
-            for (Map.Entry<String, Integer> job : jobs) {
+            List<List<ShardJob>> batches = Lists.partition(jobs, taskStatusBatchSize);
+            AtomicInteger remainingBatches = new AtomicInteger(batches.size());
+            for (List<ShardJob> batchJobs : batches) {
                 try {
                     buildSemaphore.acquire();
                     taskStatusPool.submit(() -> {
                         try {
                             if (LOGGER.isDebugEnabled()) {
-                                LOGGER.debug("jobId:{} before dealJob status:{}", job.getKey(), job.getValue());
+                                LOGGER.debug("jobResource:{} job size:{} before dealJobs", jobResource, batchJobs.size());
                             }
-                            dealJob(job.getKey());
+                            dealJobs(batchJobs);
                         } catch (Throwable e) {
-                            LOGGER.error("jobId:{}", job.getKey(), e);
+                            LOGGER.error("jobResource:{} dealJobs error, job size:{}", jobResource, batchJobs.size(), e);
                         } finally {
                             buildSemaphore.release();
+                            if (remainingBatches.decrementAndGet() == 0) {
+                                tickTimer.recordSince(startTime);
+                            }
                         }
                     });
                 } catch (Throwable e) {
-                    LOGGER.error("jobId:{} [acquire pool error]:",job.getKey(), e);
+                    LOGGER.error("jobResource:{} [acquire pool error]:", jobResource, e);
                     buildSemaphore.release();
+                    if (remainingBatches.decrementAndGet() == 0) {
+                        tickTimer.recordSince(startTime);
+                    }
                 }
             }
 
@@ -151,50 +179,127 @@ public class JobStatusDealer implements Runnable {
     }
 
 
-    private void dealJob(String jobId) throws Exception {
-        ScheduleJob scheduleJob = scheduleJobService.getByJobId(jobId);
-        ScheduleEngineJobCache engineJobCache = scheduleJobCacheService.getJobCacheByJobId(jobId);
-        if (scheduleJob == null || engineJobCache == null ||
-                (StringUtils.isBlank(scheduleJob.getApplicationId()) && StringUtils.isBlank(scheduleJob.getEngineJobId()))) {
-            shardCache.updateLocalMemTaskStatus(jobId, TaskStatus.CANCELED.getStatus());
+    /**
+     * 批量处理一批任务：未加载或超过刷新间隔的实例记录从数据库加载一次，同一集群的任务一次获取状态
+     *
+     * @param shardJobs 分片中的实例记录
+     */
+    private void dealJobs(List<ShardJob> shardJobs) {
+        long now = System.currentTimeMillis();
+        Map<String, ShardJob> jobs = new LinkedHashMap<>(shardJobs.size() * 2);
+        List<ShardJob> loadJobs = new ArrayList<>();
+        for (ShardJob shardJob : shardJobs) {
+            if (shardJob.isLoaded() && now - shardJob.getLoadTime() < JOB_RECORD_REFRESH_INTERVAL) {
+                jobs.put(shardJob.getJobId(), shardJob);
+            } else {
+                loadJobs.add(shardJob);
+            }
+        }
+        if (!loadJobs.isEmpty()) {
+            jobs.putAll(loadJobs(loadJobs));
+        }
+        if (jobs.isEmpty()) {
+            return;
+        }
 
-            Integer status = TaskStatus.CANCELED.getStatus();
-            String engineJobId = null;
-            if (scheduleJob != null) {
-                engineJobId = scheduleJob.getEngineJobId();
+        List<JobIdentifier> jobIdentifiers = jobs.values().stream().map(ShardJob::getJobIdentifier).collect(Collectors.toList());
+        Map<String, TaskStatus> taskStatuses = workerOperator.getJobStatuses(jobIdentifiers);
+        for (ShardJob shardJob : jobs.values()) {
+            try {
+                dealJobStatus(shardJob, taskStatuses.get(shardJob.getJobId()));
+            } catch (Exception e) {
+                LOGGER.error("jobId:{}", shardJob.getJobId(), e);
+            }
+        }
+    }
 
-                if (TaskStatus.getStoppedStatus().contains(scheduleJob.getStatus())) {
-                    status = scheduleJob.getStatus();
-                } else {
-                    scheduleJobService.updateJobStatusAndExecTime(jobId, status);
+    /**
+     * 从数据库加载实例记录，实例或缓存已经不存在的任务直接结束
+     *
+     * @return key: jobId, 加载成功的实例记录
+     */
+    private Map<String, ShardJob> loadJobs(List<ShardJob> shardJobs) {
+        List<String> jobIds = shardJobs.stream().map(ShardJob::getJobId).collect(Collectors.toList());
+        Map<String, ScheduleJob> scheduleJobMap = scheduleJobService.getByJobIds(jobIds).stream()
+                .collect(Collectors.toMap(ScheduleJob::getJobId, Function.identity(), (v1, v2) -> v1));
+        Map<String, ScheduleEngineJobCache> engineJobCacheMap = scheduleJobCacheService.getByJobIds(jobIds).stream()
+                .collect(Collectors.toMap(ScheduleEngineJobCache::getJobId, Function.identity(), (v1, v2) -> v1));
+
+        Map<String, ShardJob> loadedJobs = new LinkedHashMap<>(shardJobs.size() * 2);
+        for (ShardJob shardJob : shardJobs) {
+            String jobId = shardJob.getJobId();
+            try {
+                ScheduleJob scheduleJob = scheduleJobMap.get(jobId);
+                ScheduleEngineJobCache engineJobCache = engineJobCacheMap.get(jobId);
+                if (scheduleJob == null || engineJobCache == null ||
+                        (StringUtils.isBlank(scheduleJob.getApplicationId()) && StringUtils.isBlank(scheduleJob.getEngineJobId()))) {
+                    dealMissingJob(jobId, scheduleJob, engineJobCache);
+                    continue;
                 }
+                ShardJob loadedJob = new ShardJob(jobId, shardJob.getStatus(), buildJobIdentifier(scheduleJob, engineJobCache),
+                        scheduleJob.getComputeType(), scheduleJob.getType(), scheduleJob.getStatus());
+                // 加载期间内存状态被外部修改过，本次不处理，下次轮询重新加载
+                if (shardManager.replaceJob(shardJob, loadedJob)) {
+                    loadedJobs.put(jobId, loadedJob);
+                }
+            } catch (Exception e) {
+                LOGGER.error("jobId:{}", jobId, e);
+            }
+        }
+        return loadedJobs;
+    }
+
+    private void dealMissingJob(String jobId, ScheduleJob scheduleJob, ScheduleEngineJobCache engineJobCache) {
+        shardManager.putJob(jobId, TaskStatus.CANCELED.getStatus());
+
+        Integer status = TaskStatus.CANCELED.getStatus();
+        String engineJobId = null;
+        if (scheduleJob != null) {
+            engineJobId = scheduleJob.getEngineJobId();
+
+            if (TaskStatus.getStoppedStatus().contains(scheduleJob.getStatus())) {
+                status = scheduleJob.getStatus();
             } else {
                 scheduleJobService.updateJobStatusAndExecTime(jobId, status);
             }
-
-            scheduleJobCacheService.deleteByJobId(jobId);
-            LOGGER.info("jobId:{} set job finished, status:{}, scheduleJob is {} null, engineJobCache is {} null, engineJobId is {} blank.",
-                    jobId, status, scheduleJob == null ? "" : "not", engineJobCache == null ? "" : "not", engineJobId == null ? "" : "not");
         } else {
-            String engineTaskId = scheduleJob.getEngineJobId();
-            String appId = scheduleJob.getApplicationId();
-            ParamAction paramAction = PublicUtil.jsonStrToObject(engineJobCache.getJobInfo(), ParamAction.class);
-            Integer taskType = paramAction.getTaskType();
-            Map<String, Object> pluginInfo = paramAction.getPluginInfo();
-            JobIdentifier jobIdentifier = new JobIdentifier(engineTaskId, appId, jobId,scheduleJob.getTenantId(),taskType,
-                    TaskParamsUtils.parseDeployTypeByTaskParams(paramAction.getTaskParams(),scheduleJob.getComputeType()).getType(),
-                    null,  MapUtils.isEmpty(pluginInfo) ? null : JSONObject.toJSONString(pluginInfo),paramAction.getComponentVersion());
+            scheduleJobService.updateJobStatusAndExecTime(jobId, status);
+        }
 
-            TaskStatus taskStatus = workerOperator.getJobStatus(jobIdentifier);
+        scheduleJobCacheService.deleteByJobId(jobId);
+        LOGGER.info("jobId:{} set job finished, status:{}, scheduleJob is {} null, engineJobCache is {} null, engineJobId is {} blank.",
+                jobId, status, scheduleJob == null ? "" : "not", engineJobCache == null ? "" : "not", engineJobId == null ? "" : "not");
+    }
 
-            if (LOGGER.isDebugEnabled()) {
-                LOGGER.debug("------ jobId:{} dealJob status:{}", jobId, taskStatus);
-            }
+    private JobIdentifier buildJobIdentifier(ScheduleJob scheduleJob, ScheduleEngineJobCache engineJobCache) throws IOException {
+        ParamAction paramAction = PublicUtil.jsonStrToObject(engineJobCache.getJobInfo(), ParamAction.class);
+        Integer taskType = paramAction.getTaskType();
+        Map<String, Object> pluginInfo = paramAction.getPluginInfo();
+        return new JobIdentifier(scheduleJob.getEngineJobId(), scheduleJob.getApplicationId(), scheduleJob.getJobId(), scheduleJob.getTenantId(), taskType,
+                TaskParamsUtils.parseDeployTypeByTaskParams(paramAction.getTaskParams(), scheduleJob.getComputeType()).getType(),
+                null, MapUtils.isEmpty(pluginInfo) ? null : JSONObject.toJSONString(pluginInfo), paramAction.getComponentVersion());
+    }
+
+    private void dealJobStatus(ShardJob shardJob, TaskStatus taskStatus) {
+        String jobId = shardJob.getJobId();
+        JobIdentifier jobIdentifier = shardJob.getJobIdentifier();
+
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("------ jobId:{} dealJob status:{}", jobId, taskStatus);
+        }
 
-            if (taskStatus != null) {
+        if (taskStatus != null) {
 
-                taskStatus = checkNotFoundStatus(taskStatus, jobId);
-                Integer status = taskStatus.getStatus();
+            taskStatus = checkNotFoundStatus(taskStatus, jobId);
+            Integer status = taskStatus.getStatus();
+            // 只有失败的任务需要判断重试，此时再查询实例和缓存
+            if (TaskStatus.FAILED.getStatus().equals(status) || TaskStatus.SUBMITFAILD.getStatus().equals(status)) {
+                ScheduleJob scheduleJob = scheduleJobService.getByJobId(jobId);
+                ScheduleEngineJobCache engineJobCache = scheduleJobCacheService.getJobCacheByJobId(jobId);
+                if (scheduleJob == null || engineJobCache == null) {
+                    dealMissingJob(jobId, scheduleJob, engineJobCache);
+                    return;
+                }
                 // 重试状态 先不更新状态
                 boolean isRestart = jobRestartDealer.checkAndRestart(status, scheduleJob, engineJobCache, (job, client) -> jobLogDealer.executeLogRunnable(() -> {
                     String engineLog = workerOperator.getEngineLog(jobIdentifier);
@@ -204,23 +309,23 @@ public class JobStatusDealer implements Runnable {
                     LOGGER.info("----- jobId:{} after dealJob status:{}", jobId, taskStatus);
                     return;
                 }
+            }
 
-                shardCache.updateLocalMemTaskStatus(jobId, status);
-                updateJobStatusWithPredicate(scheduleJob, jobId, status);
+            shardJob.setStatus(status);
+            updateJobStatusWithPredicate(shardJob, status);
 
-                //数据的更新顺序，先更新job_cache，再更新engine_batch_job
-                if (TaskStatus.getStoppedStatus().contains(status)) {
-                    jobLogDelayDealer(jobId, jobIdentifier, engineJobCache.getComputeType(),scheduleJob.getType());
-                    jobStatusFrequency.remove(jobId);
-                    scheduleJobCacheService.deleteByJobId(jobId);
-                    updateHistoryEndTime(jobId,appId);
-                    LOGGER.info("------ jobId:{} is stop status {} delete jobCache", jobId, status);
-                }
+            //数据的更新顺序，先更新job_cache，再更新engine_batch_job
+            if (TaskStatus.getStoppedStatus().contains(status)) {
+                jobLogDelayDealer(jobId, jobIdentifier, shardJob.getComputeType(), shardJob.getType());
+                jobStatusFrequency.remove(jobId);
+                scheduleJobCacheService.deleteByJobId(jobId);
+                updateHistoryEndTime(jobId, jobIdentifier.getApplicationId());
+                LOGGER.info("------ jobId:{} is stop status {} delete jobCache", jobId, status);
+            }
 
 
-                if (LOGGER.isDebugEnabled()) {
-                    LOGGER.debug("------ jobId:{} after dealJob status:{}", jobId, taskStatus);
-                }
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("------ jobId:{} after dealJob status:{}", jobId, taskStatus);
             }
         }
     }
@@ -235,29 +340,36 @@ public class JobStatusDealer implements Runnable {
                 .eq(ScheduleJobHistory::getApplicationId, appId));
     }
 
-    private void updateJobStatusWithPredicate(ScheduleJob scheduleJob, String jobId, Integer status) {
+    private void updateJobStatusWithPredicate(ShardJob shardJob, Integer status) {
+        Integer computeType = shardJob.getComputeType();
+        Integer dbStatus = shardJob.getDbStatus();
+        boolean isStream = ComputeType.STREAM.getType().equals(computeType);
+
         //流计算只有在状态变更(且任务没有被手动停止 进入CANCELLING)的时候才去更新schedule_job表
-        Predicate<ScheduleJob> isStreamUpdateConditions = job ->
-                ComputeType.STREAM.getType().equals(job.getComputeType())
-                        && !job.getStatus().equals(status)
-                        && !TaskStatus.CANCELLING.getStatus().equals(job.getStatus());
+        boolean isStreamUpdateConditions = isStream
+                && !status.equals(dbStatus)
+                && !TaskStatus.CANCELLING.getStatus().equals(dbStatus);
 
         //流计算 任务被手动停止 进入CANCELLING 除非YARN上状态已结束 才回写, 引擎返回的最终状态需要回写到数据库
-        Predicate<ScheduleJob> isStreamCancellingConditions = job ->
-                ComputeType.STREAM.getType().equals(job.getComputeType())
-                        && TaskStatus.CANCELLING.getStatus().equals(job.getStatus())
-                        && TaskStatus.STOPPED_STATUS.contains(status);
+        boolean isStreamCancellingConditions = isStream
+                && TaskStatus.CANCELLING.getStatus().equals(dbStatus)
+                && TaskStatus.STOPPED_STATUS.contains(status);
 
-        if (ComputeType.BATCH.getType().equals(scheduleJob.getComputeType()) || isStreamUpdateConditions.test(scheduleJob) || isStreamCancellingConditions.test(scheduleJob)) {
+        //离线任务状态没有变化时不再重复写入
+        boolean isBatchUpdateConditions = ComputeType.BATCH.getType().equals(computeType)
+                && (!status.equals(dbStatus) || TaskStatus.getStoppedStatus().contains(status));
+
+        if (isBatchUpdateConditions || isStreamUpdateConditions || isStreamCancellingConditions) {
             if (TaskStatus.getStoppedStatus().contains(status)) {
                 // 如果是停止状态 更新停止时间
-                scheduleJobService.updateJobStatusAndExecTime(jobId, status);
+                scheduleJobService.updateJobStatusAndExecTime(shardJob.getJobId(), status);
             } else {
-                scheduleJobService.updateStatus(jobId, status);
+                scheduleJobService.updateStatus(shardJob.getJobId(), status);
             }
+            shardJob.setDbStatus(status);
         }
     }
-    
+
     private TaskStatus checkNotFoundStatus(TaskStatus taskStatus, String jobId) {
         JobStatusFrequency statusPair = updateJobStatusFrequency(jobId, taskStatus.getStatus());
         //如果状态为NotFound，则对频次进行判断
@@ -312,6 +424,7 @@ public class JobStatusDealer implements Runnable {
         this.applicationContext = applicationContext;
         setBean();
         this.taskStatusDealerPoolSize = environmentContext.getTaskStatusDealerPoolSize();
+        this.taskStatusBatchSize = Math.max(1, environmentContext.getTaskStatusBatchSize());
         this.taskStatusPool = new ThreadPoolExecutor(taskStatusDealerPoolSize, taskStatusDealerPoolSize, 60L, TimeUnit.SECONDS,
                 new LinkedBlockingQueue<>(1000), new CustomThreadFactory(jobResource + this.getClass().getSimpleName() + "DealJob"), new BlockCallerPolicy());
     }
@@ -327,6 +440,8 @@ public class JobStatusDealer implements Runnable {
     }
 
     public void start() {
+        tickTimer = MetricRegistry.timer("taier_job_status_tick_seconds", "latency of checking status of all jobs in shard", "job_resource", jobResource);
+        MetricRegistry.gauge("taier_job_status_jobs", "jobs in shard waiting for status check", () -> shardManager.getShard().size(), "job_resource", jobResource);
         long jobStatusCheckInterVal = environmentContext.getJobStatusCheckInterVal();
         ScheduledExecutorService scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(jobResource + this.getClass().getSimpleName()));
         scheduledService.scheduleWithFixedDelay(
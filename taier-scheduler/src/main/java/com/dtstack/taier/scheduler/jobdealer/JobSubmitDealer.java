@@ -26,8 +26,9 @@ import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.common.exception.ClientAccessException;
 import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.common.exception.WorkerAccessException;
-import com.dtstack.taier.common.queue.DelayBlockingQueue;
-import com.dtstack.taier.common.util.SleepUtil;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
+import com.dtstack.taier.common.queue.IndexedPriorityBlockingQueue;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.JobClient;
@@ -38,7 +39,6 @@ import com.dtstack.taier.pluginapi.exception.ClientArgumentException;
 import com.dtstack.taier.pluginapi.pojo.JobResult;
 import com.dtstack.taier.pluginapi.pojo.JudgeResult;
 import com.dtstack.taier.scheduler.WorkerOperator;
-import com.dtstack.taier.scheduler.jobdealer.bo.SimpleJobDelay;
 import com.dtstack.taier.scheduler.jobdealer.cache.ShardCache;
 import com.dtstack.taier.scheduler.server.JobPartitioner;
 import com.dtstack.taier.scheduler.server.queue.GroupInfo;
@@ -52,17 +52,24 @@ import org.springframework.context.ApplicationContext;
 
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * company: www.dtstack.com
  * author: toutian
  * create: 2020/2/10
+ * <p>
+ * 资源不足、重启的任务交给共用的 JobDelayTimer 延迟后重新进入队列，不阻塞提交线程。
+ * 其他节点有更高优先级的任务时与具体任务无关，提交线程放回任务后等待 JobDelayTimer 在 jobLackingInterval 后发出的信号再重新判断。
+ * 资源不足的退避时间和优先级只保存在内存中，只在第一次进入 LACKING 时写入数据库
  */
 public class JobSubmitDealer implements Runnable {
 
@@ -90,11 +97,27 @@ public class JobSubmitDealer implements Runnable {
     private String localAddress;
     private String jobResource = null;
     private GroupPriorityQueue priorityQueue;
-    private PriorityBlockingQueue<JobClient> queue = null;
-    private DelayBlockingQueue<SimpleJobDelay<JobClient>> delayJobQueue = null;
+    private IndexedPriorityBlockingQueue<String, JobClient> queue = null;
+    private JobDelayTimer jobDelayTimer;
+    /**
+     * 延迟中的任务数，计入队列大小
+     */
+    private final AtomicInteger delayJobSize = new AtomicInteger();
+    /**
+     * 等待其他节点高优先级任务时提交线程等待的信号，由 JobDelayTimer 到期释放
+     */
+    private final Semaphore priorityRecheckSignal = new Semaphore(0);
+    /**
+     * 已经写入 LACKING 的任务，重试时不再重复写入
+     */
+    private final Set<String> lackingJobIds = ConcurrentHashMap.newKeySet();
     private JudgeResult workerNotFindResult = JudgeResult.notOk( "worker not find");
     private ExecutorService jobSubmitConcurrentService;
     private ScheduleJobExpandService scheduleJobExpandService;
+    /**
+     * 从优先级队列取出到提交到引擎完成的耗时
+     */
+    private final MetricTimer submitTimer;
 
     public JobSubmitDealer(String localAddress, GroupPriorityQueue priorityQueue, ApplicationContext applicationContext) {
         this.jobPartitioner = applicationContext.getBean(JobPartitioner.class);
@@ -102,6 +125,7 @@ public class JobSubmitDealer implements Runnable {
         this.ScheduleJobCacheService = applicationContext.getBean(ScheduleJobCacheService.class);
         this.shardCache = applicationContext.getBean(ShardCache.class);
         this.scheduleJobExpandService = applicationContext.getBean(ScheduleJobExpandService.class);
+        this.jobDelayTimer = applicationContext.getBean(JobDelayTimer.class);
         EnvironmentContext environmentContext = applicationContext.getBean(EnvironmentContext.class);
         if (null == priorityQueue) {
             throw new RdosDefineException("priorityQueue must not null.");
@@ -120,66 +144,49 @@ public class JobSubmitDealer implements Runnable {
         this.priorityQueue = priorityQueue;
         this.jobResource = priorityQueue.getJobResource();
         this.queue = priorityQueue.getQueue();
-        this.delayJobQueue = new DelayBlockingQueue<>(priorityQueue.getQueueSizeLimited());
-
-        ExecutorService executorService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
-                new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_DelayJobProcessor"));
-        executorService.submit(new RestartJobProcessor());
 
         this.jobSubmitConcurrentService = new ThreadPoolExecutor(jobSubmitConcurrent, jobSubmitConcurrent, 60L, TimeUnit.SECONDS,
                 new SynchronousQueue<>(true), new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_JobSubmitConcurrent"), new BlockCallerPolicy());
+        this.submitTimer = MetricRegistry.timer("taier_job_submit_seconds", "latency from take out of priority queue to submitted", "job_resource", jobResource);
     }
 
-    private class RestartJobProcessor implements Runnable {
-        @Override
-        public void run() {
-            while (true) {
-                SimpleJobDelay<JobClient> simpleJobDelay = null;
-                JobClient jobClient = null;
-                try {
-                    simpleJobDelay = delayJobQueue.take();
-                    jobClient = simpleJobDelay.getJob();
-                    if (jobClient != null) {
-                        jobClient.setQueueSourceType(EQueueSourceType.DELAY.getCode());
-                        queue.put(jobClient);
-                        LOGGER.info("jobId:{} stage:{} take job from delayJobQueue queue size:{} and add to priorityQueue.", jobClient.getJobId(), simpleJobDelay.getStage(), delayJobQueue.size());
-                    }
-                } catch (Exception e) {
-                    if (simpleJobDelay != null && jobClient != null) {
-                        LOGGER.error("jobId:{} stage:{}", jobClient.getJobId(), simpleJobDelay.getStage(), e);
-                    } else {
-                        LOGGER.error("", e);
-                    }
-                }
+    /**
+     * 延迟后重新放入优先级队列，调用前需要先增加 delayJobSize
+     */
+    private void delayOffer(JobClient jobClient, int stage, long delay, Integer queueSourceType) {
+        jobDelayTimer.schedule(() -> {
+            delayJobSize.decrementAndGet();
+            jobClient.setQueueSourceType(queueSourceType);
+            queue.offer(jobClient);
+            LOGGER.info("jobId:{} stage:{} delay:{}ms and add to priorityQueue, delay job size:{}.", jobClient.getJobId(), stage, delay, delayJobSize.get());
+        }, delay);
+    }
+
+    private boolean tryReserveDelay() {
+        int size;
+        do {
+            size = delayJobSize.get();
+            if (size >= priorityQueue.getQueueSizeLimited()) {
+                return false;
             }
-        }
+        } while (!delayJobSize.compareAndSet(size, size + 1));
+        return true;
     }
 
     public boolean tryPutRestartJob(JobClient jobClient) {
-        boolean tryPut = delayJobQueue.tryPut(new SimpleJobDelay<>(jobClient, EJobCacheStage.RESTART.getStage(), Objects.isNull(jobClient.getRetryIntervalTime()) ? jobRestartDelay : jobClient.getRetryIntervalTime()));
-        LOGGER.info("jobId:{} {} add job to restart delayJobQueue.", jobClient.getJobId(), tryPut ? "success" : "failed");
+        boolean tryPut = tryReserveDelay();
+        LOGGER.info("jobId:{} {} add job to restart delay.", jobClient.getJobId(), tryPut ? "success" : "failed");
         if (tryPut) {
+            lackingJobIds.remove(jobClient.getJobId());
             //restart的状态修改会在外面处理，这里只需要set stage
             ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.RESTART.getStage(), localAddress, jobClient.getPriority(), null);
+            delayOffer(jobClient, EJobCacheStage.RESTART.getStage(), Objects.isNull(jobClient.getRetryIntervalTime()) ? jobRestartDelay : jobClient.getRetryIntervalTime(), EQueueSourceType.DELAY.getCode());
         }
         return tryPut;
     }
 
-    private void putLackingJob(JobClient jobClient, JudgeResult judgeResult) {
-        try {
-            delayJobQueue.put(new SimpleJobDelay<>(jobClient, EJobCacheStage.LACKING.getStage(), jobLackingDelay));
-            jobClient.lackingCountIncrement();
-            ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.LACKING.getStage(), localAddress, jobClient.getPriority(), judgeResult.getReason());
-            jobClient.doStatusCallBack(TaskStatus.LACKING.getStatus());
-        } catch (InterruptedException e) {
-            queue.put(jobClient);
-            LOGGER.error("jobId:{} delayJobQueue.put failed.",jobClient.getJobId(), e);
-        }
-        LOGGER.info("jobId:{} success add job to lacking delayJobQueue, job's lackingCount:{}.", jobClient.getJobId(), jobClient.getLackingCount());
-    }
-
     public int getDelayJobQueueSize() {
-        return delayJobQueue.size();
+        return delayJobSize.get();
     }
 
     @Override
@@ -187,29 +194,36 @@ public class JobSubmitDealer implements Runnable {
         while (true) {
             try {
                 JobClient jobClient = queue.take();
+                long takeTime = System.nanoTime();
+                priorityQueue.checkRefill();
                 if(LOGGER.isDebugEnabled()){
                     LOGGER.debug("jobId:{} jobResource:{} queue size:{} take job from priorityQueue.", jobClient.getJobId(), jobResource, queue.size());
                 }
                 if (checkIsFinished(jobClient)) {
+                    lackingJobIds.remove(jobClient.getJobId());
                     continue;
                 }
                 if (checkJobSubmitExpired(jobClient)){
+                    lackingJobIds.remove(jobClient.getJobId());
                     shardCache.updateLocalMemTaskStatus(jobClient.getJobId(), TaskStatus.AUTOCANCELED.getStatus());
                     jobClient.doStatusCallBack(TaskStatus.AUTOCANCELED.getStatus());
                     ScheduleJobCacheService.deleteByJobId(jobClient.getJobId());
                     LOGGER.info("jobId:{} checkJobSubmitExpired is true, job ignore to submit.", jobClient.getJobId());
                     continue;
                 }
+                // 与任务无关，其他节点有更高优先级的任务时整个提交线程等待，不逐个延迟任务
                 if (!checkMaxPriority(jobResource)) {
                     LOGGER.info("jobId:{} checkMaxPriority is false, wait other node job which priority higher.", jobClient.getJobId());
-                    queue.put(jobClient);
-                    SleepUtil.sleep(jobLackingInterval);
+                    if (!queue.offer(jobClient)) {
+                        LOGGER.warn("jobId:{} is already in priorityQueue, ignore the taken one.", jobClient.getJobId());
+                    }
+                    awaitPriorityRecheck();
                     continue;
                 }
 
                 //提交任务
                 jobSubmitConcurrentService.submit(()->{
-                    submitJob(jobClient);
+                    submitJob(jobClient, takeTime);
                 });
             } catch (Exception e) {
                 LOGGER.error("", e);
@@ -217,6 +231,15 @@ public class JobSubmitDealer implements Runnable {
         }
     }
 
+    /**
+     * 由 JobDelayTimer 在 jobLackingInterval 后发出信号，提交线程等待信号后重新从队列取优先级最高的任务判断
+     */
+    private void awaitPriorityRecheck() throws InterruptedException {
+        priorityRecheckSignal.drainPermits();
+        jobDelayTimer.schedule(priorityRecheckSignal::release, jobLackingInterval);
+        priorityRecheckSignal.acquire();
+    }
+
     private boolean checkIsFinished(JobClient jobClient) {
         ScheduleEngineJobCache engineJobCache = ScheduleJobCacheService.getByJobId(jobClient.getJobId());
         try {
@@ -231,7 +254,7 @@ public class JobSubmitDealer implements Runnable {
                 if (null == engineJobCache) {
                     //如果任务出现资源不足 一直deploy加大延时  界面杀死重跑立马完成之后 deployQueue数据未移除
                     //重新放入之后直接取消 导致状态更新waitEngine 状态不一致 所以需要判断下数据是否存在
-                    LOGGER.info("jobId:{} stage:{} take job from delayJobQueue  but engine job cache has deleted", jobClient.getJobId(), delayJobQueue.size());
+                    LOGGER.info("jobId:{} stage:{} take job from delay but engine job cache has deleted", jobClient.getJobId(), delayJobSize.get());
                     return true;
                 } else {
                     //如果任务存在 还需要判断cache表数据是否为重跑后插入生成的
@@ -242,8 +265,11 @@ public class JobSubmitDealer implements Runnable {
 
                     }
                     if (checkCanSubmit) {
-                        ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.PRIORITY.getStage(), localAddress, jobClient.getPriority(), null);
-                        jobClient.doStatusCallBack(TaskStatus.WAITENGINE.getStatus());
+                        // 资源不足重试的任务保持 LACKING，不在每次重试时写入
+                        if (!lackingJobIds.contains(jobClient.getJobId())) {
+                            ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.PRIORITY.getStage(), localAddress, jobClient.getPriority(), null);
+                            jobClient.doStatusCallBack(TaskStatus.WAITENGINE.getStatus());
+                        }
                         return false;
                     } else {
                         //插入cache表的时间 比 jobClient 第一次提交时间晚 认为任务重新提交过 当前延时队列的jobClient 抛弃 不做任何处理
@@ -310,9 +336,10 @@ public class JobSubmitDealer implements Runnable {
         }
     }
 
-    private void submitJob(JobClient jobClient) {
+    private void submitJob(JobClient jobClient, long takeTime) {
 
         JobResult jobResult = null;
+        boolean lacking = lackingJobIds.remove(jobClient.getJobId());
         try {
 
             // 判断资源
@@ -335,6 +362,7 @@ public class JobSubmitDealer implements Runnable {
                 jobClient.setEngineTaskId(jobResult.getData(JobResult.EXT_ID_KEY));
                 jobClient.setApplicationId(jobResult.getData(JobResult.JOB_ID_KEY));
                 addToTaskListener(jobClient, jobResult);
+                submitTimer.recordSince(takeTime);
                 LOGGER.info("jobId:{} taskType:{} submit to engine end.", jobClient.getJobId(), jobClient.getTaskType());
             } else if (JudgeResult.JudgeType.LIMIT_ERROR == judgeResult.getResult()) {
                 LOGGER.info("jobId:{} taskType:{} submitJob happens system limitError:{}", jobClient.getJobId(), jobClient.getTaskType(), judgeResult.getReason());
@@ -346,11 +374,11 @@ public class JobSubmitDealer implements Runnable {
                 handlerFailedWithRetry(jobClient, true, new Exception(judgeResult.getReason()));
             } else {
                 LOGGER.info("jobId:{} taskType:{} judgeSlots result is false.", jobClient.getJobId(), jobClient.getTaskType());
-                handlerNoResource(jobClient, judgeResult);
+                handlerNoResource(jobClient, judgeResult, lacking);
             }
         } catch (WorkerAccessException e) {
             LOGGER.info(" jobId:{} taskType:{} worker not find.", jobClient.getJobId(), jobClient.getTaskType());
-            handlerNoResource(jobClient, workerNotFindResult);
+            handlerNoResource(jobClient, workerNotFindResult, lacking);
         } catch (ClientAccessException | ClientArgumentException e) {
             handlerFailedWithRetry(jobClient, false, e);
         } catch (Throwable e) {
@@ -387,22 +415,40 @@ public class JobSubmitDealer implements Runnable {
         addToTaskListener(jobClient, JobResult.createErrorResult(checkRetry, e));
     }
 
-    private void handlerNoResource(JobClient jobClient, JudgeResult judgeResult) {
-        //因为资源不足提交任务失败，优先级数值增加 WAIT_INTERVAL
+    /**
+     * @param lacking 任务是否已经写入 LACKING
+     */
+    private void handlerNoResource(JobClient jobClient, JudgeResult judgeResult, boolean lacking) {
+        //因为资源不足提交任务失败，优先级数值增加 jobPriorityStep，只修改内存中的优先级
         jobClient.setPriority(jobClient.getPriority() + jobPriorityStep);
-
-        //delayQueue的任务比重过大时，直接放入优先级队列重试
-        if (jobClient.lackingCountIncrement() > jobLackingCountLimited && delayJobQueue.size() < priorityQueue.getQueueSizeLimited()) {
-            putLackingJob(jobClient, judgeResult);
+        long lackingCount = jobClient.lackingCountIncrement();
+        delayJobSize.incrementAndGet();
+
+        if (lackingCount > jobLackingCountLimited) {
+            //多次资源不足进入 LACKING，只在第一次进入时写入
+            if (!lacking) {
+                ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.LACKING.getStage(), localAddress, jobClient.getPriority(), judgeResult.getReason());
+                jobClient.doStatusCallBack(TaskStatus.LACKING.getStatus());
+            }
+            lackingJobIds.add(jobClient.getJobId());
+            long delay = lackingBackoff(lackingCount);
+            delayOffer(jobClient, EJobCacheStage.LACKING.getStage(), delay, EQueueSourceType.DELAY.getCode());
+            LOGGER.info("jobId:{} lackingCount:{} add job to lacking delay:{}ms.", jobClient.getJobId(), lackingCount, delay);
         } else {
-            ScheduleJobCacheService.updateStage(jobClient.getJobId(), EJobCacheStage.PRIORITY.getStage(), localAddress, jobClient.getPriority(), null);
-            queue.put(jobClient);
-            SleepUtil.sleep(jobLackingInterval);
-            LOGGER.info("jobId:{} unlimited_lackingCount:{} add to priorityQueue.", jobClient.getJobId(), jobClient.getLackingCount());
-
+            delayOffer(jobClient, EJobCacheStage.PRIORITY.getStage(), jobLackingInterval, jobClient.getQueueSourceType());
+            LOGGER.info("jobId:{} lackingCount:{} delay:{}ms add to priorityQueue.", jobClient.getJobId(), lackingCount, jobLackingInterval);
         }
     }
 
+    /**
+     * 资源不足的退避时间，从 jobLackingInterval 开始按次数翻倍，最大为 jobLackingDelay
+     */
+    private long lackingBackoff(long lackingCount) {
+        long times = Math.min(lackingCount - jobLackingCountLimited - 1, 30);
+        long delay = jobLackingInterval << Math.max(times, 0);
+        return delay <= 0 || delay > jobLackingDelay ? jobLackingDelay : delay;
+    }
+
     private void addToTaskListener(JobClient jobClient, JobResult jobResult) {
         jobClient.setJobResult(jobResult);
         //添加触发读取任务状态消息
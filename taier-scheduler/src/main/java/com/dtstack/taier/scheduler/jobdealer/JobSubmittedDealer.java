@@ -20,14 +20,24 @@ package com.dtstack.taier.scheduler.jobdealer;
 
 import com.alibaba.fastjson.JSONObject;
 import com.dtstack.taier.common.enums.EJobCacheStage;
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
 import com.dtstack.taier.common.util.JobGraphUtil;
+import com.dtstack.taier.common.util.TaskParamsUtils;
+import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleJobExpand;
 import com.dtstack.taier.dao.domain.ScheduleJobHistory;
 import com.dtstack.taier.dao.mapper.ScheduleJobHistoryMapper;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.JobClient;
+import com.dtstack.taier.pluginapi.JobIdentifier;
 import com.dtstack.taier.pluginapi.constrant.JobResultConstant;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.pojo.JobResult;
 import com.dtstack.taier.scheduler.jobdealer.cache.ShardCache;
+import com.dtstack.taier.scheduler.jobdealer.cache.ShardJob;
 import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
 import com.dtstack.taier.scheduler.service.ScheduleJobExpandService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
@@ -38,12 +48,25 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * company: www.dtstack.com
  * author: toutian
  * create: 2020/2/10
+ * <p>
+ * 提交结果按 jobId 分配到多个消费线程，同一个任务的提交结果总在同一个线程中按顺序处理；
+ * 每个消费线程把一个刷新窗口内的提交成功结果合并成几条批量语句写入
  */
 @Component
 public class JobSubmittedDealer implements Runnable {
@@ -73,18 +96,102 @@ public class JobSubmittedDealer implements Runnable {
     @Autowired
     private ScheduleJobExpandService scheduleJobExpandService;
 
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private List<BlockingQueue<JobClient>> partitions = new ArrayList<>();
+
+    private final LongAdder commitCount = new LongAdder();
+
+    private final LongAdder commitJobCount = new LongAdder();
+
+    private final LongAdder commitTime = new LongAdder();
+
+    private final AtomicLong maxCommitTime = new AtomicLong();
+
+    private final MetricTimer commitTimer = MetricRegistry.timer("taier_job_submitted_commit_seconds", "latency of writing one batch of submitted jobs");
 
     public JobSubmittedDealer() {
         queue = JobSubmitDealer.getSubmittedQueue();
+        MetricRegistry.gauge("taier_job_submitted_queue_size", "submitted jobs waiting to be written", this::getQueueSize);
+        MetricRegistry.gauge("taier_job_submitted_commit_job_count", "submitted jobs written", this::getCommitJobCount);
     }
 
     @Override
     public void run() {
+        int consumerSize = Math.max(1, environmentContext.getJobSubmittedConsumerSize());
+        ExecutorService consumerPool = new ThreadPoolExecutor(consumerSize, consumerSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName() + "_consumer"));
+        List<BlockingQueue<JobClient>> consumerQueues = new ArrayList<>(consumerSize);
+        for (int i = 0; i < consumerSize; i++) {
+            BlockingQueue<JobClient> partition = new LinkedBlockingQueue<>();
+            consumerQueues.add(partition);
+            consumerPool.execute(() -> consume(partition));
+        }
+        partitions = consumerQueues;
+
         while (true) {
             JobClient jobClient = null;
             try {
                 jobClient = queue.take();
+                partitions.get(Math.floorMod(jobClient.getJobId().hashCode(), consumerSize)).put(jobClient);
+            } catch (InterruptedException e) {
+                LOGGER.warn("job submitted dealer interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                LOGGER.error("jobId submitted {} jobStatus dealer run error", null == jobClient ? "" : jobClient.getJobId(), e);
+            }
+        }
+    }
+
+    /**
+     * 等待第一个提交结果后，在刷新窗口内继续收集，达到批量大小或窗口结束后一起处理
+     */
+    private void consume(BlockingQueue<JobClient> partition) {
+        int batchSize = Math.max(1, environmentContext.getJobSubmittedBatchSize());
+        long flushWindow = TimeUnit.MILLISECONDS.toNanos(environmentContext.getJobSubmittedFlushWindow());
+        List<JobClient> jobClients = new ArrayList<>(batchSize);
+        while (true) {
+            try {
+                jobClients.add(partition.take());
+                long deadline = System.nanoTime() + flushWindow;
+                while (jobClients.size() < batchSize) {
+                    partition.drainTo(jobClients, batchSize - jobClients.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (jobClients.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    JobClient jobClient = partition.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (jobClient == null) {
+                        break;
+                    }
+                    jobClients.add(jobClient);
+                }
+                dealSubmitted(jobClients);
+            } catch (InterruptedException e) {
+                LOGGER.warn("job submitted consumer interrupted");
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                LOGGER.error("job submitted consumer run error", e);
+            } finally {
+                jobClients.clear();
+            }
+        }
+    }
 
+    private void dealSubmitted(List<JobClient> jobClients) {
+        List<JobClient> successJobs = new ArrayList<>(jobClients.size());
+        Set<String> successJobIds = new HashSet<>(jobClients.size() * 2);
+        for (JobClient jobClient : jobClients) {
+            // 同一个任务在一批中出现多次时，先写入前面的结果，保证同一个任务按顺序处理
+            if (successJobIds.contains(jobClient.getJobId())) {
+                commit(successJobs);
+                successJobs.clear();
+                successJobIds.clear();
+            }
+            try {
                 if (jobRestartDealer.checkAndRestartForSubmitResult(jobClient)) {
                     LOGGER.warn("failed submit job restarting, jobId:{} jobResult:{} ...", jobClient.getJobId(), jobClient.getJobResult());
                     continue;
@@ -94,39 +201,159 @@ public class JobSubmittedDealer implements Runnable {
 
                 //存储执行日志
                 if (StringUtils.isNotBlank(jobClient.getEngineTaskId()) || StringUtils.isNotBlank(jobClient.getApplicationId())) {
-                    JobResult jobResult = jobClient.getJobResult();
-                    String appId = jobResult.getData(JobResult.JOB_ID_KEY);
-                    JSONObject jobExtraInfo = jobResult.getExtraInfoJson();
-                    jobExtraInfo.put(JobResultConstant.JOB_GRAPH,JobGraphUtil.formatJSON(jobClient.getEngineTaskId(), jobExtraInfo.getString(JobResultConstant.JOB_GRAPH), jobClient.getComputeType()));
-                    scheduleJobService.updateJobSubmitSuccess(jobClient.getJobId(), jobClient.getEngineTaskId(), appId);
-                    scheduleJobExpandService.updateExtraInfoAndLog(jobClient.getJobId(),jobExtraInfo.toJSONString(),jobClient.getJobResult().getJsonStr(),null);
-                    jobDealer.updateCache(jobClient, EJobCacheStage.SUBMITTED.getStage());
-                    jobClient.doStatusCallBack(TaskStatus.SUBMITTED.getStatus());
-                    JobClient finalJobClient = jobClient;
-                    shardCache.updateLocalMemTaskStatus(jobClient.getJobId(), TaskStatus.SUBMITTED.getStatus(), (jobId) -> {
-                        LOGGER.warn("success submit job to Engine, jobId:{} jobResult:{} but shareManager is not found ...", jobId, finalJobClient.getJobResult());
-                        finalJobClient.doStatusCallBack(TaskStatus.CANCELED.getStatus());
-                    });
-                    saveHistory(jobClient);
+                    successJobs.add(jobClient);
+                    successJobIds.add(jobClient.getJobId());
                 } else {
                     jobClientFail(jobClient.getJobId(), jobClient.getJobResult().getJsonStr());
                 }
             } catch (Throwable e) {
-                LOGGER.error("jobId submitted {} jobStatus dealer run error", null == jobClient ? "" : jobClient.getJobId(), e);
-                if (null != jobClient) {
-                    jobClientFail(jobClient.getJobId(), JobResult.createErrorResult(e).getJsonStr());
-                }
+                LOGGER.error("jobId submitted {} jobStatus dealer run error", jobClient.getJobId(), e);
+                jobClientFail(jobClient.getJobId(), JobResult.createErrorResult(e).getJsonStr());
             }
         }
+        commit(successJobs);
+    }
+
+    /**
+     * 一批提交成功的任务合并写入，批量写入失败时逐个写入
+     */
+    private void commit(List<JobClient> jobClients) {
+        if (jobClients.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try {
+            List<ScheduleJob> scheduleJobs = new ArrayList<>(jobClients.size());
+            List<ScheduleJobExpand> scheduleJobExpands = new ArrayList<>(jobClients.size());
+            List<ScheduleEngineJobCache> engineJobCaches = new ArrayList<>(jobClients.size());
+            List<ScheduleJobHistory> histories = new ArrayList<>(jobClients.size());
+            for (JobClient jobClient : jobClients) {
+                ScheduleJob scheduleJob = new ScheduleJob();
+                scheduleJob.setJobId(jobClient.getJobId());
+                scheduleJob.setEngineJobId(jobClient.getEngineTaskId());
+                scheduleJob.setApplicationId(jobClient.getJobResult().getData(JobResult.JOB_ID_KEY));
+                scheduleJobs.add(scheduleJob);
+
+                ScheduleJobExpand scheduleJobExpand = new ScheduleJobExpand();
+                scheduleJobExpand.setJobId(jobClient.getJobId());
+                scheduleJobExpand.setJobExtraInfo(buildJobExtraInfo(jobClient));
+                scheduleJobExpand.setLogInfo(jobClient.getJobResult().getJsonStr());
+                scheduleJobExpands.add(scheduleJobExpand);
+
+                ScheduleEngineJobCache engineJobCache = new ScheduleEngineJobCache();
+                engineJobCache.setJobId(jobClient.getJobId());
+                engineJobCache.setJobPriority(jobClient.getPriority());
+                engineJobCaches.add(engineJobCache);
+
+                histories.add(buildHistory(jobClient));
+            }
+            scheduleJobService.updateJobSubmitSuccessBatch(scheduleJobs);
+            scheduleJobExpandService.updateExtraInfoAndLogBatch(scheduleJobExpands);
+            scheduleJobCacheService.updateStageAndPriorityBatch(engineJobCaches, EJobCacheStage.SUBMITTED.getStage(), environmentContext.getLocalAddress());
+            historyMapper.insertBatch(histories);
+        } catch (Throwable e) {
+            LOGGER.error("commit submitted jobs error, job size:{}, commit one by one", jobClients.size(), e);
+            for (JobClient jobClient : jobClients) {
+                dealSubmittedJob(jobClient);
+            }
+            return;
+        }
+        recordCommit(jobClients.size(), System.currentTimeMillis() - startTime);
+
+        for (JobClient jobClient : jobClients) {
+            try {
+                afterSubmitted(jobClient);
+            } catch (Throwable e) {
+                LOGGER.error("jobId submitted {} jobStatus dealer run error", jobClient.getJobId(), e);
+            }
+        }
+    }
+
+    private void dealSubmittedJob(JobClient jobClient) {
+        try {
+            String appId = jobClient.getJobResult().getData(JobResult.JOB_ID_KEY);
+            scheduleJobService.updateJobSubmitSuccess(jobClient.getJobId(), jobClient.getEngineTaskId(), appId);
+            scheduleJobExpandService.updateExtraInfoAndLog(jobClient.getJobId(), buildJobExtraInfo(jobClient), jobClient.getJobResult().getJsonStr(), null);
+            jobDealer.updateCache(jobClient, EJobCacheStage.SUBMITTED.getStage());
+            historyMapper.insert(buildHistory(jobClient));
+            afterSubmitted(jobClient);
+        } catch (Throwable e) {
+            LOGGER.error("jobId submitted {} jobStatus dealer run error", jobClient.getJobId(), e);
+            jobClientFail(jobClient.getJobId(), JobResult.createErrorResult(e).getJsonStr());
+        }
+    }
+
+    private String buildJobExtraInfo(JobClient jobClient) {
+        JSONObject jobExtraInfo = jobClient.getJobResult().getExtraInfoJson();
+        jobExtraInfo.put(JobResultConstant.JOB_GRAPH, JobGraphUtil.formatJSON(jobClient.getEngineTaskId(), jobExtraInfo.getString(JobResultConstant.JOB_GRAPH), jobClient.getComputeType()));
+        return jobExtraInfo.toJSONString();
+    }
+
+    private void afterSubmitted(JobClient jobClient) {
+        jobClient.doStatusCallBack(TaskStatus.SUBMITTED.getStatus());
+        String appId = jobClient.getJobResult().getData(JobResult.JOB_ID_KEY);
+        shardCache.updateLocalMemJob(buildShardJob(jobClient, appId), (jobId) -> {
+            LOGGER.warn("success submit job to Engine, jobId:{} jobResult:{} but shareManager is not found ...", jobId, jobClient.getJobResult());
+            jobClient.doStatusCallBack(TaskStatus.CANCELED.getStatus());
+        });
+    }
+
+    private void recordCommit(int jobSize, long time) {
+        commitCount.increment();
+        commitJobCount.add(jobSize);
+        commitTime.add(time);
+        maxCommitTime.accumulateAndGet(time, Math::max);
+        commitTimer.record(time, TimeUnit.MILLISECONDS);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("commit submitted jobs, job size:{} cost:{}ms queue size:{}", jobSize, time, getQueueSize());
+        }
+    }
+
+    /**
+     * 等待处理的提交结果数量，包括还没有分配到消费线程的
+     */
+    public int getQueueSize() {
+        int size = queue.size();
+        for (BlockingQueue<JobClient> partition : partitions) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    /**
+     * 批量写入的平均耗时(ms)
+     */
+    public long getAvgCommitTime() {
+        long count = commitCount.sum();
+        return count == 0 ? 0 : commitTime.sum() / count;
+    }
+
+    public long getMaxCommitTime() {
+        return maxCommitTime.get();
+    }
+
+    public long getCommitJobCount() {
+        return commitJobCount.sum();
+    }
+
+    /**
+     * 提交成功后直接构建常驻的实例记录，状态轮询不需要再查询数据库
+     */
+    private ShardJob buildShardJob(JobClient jobClient, String appId) {
+        Integer computeType = null == jobClient.getComputeType() ? null : jobClient.getComputeType().getType();
+        JobIdentifier jobIdentifier = new JobIdentifier(jobClient.getEngineTaskId(), appId, jobClient.getJobId(), jobClient.getTenantId(), jobClient.getTaskType(),
+                TaskParamsUtils.parseDeployTypeByTaskParams(jobClient.getTaskParams(), computeType).getType(),
+                null, jobClient.getPluginInfo(), jobClient.getComponentVersion());
+        return new ShardJob(jobClient.getJobId(), TaskStatus.SUBMITTED.getStatus(), jobIdentifier, computeType, jobClient.getType(), null);
     }
 
-    private void saveHistory(JobClient jobClient) {
+    private ScheduleJobHistory buildHistory(JobClient jobClient) {
         ScheduleJobHistory scheduleJobHistory = new ScheduleJobHistory();
         scheduleJobHistory.setJobId(jobClient.getJobId());
         scheduleJobHistory.setEngineJobId(jobClient.getEngineTaskId());
         scheduleJobHistory.setApplicationId(jobClient.getApplicationId());
         scheduleJobHistory.setExecStartTime(DateTime.now().toDate());
-        historyMapper.insert(scheduleJobHistory);
+        return scheduleJobHistory;
     }
 
     private void jobClientFail(String jobId, String info) {
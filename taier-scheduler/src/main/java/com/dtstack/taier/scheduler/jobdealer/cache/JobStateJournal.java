@@ -0,0 +1,362 @@
+package com.dtstack.taier.scheduler.jobdealer.cache;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.mapper.ScheduleEngineJobCacheMapper;
+import com.dtstack.taier.dao.mapper.ScheduleJobMapper;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * @Date: 2026/10/17 10:20 PM
+ * @Description: schedule_job 状态和 schedule_engine_job_cache stage 的延迟写入日志
+ * <p>
+ * 状态和 stage 的变更先记录在内存中，同一个 jobId 在刷新窗口内的多次变更合并为最后一次，
+ * 到达刷新间隔或等待写入的数量达到批量大小时，按 jobId 用 case when 批量写入数据库。
+ * 本节点的单条查询通过 overlay 读到还未写入的变更；其它直接写入状态或删除 cache 的操作会丢弃等待写入的变更，以直接写入的为准。
+ * 结束状态不经过日志，由调用方直接写入，保证删除 cache 之前状态已经落库。
+ * 停止或者主节点切换时同步写入全部变更
+ */
+@Component
+public class JobStateJournal implements InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobStateJournal.class);
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    @Autowired
+    private ScheduleJobMapper scheduleJobMapper;
+
+    @Autowired
+    private ScheduleEngineJobCacheMapper scheduleEngineJobCacheMapper;
+
+    /**
+     * key: jobId，value 创建后不再修改，写入成功后只删除没有被替换的 value
+     */
+    private final Map<String, StatusChange> statusChanges = new ConcurrentHashMap<>();
+
+    private final Map<String, StageChange> stageChanges = new ConcurrentHashMap<>();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+
+    private ScheduledExecutorService scheduledService;
+
+    private final LongAdder changeCount = new LongAdder();
+
+    private final LongAdder writeRowCount = new LongAdder();
+
+    private final LongAdder writeStatementCount = new LongAdder();
+
+    private final LongAdder flushFailCount = new LongAdder();
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!isEnabled()) {
+            return;
+        }
+        MetricRegistry.gauge("taier_job_state_journal_pending", "job status and stage changes waiting to be written", this::getPendingSize);
+        MetricRegistry.gauge("taier_job_state_journal_changes", "job status and stage changes recorded", this::getChangeCount);
+        MetricRegistry.gauge("taier_job_state_journal_write_rows", "rows written after collapsing changes", this::getWriteRowCount);
+        MetricRegistry.gauge("taier_job_state_journal_write_statements", "batch statements executed", this::getWriteStatementCount);
+        MetricRegistry.gauge("taier_job_state_journal_flush_failures", "failed flushes", this::getFlushFailCount);
+        long flushWindow = Math.max(1, environmentContext.getJobStateJournalFlushWindow());
+        scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(this.getClass().getSimpleName()));
+        scheduledService.scheduleWithFixedDelay(this::flushQuietly, flushWindow, flushWindow, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledService != null) {
+            scheduledService.shutdown();
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return environmentContext.isJobStateJournalEnabled();
+    }
+
+    /**
+     * 记录实例状态
+     *
+     * @param stopped 是否同时更新结束时间，与 updateJobStatusAndExecTime 相同
+     */
+    public void putStatus(String jobId, Integer status, boolean stopped) {
+        Timestamp execEndTime = stopped ? new Timestamp(System.currentTimeMillis()) : null;
+        statusChanges.compute(jobId, (id, previous) -> {
+            // 之前已经更新过结束时间时保留，与逐条写入的结果一致
+            Timestamp endTime = execEndTime == null && previous != null ? previous.execEndTime : execEndTime;
+            return new StatusChange(status, endTime);
+        });
+        recordChange();
+    }
+
+    public void putStage(String jobId, int stage, String nodeAddress, long priority, String waitReason) {
+        stageChanges.compute(jobId, (id, previous) -> {
+            String reason = waitReason == null && previous != null ? previous.waitReason : waitReason;
+            return new StageChange(stage, nodeAddress, priority, reason);
+        });
+        recordChange();
+    }
+
+    /**
+     * 还未写入的实例状态，没有时返回 null
+     */
+    public Integer getStatus(String jobId) {
+        StatusChange statusChange = statusChanges.get(jobId);
+        return statusChange == null ? null : statusChange.status;
+    }
+
+    /**
+     * 把还未写入的状态覆盖到查询出的实例上
+     */
+    public ScheduleJob overlay(ScheduleJob scheduleJob) {
+        if (scheduleJob == null || statusChanges.isEmpty()) {
+            return scheduleJob;
+        }
+        StatusChange statusChange = statusChanges.get(scheduleJob.getJobId());
+        if (statusChange != null) {
+            scheduleJob.setStatus(statusChange.status);
+            if (statusChange.execEndTime != null) {
+                scheduleJob.setExecEndTime(statusChange.execEndTime);
+            }
+        }
+        return scheduleJob;
+    }
+
+    /**
+     * 把还未写入的 stage 覆盖到查询出的 cache 上
+     */
+    public ScheduleEngineJobCache overlay(ScheduleEngineJobCache engineJobCache) {
+        if (engineJobCache == null || stageChanges.isEmpty()) {
+            return engineJobCache;
+        }
+        StageChange stageChange = stageChanges.get(engineJobCache.getJobId());
+        if (stageChange != null) {
+            engineJobCache.setStage(stageChange.stage);
+            engineJobCache.setNodeAddress(stageChange.nodeAddress);
+            engineJobCache.setJobPriority(stageChange.priority);
+            if (stageChange.waitReason != null) {
+                engineJobCache.setWaitReason(stageChange.waitReason);
+            }
+        }
+        return engineJobCache;
+    }
+
+    /**
+     * 直接写入状态前丢弃还未写入的状态。正在写入的批次可能已经取到了这个变更，
+     * 需要等写入结束再返回，否则旧状态会覆盖之后直接写入的状态
+     */
+    public void discardStatus(String jobId) {
+        discard(statusChanges, jobId);
+    }
+
+    public void discardStage(String jobId) {
+        discard(stageChanges, jobId);
+    }
+
+    private void discard(Map<String, ?> changes, String jobId) {
+        // 不在日志中时，之前取到它的写入已经结束(写入成功后才删除)，不需要等待
+        if (!changes.containsKey(jobId)) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            changes.remove(jobId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * 同步写入全部变更，写入失败的变更保留到下一次写入
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushScheduled.set(false);
+            flushStatus();
+            flushStage();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            LOGGER.error("flush job state journal error", e);
+        }
+    }
+
+    private void recordChange() {
+        changeCount.increment();
+        if (getPendingSize() >= environmentContext.getJobStateJournalBatchSize()
+                && scheduledService != null && flushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduledService.execute(this::flushQuietly);
+            } catch (Exception e) {
+                flushScheduled.set(false);
+                LOGGER.warn("schedule job state journal flush error", e);
+            }
+        }
+    }
+
+    private void flushStatus() {
+        if (statusChanges.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, StatusChange>> changes = new ArrayList<>(statusChanges.entrySet());
+        for (List<Map.Entry<String, StatusChange>> partition : Lists.partition(changes, getBatchSize())) {
+            List<ScheduleJob> statusJobs = new ArrayList<>(partition.size());
+            List<ScheduleJob> execTimeJobs = new ArrayList<>(partition.size());
+            for (Map.Entry<String, StatusChange> change : partition) {
+                ScheduleJob scheduleJob = new ScheduleJob();
+                scheduleJob.setJobId(change.getKey());
+                scheduleJob.setStatus(change.getValue().status);
+                if (change.getValue().execEndTime == null) {
+                    statusJobs.add(scheduleJob);
+                } else {
+                    scheduleJob.setExecEndTime(change.getValue().execEndTime);
+                    execTimeJobs.add(scheduleJob);
+                }
+            }
+            try {
+                if (!statusJobs.isEmpty()) {
+                    scheduleJobMapper.updateJobStatusBatch(statusJobs);
+                    writeStatementCount.increment();
+                }
+                if (!execTimeJobs.isEmpty()) {
+                    scheduleJobMapper.updateJobStatusAndExecTimeBatch(execTimeJobs);
+                    writeStatementCount.increment();
+                }
+            } catch (Exception e) {
+                flushFailCount.increment();
+                LOGGER.error("flush job status error, size:{}", partition.size(), e);
+                continue;
+            }
+            for (Map.Entry<String, StatusChange> change : partition) {
+                statusChanges.remove(change.getKey(), change.getValue());
+            }
+            writeRowCount.add(partition.size());
+        }
+    }
+
+    private void flushStage() {
+        if (stageChanges.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, StageChange>> changes = new ArrayList<>(stageChanges.entrySet());
+        for (List<Map.Entry<String, StageChange>> partition : Lists.partition(changes, getBatchSize())) {
+            List<ScheduleEngineJobCache> jobCaches = new ArrayList<>(partition.size());
+            for (Map.Entry<String, StageChange> change : partition) {
+                ScheduleEngineJobCache jobCache = new ScheduleEngineJobCache();
+                jobCache.setJobId(change.getKey());
+                jobCache.setStage(change.getValue().stage);
+                jobCache.setNodeAddress(change.getValue().nodeAddress);
+                jobCache.setJobPriority(change.getValue().priority);
+                jobCache.setWaitReason(change.getValue().waitReason);
+                jobCaches.add(jobCache);
+            }
+            try {
+                scheduleEngineJobCacheMapper.updateStageByJobIdBatch(jobCaches);
+                writeStatementCount.increment();
+            } catch (Exception e) {
+                flushFailCount.increment();
+                LOGGER.error("flush job cache stage error, size:{}", partition.size(), e);
+                continue;
+            }
+            for (Map.Entry<String, StageChange> change : partition) {
+                stageChanges.remove(change.getKey(), change.getValue());
+            }
+            writeRowCount.add(partition.size());
+        }
+    }
+
+    private int getBatchSize() {
+        return Math.max(1, environmentContext.getJobStateJournalBatchSize());
+    }
+
+    public int getPendingSize() {
+        return statusChanges.size() + stageChanges.size();
+    }
+
+    /**
+     * 记录的变更次数，未使用日志时每次变更都是一次写入
+     */
+    public long getChangeCount() {
+        return changeCount.sum();
+    }
+
+    /**
+     * 合并后写入的行数
+     */
+    public long getWriteRowCount() {
+        return writeRowCount.sum();
+    }
+
+    /**
+     * 实际执行的写入语句数
+     */
+    public long getWriteStatementCount() {
+        return writeStatementCount.sum();
+    }
+
+    public long getFlushFailCount() {
+        return flushFailCount.sum();
+    }
+
+    private static class StatusChange {
+
+        private final Integer status;
+
+        private final Timestamp execEndTime;
+
+        private StatusChange(Integer status, Timestamp execEndTime) {
+            this.status = status;
+            this.execEndTime = execEndTime;
+        }
+    }
+
+    private static class StageChange {
+
+        private final int stage;
+
+        private final String nodeAddress;
+
+        private final long priority;
+
+        private final String waitReason;
+
+        private StageChange(int stage, String nodeAddress, long priority, String waitReason) {
+            this.stage = stage;
+            this.nodeAddress = nodeAddress;
+            this.priority = priority;
+            this.waitReason = waitReason;
+        }
+    }
+}
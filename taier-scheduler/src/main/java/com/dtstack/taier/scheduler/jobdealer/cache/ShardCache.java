@@ -48,6 +48,12 @@ public class ShardCache implements ApplicationContextAware {
     private Map<String, ShardManager> jobResourceShardManager = new ConcurrentHashMap<>();
 
     private ShardManager getShardManager(String jobId) {
+        // 已经在分片中的实例不再查询数据库
+        for (ShardManager shardManager : jobResourceShardManager.values()) {
+            if (shardManager.getShard().containsKey(jobId)) {
+                return shardManager;
+            }
+        }
         ScheduleJobCacheService ScheduleJobCacheService = applicationContext.getBean(ScheduleJobCacheService.class);
         ScheduleEngineJobCache engineJobCache = ScheduleJobCacheService.getByJobId(jobId);
         if (engineJobCache == null) {
@@ -91,6 +97,22 @@ public class ShardCache implements ApplicationContextAware {
         return removeWithForeach(jobId);
     }
 
+    /**
+     * 放入完整的实例记录，状态轮询时不再从数据库加载
+     */
+    public boolean updateLocalMemJob(ShardJob shardJob, Consumer<String> consumer) {
+        if (shardJob == null || shardJob.getJobId() == null || shardJob.getStatus() == null) {
+            throw new IllegalArgumentException("jobId or status must not null.");
+        }
+        ShardManager shardManager = getShardManager(shardJob.getJobId());
+        if (shardManager != null) {
+            shardManager.putJob(shardJob);
+            return true;
+        }
+        consumer.accept(shardJob.getJobId());
+        return removeWithForeach(shardJob.getJobId());
+    }
+
     public boolean removeIfPresent(String jobId) {
         if (jobId == null) {
             throw new IllegalArgumentException("jobId must not null.");
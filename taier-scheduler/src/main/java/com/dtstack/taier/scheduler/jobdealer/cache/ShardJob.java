@@ -0,0 +1,93 @@
+package com.dtstack.taier.scheduler.jobdealer.cache;
+
+import com.dtstack.taier.pluginapi.JobIdentifier;
+
+/**
+ * @Date: 2026/10/17 8:40 PM
+ * @Description: 分片中常驻内存的实例记录
+ * <p>
+ * 状态轮询只需要内存状态和获取引擎状态的 JobIdentifier，记录在提交成功时构建或首次轮询时从数据库加载一次，
+ * 外部修改内存状态(停止、重试、重新提交)时只保留状态，由下一次轮询重新加载
+ */
+public class ShardJob {
+
+    private final String jobId;
+
+    private volatile Integer status;
+
+    /**
+     * 为空表示还未加载
+     */
+    private final JobIdentifier jobIdentifier;
+
+    /**
+     * schedule_job 的 computeType
+     */
+    private final Integer computeType;
+
+    /**
+     * schedule_job 的 type，周期、补数据、临时运行
+     */
+    private final Integer type;
+
+    /**
+     * 最近一次写入或读取到的 schedule_job 状态，为空表示未知
+     */
+    private volatile Integer dbStatus;
+
+    private final long loadTime;
+
+    public ShardJob(String jobId, Integer status) {
+        this(jobId, status, null, null, null, null);
+    }
+
+    public ShardJob(String jobId, Integer status, JobIdentifier jobIdentifier, Integer computeType, Integer type, Integer dbStatus) {
+        this.jobId = jobId;
+        this.status = status;
+        this.jobIdentifier = jobIdentifier;
+        this.computeType = computeType;
+        this.type = type;
+        this.dbStatus = dbStatus;
+        this.loadTime = System.currentTimeMillis();
+    }
+
+    public boolean isLoaded() {
+        return jobIdentifier != null;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+
+    public JobIdentifier getJobIdentifier() {
+        return jobIdentifier;
+    }
+
+    public Integer getComputeType() {
+        return computeType;
+    }
+
+    public Integer getType() {
+        return type;
+    }
+
+    public Integer getDbStatus() {
+        return dbStatus;
+    }
+
+    public void setDbStatus(Integer dbStatus) {
+        this.dbStatus = dbStatus;
+    }
+
+    public long getLoadTime() {
+        return loadTime;
+    }
+}
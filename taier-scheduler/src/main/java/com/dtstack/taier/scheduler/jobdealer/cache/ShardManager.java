@@ -38,7 +38,7 @@ public class ShardManager implements Runnable {
 
     private static final long DATA_CLEAN_INTERVAL = 1000;
     private ScheduledExecutorService scheduledService = null;
-    private Map<String, Integer> shard;
+    private Map<String, ShardJob> shard;
     private String jobResource;
 
     public ShardManager(String jobResource) {
@@ -52,25 +52,47 @@ public class ShardManager implements Runnable {
                 TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * 外部修改内存状态，已加载的实例记录失效，由状态轮询重新加载
+     */
     public Integer putJob(String jobId, Integer status) {
-        return shard.put(jobId, status);
+        return statusOf(shard.put(jobId, new ShardJob(jobId, status)));
+    }
+
+    public Integer putJob(ShardJob shardJob) {
+        return statusOf(shard.put(shardJob.getJobId(), shardJob));
+    }
+
+    /**
+     * 实例记录没有被替换时才替换为新加载的记录
+     */
+    public boolean replaceJob(ShardJob oldJob, ShardJob newJob) {
+        return shard.replace(oldJob.getJobId(), oldJob, newJob);
     }
 
     public Integer removeJob(String jobId) {
-        return shard.remove(jobId);
+        return statusOf(shard.remove(jobId));
     }
 
-    public Map<String, Integer> getShard() {
+    public ShardJob getJob(String jobId) {
+        return shard.get(jobId);
+    }
+
+    public Map<String, ShardJob> getShard() {
         return shard;
     }
 
+    private Integer statusOf(ShardJob shardJob) {
+        return shardJob == null ? null : shardJob.getStatus();
+    }
+
     public String getJobResource() {
         return jobResource;
     }
 
     @Override
     public void run() {
-        shard.entrySet().removeIf(jobWithStatus -> TaskStatus.needClean(jobWithStatus.getValue()));
+        shard.entrySet().removeIf(jobWithStatus -> TaskStatus.needClean(jobWithStatus.getValue().getStatus()));
     }
 
 }
@@ -33,11 +33,15 @@ import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
 import com.dtstack.taier.pluginapi.http.PoolHttpClient;
 import com.dtstack.taier.scheduler.dto.scheduler.SimpleScheduleJobDTO;
 import com.dtstack.taier.scheduler.enums.JobPhaseStatus;
+import com.dtstack.taier.scheduler.jobdealer.cache.JobStateJournal;
 import com.dtstack.taier.scheduler.server.builder.CycleJobBuilder;
+import com.dtstack.taier.scheduler.server.failover.FailoverRedistributor;
+import com.dtstack.taier.scheduler.server.partition.NodeAssigner;
 import com.dtstack.taier.scheduler.service.NodeRecoverService;
 import com.dtstack.taier.scheduler.service.ScheduleJobCacheService;
 import com.dtstack.taier.scheduler.service.ScheduleJobOperatorRecordService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import com.dtstack.taier.scheduler.zookeeper.BrokerMembershipListener;
 import com.dtstack.taier.scheduler.zookeeper.ZkService;
 import com.dtstack.taier.scheduler.zookeeper.data.BrokerHeartNode;
 import com.google.common.collect.Lists;
@@ -46,12 +50,14 @@ import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * company: www.dtstack.com
@@ -59,7 +65,7 @@ import java.util.concurrent.*;
  * create: 2019/10/22
  */
 @Component
-public class FailoverStrategy {
+public class FailoverStrategy implements InitializingBean, BrokerMembershipListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FailoverStrategy.class);
 
@@ -90,10 +96,13 @@ public class FailoverStrategy {
     @Autowired
     private ScheduleJobOperatorRecordService scheduleJobOperatorRecordService;
 
+    @Autowired
+    private JobStateJournal jobStateJournal;
+
 
     private static final String MASTER_TRIGGER_NODE = "/node/nodeRecover/masterTriggerNode";
 
-    private boolean currIsMaster = false;
+    private volatile boolean currIsMaster = false;
 
     private ExecutorService masterNodeDealer;
 
@@ -101,12 +110,46 @@ public class FailoverStrategy {
 
     private final FaultTolerantDealer faultTolerantDealer = new FaultTolerantDealer();
 
+    private FailoverRedistributor failoverRedistributor;
+
+    private volatile long lastRecoverTime;
+
+    private final AtomicLong recoverJobCount = new AtomicLong();
+
+    private final AtomicLong recoverJobCacheCount = new AtomicLong();
+
+    /**
+     * 最近一次通知的存活节点，容灾完成后通知这些节点重新加载队列
+     */
+    private volatile List<String> aliveBrokers;
+
     private FailoverStrategy() {
         masterNodeDealer = new ThreadPoolExecutor(2, 2, 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName()));
     }
 
+    @Override
+    public void afterPropertiesSet() {
+        failoverRedistributor = new FailoverRedistributor(environmentContext.getFailoverThread(), environmentContext.getFailoverBatchSize());
+        zkService.addBrokerMembershipListener(this);
+    }
+
+    /**
+     * 节点离开后仍由 master 的心跳检查判断宕机再容灾，这里只记录存活节点
+     */
+    @Override
+    public void onChange(List<String> aliveBrokers, Set<String> joined, Set<String> left) {
+        this.aliveBrokers = aliveBrokers;
+        if (currIsMaster && !left.isEmpty()) {
+            LOGGER.warn("brokers:{} left, wait for heart beat check to recover", left);
+        }
+    }
+
     public void setIsMaster(boolean isMaster) {
+        if (isMaster != currIsMaster) {
+            // 主节点切换前写入本节点还未写入的状态，容灾扫描以数据库为准
+            jobStateJournal.flush();
+        }
         if (isMaster && !currIsMaster) {
             currIsMaster = true;
 
@@ -171,21 +214,29 @@ public class FailoverStrategy {
                 while (isRun) {
                     String node = queue.take();
                     LOGGER.warn("----- nodeAddress:{} node disaster recovery tasks begin to recover----", node);
+                    long startTime = System.currentTimeMillis();
 
-                    faultTolerantRecoverBatchJob(node);
-                    faultTolerantRecoverJobCache(node);
+                    int jobCount = faultTolerantRecoverBatchJob(node);
+                    int jobCacheCount = faultTolerantRecoverJobCache(node);
 
-                    List<String> aliveNodes = zkService.getAliveBrokersChildren();
-                    for (String nodeAddress : aliveNodes) {
+                    List<String> aliveNodes = aliveBrokers;
+                    if (aliveNodes == null || !zkService.isMembershipAvailable()) {
+                        aliveNodes = zkService.getAliveBrokersChildren();
+                    }
+                    failoverRedistributor.notifyNodes(aliveNodes, nodeAddress -> {
                         LOGGER.warn("----- nodeAddress:{} masterTriggerNode -----", nodeAddress);
                         if (nodeAddress.equals(environmentContext.getLocalAddress())) {
                             nodeRecoverService.masterTriggerNode();
-                            continue;
+                            return;
                         }
-
-                        PoolHttpClient.post(String.format("http://%s/%s", node,MASTER_TRIGGER_NODE), null);
-                    }
-                    LOGGER.warn("----- nodeAddress:{} node disaster recovery task ends and resumes-----", node);
+                        PoolHttpClient.post(String.format("http://%s/%s", nodeAddress, MASTER_TRIGGER_NODE), null);
+                    }, environmentContext.getFailoverNotifyTimeout());
+
+                    lastRecoverTime = System.currentTimeMillis() - startTime;
+                    recoverJobCount.addAndGet(jobCount);
+                    recoverJobCacheCount.addAndGet(jobCacheCount);
+                    LOGGER.warn("----- nodeAddress:{} node disaster recovery task ends and resumes, job:{} jobCache:{} cost:{}ms-----",
+                            node, jobCount, jobCacheCount, lastRecoverTime);
                 }
             } catch (Exception e) {
                 LOGGER.error("----faultTolerantRecover error:", e);
@@ -197,41 +248,53 @@ public class FailoverStrategy {
         }
     }
 
-    public void faultTolerantRecoverBatchJob(String nodeAddress) {
+    /**
+     * 恢复宕机节点的周期实例、补数据实例
+     * <p>
+     * 先扫描出宕机节点的全部未完成实例，在内存中分配好目标节点，再按目标节点并行批量更新
+     *
+     * @return 迁移的实例数
+     */
+    public int faultTolerantRecoverBatchJob(String nodeAddress) {
         try {
             //再次判断broker是否alive
             BrokerHeartNode brokerHeart = zkService.getBrokerHeartNode(nodeAddress);
             if (brokerHeart.getAlive()) {
-                return;
+                return 0;
             }
 
             //节点容灾恢复任务
             LOGGER.warn("----- nodeAddress:{} BatchJob mission begins to resume----", nodeAddress);
             long startId = 0L;
+            List<SimpleScheduleJobDTO> cronJobs = Lists.newArrayList();
+            List<SimpleScheduleJobDTO> fillJobs = Lists.newArrayList();
+            List<String> phaseStatus = Lists.newArrayList();
             while (true) {
                 List<SimpleScheduleJobDTO> simpleScheduleJobDTOS = scheduleJobService.listSimpleJobByStatusAddress(startId, TaskStatus.getUnfinishedStatuses(), nodeAddress);
                 if (CollectionUtils.isEmpty(simpleScheduleJobDTOS)) {
                     break;
                 }
-                Set<String> cronJobIds = new HashSet<>();
-                Set<String> fillJobIds =  new HashSet<>();
-                List<String> phaseStatus = Lists.newArrayList();
                 for (SimpleScheduleJobDTO batchJob : simpleScheduleJobDTOS) {
                     if (EScheduleType.NORMAL_SCHEDULE.getType().equals(batchJob.getType())) {
-                        cronJobIds.add(batchJob.getJobId());
-                        LOGGER.info("----- nodeAddress:{} distributeBatchJobs {} NORMAL_SCHEDULE -----", nodeAddress, batchJob.getJobId());
+                        cronJobs.add(batchJob);
                     } else {
-                        fillJobIds.add(batchJob.getJobId());
-                        LOGGER.info("----- nodeAddress:{} distributeBatchJobs {} FILL_DATA -----", nodeAddress, batchJob.getJobId());
+                        fillJobs.add(batchJob);
                     }
                     if (JobPhaseStatus.JOIN_THE_TEAM.getCode().equals(batchJob.getPhaseStatus())) {
                         phaseStatus.add(batchJob.getJobId());
                     }
                     startId = batchJob.getId();
                 }
-                distributeBatchJobs(cronJobIds, EScheduleType.NORMAL_SCHEDULE.getType());
-                distributeBatchJobs(fillJobIds, EScheduleType.FILL_DATA.getType());
-                updatePhaseStatus(phaseStatus);
+            }
+            LOGGER.info("----- nodeAddress:{} distributeBatchJobs NORMAL_SCHEDULE:{} FILL_DATA:{} -----", nodeAddress, cronJobs.size(), fillJobs.size());
+
+            //任务多节点分发，每个节点要分发的任务
+            Map<String, List<SimpleScheduleJobDTO>> nodeJobs = Maps.newHashMap();
+            distributeBatchJobs(cronJobs, EScheduleType.NORMAL_SCHEDULE.getType(), nodeJobs);
+            distributeBatchJobs(fillJobs, EScheduleType.FILL_DATA.getType(), nodeJobs);
+            int moved = failoverRedistributor.apply(nodeJobs, (targetAddress, jobs) -> updateBatchJobs(nodeAddress, targetAddress, jobs));
+            for (List<String> jobIds : Lists.partition(phaseStatus, environmentContext.getFailoverBatchSize())) {
+                updatePhaseStatus(jobIds);
             }
 
             //在迁移任务的时候，可能出现要迁移的节点也宕机了，任务没有正常接收需要再次恢复（由HearBeatCheckListener监控）。
@@ -240,9 +303,11 @@ public class FailoverStrategy {
                 zkService.updateSynchronizedLocalBrokerHeartNode(nodeAddress, BrokerHeartNode.initNullBrokerHeartNode(), true);
             }
 
-            LOGGER.warn("----- nodeAddress:{} BatchJob mission end recovery-----", nodeAddress);
+            LOGGER.warn("----- nodeAddress:{} BatchJob mission end recovery, moved:{}-----", nodeAddress, moved);
+            return moved;
         } catch (Exception e) {
             LOGGER.error("----nodeAddress:{} faultTolerantRecoverBatchJob error:", nodeAddress, e);
+            return 0;
         }
     }
 
@@ -259,75 +324,61 @@ public class FailoverStrategy {
         }
     }
 
-    /**
-     * Ps：jobIds  为 batchJob 表的 id 字段（非job_id字段）
-     */
-    private void distributeBatchJobs(Set<String> jobIds, Integer scheduleType) {
-        if (jobIds.isEmpty()) {
+    private void distributeBatchJobs(List<SimpleScheduleJobDTO> jobs, Integer scheduleType, Map<String, List<SimpleScheduleJobDTO>> nodeJobs) {
+        if (jobs.isEmpty()) {
             return;
         }
-
-        Iterator<String> jobIdsIterator = jobIds.iterator();
-
-        //任务多节点分发，每个节点要分发的任务量
-        Map<String, List<String>> nodeJobs = Maps.newHashMap();
-
-        Map<String, Integer> nodeJobSize = jobPartitioner.computeBatchJobSize(scheduleType, jobIds.size());
-        for (Map.Entry<String, Integer> nodeJobSizeEntry : nodeJobSize.entrySet()) {
-            String nodeAddress = nodeJobSizeEntry.getKey();
-            int nodeSize = nodeJobSizeEntry.getValue();
-            while (nodeSize > 0 && jobIdsIterator.hasNext()) {
-                nodeSize--;
-                List<String> nodeJobIds = nodeJobs.computeIfAbsent(nodeAddress, k -> Lists.newArrayList());
-                nodeJobIds.add(jobIdsIterator.next());
-            }
+        NodeAssigner nodeAssigner = jobPartitioner.getBatchJobAssigner(scheduleType, jobs.size());
+        for (SimpleScheduleJobDTO job : jobs) {
+            nodeJobs.computeIfAbsent(nodeAssigner.assign(job.getJobId()), k -> Lists.newArrayList()).add(job);
         }
-
-        updateBatchJobs(nodeJobs);
     }
 
-    private void updateBatchJobs(Map<String, List<String>> nodeJobs) {
-        for (Map.Entry<String, List<String>> nodeEntry : nodeJobs.entrySet()) {
-            if (nodeEntry.getValue().isEmpty()) {
-                continue;
-            }
+    private int updateBatchJobs(String oldNodeAddress, String nodeAddress, List<SimpleScheduleJobDTO> jobs) {
+        List<Long> ids = new ArrayList<>(jobs.size());
+        List<String> jobIds = new ArrayList<>(jobs.size());
+        for (SimpleScheduleJobDTO job : jobs) {
+            ids.add(job.getId());
+            jobIds.add(job.getJobId());
+        }
 
-            // 更新实例
-            ScheduleJob scheduleJob = new ScheduleJob();
-            scheduleJob.setNodeAddress(nodeEntry.getKey());
-            scheduleJobService.lambdaUpdate()
-                    .in(ScheduleJob::getJobId,nodeEntry.getValue())
-                    .update(scheduleJob);
+        // 更新实例
+        int count = scheduleJobService.updateNodeAddressFailover(nodeAddress, oldNodeAddress, ids);
 
-            // 更新jobOperatorRecord
-            ScheduleJobOperatorRecord scheduleJobOperatorRecord = new ScheduleJobOperatorRecord();
-            scheduleJobOperatorRecord.setNodeAddress(nodeEntry.getKey());
-            scheduleJobOperatorRecordService.lambdaUpdate()
-                    .in(ScheduleJobOperatorRecord::getJobId,nodeEntry.getValue())
-                    .update(scheduleJobOperatorRecord);
+        // 更新jobOperatorRecord
+        ScheduleJobOperatorRecord scheduleJobOperatorRecord = new ScheduleJobOperatorRecord();
+        scheduleJobOperatorRecord.setNodeAddress(nodeAddress);
+        scheduleJobOperatorRecordService.lambdaUpdate()
+                .in(ScheduleJobOperatorRecord::getJobId, jobIds)
+                .update(scheduleJobOperatorRecord);
 
-            LOGGER.info("jobIds:{} failover to address:{}", nodeEntry.getValue(), nodeEntry.getKey());
-        }
+        LOGGER.info("jobIds:{} failover to address:{}", jobIds, nodeAddress);
+        return count;
     }
 
-    public void faultTolerantRecoverJobCache(String nodeAddress) {
+    /**
+     * 恢复宕机节点提交队列中的实例
+     *
+     * @return 迁移的实例数
+     */
+    public int faultTolerantRecoverJobCache(String nodeAddress) {
         try {
             //再次判断broker是否alive
             BrokerHeartNode brokerHeart = zkService.getBrokerHeartNode(nodeAddress);
             if (brokerHeart.getAlive()) {
-                return;
+                return 0;
             }
 
             //节点容灾恢复任务
             LOGGER.warn("----- nodeAddress:{} JobCache mission begins to resume----", nodeAddress);
             long startId = 0L;
+            Map<String, List<String>> jobResources = Maps.newHashMap();
+            List<String> submittedJobs = Lists.newArrayList();
             while (true) {
                 List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, nodeAddress, null, null);
                 if (CollectionUtils.isEmpty(jobCaches)) {
                     break;
                 }
-                Map<String, List<String>> jobResources = Maps.newHashMap();
-                List<String> submittedJobs = Lists.newArrayList();
                 for (ScheduleEngineJobCache jobCache : jobCaches) {
                     try {
                         if (EJobCacheStage.unSubmitted().contains(jobCache.getStage())) {
@@ -343,26 +394,28 @@ public class FailoverStrategy {
                         dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + ExceptionUtil.getErrorMessage(e));
                     }
                 }
-                distributeQueueJobs(jobResources);
-                distributeSubmittedJobs(submittedJobs);
             }
+            int moved = distributeQueueJobs(jobResources);
+            moved += distributeSubmittedJobs(submittedJobs);
             //在迁移任务的时候，可能出现要迁移的节点也宕机了，任务没有正常接收
             List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(0L, nodeAddress, null, null);
             if (CollectionUtils.isNotEmpty(jobCaches)) {
                 //如果尚有任务未迁移完成，重置 nodeAddress 继续恢复
                 zkService.updateSynchronizedLocalBrokerHeartNode(nodeAddress, BrokerHeartNode.initNullBrokerHeartNode(), true);
             }
-            LOGGER.warn("----- nodeAddress:{} JobCache mission end recovery-----", nodeAddress);
+            LOGGER.warn("----- nodeAddress:{} JobCache mission end recovery, moved:{}-----", nodeAddress, moved);
+            return moved;
         } catch (Exception e) {
             LOGGER.error("----nodeAddress:{} faultTolerantRecoverJobCache error:", nodeAddress, e);
+            return 0;
         }
     }
 
-    private void distributeQueueJobs(Map<String, List<String>> jobResources) {
+    private int distributeQueueJobs(Map<String, List<String>> jobResources) {
         if (jobResources.isEmpty()) {
-            return;
+            return 0;
         }
-        //任务多节点分发，每个节点要分发的任务量
+        //任务多节点分发，每个节点要分发的任务
         Map<String, List<String>> nodeJobs = Maps.newHashMap();
         for (Map.Entry<String, List<String>> jobResourceEntry : jobResources.entrySet()) {
             String jobResource = jobResourceEntry.getKey();
@@ -370,51 +423,61 @@ public class FailoverStrategy {
             if (jobIds.isEmpty()) {
                 continue;
             }
-            Map<String, Integer> jobCacheSizeInfo = jobPartitioner.computeJobCacheSize(jobResource, jobIds.size());
-            Iterator<String> jobIdsIterator = jobIds.iterator();
-            for (Map.Entry<String, Integer> jobCacheSizeEntry : jobCacheSizeInfo.entrySet()) {
-                String nodeAddress = jobCacheSizeEntry.getKey();
-                int nodeSize = jobCacheSizeEntry.getValue();
-                while (nodeSize > 0 && jobIdsIterator.hasNext()) {
-                    nodeSize--;
-                    List<String> nodeJobIds = nodeJobs.computeIfAbsent(nodeAddress, k -> Lists.newArrayList());
-                    nodeJobIds.add(jobIdsIterator.next());
-                }
+            NodeAssigner nodeAssigner = jobPartitioner.getJobCacheAssigner(jobResource, jobIds.size());
+            for (String jobId : jobIds) {
+                nodeJobs.computeIfAbsent(nodeAssigner.assign(jobId), k -> Lists.newArrayList()).add(jobId);
             }
         }
-        updateJobCaches(nodeJobs, EJobCacheStage.DB.getStage());
+        return updateJobCaches(nodeJobs, EJobCacheStage.DB.getStage());
     }
 
-    private void distributeSubmittedJobs(List<String> jobs) {
+    private int distributeSubmittedJobs(List<String> jobs) {
         if (jobs.isEmpty()) {
-            return;
+            return 0;
         }
-        List<String> aliveNodes = zkService.getAliveBrokersChildren();
-        int avg = jobs.size() / aliveNodes.size() + 1;
-        //任务多节点分发，每个节点要分发的任务量
+        //任务多节点分发，每个节点要分发的任务
         Map<String, List<String>> nodeJobs = Maps.newHashMap();
-        Iterator<String> jobsIt = jobs.iterator();
-        int size = avg;
-        for (String nodeAddress : aliveNodes) {
-            while (size > 0 && jobsIt.hasNext()) {
-                size--;
-                String jobId = jobsIt.next();
-                List<String> nodeJobIds = nodeJobs.computeIfAbsent(nodeAddress, k -> Lists.newArrayList());
-                nodeJobIds.add(jobId);
-            }
+        NodeAssigner nodeAssigner = jobPartitioner.getDefaultAssigner(jobs.size());
+        for (String jobId : jobs) {
+            nodeJobs.computeIfAbsent(nodeAssigner.assign(jobId), k -> Lists.newArrayList()).add(jobId);
         }
-        updateJobCaches(nodeJobs, EJobCacheStage.SUBMITTED.getStage());
+        return updateJobCaches(nodeJobs, EJobCacheStage.SUBMITTED.getStage());
     }
 
-    private void updateJobCaches(Map<String, List<String>> nodeJobs, Integer stage) {
-        for (Map.Entry<String, List<String>> nodeEntry : nodeJobs.entrySet()) {
-            if (nodeEntry.getValue().isEmpty()) {
-                continue;
-            }
+    private int updateJobCaches(Map<String, List<String>> nodeJobs, Integer stage) {
+        return failoverRedistributor.apply(nodeJobs, (nodeAddress, jobIds) -> {
+            int count = ScheduleJobCacheService.updateNodeAddressFailover(nodeAddress, jobIds, stage);
+            LOGGER.info("jobIds:{} failover to address:{}, set stage={}", jobIds, nodeAddress, stage);
+            return count;
+        });
+    }
 
-            ScheduleJobCacheService.updateNodeAddressFailover(nodeEntry.getKey(), nodeEntry.getValue(), stage);
-            LOGGER.info("jobIds:{} failover to address:{}, set stage={}", nodeEntry.getValue(), nodeEntry.getKey(), stage);
-        }
+    /**
+     * 最近一次节点恢复的耗时，毫秒
+     */
+    public long getLastRecoverTime() {
+        return lastRecoverTime;
+    }
+
+    /**
+     * 迁移的周期实例、补数据实例数
+     */
+    public long getRecoverJobCount() {
+        return recoverJobCount.get();
+    }
+
+    /**
+     * 迁移的提交队列实例数
+     */
+    public long getRecoverJobCacheCount() {
+        return recoverJobCacheCount.get();
+    }
+
+    /**
+     * 迁移失败的实例数
+     */
+    public long getRecoverFailCount() {
+        return failoverRedistributor.getFailCount();
     }
 
     /**
@@ -18,26 +18,41 @@
 
 package com.dtstack.taier.scheduler.server;
 
+import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.scheduler.server.listener.QueueListener;
+import com.dtstack.taier.scheduler.server.partition.ConsistentHashPartitionStrategy;
+import com.dtstack.taier.scheduler.server.partition.JobPartitionStrategy;
+import com.dtstack.taier.scheduler.server.partition.NodeAssigner;
+import com.dtstack.taier.scheduler.server.partition.QueueSizePartitionStrategy;
 import com.dtstack.taier.scheduler.server.queue.GroupInfo;
 import com.dtstack.taier.scheduler.server.queue.QueueInfo;
+import com.dtstack.taier.scheduler.zookeeper.BrokerMembershipListener;
 import com.dtstack.taier.scheduler.zookeeper.ZkService;
-import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * company: www.dtstack.com
  * author: toutian
  * create: 2020/01/17
+ * <p>
+ * 实例分配节点的策略通过 job.partition.strategy 配置：queueSize 按各节点队列大小分配，consistentHash 按一致性哈希分配。
+ * 订阅存活节点的变化，一致性哈希在节点变化时重建哈希环
  */
 @Component
-public class JobPartitioner {
+public class JobPartitioner implements InitializingBean, BrokerMembershipListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobPartitioner.class);
 
     @Autowired
     private QueueListener queueListener;
@@ -45,77 +60,93 @@ public class JobPartitioner {
     @Autowired
     private ZkService zkService;
 
-    public Map<String, Integer> getDefaultStrategy(List<String> aliveNodes, int jobSize) {
-        Map<String, Integer> jobSizeInfo = new HashMap<>(aliveNodes.size());
-        int size = (jobSize / aliveNodes.size()) + 1;
-        for (String aliveNode : aliveNodes) {
-            jobSizeInfo.put(aliveNode, size);
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    private JobPartitionStrategy partitionStrategy;
+
+    /**
+     * 最近一次通知的存活节点，还没有通知时为 null
+     */
+    private volatile List<String> aliveBrokers;
+
+    @Override
+    public void afterPropertiesSet() {
+        if (ConsistentHashPartitionStrategy.NAME.equalsIgnoreCase(environmentContext.getJobPartitionStrategy())) {
+            partitionStrategy = new ConsistentHashPartitionStrategy(environmentContext.getJobPartitionNodeWeights(),
+                    environmentContext.getJobPartitionVirtualNodes());
+        } else {
+            partitionStrategy = new QueueSizePartitionStrategy();
+        }
+        LOGGER.info("job partition strategy:{}", partitionStrategy.name());
+        zkService.addBrokerMembershipListener(this);
+    }
+
+    @Override
+    public void onChange(List<String> aliveBrokers, Set<String> joined, Set<String> left) {
+        this.aliveBrokers = aliveBrokers;
+        if (partitionStrategy instanceof ConsistentHashPartitionStrategy && !aliveBrokers.isEmpty()) {
+            ((ConsistentHashPartitionStrategy) partitionStrategy).getRing(aliveBrokers);
         }
-        return jobSizeInfo;
     }
 
     /**
-     * compute job number per node
+     * 成员视图不可用时直接查询 zk
      */
-    public Map<String, Integer> computeBatchJobSize(Integer type, int jobSize) {
-        //节点挂了就会迁移的
-        List<String> aliveNodes = zkService.getAliveBrokersChildren();
-        Map<Integer, Map<String, QueueInfo>> allNodesJobQueueInfo = queueListener.getAllNodesJobQueueInfo();
-        if (allNodesJobQueueInfo.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
+    private List<String> getAliveBrokers() {
+        List<String> brokers = aliveBrokers;
+        if (brokers == null || !zkService.isMembershipAvailable()) {
+            return zkService.getAliveBrokersChildren();
         }
-        Map<String, QueueInfo> nodesJobQueue = allNodesJobQueueInfo.get(type);
-        if (nodesJobQueue == null || nodesJobQueue.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
-        }
-        Map<String, Integer> nodeSort = Maps.newHashMap();
-        int total = jobSize;
-        for (Map.Entry<String, QueueInfo> queueInfoEntry : nodesJobQueue.entrySet()) {
-            QueueInfo queueInfo = queueInfoEntry.getValue();
-            total += queueInfo.getSize();
-            //排除宕机节点
-            if (aliveNodes.contains(queueInfoEntry.getKey())) {
-                nodeSort.put(queueInfoEntry.getKey(), queueInfo.getSize());
+        return brokers;
+    }
+
+    /**
+     * 周期实例、补数据实例分配节点
+     *
+     * @param type    调度类型
+     * @param jobSize 要分配的实例数
+     */
+    public NodeAssigner getBatchJobAssigner(Integer type, int jobSize) {
+        //节点挂了就会迁移的
+        List<String> aliveNodes = getAliveBrokers();
+        Map<String, Integer> nodeQueueSizes = Collections.emptyMap();
+        Map<String, QueueInfo> nodesJobQueue = queueListener.getAllNodesJobQueueInfo().get(type);
+        if (nodesJobQueue != null) {
+            nodeQueueSizes = new HashMap<>(nodesJobQueue.size());
+            for (Map.Entry<String, QueueInfo> queueInfoEntry : nodesJobQueue.entrySet()) {
+                nodeQueueSizes.put(queueInfoEntry.getKey(), queueInfoEntry.getValue().getSize());
             }
         }
-        if (nodeSort.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
-        }
-        int avg = (total / nodeSort.size()) + 1;
-        for (Map.Entry<String, Integer> entry : nodeSort.entrySet()) {
-            entry.setValue(avg - entry.getValue());
-        }
-        return nodeSort;
+        return partitionStrategy.assigner(aliveNodes, nodeQueueSizes, jobSize);
     }
 
-    public Map<String, Integer> computeJobCacheSize(String jobResource, int jobSize) {
-        List<String> aliveNodes = zkService.getAliveBrokersChildren();
-        Map<String, Map<String, GroupInfo>> allNodesGroupQueueJobResources = queueListener.getAllNodesGroupQueueInfo();
-        if (allNodesGroupQueueJobResources.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
-        }
-        Map<String, GroupInfo> nodesGroupQueue = allNodesGroupQueueJobResources.get(jobResource);
-        if (nodesGroupQueue == null || nodesGroupQueue.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
-        }
-        Map<String, Integer> nodeSort = Maps.newHashMap();
-        int total = jobSize;
-        for (Map.Entry<String, GroupInfo> groupInfoEntry : nodesGroupQueue.entrySet()) {
-            GroupInfo groupInfo = groupInfoEntry.getValue();
-            total += groupInfo.getSize();
-            //排除宕机节点
-            if (aliveNodes.contains(groupInfoEntry.getKey())) {
-                nodeSort.put(groupInfoEntry.getKey(), groupInfo.getSize());
+    /**
+     * 提交队列中的实例分配节点
+     *
+     * @param jobResource 实例的计算资源
+     * @param jobSize     要分配的实例数
+     */
+    public NodeAssigner getJobCacheAssigner(String jobResource, int jobSize) {
+        List<String> aliveNodes = getAliveBrokers();
+        Map<String, Integer> nodeQueueSizes = Collections.emptyMap();
+        Map<String, GroupInfo> nodesGroupQueue = queueListener.getAllNodesGroupQueueInfo().get(jobResource);
+        if (nodesGroupQueue != null) {
+            nodeQueueSizes = new HashMap<>(nodesGroupQueue.size());
+            for (Map.Entry<String, GroupInfo> groupInfoEntry : nodesGroupQueue.entrySet()) {
+                nodeQueueSizes.put(groupInfoEntry.getKey(), groupInfoEntry.getValue().getSize());
             }
         }
-        if (nodeSort.isEmpty()) {
-            return getDefaultStrategy(aliveNodes, jobSize);
-        }
-        int avg = (total / nodeSort.size()) + 1;
-        for (Map.Entry<String, Integer> entry : nodeSort.entrySet()) {
-            entry.setValue(avg - entry.getValue());
-        }
-        return nodeSort;
+        return partitionStrategy.assigner(aliveNodes, nodeQueueSizes, jobSize);
+    }
+
+    /**
+     * 不区分队列的实例分配节点
+     *
+     * @param jobSize 要分配的实例数
+     */
+    public NodeAssigner getDefaultAssigner(int jobSize) {
+        return partitionStrategy.assigner(getAliveBrokers(), Collections.emptyMap(), jobSize);
     }
 
     public Map<String, GroupInfo> getGroupInfoByJobResource(String jobResource) {
@@ -127,7 +158,7 @@ public class JobPartitioner {
         if (nodesGroupQueue == null || nodesGroupQueue.isEmpty()) {
             return null;
         }
-        List<String> aliveBrokers = zkService.getAliveBrokersChildren();
+        List<String> aliveBrokers = getAliveBrokers();
         //将不存活节点过滤
         Iterator<Map.Entry<String, GroupInfo>> nodesGroupQueueIt = nodesGroupQueue.entrySet().iterator();
         while (nodesGroupQueueIt.hasNext()) {
@@ -21,7 +21,7 @@ import java.util.stream.Collectors;
  * @Email:dazhi@dtstack.com
  * @Description:
  */
-public class BatchFillDataTask extends AbstractRecursionFillDataTask {
+public class BatchFillDataTask extends AbstractFillDataTask {
 
     private final static Logger LOGGER = LoggerFactory.getLogger(BatchFillDataTask.class);
 
@@ -0,0 +1,165 @@
+package com.dtstack.taier.scheduler.server.action.fill;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @Date: 2026/10/18 2:40 AM
+ * @Description: 补数据的任务依赖图，节点编号为 0 ~ size-1，上下游用数组保存(CSR)，不可变
+ * <p>
+ * A 集合 = R 集合 + 在两个 R 集合节点之间路径上的节点，也就是既能从 R 集合到达、又能到达 R 集合的节点。
+ * 分别从 R 集合沿下游、上游各遍历一次即可得到，不需要枚举路径，时间复杂度 O(节点数 + 边数)，有环时也能结束
+ */
+public final class FillDataDag {
+
+    private final long[] taskIds;
+
+    private final Map<Long, Integer> indexes;
+
+    /**
+     * 节点 i 的下游为 children[childOffsets[i] ~ childOffsets[i + 1])
+     */
+    private final int[] childOffsets;
+
+    private final int[] children;
+
+    private final int[] parentOffsets;
+
+    private final int[] parents;
+
+    private FillDataDag(long[] taskIds, Map<Long, Integer> indexes, int[] from, int[] to, int edgeSize) {
+        this.taskIds = taskIds;
+        this.indexes = indexes;
+        this.childOffsets = new int[taskIds.length + 1];
+        this.children = new int[edgeSize];
+        this.parentOffsets = new int[taskIds.length + 1];
+        this.parents = new int[edgeSize];
+        fill(from, to, edgeSize, childOffsets, children);
+        fill(to, from, edgeSize, parentOffsets, parents);
+    }
+
+    private static void fill(int[] source, int[] target, int edgeSize, int[] offsets, int[] values) {
+        for (int i = 0; i < edgeSize; i++) {
+            offsets[source[i] + 1]++;
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] += offsets[i - 1];
+        }
+        int[] cursor = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int i = 0; i < edgeSize; i++) {
+            values[cursor[source[i]]++] = target[i];
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int size() {
+        return taskIds.length;
+    }
+
+    public int edgeSize() {
+        return children.length;
+    }
+
+    /**
+     * @param run R 集合
+     * @return A 集合
+     */
+    public Set<Long> getAllList(Set<Long> run) {
+        int[] runIndexes = run.stream().map(indexes::get).filter(index -> index != null).mapToInt(Integer::intValue).toArray();
+        boolean[] fromRun = reach(runIndexes, childOffsets, children);
+        boolean[] toRun = reach(runIndexes, parentOffsets, parents);
+        Set<Long> all = new HashSet<>(run);
+        for (int i = 0; i < taskIds.length; i++) {
+            if (fromRun[i] && toRun[i]) {
+                all.add(taskIds[i]);
+            }
+        }
+        return all;
+    }
+
+    /**
+     * @return 从 starts 出发经过至少一条边可以到达的节点
+     */
+    private boolean[] reach(int[] starts, int[] offsets, int[] values) {
+        boolean[] reached = new boolean[taskIds.length];
+        int[] stack = new int[taskIds.length];
+        int top = 0;
+        for (int start : starts) {
+            for (int i = offsets[start]; i < offsets[start + 1]; i++) {
+                int next = values[i];
+                if (!reached[next]) {
+                    reached[next] = true;
+                    stack[top++] = next;
+                }
+            }
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int next = values[i];
+                if (!reached[next]) {
+                    reached[next] = true;
+                    stack[top++] = next;
+                }
+            }
+        }
+        return reached;
+    }
+
+    public static class Builder {
+
+        private final Map<Long, Integer> indexes = new HashMap<>();
+
+        private long[] taskIds = new long[64];
+
+        private int[] from = new int[64];
+
+        private int[] to = new int[64];
+
+        private int edgeSize;
+
+        private Builder() {
+        }
+
+        public Builder addTask(Long taskId) {
+            index(taskId);
+            return this;
+        }
+
+        public Builder addEdge(Long parentTaskId, Long taskId) {
+            int parent = index(parentTaskId);
+            int child = index(taskId);
+            if (edgeSize == from.length) {
+                from = Arrays.copyOf(from, edgeSize * 2);
+                to = Arrays.copyOf(to, edgeSize * 2);
+            }
+            from[edgeSize] = parent;
+            to[edgeSize] = child;
+            edgeSize++;
+            return this;
+        }
+
+        private int index(Long taskId) {
+            Integer index = indexes.get(taskId);
+            if (index == null) {
+                index = indexes.size();
+                if (index == taskIds.length) {
+                    taskIds = Arrays.copyOf(taskIds, index * 2);
+                }
+                taskIds[index] = taskId;
+                indexes.put(taskId, index);
+            }
+            return index;
+        }
+
+        public FillDataDag build() {
+            return new FillDataDag(Arrays.copyOf(taskIds, indexes.size()), new HashMap<>(indexes), from, to, edgeSize);
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.scheduler.event.ScheduleJobBatchEvent;
+import com.dtstack.taier.scheduler.event.ScheduleJobEventPublisher;
 import com.dtstack.taier.scheduler.service.ScheduleJobJobService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import org.apache.commons.collections.CollectionUtils;
@@ -17,7 +19,7 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -38,12 +40,16 @@ public abstract class AbstractRestart {
 
     protected final  ApplicationContext applicationContext;
 
+    protected final DownstreamJobCollector downstreamJobCollector;
+
 
     public AbstractRestart(EnvironmentContext environmentContext, ApplicationContext applicationContext) {
         this.environmentContext = environmentContext;
         this.applicationContext = applicationContext;
         this.scheduleJobService = applicationContext.getBean(ScheduleJobService.class);
         this.scheduleJobJobService = applicationContext.getBean(ScheduleJobJobService.class);
+        this.downstreamJobCollector = new DownstreamJobCollector(scheduleJobService, scheduleJobJobService,
+                environmentContext.getRestartQueryBatchSize(), TimeUnit.SECONDS.toMillis(environmentContext.getForkJoinResultTimeOut()));
     }
 
     /**
@@ -89,23 +95,14 @@ public abstract class AbstractRestart {
     }
 
     /**
-     * 递归查找当前jobId下的子任务
+     * 按层查找 jobs 同一天的下游任务
      *
-     * @param jobId
+     * @param jobs
      * @param isOnlyNextChild
      * @return
      */
-    protected Map<String,String> getAllChildJobWithSameDayByForkJoin(String jobId, boolean isOnlyNextChild) {
-        ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
-        ConcurrentHashMap<String,String> results = new ConcurrentHashMap<>();
-        ForkJoinJobTask forkJoinJobTask = new ForkJoinJobTask(jobId, results, scheduleJobService, scheduleJobJobService, isOnlyNextChild);
-        ForkJoinTask<Map<String,String>> submit = forkJoinPool.submit(forkJoinJobTask);
-        try {
-            return submit.get(environmentContext.getForkJoinResultTimeOut(), TimeUnit.SECONDS);
-        } catch (InterruptedException | ExecutionException | TimeoutException e) {
-            LOGGER.error("get all child job {} error ", jobId, e);
-        }
-        return null;
+    protected Map<String,String> getAllChildJobWithSameDay(List<ScheduleJob> jobs, boolean isOnlyNextChild) {
+        return downstreamJobCollector.collect(jobs, isOnlyNextChild);
     }
 
     /**
@@ -125,6 +122,7 @@ public abstract class AbstractRestart {
         scheduleJobService.lambdaUpdate().in(ScheduleJob::getJobId,jobIds)
                 .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
                 .update(scheduleJob);
+        ScheduleJobEventPublisher.getInstance().publishBatchEvent(new ScheduleJobBatchEvent(jobIds, TaskStatus.MANUALSUCCESS.getStatus()));
 
         LOGGER.info("jobIds {} manual success", jobIds);
         // 置成功并恢复调度,要把当前置成功任务去除掉
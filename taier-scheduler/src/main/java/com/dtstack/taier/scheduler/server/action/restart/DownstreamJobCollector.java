@@ -0,0 +1,201 @@
+package com.dtstack.taier.scheduler.server.action.restart;
+
+import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.enums.EScheduleJobType;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import com.dtstack.taier.scheduler.service.ScheduleJobJobService;
+import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import com.dtstack.taier.scheduler.utils.JobKeyUtils;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * @Date: 2026/10/18 3:20 AM
+ * @Description: 查询出实例的所有下游实例（同一调度日期内）
+ * <p>
+ * 按层遍历，每一层的实例一起查询依赖、工作流子任务和下游实例，每次 in 查询最多 batchSize 个，
+ * 查询次数与层数有关，和实例个数无关。已经查到的实例不再展开，有环时也能结束
+ */
+public class DownstreamJobCollector {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownstreamJobCollector.class);
+
+    private final ScheduleJobService scheduleJobService;
+
+    private final ScheduleJobJobService scheduleJobJobService;
+
+    private final int batchSize;
+
+    private final long timeoutMillis;
+
+    public DownstreamJobCollector(ScheduleJobService scheduleJobService, ScheduleJobJobService scheduleJobJobService,
+                                  int batchSize, long timeoutMillis) {
+        this.scheduleJobService = scheduleJobService;
+        this.scheduleJobJobService = scheduleJobJobService;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * @param jobs            起始实例
+     * @param isOnlyNextChild 是否只查直接下游
+     * @return 下游实例 jobId -> cycTime，不包含起始实例本身(有环回到起始实例时除外)，超时返回 null
+     */
+    public Map<String, String> collect(Collection<ScheduleJob> jobs, boolean isOnlyNextChild) {
+        long startTime = System.currentTimeMillis();
+        Map<String, String> results = new HashMap<>();
+        List<ScheduleJob> frontier = new ArrayList<>(jobs);
+        int level = 0;
+        while (!frontier.isEmpty()) {
+            if (System.currentTimeMillis() - startTime > timeoutMillis) {
+                LOGGER.error("collect downstream job timeout, level {} result {}", level, results.size());
+                return null;
+            }
+            List<ScheduleJob> nextFrontier = new ArrayList<>();
+            for (ScheduleJob childJob : listChildJobs(frontier)) {
+                if (results.containsKey(childJob.getJobId())) {
+                    continue;
+                }
+                results.put(childJob.getJobId(), childJob.getCycTime());
+                nextFrontier.add(childJob);
+            }
+            level++;
+            if (isOnlyNextChild) {
+                break;
+            }
+            frontier = nextFrontier;
+        }
+        LOGGER.info("collect downstream job level {} result {} isOnlyNextChild {} cost {}ms", level, results.size(),
+                isOnlyNextChild, System.currentTimeMillis() - startTime);
+        return results;
+    }
+
+    /**
+     * 查询一层实例的直接下游
+     */
+    private List<ScheduleJob> listChildJobs(List<ScheduleJob> parentJobs) {
+        Map<String, ScheduleJob> parentJobMap = new HashMap<>(parentJobs.size());
+        for (ScheduleJob parentJob : parentJobs) {
+            if (!Strings.isNullOrEmpty(JobKeyUtils.getJobTriggerTimeFromJobKey(parentJob.getJobKey()))) {
+                parentJobMap.put(parentJob.getJobKey(), parentJob);
+            }
+        }
+        if (parentJobMap.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<String, List<ScheduleJobJob>> jobJobMap = new HashMap<>();
+        for (ScheduleJobJob scheduleJobJob : queryInBatches(parentJobMap.keySet(), this::listJobJobByParentJobKeys)) {
+            jobJobMap.computeIfAbsent(scheduleJobJob.getParentJobKey(), k -> new ArrayList<>()).add(scheduleJobJob);
+        }
+
+        //如果是工作流 把子节点全部添加进来
+        List<String> flowJobIds = new ArrayList<>();
+        for (String parentJobKey : jobJobMap.keySet()) {
+            ScheduleJob parentJob = parentJobMap.get(parentJobKey);
+            if (EScheduleJobType.WORK_FLOW.getType().equals(parentJob.getTaskType())) {
+                flowJobIds.add(parentJob.getJobId());
+            }
+        }
+        Map<String, List<ScheduleJob>> flowJobMap = new HashMap<>();
+        for (ScheduleJob flowJob : queryInBatches(flowJobIds, this::listJobByFlowJobIds)) {
+            flowJobMap.computeIfAbsent(flowJob.getFlowJobId(), k -> new ArrayList<>()).add(flowJob);
+        }
+
+        Set<String> childJobKeys = new HashSet<>();
+        for (Map.Entry<String, List<ScheduleJobJob>> entry : jobJobMap.entrySet()) {
+            ScheduleJob parentJob = parentJobMap.get(entry.getKey());
+            childJobKeys.addAll(filterJobKeyList(parentJob, entry.getValue(), flowJobMap.get(parentJob.getJobId())));
+        }
+        return queryInBatches(childJobKeys, this::listJobByJobKeys);
+    }
+
+    private Set<String> filterJobKeyList(ScheduleJob scheduleJob, List<ScheduleJobJob> scheduleJobJobList, List<ScheduleJob> flowJobList) {
+        Long jobTaskShadeId = JobKeyUtils.getTaskShadeIdFromJobKey(scheduleJob.getJobKey());
+        String parentJobDayStr = JobKeyUtils.getJobTriggerTimeFromJobKey(scheduleJob.getJobKey());
+        Set<String> jobKeyList = new HashSet<>();
+        if (null == jobTaskShadeId) {
+            return jobKeyList;
+        }
+
+        Set<String> flowJobKeys = new HashSet<>();
+        if (CollectionUtils.isNotEmpty(flowJobList)) {
+            for (ScheduleJob flowJob : flowJobList) {
+                flowJobKeys.add(flowJob.getJobKey());
+            }
+            jobKeyList.addAll(flowJobKeys);
+        }
+
+        for (ScheduleJobJob scheduleJobJob : scheduleJobJobList) {
+            String childJobKey = scheduleJobJob.getJobKey();
+            Long childJobShadeId = JobKeyUtils.getTaskShadeIdFromJobKey(childJobKey);
+            //排除自依赖
+            if (null != childJobShadeId && childJobShadeId.equals(jobTaskShadeId)) {
+                continue;
+            }
+            String childJobDayStr = JobKeyUtils.getJobTriggerTimeFromJobKey(childJobKey);
+            //排除不是同一天执行的
+            if (!parentJobDayStr.equals(childJobDayStr)) {
+                continue;
+            }
+            //添加除工作流内部子任务之外的下游任务依赖
+            if (flowJobKeys.contains(childJobKey)) {
+                continue;
+            }
+            jobKeyList.add(childJobKey);
+        }
+        return jobKeyList;
+    }
+
+    private <T> List<T> queryInBatches(Collection<String> keys, Function<List<String>, List<T>> query) {
+        if (keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<T> results = new ArrayList<>();
+        for (List<String> partition : Lists.partition(new ArrayList<>(keys), batchSize)) {
+            List<T> list = query.apply(partition);
+            if (CollectionUtils.isNotEmpty(list)) {
+                results.addAll(list);
+            }
+        }
+        return results;
+    }
+
+    protected List<ScheduleJobJob> listJobJobByParentJobKeys(List<String> parentJobKeys) {
+        return scheduleJobJobService.lambdaQuery()
+                .select(ScheduleJobJob::getJobKey, ScheduleJobJob::getParentJobKey)
+                .in(ScheduleJobJob::getParentJobKey, parentJobKeys)
+                .eq(ScheduleJobJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+    }
+
+    protected List<ScheduleJob> listJobByFlowJobIds(List<String> flowJobIds) {
+        return scheduleJobService.lambdaQuery()
+                .select(ScheduleJob::getJobKey, ScheduleJob::getFlowJobId)
+                .in(ScheduleJob::getFlowJobId, flowJobIds)
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+    }
+
+    protected List<ScheduleJob> listJobByJobKeys(List<String> jobKeys) {
+        return scheduleJobService.lambdaQuery()
+                .select(ScheduleJob::getJobId, ScheduleJob::getJobKey, ScheduleJob::getCycTime, ScheduleJob::getTaskType)
+                .in(ScheduleJob::getJobKey, jobKeys)
+                .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                .list();
+    }
+}
@@ -7,6 +7,7 @@ import com.dtstack.taier.scheduler.server.action.restart.AbstractRestartJob;
 import org.apache.commons.collections.MapUtils;
 import org.springframework.context.ApplicationContext;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,10 +28,10 @@ public class SetSuccessAndResumeSchedulingRestartJob extends AbstractRestartJob
     public Map<String, String> computeResumeBatchJobs(List<ScheduleJob> jobs) {
         Map<String, String> resumeBatchJobs = new HashMap<>();
         for (ScheduleJob job : jobs) {
-            Map<String, String> allChildJobWithSameDayByForkJoin = getAllChildJobWithSameDayByForkJoin(job.getJobId(), false);
-            setSuccess(job, allChildJobWithSameDayByForkJoin);
-            if (MapUtils.isNotEmpty(allChildJobWithSameDayByForkJoin)) {
-                resumeBatchJobs.putAll(allChildJobWithSameDayByForkJoin);
+            Map<String, String> allChildJobWithSameDay = getAllChildJobWithSameDay(Collections.singletonList(job), false);
+            setSuccess(job, allChildJobWithSameDay);
+            if (MapUtils.isNotEmpty(allChildJobWithSameDay)) {
+                resumeBatchJobs.putAll(allChildJobWithSameDay);
             }
             if (!"0".equalsIgnoreCase(job.getFlowJobId())) {
                 ScheduleJob workFlowJob = scheduleJobService.lambdaQuery()
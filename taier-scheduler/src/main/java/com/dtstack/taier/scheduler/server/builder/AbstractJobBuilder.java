@@ -12,7 +12,6 @@ import com.dtstack.taier.pluginapi.CustomThreadFactory;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
-import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
 import com.dtstack.taier.scheduler.server.builder.dependency.JobDependency;
 import com.dtstack.taier.scheduler.server.builder.dependency.DependencyManager;
@@ -22,6 +21,8 @@ import com.dtstack.taier.scheduler.service.ScheduleTaskShadeService;
 import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
 import com.dtstack.taier.scheduler.utils.JobKeyUtils;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
@@ -33,8 +34,10 @@ import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -76,10 +79,11 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
                                              String beginTime,
                                              String endTime,
                                              Long fillId,
-                                             JobSortWorker jobSortWorker) throws Exception {
+                                             JobSortWorker jobSortWorker,
+                                             JobGraphSnapshot snapshot) throws Exception {
 
         // 解析周期信息
-        ScheduleCorn corn = ScheduleConfManager.parseFromJson(scheduleTaskShade.getScheduleConf());
+        ScheduleCorn corn = snapshot.getCorn(scheduleTaskShade);
         ScheduleConf scheduleConf = corn.getScheduleConf();
 
         // 校验时间是否符合规范，且获得时间范围
@@ -90,45 +94,69 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
         Date endDate = getEndDate(scheduleConf, triggerRange, scheduleTaskShade.getTaskId());
 
         List<ScheduleJobDetails> jobBuilderBeanList = Lists.newArrayList();
-
-        Date next = corn.isMatch(startDate) ? startDate : corn.next(startDate);
-        while (next != null) {
-            // 如下下一次执行时间已经在结束时间之后，停止生成实例
-            if (next.after(endDate)) {
-                break;
-            }
-            ScheduleJobDetails jobBuilderBean = buildJobBuilderBean(scheduleTaskShade, name, fillId, jobSortWorker, corn, scheduleConf, next, NORMAL_TASK_FLOW_ID);
-
-            if (EScheduleJobType.WORK_FLOW.getVal().equals(scheduleTaskShade.getTaskType())) {
+        Set<String> crossDayJobKeys = Sets.newHashSet();
+
+        List<Date> fireTimes = corn.fireTimes(startDate, endDate);
+        boolean workFlow = EScheduleJobType.WORK_FLOW.getVal().equals(scheduleTaskShade.getTaskType());
+        List<ScheduleTaskShade> subTasks = workFlow ? snapshot.getFlowSubTasks(scheduleTaskShade.getTaskId()) : Lists.newArrayList();
+        // 一次获得所有实例的jobId
+        Iterator<String> jobIds = actionService.generateUniqueSigns(fireTimes.size() * (subTasks.size() + 1)).iterator();
+        for (int i = 0; i < fireTimes.size(); i++) {
+            Date current = fireTimes.get(i);
+            // 下一次执行时间: 范围内直接取下一个，最后一个再计算
+            Date next = i + 1 < fireTimes.size() ? fireTimes.get(i + 1) : corn.next(current);
+            ScheduleJobDetails jobBuilderBean = buildJobBuilderBean(scheduleTaskShade, jobIds.next(), name, fillId, jobSortWorker, corn, scheduleConf, current, next, NORMAL_TASK_FLOW_ID, snapshot, crossDayJobKeys);
+
+            if (workFlow) {
                 // 该任务是工作流任务 先生成子任务
-                List<ScheduleTaskShade> subTasks = scheduleTaskService.lambdaQuery()
-                        .eq(ScheduleTaskShade::getFlowId, scheduleTaskShade.getTaskId())
-                        .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                        .list();
                 List<ScheduleJobDetails> flowBean = Lists.newArrayList();
                 ScheduleJob scheduleJob = jobBuilderBean.getScheduleJob();
                 for (ScheduleTaskShade subTask : subTasks) {
-                    flowBean.add(buildJobBuilderBean(subTask, name, fillId, jobSortWorker, corn, scheduleConf, next, scheduleJob.getJobId()));
+                    flowBean.add(buildJobBuilderBean(subTask, jobIds.next(), name, fillId, jobSortWorker, corn, scheduleConf, current, next, scheduleJob.getJobId(), snapshot, crossDayJobKeys));
                 }
                 jobBuilderBean.setFlowBean(flowBean);
             }
 
-
             jobBuilderBeanList.add(jobBuilderBean);
-            next = corn.next(next);
         }
+        removeNotExistCrossDayDependency(jobBuilderBeanList, crossDayJobKeys);
         return jobBuilderBeanList;
     }
 
+    /**
+     * 批量校验跨天的父实例是否存在，移除父实例不存在的依赖
+     *
+     * @param jobBuilderBeanList 生成的实例
+     * @param crossDayJobKeys    跨天的父实例key
+     */
+    private void removeNotExistCrossDayDependency(List<ScheduleJobDetails> jobBuilderBeanList, Set<String> crossDayJobKeys) {
+        if (crossDayJobKeys.isEmpty()) {
+            return;
+        }
+        crossDayJobKeys.removeAll(scheduleJobService.listExistJobKeys(crossDayJobKeys));
+        if (crossDayJobKeys.isEmpty()) {
+            return;
+        }
+        for (ScheduleJobDetails jobBuilderBean : jobBuilderBeanList) {
+            jobBuilderBean.getJobJobList().removeIf(jobJob -> crossDayJobKeys.contains(jobJob.getParentJobKey()));
+            if (CollectionUtils.isNotEmpty(jobBuilderBean.getFlowBean())) {
+                for (ScheduleJobDetails flowBean : jobBuilderBean.getFlowBean()) {
+                    flowBean.getJobJobList().removeIf(jobJob -> crossDayJobKeys.contains(jobJob.getParentJobKey()));
+                }
+            }
+        }
+    }
+
     /**
      * 周期实例生成bean方法
      *
      * @param batchTaskShade 任务
      * @param triggerDay     目标天
      * @param sortWorker     排序器
+     * @param snapshot       任务快照
      */
-    public List<ScheduleJobDetails> buildJob(ScheduleTaskShade batchTaskShade, String triggerDay, AtomicJobSortWorker sortWorker) throws Exception {
-        return buildJob(batchTaskShade, "", triggerDay, "00:00", "23:59", 0L, sortWorker);
+    public List<ScheduleJobDetails> buildJob(ScheduleTaskShade batchTaskShade, String triggerDay, AtomicJobSortWorker sortWorker, JobGraphSnapshot snapshot) throws Exception {
+        return buildJob(batchTaskShade, "", triggerDay, "00:00", "23:59", 0L, sortWorker, snapshot);
     }
 
     /**
@@ -146,22 +174,30 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
      * 构建JobBuilderBean
      *
      * @param scheduleTaskShade 需要被构建的任务
+     * @param jobId             实例id
      * @param name              实例名称
      * @param fillId            补数据id
      * @param jobSortWorker     排序器
      * @param corn              周期实例
      * @param scheduleConf      调度配置
      * @param currentData       当前时间
+     * @param nextData          下一次执行时间
+     * @param snapshot          任务快照
+     * @param crossDayJobKeys   跨天的父实例key
      * @return
      */
     private ScheduleJobDetails buildJobBuilderBean(ScheduleTaskShade scheduleTaskShade,
+                                                   String jobId,
                                                    String name,
                                                    Long fillId,
                                                    JobSortWorker jobSortWorker,
                                                    ScheduleCorn corn,
                                                    ScheduleConf scheduleConf,
                                                    Date currentData,
-                                                   String flowJobId) {
+                                                   Date nextData,
+                                                   String flowJobId,
+                                                   JobGraphSnapshot snapshot,
+                                                   Set<String> crossDayJobKeys) {
         String triggerTime = DateUtil.getDate(currentData, DateUtil.STANDARD_DATETIME_FORMAT);
         String cycTime = DateUtil.getTimeStrWithoutSymbol(triggerTime);
         String jobKey = JobKeyUtils.generateJobKey(getKeyPreStr(name), scheduleTaskShade.getTaskId(), cycTime);
@@ -170,7 +206,7 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
         // 实例
         ScheduleJob scheduleJob = new ScheduleJob();
         scheduleJob.setTenantId(scheduleTaskShade.getTenantId());
-        scheduleJob.setJobId(actionService.generateUniqueSign());
+        scheduleJob.setJobId(jobId);
         scheduleJob.setJobKey(jobKey);
         scheduleJob.setJobName(getName(scheduleTaskShade, name, cycTime));
         scheduleJob.setTaskId(scheduleTaskShade.getTaskId());
@@ -188,12 +224,12 @@ public abstract class AbstractJobBuilder implements JobBuilder, InitializingBean
         scheduleJob.setMaxRetryNum(scheduleConf.getMaxRetryNum());
         scheduleJob.setVersionId(scheduleTaskShade.getVersionId());
         scheduleJob.setComputeType(scheduleTaskShade.getComputeType());
-        scheduleJob.setNextCycTime(DateUtil.getDate(corn.next(currentData), DateUtil.STANDARD_DATETIME_FORMAT));
+        scheduleJob.setNextCycTime(DateUtil.getDate(nextData, DateUtil.STANDARD_DATETIME_FORMAT));
         scheduleJob.setJobExecuteOrder(JobExecuteOrderUtil.buildJobExecuteOrder(cycTime, jobSortWorker.getSort()));
 
         // 获得依赖
         List<ScheduleJobJob> jobJobList = Lists.newArrayList();
-        JobDependency dependencyHandler = dependencyManager.getDependencyHandler(getKeyPreStr(name), scheduleTaskShade, corn);
+        JobDependency dependencyHandler = dependencyManager.getDependencyHandler(getKeyPreStr(name), scheduleTaskShade, corn, snapshot, crossDayJobKeys);
         jobJobList.addAll(dependencyHandler.generationJobJobForTask(corn, currentData, jobKey));
 
         ScheduleJobDetails jobBuilderBean = new ScheduleJobDetails();
@@ -4,6 +4,8 @@ import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleStatus;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.exception.RdosDefineException;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.pluginapi.util.RetryUtil;
@@ -45,6 +47,8 @@ public class CycleJobBuilder extends AbstractJobBuilder {
 
     private final Lock lock = new ReentrantLock();
 
+    private final MetricTimer buildTimer = MetricRegistry.timer("taier_job_graph_build_seconds", "latency of building cycle jobs of one day");
+
     public void buildTaskJobGraph(String triggerDay) {
         if (!environmentContext.isOpenJobSchedule()) {
             return;
@@ -70,7 +74,18 @@ public class CycleJobBuilder extends AbstractJobBuilder {
                 saveJobGraph(triggerDay);
                 return;
             }
+            long startTime = System.nanoTime();
             clearInterruptJob(triggerTime);
+            // 整体加载一次任务快照，各线程共享
+            JobGraphSnapshot snapshot = dependencyManager.loadSnapshot();
+            // 节点分配策略在整个构建中只计算一次，生成的实例交给写入线程批量持久化
+            JobGraphPersistPipeline pipeline = new JobGraphPersistPipeline(CRON_JOB_NAME,
+                    scheduleJobService,
+                    scheduleJobService.getJobNodeAssigner(totalTask, getType()),
+                    environmentContext.getJobGraphWriterSize(),
+                    environmentContext.getJobGraphWriterQueueSize(),
+                    environmentContext.getBatchInsertSize(),
+                    environmentContext.getBuildJobErrorRetry());
             // 2. 切割总数 限制 thread 并发
             int totalBatch = totalTask / environmentContext.getJobGraphTaskLimitSize();
             if (totalTask % environmentContext.getJobGraphTaskLimitSize() != 0) {
@@ -103,10 +118,10 @@ public class CycleJobBuilder extends AbstractJobBuilder {
                         try {
                             for (ScheduleTaskShade batchTaskShade : batchTaskShades) {
                                 try {
-                                    List<ScheduleJobDetails> scheduleJobDetails = RetryUtil.executeWithRetry(() -> buildJob(batchTaskShade, triggerDay, sortWorker),
+                                    List<ScheduleJobDetails> scheduleJobDetails = RetryUtil.executeWithRetry(() -> buildJob(batchTaskShade, triggerDay, sortWorker, snapshot),
                                             environmentContext.getBuildJobErrorRetry(), 200, false);
                                     // 插入周期实例
-                                    savaJobList(scheduleJobDetails);
+                                    pipeline.put(scheduleJobDetails);
                                 } catch (Throwable e) {
                                     LOGGER.error("build task failure taskId:{}", batchTaskShade.getTaskId(), e);
                                 }
@@ -120,13 +135,24 @@ public class CycleJobBuilder extends AbstractJobBuilder {
                     });
                 } catch (Throwable e) {
                     LOGGER.error("[acquire pool error]:", e);
+                    pipeline.finish();
                     throw new RdosDefineException(e);
                 }
             }
-            ctl.await();
+            try {
+                ctl.await();
+            } finally {
+                pipeline.finish();
+            }
 
+            if (pipeline.getFailCount() > 0) {
+                // 部分实例没有写入，不记录当天已经生成，下次触发时清理当天的实例后重新生成
+                LOGGER.error("trigger Day {} persist {} jobs failed, rebuild on the next trigger", triggerDay, pipeline.getFailCount());
+                return;
+            }
             // 循环已经结束，说明周期实例已经全部生成了
             saveJobGraph(triggerDay);
+            buildTimer.recordSince(startTime);
         } catch (Exception e) {
             LOGGER.error("buildTaskJobGraph ！！！", e);
         } finally {
@@ -142,27 +168,6 @@ public class CycleJobBuilder extends AbstractJobBuilder {
         scheduleJobService.clearInterruptJob(startExecuteOrder);
     }
 
-    /**
-     * 保存周期实例
-     *
-     * @param scheduleJobDetails 实例详情
-     */
-    @Transactional(rollbackFor = Exception.class)
-    @DtDruidRemoveAbandoned
-    public void savaJobList(List<ScheduleJobDetails> scheduleJobDetails) {
-        List<ScheduleJobDetails> savaJobDetails = Lists.newArrayList();
-        for (ScheduleJobDetails scheduleJobDetail : scheduleJobDetails) {
-            savaJobDetails.add(scheduleJobDetail);
-            List<ScheduleJobDetails> flowBean = scheduleJobDetail.getFlowBean();
-
-            if (CollectionUtils.isNotEmpty(flowBean)) {
-                savaJobDetails.addAll(flowBean);
-            }
-        }
-
-        scheduleJobService.insertJobList(savaJobDetails, getType());
-    }
-
     /**
      * 保存生成的jobGraph记录
      */
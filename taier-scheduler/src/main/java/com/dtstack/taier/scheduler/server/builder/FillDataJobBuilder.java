@@ -1,6 +1,5 @@
 package com.dtstack.taier.scheduler.server.builder;
 
-import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.enums.ForceCancelFlag;
 import com.dtstack.taier.common.enums.OperatorType;
@@ -65,9 +64,11 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
 
         DateTime startTime = new DateTime(startDate);
         DateTime finishTime = new DateTime(endDate);
+        // 所有目标天共用一份任务快照，只加载补数据涉及的任务
+        JobGraphSnapshot snapshot = dependencyManager.loadSnapshot(all);
         while (startTime.getMillis() <= finishTime.getMillis()) {
             String triggerDay = startTime.toString(DateUtil.DATE_FORMAT);
-            buildFillDataJobGraph(fillName, fillId, all, run, triggerDay, beginTime, endTime);
+            buildFillDataJobGraph(fillName, fillId, all, run, triggerDay, beginTime, endTime, snapshot);
             startTime = startTime.plusDays(1);
         }
     }
@@ -82,11 +83,12 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
      * @param triggerDay 具体目标天
      * @param beginTime  每天时间范围 开始范围
      * @param endTime    每天时间范围 结束范围
+     * @param snapshot   任务快照
      * @throws Exception
      */
     @Transactional(rollbackFor = Exception.class)
     public void buildFillDataJobGraph(String fillName, Long fillId, Set<Long> all, Set<Long> run, String triggerDay,
-                                       String beginTime, String endTime) throws Exception {
+                                       String beginTime, String endTime, JobGraphSnapshot snapshot) throws Exception {
         List<Long> allList = Lists.newArrayList(all);
         List<List<Long>> partition = Lists.partition(allList, environmentContext.getJobGraphTaskLimitSize());
         AtomicJobSortWorker sortWorker = new AtomicJobSortWorker();
@@ -97,24 +99,20 @@ public class FillDataJobBuilder extends AbstractJobBuilder {
                     List<ScheduleJobDetails> saveList = Lists.newArrayList();
                     for (Long taskId : taskKey) {
                         try {
-                            ScheduleTaskShade scheduleTaskShade = scheduleTaskService
-                                    .lambdaQuery()
-                                    .eq(ScheduleTaskShade::getTaskId, taskId)
-                                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                                    .one();
+                            ScheduleTaskShade scheduleTaskShade = snapshot.getTask(taskId);
 
                             if (scheduleTaskShade != null) {
                                 List<ScheduleJobDetails> jobBuilderBeanList = Lists.newArrayList();
                                 // 非工作流任务子任务
                                 if (scheduleTaskShade.getFlowId() == 0) {
                                     // 生成补数据实例
-                                    jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, endTime, fillId, sortWorker),
+                                    jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, endTime, fillId, sortWorker, snapshot),
                                             environmentContext.getBuildJobErrorRetry(), 200, false);
                                 } else {
                                     Long flowId = scheduleTaskShade.getFlowId();
                                     if (!allList.contains(flowId)) {
                                         // 生成周期实例
-                                        jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, beginTime, fillId, sortWorker),
+                                        jobBuilderBeanList = RetryUtil.executeWithRetry(() -> buildJob(scheduleTaskShade, fillName, triggerDay, beginTime, beginTime, fillId, sortWorker, snapshot),
                                                 environmentContext.getBuildJobErrorRetry(), 200, false);
                                     }
                                 }
@@ -22,6 +22,8 @@ public interface JobBuilder {
      * @param beginTime 从什么时间开始生成(格式:HH:mm:ss) 非必填 默认00:00:00
      * @param endTime 从什么时间结束生成(格式:HH:mm:ss) 非必填 默认23:59:59
      * @param fillId 补数据id,周期实例直接传0
+     * @param jobSortWorker 排序器
+     * @param snapshot 任务快照
      * @return 生成周期实例
      */
     List<ScheduleJobDetails> buildJob(ScheduleTaskShade scheduleTaskShade,
@@ -30,5 +32,6 @@ public interface JobBuilder {
                                       String beginTime,
                                       String endTime,
                                       Long fillId,
-                                      JobSortWorker jobSortWorker) throws Exception;
+                                      JobSortWorker jobSortWorker,
+                                      JobGraphSnapshot snapshot) throws Exception;
 }
@@ -0,0 +1,243 @@
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.pluginapi.util.RetryUtil;
+import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.server.partition.NodeAssigner;
+import com.dtstack.taier.scheduler.server.partition.WeightedNodeAssigner;
+import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Date: 2026/10/17 5:30 PM
+ * @Description: 实例生成的持久化流水线
+ * <p>
+ * 生成线程按任务把实例放入队列(队列中的实例数超过上限时阻塞，内存占用不随实例总数增长)，写入线程从队列批量取出实例，
+ * 按构建开始时确定的分配策略分配节点，以多值insert写入 schedule_job、schedule_job_expand、schedule_job_job
+ * <p>
+ * 一个任务的实例总是在同一批中写入，写入失败的批次在结束时按任务逐个重新写入，仍然失败的实例数见 {@link #getFailCount()}
+ */
+public class JobGraphPersistPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobGraphPersistPipeline.class);
+
+    private static final long POLL_TIMEOUT_MILLIS = 200L;
+
+    private final String name;
+
+    private final ScheduleJobService scheduleJobService;
+
+    /**
+     * 元素为一个任务的全部实例(包括工作流子实例)
+     */
+    private final BlockingQueue<List<ScheduleJobDetails>> queue;
+
+    /**
+     * 队列中还可以放入的实例数
+     */
+    private final Semaphore queuePermits;
+
+    private final int queueSize;
+
+    /**
+     * 写入失败的任务，结束时逐个重新写入
+     */
+    private final ConcurrentLinkedQueue<List<ScheduleJobDetails>> failedTasks = new ConcurrentLinkedQueue<>();
+
+    private final ExecutorService writerPool;
+
+    private final CountDownLatch writerLatch;
+
+    private final int jobBatchSize;
+
+    private final int retryNum;
+
+    private final NodeAssigner nodeAssigner;
+
+    private final AtomicLong persistCount = new AtomicLong();
+
+    private final AtomicLong failCount = new AtomicLong();
+
+    private volatile boolean producing = true;
+
+    /**
+     * @param name         流水线名称
+     * @param scheduleJobService 实例服务
+     * @param nodeJobSize  各节点分配的实例数，只作为分配比例使用
+     * @param writerSize   写入线程数
+     * @param queueSize    队列中最多的实例数
+     * @param jobBatchSize 每次写入的实例数
+     * @param retryNum     写入失败的重试次数
+     */
+    public JobGraphPersistPipeline(String name,
+                                   ScheduleJobService scheduleJobService,
+                                   Map<String, Integer> nodeJobSize,
+                                   int writerSize,
+                                   int queueSize,
+                                   int jobBatchSize,
+                                   int retryNum) {
+        this(name, scheduleJobService, new WeightedNodeAssigner(nodeJobSize), writerSize, queueSize, jobBatchSize, retryNum);
+    }
+
+    /**
+     * @param name         流水线名称
+     * @param scheduleJobService 实例服务
+     * @param nodeAssigner 实例分配节点的策略，按 jobKey 分配
+     * @param writerSize   写入线程数
+     * @param queueSize    队列中最多的实例数
+     * @param jobBatchSize 每次写入的实例数，不拆分一个任务的实例，一批可能超过该值
+     * @param retryNum     写入失败的重试次数
+     */
+    public JobGraphPersistPipeline(String name,
+                                   ScheduleJobService scheduleJobService,
+                                   NodeAssigner nodeAssigner,
+                                   int writerSize,
+                                   int queueSize,
+                                   int jobBatchSize,
+                                   int retryNum) {
+        this.name = name;
+        this.scheduleJobService = scheduleJobService;
+        this.nodeAssigner = nodeAssigner;
+        this.queue = new LinkedBlockingQueue<>();
+        this.queueSize = queueSize;
+        this.queuePermits = new Semaphore(queueSize);
+        this.jobBatchSize = jobBatchSize;
+        this.retryNum = retryNum;
+
+        this.writerLatch = new CountDownLatch(writerSize);
+        this.writerPool = new ThreadPoolExecutor(writerSize, writerSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomThreadFactory(name + "_writer"));
+        for (int j = 0; j < writerSize; j++) {
+            writerPool.submit(this::write);
+        }
+    }
+
+    /**
+     * 放入一个任务的实例，工作流子实例一起放入，队列满时阻塞
+     *
+     * @param scheduleJobDetails 一个任务的实例
+     */
+    public void put(List<ScheduleJobDetails> scheduleJobDetails) throws InterruptedException {
+        List<ScheduleJobDetails> taskJobs = new ArrayList<>(scheduleJobDetails.size());
+        for (ScheduleJobDetails scheduleJobDetail : scheduleJobDetails) {
+            taskJobs.add(scheduleJobDetail);
+            if (CollectionUtils.isNotEmpty(scheduleJobDetail.getFlowBean())) {
+                taskJobs.addAll(scheduleJobDetail.getFlowBean());
+            }
+        }
+        if (taskJobs.isEmpty()) {
+            return;
+        }
+        queuePermits.acquire(permits(taskJobs));
+        queue.put(taskJobs);
+    }
+
+    /**
+     * 所有实例已经放入，等待写入线程写完队列中的实例，再按任务重新写入失败的批次
+     */
+    public void finish() throws InterruptedException {
+        producing = false;
+        try {
+            writerLatch.await();
+        } finally {
+            writerPool.shutdown();
+        }
+        List<ScheduleJobDetails> taskJobs;
+        while ((taskJobs = failedTasks.poll()) != null) {
+            failCount.addAndGet(-taskJobs.size());
+            persist(taskJobs, null);
+        }
+        LOGGER.info("{} persist finish, persist job size:{} fail job size:{}", name, persistCount.get(), failCount.get());
+    }
+
+    /**
+     * @return 结束后仍然没有写入的实例数，大于0时生成的实例不完整
+     */
+    public long getFailCount() {
+        return failCount.get();
+    }
+
+    /**
+     * 超过队列上限的任务按上限计算，避免永远放不进去
+     */
+    private int permits(List<ScheduleJobDetails> taskJobs) {
+        return Math.min(taskJobs.size(), queueSize);
+    }
+
+    private void write() {
+        List<ScheduleJobDetails> batch = new ArrayList<>(jobBatchSize);
+        List<List<ScheduleJobDetails>> batchTasks = new ArrayList<>();
+        try {
+            while (true) {
+                List<ScheduleJobDetails> taskJobs = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (taskJobs == null) {
+                    if (!producing && queue.isEmpty()) {
+                        break;
+                    }
+                    continue;
+                }
+                // 按任务取出，一个任务的实例不拆分到两批
+                do {
+                    queuePermits.release(permits(taskJobs));
+                    batch.addAll(taskJobs);
+                    batchTasks.add(taskJobs);
+                } while (batch.size() < jobBatchSize && (taskJobs = queue.poll()) != null);
+                persist(batch, batchTasks);
+                batch.clear();
+                batchTasks.clear();
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("{} writer interrupted", name);
+            Thread.currentThread().interrupt();
+        } finally {
+            writerLatch.countDown();
+        }
+    }
+
+    /**
+     * @param batch      写入的实例
+     * @param batchTasks 实例所属的任务，写入失败时记录下来重新写入；为 null 时不再重新写入
+     */
+    private void persist(List<ScheduleJobDetails> batch, List<List<ScheduleJobDetails>> batchTasks) {
+        List<ScheduleJob> jobs = new ArrayList<>(batch.size());
+        List<ScheduleJobJob> jobJobs = new ArrayList<>(batch.size() * 2);
+        for (ScheduleJobDetails scheduleJobDetails : batch) {
+            ScheduleJob scheduleJob = scheduleJobDetails.getScheduleJob();
+            scheduleJob.setNodeAddress(nodeAssigner.assign(scheduleJob.getJobKey()));
+            jobs.add(scheduleJob);
+            if (CollectionUtils.isNotEmpty(scheduleJobDetails.getJobJobList())) {
+                jobJobs.addAll(scheduleJobDetails.getJobJobList());
+            }
+        }
+        try {
+            RetryUtil.executeWithRetry(() -> {
+                scheduleJobService.insertJobBatch(jobs, jobJobs);
+                return null;
+            }, retryNum, 200, false);
+            persistCount.addAndGet(jobs.size());
+        } catch (Exception e) {
+            failCount.addAndGet(jobs.size());
+            if (batchTasks != null) {
+                failedTasks.addAll(batchTasks);
+            }
+            LOGGER.error("{} persist job error, job size:{} first jobKey:{}", name, jobs.size(), jobs.get(0).getJobKey(), e);
+        }
+    }
+}
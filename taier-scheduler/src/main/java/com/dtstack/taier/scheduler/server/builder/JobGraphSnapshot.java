@@ -0,0 +1,111 @@
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
+import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Date: 2026/10/17 4:05 PM
+ * @Description: 一次实例生成使用的任务快照，包含任务、任务依赖、工作流子任务和解析后的调度周期
+ * <p>
+ * 生成开始时整体加载一次，生成过程中不可变，多个生成线程共享，不再按实例逐个查询数据库
+ */
+public final class JobGraphSnapshot {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JobGraphSnapshot.class);
+
+    /**
+     * key: taskId
+     */
+    private final Map<Long, ScheduleTaskShade> tasks;
+
+    /**
+     * key: taskId, value: 上游任务
+     */
+    private final Map<Long, List<ScheduleTaskShade>> parentTasks;
+
+    /**
+     * key: 工作流taskId, value: 子任务
+     */
+    private final Map<Long, List<ScheduleTaskShade>> flowSubTasks;
+
+    /**
+     * key: taskId, value: 解析后的调度周期，解析失败的任务不在其中
+     */
+    private final Map<Long, ScheduleCorn> corns;
+
+    public JobGraphSnapshot(List<ScheduleTaskShade> taskShades, List<ScheduleTaskTaskShade> taskTaskShades) {
+        Map<Long, ScheduleTaskShade> taskMap = new HashMap<>(taskShades.size());
+        Map<Long, ScheduleCorn> cornMap = new HashMap<>(taskShades.size());
+        Map<Long, ImmutableList.Builder<ScheduleTaskShade>> flowSubTaskMap = new HashMap<>();
+        for (ScheduleTaskShade taskShade : taskShades) {
+            taskMap.put(taskShade.getTaskId(), taskShade);
+            try {
+                cornMap.put(taskShade.getTaskId(), ScheduleConfManager.parseFromJson(taskShade.getScheduleConf()));
+            } catch (Exception e) {
+                LOGGER.warn("taskId:{} parse scheduleConf error:{}", taskShade.getTaskId(), e.getMessage());
+            }
+            if (taskShade.getFlowId() != null && taskShade.getFlowId() != 0L) {
+                flowSubTaskMap.computeIfAbsent(taskShade.getFlowId(), k -> ImmutableList.builder()).add(taskShade);
+            }
+        }
+
+        // 同一条依赖可能存在多条记录，按上游taskId去重
+        Map<Long, Map<Long, ScheduleTaskShade>> parentTaskMap = new HashMap<>();
+        for (ScheduleTaskTaskShade taskTaskShade : taskTaskShades) {
+            ScheduleTaskShade parentTask = taskMap.get(taskTaskShade.getParentTaskId());
+            if (parentTask != null) {
+                parentTaskMap.computeIfAbsent(taskTaskShade.getTaskId(), k -> new LinkedHashMap<>()).put(parentTask.getTaskId(), parentTask);
+            }
+        }
+
+        this.tasks = ImmutableMap.copyOf(taskMap);
+        this.corns = ImmutableMap.copyOf(cornMap);
+        ImmutableMap.Builder<Long, List<ScheduleTaskShade>> flowSubTaskBuilder = ImmutableMap.builder();
+        flowSubTaskMap.forEach((flowId, subTasks) -> flowSubTaskBuilder.put(flowId, subTasks.build()));
+        this.flowSubTasks = flowSubTaskBuilder.build();
+        ImmutableMap.Builder<Long, List<ScheduleTaskShade>> parentTaskBuilder = ImmutableMap.builder();
+        parentTaskMap.forEach((taskId, parents) -> parentTaskBuilder.put(taskId, ImmutableList.copyOf(parents.values())));
+        this.parentTasks = parentTaskBuilder.build();
+    }
+
+    public ScheduleTaskShade getTask(Long taskId) {
+        return tasks.get(taskId);
+    }
+
+    public List<ScheduleTaskShade> getParentTasks(Long taskId) {
+        return parentTasks.getOrDefault(taskId, ImmutableList.of());
+    }
+
+    public List<ScheduleTaskShade> getFlowSubTasks(Long flowId) {
+        return flowSubTasks.getOrDefault(flowId, ImmutableList.of());
+    }
+
+    /**
+     * 获得任务的调度周期，快照中没有时重新解析(解析异常直接抛出)
+     *
+     * @param taskShade 任务
+     * @return 调度周期
+     */
+    public ScheduleCorn getCorn(ScheduleTaskShade taskShade) throws Exception {
+        ScheduleCorn corn = corns.get(taskShade.getTaskId());
+        if (corn != null) {
+            return corn;
+        }
+        return ScheduleConfManager.parseFromJson(taskShade.getScheduleConf());
+    }
+
+    public int taskSize() {
+        return tasks.size();
+    }
+}
@@ -0,0 +1,274 @@
+package com.dtstack.taier.scheduler.server.builder.cron;
+
+import com.cronutils.model.Cron;
+import com.cronutils.model.definition.CronDefinition;
+import com.cronutils.model.definition.CronDefinitionBuilder;
+import com.cronutils.model.time.ExecutionTime;
+import com.cronutils.parser.CronParser;
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static com.cronutils.model.CronType.QUARTZ;
+
+/**
+ * @Date: 2026/10/17 2:20 PM
+ * @Description: 编译后的cron表达式，不可变，按表达式缓存复用
+ * <p>
+ * 只包含数字、*、?、-、/、, 的表达式会额外编译成各字段的位图，用于批量计算时间范围内的所有执行时间；
+ * 其他表达式(L、W、#、英文缩写、指定年份等)按 {@link ExecutionTime} 逐个计算
+ */
+public final class CompiledCron {
+
+    private static final CronDefinition CRON_DEFINITION = CronDefinitionBuilder.instanceDefinitionFor(QUARTZ);
+
+    private static final int MAX_CACHE_SIZE = 10000;
+
+    private static final Cache<String, CompiledCron> CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHE_SIZE)
+            .build();
+
+    private static final int UNSUPPORTED = -1;
+
+    private final String cron;
+
+    private final ExecutionTime executionTime;
+
+    /**
+     * 是否编译成了位图
+     */
+    private final boolean bitmap;
+
+    private final long seconds;
+
+    private final long minutes;
+
+    private final long hours;
+
+    private final long daysOfMonth;
+
+    private final long months;
+
+    /**
+     * 1 = 周日 ... 7 = 周六，和quartz一致
+     */
+    private final long daysOfWeek;
+
+    private CompiledCron(String cron) {
+        this.cron = cron;
+        Cron quartzCron = new CronParser(CRON_DEFINITION).parse(cron);
+        this.executionTime = ExecutionTime.forCron(quartzCron);
+
+        long[] fields = compileFields(cron);
+        this.bitmap = fields != null;
+        this.seconds = bitmap ? fields[0] : 0L;
+        this.minutes = bitmap ? fields[1] : 0L;
+        this.hours = bitmap ? fields[2] : 0L;
+        this.daysOfMonth = bitmap ? fields[3] : 0L;
+        this.months = bitmap ? fields[4] : 0L;
+        this.daysOfWeek = bitmap ? fields[5] : 0L;
+    }
+
+    /**
+     * 获得编译后的cron，相同表达式复用同一个对象
+     *
+     * @param cron cron表达式
+     * @return 编译后的cron
+     */
+    public static CompiledCron compile(String cron) {
+        if (StringUtils.isBlank(cron)) {
+            throw new RdosDefineException("cron is not null");
+        }
+        try {
+            return CACHE.get(cron, () -> new CompiledCron(cron));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RdosDefineException("cron illegal:" + cron, cause);
+        }
+    }
+
+    public String getCron() {
+        return cron;
+    }
+
+    public ExecutionTime getExecutionTime() {
+        return executionTime;
+    }
+
+    public Date last(Date date) {
+        ZonedDateTime zonedDateTime = executionTime.lastExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
+        return zonedDateTime == null ? null : Date.from(zonedDateTime.toInstant());
+    }
+
+    public Date next(Date date) {
+        ZonedDateTime zonedDateTime = executionTime.nextExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
+        return zonedDateTime == null ? null : Date.from(zonedDateTime.toInstant());
+    }
+
+    public boolean isMatch(Date date) {
+        return executionTime.isMatch(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+    }
+
+    /**
+     * 获得 [start, end] 范围内的所有执行时间
+     *
+     * @param start 开始时间(包含)
+     * @param end   结束时间(包含)
+     * @return 按时间升序的执行时间
+     */
+    public List<Date> fireTimes(Date start, Date end) {
+        List<Date> fireTimes = new ArrayList<>();
+        if (start == null || end == null || start.after(end)) {
+            return fireTimes;
+        }
+        if (!bitmap) {
+            stepFireTimes(start, end, fireTimes);
+            return fireTimes;
+        }
+
+        ZoneId zoneId = ZoneId.systemDefault();
+        ZoneRules rules = zoneId.getRules();
+        long startMillis = start.getTime();
+        long endMillis = end.getTime();
+        LocalDate day = Instant.ofEpochMilli(startMillis).atZone(zoneId).toLocalDate();
+        LocalDate lastDay = Instant.ofEpochMilli(endMillis).atZone(zoneId).toLocalDate();
+
+        for (; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            int dayOfWeek = day.getDayOfWeek().getValue() % 7 + 1;
+            if (!hasBit(daysOfMonth, day.getDayOfMonth()) || !hasBit(months, day.getMonthValue()) || !hasBit(daysOfWeek, dayOfWeek)) {
+                continue;
+            }
+
+            Instant dayStart = day.atStartOfDay(zoneId).toInstant();
+            Instant nextDayStart = day.plusDays(1).atStartOfDay(zoneId).toInstant();
+            if (!rules.getOffset(dayStart).equals(rules.getOffset(nextDayStart))) {
+                // 夏令时切换的当天按 ExecutionTime 逐个计算
+                long from = Math.max(startMillis, dayStart.toEpochMilli());
+                long to = Math.min(endMillis, nextDayStart.toEpochMilli() - 1);
+                stepFireTimes(new Date(from), new Date(to), fireTimes);
+                continue;
+            }
+
+            long base = dayStart.toEpochMilli();
+            for (long h = hours; h != 0; h &= h - 1) {
+                long hourMillis = base + Long.numberOfTrailingZeros(h) * 3600_000L;
+                for (long m = minutes; m != 0; m &= m - 1) {
+                    long minuteMillis = hourMillis + Long.numberOfTrailingZeros(m) * 60_000L;
+                    for (long s = seconds; s != 0; s &= s - 1) {
+                        long fireTime = minuteMillis + Long.numberOfTrailingZeros(s) * 1000L;
+                        if (fireTime > endMillis) {
+                            return fireTimes;
+                        }
+                        if (fireTime >= startMillis) {
+                            fireTimes.add(new Date(fireTime));
+                        }
+                    }
+                }
+            }
+        }
+        return fireTimes;
+    }
+
+    private void stepFireTimes(Date start, Date end, List<Date> fireTimes) {
+        Date next = isMatch(start) ? start : next(start);
+        while (next != null && !next.after(end)) {
+            fireTimes.add(next);
+            next = next(next);
+        }
+    }
+
+    private static boolean hasBit(long mask, int value) {
+        return (mask & (1L << value)) != 0;
+    }
+
+    /**
+     * 编译各字段位图
+     *
+     * @param cron cron表达式
+     * @return 秒、分、时、日、月、周的位图，不支持时返回null
+     */
+    private static long[] compileFields(String cron) {
+        String[] fields = cron.trim().split("\\s+");
+        if (fields.length != 6 && fields.length != 7) {
+            return null;
+        }
+        if (fields.length == 7 && !"*".equals(fields[6])) {
+            return null;
+        }
+        String dayOfMonth = fields[3];
+        String dayOfWeek = fields[5];
+        // quartz 日和周必须有一个是 ?
+        if (!"?".equals(dayOfMonth) && !"?".equals(dayOfWeek)) {
+            return null;
+        }
+
+        long[] masks = new long[]{
+                compileField(fields[0], 0, 59),
+                compileField(fields[1], 0, 59),
+                compileField(fields[2], 0, 23),
+                compileField(dayOfMonth, 1, 31),
+                compileField(fields[4], 1, 12),
+                compileField(dayOfWeek, 1, 7)
+        };
+        for (long mask : masks) {
+            if (mask == UNSUPPORTED || mask == 0L) {
+                return null;
+            }
+        }
+        return masks;
+    }
+
+    private static long compileField(String field, int min, int max) {
+        long mask = 0L;
+        try {
+            for (String part : field.split(",")) {
+                String range = part;
+                int step = 1;
+                int slash = part.indexOf('/');
+                if (slash >= 0) {
+                    step = Integer.parseInt(part.substring(slash + 1));
+                    range = part.substring(0, slash);
+                }
+
+                int from;
+                int to;
+                if ("*".equals(range) || "?".equals(range)) {
+                    from = min;
+                    to = max;
+                } else if (range.indexOf('-') > 0) {
+                    int dash = range.indexOf('-');
+                    from = Integer.parseInt(range.substring(0, dash));
+                    to = Integer.parseInt(range.substring(dash + 1));
+                } else {
+                    from = Integer.parseInt(range);
+                    to = slash >= 0 ? max : from;
+                }
+
+                if (step <= 0 || from < min || to > max || from > to) {
+                    return UNSUPPORTED;
+                }
+                for (int value = from; value <= to; value += step) {
+                    mask |= 1L << value;
+                }
+            }
+        } catch (NumberFormatException e) {
+            return UNSUPPORTED;
+        }
+        return mask;
+    }
+}
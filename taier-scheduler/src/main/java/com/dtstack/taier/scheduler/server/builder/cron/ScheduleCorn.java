@@ -1,17 +1,9 @@
 package com.dtstack.taier.scheduler.server.builder.cron;
 
-import com.cronutils.model.Cron;
-import com.cronutils.model.definition.CronDefinition;
-import com.cronutils.model.definition.CronDefinitionBuilder;
-import com.cronutils.model.time.ExecutionTime;
-import com.cronutils.parser.CronParser;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.Date;
-
-import static com.cronutils.model.CronType.QUARTZ;
+import java.util.List;
 
 /**
  * @Auther: dazhi
@@ -21,13 +13,16 @@ import static com.cronutils.model.CronType.QUARTZ;
  */
 public class ScheduleCorn {
 
-    private final CronDefinition CRON_DEFINITION = CronDefinitionBuilder.instanceDefinitionFor(QUARTZ);
-
     /**
      * cron表达式
      */
     private String cron;
 
+    /**
+     * 编译后的cron表达式，按表达式共享
+     */
+    private volatile CompiledCron compiledCron;
+
     /**
      * 调度配置
      */
@@ -42,17 +37,7 @@ public class ScheduleCorn {
         if (date == null) {
             return null;
         }
-
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
-
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        ZonedDateTime zonedDateTime = executionTime.lastExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
-
-        if (zonedDateTime == null) {
-            return null;
-        }
-        return Date.from(zonedDateTime.toInstant());
+        return getCompiledCron().last(date);
     }
 
     /**
@@ -65,17 +50,7 @@ public class ScheduleCorn {
         if (date == null) {
             return null;
         }
-
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
-
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        ZonedDateTime zonedDateTime = executionTime.nextExecution(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault())).orElse(null);
-
-        if (zonedDateTime == null) {
-            return null;
-        }
-        return Date.from(zonedDateTime.toInstant());
+        return getCompiledCron().next(date);
     }
 
     /**
@@ -86,12 +61,27 @@ public class ScheduleCorn {
         if (date == null) {
             return null;
         }
+        return getCompiledCron().isMatch(date);
+    }
 
-        CronParser parser = new CronParser(CRON_DEFINITION);
-        Cron quartzCron = parser.parse(cron);
+    /**
+     * 获得 [start, end] 范围内的所有执行时间
+     *
+     * @param start 开始时间(包含)
+     * @param end   结束时间(包含)
+     * @return 按时间升序的执行时间
+     */
+    public List<Date> fireTimes(Date start, Date end) {
+        return getCompiledCron().fireTimes(start, end);
+    }
 
-        ExecutionTime executionTime = ExecutionTime.forCron(quartzCron);
-        return executionTime.isMatch(ZonedDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()));
+    private CompiledCron getCompiledCron() {
+        CompiledCron compiled = compiledCron;
+        if (compiled == null) {
+            compiled = CompiledCron.compile(cron);
+            compiledCron = compiled;
+        }
+        return compiled;
     }
 
     public String getCron() {
@@ -100,6 +90,7 @@ public class ScheduleCorn {
 
     public void setCron(String cron) {
         this.cron = cron;
+        this.compiledCron = null;
     }
 
     public ScheduleConf getScheduleConf() {
@@ -1,16 +1,15 @@
 package com.dtstack.taier.scheduler.server.builder.dependency;
 
-import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.DependencyType;
-import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.scheduler.enums.RelyRule;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @Auther: dazhi
@@ -37,17 +36,26 @@ public abstract class AbstractJobDependency implements JobDependency {
      */
     protected List<ScheduleTaskShade> taskShadeList;
 
+    /**
+     * 任务快照
+     */
+    protected JobGraphSnapshot snapshot;
 
-    protected ScheduleJobService scheduleJobService;
+    /**
+     * 跨天的父实例key，由生成方在任务的实例全部生成后批量校验是否存在
+     */
+    protected Set<String> crossDayJobKeys;
 
     public AbstractJobDependency(String keyPreStr,
                                  ScheduleTaskShade currentTaskShade,
-                                 ScheduleJobService scheduleJobService,
+                                 JobGraphSnapshot snapshot,
+                                 Set<String> crossDayJobKeys,
                                  List<ScheduleTaskShade> taskShadeList) {
         this.keyPreStr = keyPreStr;
         this.taskShadeList = taskShadeList;
         this.currentTaskShade = currentTaskShade;
-        this.scheduleJobService = scheduleJobService;
+        this.snapshot = snapshot;
+        this.crossDayJobKeys = crossDayJobKeys;
     }
 
     /**
@@ -70,7 +78,8 @@ public abstract class AbstractJobDependency implements JobDependency {
     }
 
     /**
-     * 判断是否是同一天
+     * 判断是否是同一天，不是同一天的key登记到 crossDayJobKeys 中，
+     * 由生成方批量校验实例是否存在，不存在的依赖边会被移除
      *
      * @param lastDate 下一个周期
      * @param currentDate 当期周期
@@ -80,14 +89,7 @@ public abstract class AbstractJobDependency implements JobDependency {
     protected String needCreateKey(Date lastDate,Date currentDate,String lastJobKey) {
         if (!DateUtil.isSameDay(lastDate,currentDate)) {
             // 不是同一天
-            ScheduleJob scheduleJob = scheduleJobService.lambdaQuery()
-                    .select(ScheduleJob::getJobId)
-                    .eq(ScheduleJob::getJobKey, lastJobKey)
-                    .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
-                    .one();
-            if (scheduleJob == null) {
-                return null;
-            }
+            crossDayJobKeys.add(lastJobKey);
         }
         return lastJobKey;
     }
@@ -2,12 +2,13 @@ package com.dtstack.taier.scheduler.server.builder.dependency;
 
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.google.common.collect.Lists;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @Auther: dazhi
@@ -24,10 +25,11 @@ public abstract class DecoratorJobDependency extends AbstractJobDependency {
 
     public DecoratorJobDependency(String keyPreStr,
                                   ScheduleTaskShade currentTaskShade,
-                                  ScheduleJobService scheduleJobService,
+                                  JobGraphSnapshot snapshot,
+                                  Set<String> crossDayJobKeys,
                                   List<ScheduleTaskShade> taskShadeList,
                                   JobDependency jobDependency) {
-        super(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList);
+        super(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList);
         this.jobDependency = jobDependency;
     }
 
@@ -1,19 +1,29 @@
 package com.dtstack.taier.scheduler.server.builder.dependency;
 
-import com.dtstack.taier.common.enums.DependencyType;
+import com.baomidou.mybatisplus.extension.conditions.query.LambdaQueryChainWrapper;
 import com.dtstack.taier.common.enums.Deleted;
+import com.dtstack.taier.common.enums.DependencyType;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.dao.domain.ScheduleTaskTaskShade;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.service.ScheduleTaskShadeService;
 import com.dtstack.taier.scheduler.service.ScheduleTaskTaskService;
+import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -25,8 +35,12 @@ import java.util.stream.Collectors;
 @Component
 public class DependencyManager {
 
-    @Autowired
-    private ScheduleJobService scheduleJobService;
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyManager.class);
+
+    /**
+     * in 查询每批的 id 数
+     */
+    private static final int QUERY_BATCH_SIZE = 1000;
 
     @Autowired
     private ScheduleTaskShadeService scheduleTaskService;
@@ -35,46 +49,102 @@ public class DependencyManager {
     private ScheduleTaskTaskService scheduleTaskTaskService;
 
     /**
-     * 获得依赖处理器链
+     * 加载一次实例生成使用的任务快照，只查询生成实例需要的字段
      *
-     * @param keyPreStr        前缀
-     * @param currentTaskShade 任务
-     * @param corn             执行周期
-     * @return 依赖处理器链
+     * @return 任务快照
      */
-    public JobDependency getDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, ScheduleCorn corn) {
-        // 查询上游任务
-        List<ScheduleTaskTaskShade> scheduleTaskTaskShadeList = scheduleTaskTaskService.lambdaQuery()
-                .eq(ScheduleTaskTaskShade::getTaskId, currentTaskShade.getTaskId())
+    public JobGraphSnapshot loadSnapshot() {
+        List<ScheduleTaskShade> taskShades = taskQuery().list();
+        List<ScheduleTaskTaskShade> taskTaskShades = scheduleTaskTaskService.lambdaQuery()
+                .select(ScheduleTaskTaskShade::getTaskId, ScheduleTaskTaskShade::getParentTaskId)
                 .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
                 .list();
+        JobGraphSnapshot snapshot = new JobGraphSnapshot(taskShades, taskTaskShades);
+        LOGGER.info("load job graph snapshot, task size:{} dependency size:{}", snapshot.taskSize(), taskTaskShades.size());
+        return snapshot;
+    }
+
+    /**
+     * 加载指定任务的快照，包含这些任务、工作流的子任务以及它们的上游任务，用于补数据等只生成部分任务实例的场景
+     *
+     * @param taskIds 需要生成实例的任务
+     * @return 任务快照
+     */
+    public JobGraphSnapshot loadSnapshot(Collection<Long> taskIds) {
+        // 任务本身也可能是范围内工作流的子任务，按 taskId 去重
+        Map<Long, ScheduleTaskShade> taskShadeMap = new LinkedHashMap<>();
+        for (List<Long> partitionTaskIds : Lists.partition(new ArrayList<>(taskIds), QUERY_BATCH_SIZE)) {
+            taskQuery().in(ScheduleTaskShade::getTaskId, partitionTaskIds).list().forEach(taskShade -> taskShadeMap.put(taskShade.getTaskId(), taskShade));
+            taskQuery().in(ScheduleTaskShade::getFlowId, partitionTaskIds).list().forEach(taskShade -> taskShadeMap.put(taskShade.getTaskId(), taskShade));
+        }
+        Set<Long> loadedTaskIds = new HashSet<>(taskShadeMap.keySet());
+        List<ScheduleTaskShade> taskShades = new ArrayList<>(taskShadeMap.values());
 
-        List<Long> parentTaskIds = scheduleTaskTaskShadeList.stream().map(ScheduleTaskTaskShade::getParentTaskId).collect(Collectors.toList());
+        List<ScheduleTaskTaskShade> taskTaskShades = new ArrayList<>();
+        for (List<Long> partitionTaskIds : Lists.partition(new ArrayList<>(loadedTaskIds), QUERY_BATCH_SIZE)) {
+            taskTaskShades.addAll(scheduleTaskTaskService.lambdaQuery()
+                    .select(ScheduleTaskTaskShade::getTaskId, ScheduleTaskTaskShade::getParentTaskId)
+                    .in(ScheduleTaskTaskShade::getTaskId, partitionTaskIds)
+                    .eq(ScheduleTaskTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                    .list());
+        }
 
-        // 如果没有上游任务，就不需要UpstreamDependencyHandler
-        List<ScheduleTaskShade> taskShadeList = null;
-        if (CollectionUtils.isNotEmpty(parentTaskIds)) {
-            // 查询任务
-            taskShadeList = scheduleTaskService.lambdaQuery()
-                    .in(ScheduleTaskShade::getTaskId, parentTaskIds)
-                    .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
-                    .list();
+        // 上游任务不在范围内时也需要加载，生成依赖时用到上游任务的调度周期
+        List<Long> parentTaskIds = taskTaskShades.stream()
+                .map(ScheduleTaskTaskShade::getParentTaskId)
+                .filter(parentTaskId -> !loadedTaskIds.contains(parentTaskId))
+                .distinct()
+                .collect(Collectors.toList());
+        for (List<Long> partitionTaskIds : Lists.partition(parentTaskIds, QUERY_BATCH_SIZE)) {
+            taskShades.addAll(taskQuery().in(ScheduleTaskShade::getTaskId, partitionTaskIds).list());
         }
+        JobGraphSnapshot snapshot = new JobGraphSnapshot(taskShades, taskTaskShades);
+        LOGGER.info("load job graph snapshot of {} tasks, task size:{} dependency size:{}", taskIds.size(), snapshot.taskSize(), taskTaskShades.size());
+        return snapshot;
+    }
+
+    /**
+     * 只查询生成实例需要的字段
+     */
+    private LambdaQueryChainWrapper<ScheduleTaskShade> taskQuery() {
+        return scheduleTaskService.lambdaQuery()
+                .select(ScheduleTaskShade::getId, ScheduleTaskShade::getTenantId, ScheduleTaskShade::getName,
+                        ScheduleTaskShade::getTaskType, ScheduleTaskShade::getComputeType, ScheduleTaskShade::getTaskId,
+                        ScheduleTaskShade::getScheduleConf, ScheduleTaskShade::getPeriodType, ScheduleTaskShade::getScheduleStatus,
+                        ScheduleTaskShade::getCreateUserId, ScheduleTaskShade::getVersionId, ScheduleTaskShade::getIsDeleted,
+                        ScheduleTaskShade::getFlowId, ScheduleTaskShade::getComponentVersion)
+                .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus());
+    }
+
+    /**
+     * 获得依赖处理器链
+     *
+     * @param keyPreStr        前缀
+     * @param currentTaskShade 任务
+     * @param corn             执行周期
+     * @param snapshot         任务快照
+     * @param crossDayJobKeys  跨天的父实例key，由调用方批量校验
+     * @return 依赖处理器链
+     */
+    public JobDependency getDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, ScheduleCorn corn,
+                                              JobGraphSnapshot snapshot, Set<String> crossDayJobKeys) {
+        // 上游任务，如果没有上游任务，UpstreamDependencyHandler 不会生成依赖
+        List<ScheduleTaskShade> taskShadeList = snapshot.getParentTasks(currentTaskShade.getTaskId());
 
         // 上游任务的依赖处理器
-        JobDependency jobDependency = new UpstreamDependencyHandler(keyPreStr, currentTaskShade,scheduleJobService,taskShadeList);
+        JobDependency jobDependency = new UpstreamDependencyHandler(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList);
 
         // 判断是否设置自依赖
         ScheduleConf scheduleConf = corn.getScheduleConf();
         if (DependencyType.SELF_DEPENDENCY_SUCCESS.getType().equals(scheduleConf.getSelfReliance())
                 || DependencyType.SELF_DEPENDENCY_END.getType().equals(scheduleConf.getSelfReliance())) {
             // 需要自依赖任务, 对上游依赖做增强，生成自依赖
-            jobDependency = new SelfRelianceDependencyHandler(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList, jobDependency);
+            jobDependency = new SelfRelianceDependencyHandler(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList, jobDependency);
         } else if (DependencyType.PRE_PERIOD_CHILD_DEPENDENCY_SUCCESS.getType().equals(scheduleConf.getSelfReliance())
                 || DependencyType.PRE_PERIOD_CHILD_DEPENDENCY_END.getType().equals(scheduleConf.getSelfReliance())) {
             if (CollectionUtils.isNotEmpty(taskShadeList)) {
                 // 依赖下游任务的上一个周期 对jobDependency进行增强
-                jobDependency = new UpstreamNextJobDependencyHandler(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList,jobDependency);
+                jobDependency = new UpstreamNextJobDependencyHandler(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList,jobDependency);
             }
         }
 
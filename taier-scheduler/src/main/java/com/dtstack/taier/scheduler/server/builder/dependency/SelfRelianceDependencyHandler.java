@@ -5,8 +5,8 @@ import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.scheduler.enums.RelyType;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.utils.JobKeyUtils;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 
 /**
@@ -29,10 +30,11 @@ public class SelfRelianceDependencyHandler extends DecoratorJobDependency {
 
     public SelfRelianceDependencyHandler(String keyPreStr,
                                   ScheduleTaskShade currentTaskShade,
-                                  ScheduleJobService scheduleJobService,
+                                  JobGraphSnapshot snapshot,
+                                  Set<String> crossDayJobKeys,
                                   List<ScheduleTaskShade> taskShadeList,
                                   JobDependency jobDependency) {
-        super(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList,jobDependency);
+        super(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList, jobDependency);
     }
 
     @Override
@@ -43,7 +45,7 @@ public class SelfRelianceDependencyHandler extends DecoratorJobDependency {
         String lastDate = DateUtil.getDate(last, DateUtil.STANDARD_DATETIME_FORMAT);
         String lastJobKey = JobKeyUtils.generateJobKey(keyPreStr, currentTaskShade.getTaskId(), lastDate);
 
-        // 判断是否上一次执行的时间和当前时间是否是同一天，如果是的话插入，不是的话，去查询一下数据库是否有实例生成。
+        // 判断是否上一次执行的时间和当前时间是否是同一天，不是同一天时登记到 crossDayJobKeys，由生成方批量查询实例是否存在
         lastJobKey = needCreateKey(last, currentDate, lastJobKey);
         if (StringUtils.isBlank(lastJobKey)) {
             return scheduleJobJobList;
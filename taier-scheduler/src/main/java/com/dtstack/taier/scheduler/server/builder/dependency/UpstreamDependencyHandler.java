@@ -7,10 +7,9 @@ import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.scheduler.enums.RelyRule;
 import com.dtstack.taier.scheduler.enums.RelyType;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
-import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.utils.JobKeyUtils;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
@@ -20,6 +19,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @Auther: dazhi
@@ -31,8 +31,8 @@ public class UpstreamDependencyHandler extends AbstractJobDependency {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(UpstreamDependencyHandler.class);
 
-    public UpstreamDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, ScheduleJobService scheduleJobService, List<ScheduleTaskShade> taskShadeList) {
-        super(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList);
+    public UpstreamDependencyHandler(String keyPreStr, ScheduleTaskShade currentTaskShade, JobGraphSnapshot snapshot, Set<String> crossDayJobKeys, List<ScheduleTaskShade> taskShadeList) {
+        super(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList);
     }
 
     @Override
@@ -75,7 +75,7 @@ public class UpstreamDependencyHandler extends AbstractJobDependency {
      * @return jobKey
      */
     public String getJobKey(ScheduleTaskShade scheduleTaskShade, Date currentDate) throws Exception {
-        ScheduleCorn corn = ScheduleConfManager.parseFromJson(scheduleTaskShade.getScheduleConf());
+        ScheduleCorn corn = snapshot.getCorn(scheduleTaskShade);
 
         ScheduleConf scheduleConf = corn.getScheduleConf();
         Date beginDate = scheduleConf.getBeginDate();
@@ -6,10 +6,9 @@ import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.util.DateUtil;
 import com.dtstack.taier.scheduler.enums.RelyType;
+import com.dtstack.taier.scheduler.server.builder.JobGraphSnapshot;
 import com.dtstack.taier.scheduler.server.builder.ScheduleConf;
-import com.dtstack.taier.scheduler.server.builder.cron.ScheduleConfManager;
 import com.dtstack.taier.scheduler.server.builder.cron.ScheduleCorn;
-import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.utils.JobKeyUtils;
 import com.google.common.collect.Lists;
 import org.apache.commons.lang3.StringUtils;
@@ -18,6 +17,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * @Auther: dazhi
@@ -31,10 +31,11 @@ public class UpstreamNextJobDependencyHandler extends DecoratorJobDependency {
 
     public UpstreamNextJobDependencyHandler(String keyPreStr,
                                          ScheduleTaskShade currentTaskShade,
-                                         ScheduleJobService scheduleJobService,
+                                         JobGraphSnapshot snapshot,
+                                         Set<String> crossDayJobKeys,
                                          List<ScheduleTaskShade> taskShadeList,
                                          JobDependency jobDependency) {
-        super(keyPreStr, currentTaskShade, scheduleJobService, taskShadeList,jobDependency);
+        super(keyPreStr, currentTaskShade, snapshot, crossDayJobKeys, taskShadeList, jobDependency);
     }
 
     @Override
@@ -66,7 +67,7 @@ public class UpstreamNextJobDependencyHandler extends DecoratorJobDependency {
     }
 
     private String getJobKey(ScheduleTaskShade scheduleTaskShade, Date currentDate) throws Exception {
-        ScheduleCorn corn = ScheduleConfManager.parseFromJson(scheduleTaskShade.getScheduleConf());
+        ScheduleCorn corn = snapshot.getCorn(scheduleTaskShade);
 
         ScheduleConf scheduleConf = corn.getScheduleConf();
         Date beginDate = scheduleConf.getBeginDate();
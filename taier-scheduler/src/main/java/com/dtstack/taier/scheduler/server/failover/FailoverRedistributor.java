@@ -0,0 +1,147 @@
+package com.dtstack.taier.scheduler.server.failover;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.google.common.collect.Lists;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * @Date: 2026/10/17 11:40 PM
+ * @Description: 容灾迁移的执行器
+ * <p>
+ * 宕机节点的实例在内存中分配好目标节点后交给执行器，按目标节点和批次大小切分，多个线程并行批量更新，
+ * 某一批更新失败不影响其他批次，失败的实例留在宕机节点上等待下一次恢复。
+ * 迁移完成后并行通知存活节点
+ */
+public class FailoverRedistributor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FailoverRedistributor.class);
+
+    private final ExecutorService executor;
+
+    private final int batchSize;
+
+    private final AtomicLong movedCount = new AtomicLong();
+
+    private final AtomicLong failCount = new AtomicLong();
+
+    /**
+     * @param parallelism 并行更新、通知的线程数
+     * @param batchSize   每次更新的实例数
+     */
+    public FailoverRedistributor(int parallelism, int batchSize) {
+        int threadSize = Math.max(1, parallelism);
+        this.batchSize = Math.max(1, batchSize);
+        this.executor = new ThreadPoolExecutor(threadSize, threadSize, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new CustomThreadFactory(this.getClass().getSimpleName()));
+    }
+
+    /**
+     * 按目标节点并行批量更新
+     *
+     * @param nodeJobs 目标节点和迁移到该节点的实例
+     * @param writer   批量更新，返回更新的行数
+     * @return 更新的行数
+     */
+    public <T> int apply(Map<String, List<T>> nodeJobs, BatchWriter<T> writer) {
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (Map.Entry<String, List<T>> nodeEntry : nodeJobs.entrySet()) {
+            String nodeAddress = nodeEntry.getKey();
+            for (List<T> batch : Lists.partition(nodeEntry.getValue(), batchSize)) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        return writer.write(nodeAddress, batch);
+                    } catch (Exception e) {
+                        failCount.addAndGet(batch.size());
+                        LOGGER.error("failover {} jobs to address:{} error", batch.size(), nodeAddress, e);
+                        return 0;
+                    }
+                }));
+            }
+        }
+        int moved = 0;
+        for (Future<Integer> future : futures) {
+            try {
+                moved += future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                LOGGER.warn("failover interrupted, moved:{}", moved);
+                break;
+            } catch (ExecutionException e) {
+                LOGGER.error("failover error", e);
+            }
+        }
+        movedCount.addAndGet(moved);
+        return moved;
+    }
+
+    /**
+     * 并行通知节点，等待全部通知完成或者超时
+     *
+     * @param nodes    要通知的节点
+     * @param notifier 通知单个节点
+     * @param timeout  超时时间，毫秒
+     */
+    public void notifyNodes(List<String> nodes, Consumer<String> notifier, long timeout) {
+        List<Future<?>> futures = new ArrayList<>(nodes.size());
+        for (String node : nodes) {
+            futures.add(executor.submit(() -> {
+                try {
+                    notifier.accept(node);
+                } catch (Exception e) {
+                    LOGGER.error("notify node:{} error", node, e);
+                }
+            }));
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Future<?> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (TimeoutException e) {
+                LOGGER.warn("notify nodes:{} timeout", nodes);
+                return;
+            } catch (ExecutionException e) {
+                LOGGER.error("notify nodes error", e);
+            }
+        }
+    }
+
+    public long getMovedCount() {
+        return movedCount.get();
+    }
+
+    public long getFailCount() {
+        return failCount.get();
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface BatchWriter<T> {
+
+        /**
+         * @param nodeAddress 目标节点
+         * @param batch       一批实例
+         * @return 更新的行数
+         */
+        int write(String nodeAddress, List<T> batch) throws Exception;
+    }
+}
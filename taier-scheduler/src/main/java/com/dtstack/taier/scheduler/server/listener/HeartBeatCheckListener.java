@@ -101,7 +101,7 @@ public class HeartBeatCheckListener implements Listener {
         List<String> childrens = this.zkService.getBrokersChildren();
         if (childrens != null) {
             for (String node : childrens) {
-                BrokerHeartNode brokerNode = this.zkService.getBrokerHeartNode(node);
+                BrokerHeartNode brokerNode = this.zkService.getCachedBrokerHeartNode(node);
                 boolean ignore = brokerNode == null || STOP_HEALTH_CHECK_SEQ == brokerNode.getSeq();
                 if (ignore) {
                     continue;
@@ -0,0 +1,85 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import com.dtstack.taier.common.exception.RdosDefineException;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 一致性哈希分配，同一个 key 在存活节点不变时总是分配到同一个节点，不使用队列大小
+ * <p>
+ * 节点容量通过 job.partition.node.weights 配置，格式 host1:port=2,host2:port=1，没有配置的节点容量为 1。
+ * 存活节点不变时复用同一个哈希环
+ */
+public class ConsistentHashPartitionStrategy implements JobPartitionStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsistentHashPartitionStrategy.class);
+
+    public static final String NAME = "consistentHash";
+
+    private final Map<String, Integer> nodeWeights;
+
+    private final int virtualNodesPerUnit;
+
+    private volatile ConsistentHashRing ring;
+
+    public ConsistentHashPartitionStrategy(String nodeWeights, int virtualNodesPerUnit) {
+        this.nodeWeights = parseNodeWeights(nodeWeights);
+        this.virtualNodesPerUnit = virtualNodesPerUnit;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public NodeAssigner assigner(List<String> aliveNodes, Map<String, Integer> nodeQueueSizes, int jobSize) {
+        return getRing(aliveNodes);
+    }
+
+    public ConsistentHashRing getRing(List<String> aliveNodes) {
+        if (CollectionUtils.isEmpty(aliveNodes)) {
+            throw new RdosDefineException("no alive node to assign job");
+        }
+        Map<String, Integer> nodeCapacities = new TreeMap<>();
+        for (String aliveNode : aliveNodes) {
+            nodeCapacities.put(aliveNode, nodeWeights.getOrDefault(aliveNode, 1));
+        }
+        ConsistentHashRing current = ring;
+        if (current != null && current.getNodeCapacities().equals(nodeCapacities)) {
+            return current;
+        }
+        current = new ConsistentHashRing(nodeCapacities, virtualNodesPerUnit);
+        ring = current;
+        LOGGER.info("rebuild consistent hash ring, nodes:{}", nodeCapacities);
+        return current;
+    }
+
+    private static Map<String, Integer> parseNodeWeights(String nodeWeights) {
+        if (StringUtils.isBlank(nodeWeights)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> weights = new HashMap<>();
+        for (String nodeWeight : nodeWeights.split(",")) {
+            int index = nodeWeight.lastIndexOf('=');
+            if (index <= 0) {
+                throw new RdosDefineException("job.partition.node.weights is error, Please enter: for example, host1:8090=2,host2:8090=1");
+            }
+            try {
+                weights.put(nodeWeight.substring(0, index).trim(), Integer.parseInt(nodeWeight.substring(index + 1).trim()));
+            } catch (NumberFormatException e) {
+                throw new RdosDefineException("job.partition.node.weights is error, weight must be integer: " + nodeWeight);
+            }
+        }
+        return weights;
+    }
+}
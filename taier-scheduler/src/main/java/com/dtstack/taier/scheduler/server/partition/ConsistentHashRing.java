@@ -0,0 +1,60 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.apache.commons.collections.MapUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 按容量加权的一致性哈希环
+ * <p>
+ * 每个节点按 容量 * 每单位容量的虚拟节点数 在环上放置虚拟节点，key 分配给环上顺时针的第一个虚拟节点。
+ * 节点加入或离开时只有约 1/N 的 key 改变节点。创建后不再修改，可以多线程读
+ */
+public class ConsistentHashRing implements NodeAssigner {
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private final TreeMap<Long, String> ring = new TreeMap<>();
+
+    private final Map<String, Integer> nodeCapacities;
+
+    /**
+     * @param nodeCapacities      节点和容量，容量小于等于 0 时按 1 处理
+     * @param virtualNodesPerUnit 每单位容量的虚拟节点数
+     */
+    public ConsistentHashRing(Map<String, Integer> nodeCapacities, int virtualNodesPerUnit) {
+        if (MapUtils.isEmpty(nodeCapacities)) {
+            throw new RdosDefineException("no alive node to assign job");
+        }
+        int virtualNodes = Math.max(1, virtualNodesPerUnit);
+        for (Map.Entry<String, Integer> entry : nodeCapacities.entrySet()) {
+            int capacity = entry.getValue() == null || entry.getValue() <= 0 ? 1 : entry.getValue();
+            for (int i = 0; i < capacity * virtualNodes; i++) {
+                // 哈希冲突时保留字典序小的节点，与节点的加入顺序无关
+                ring.merge(hash(entry.getKey() + "#" + i), entry.getKey(), (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.nodeCapacities = Collections.unmodifiableMap(new TreeMap<>(nodeCapacities));
+    }
+
+    @Override
+    public String assign(String key) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash(key));
+        return entry == null ? ring.firstEntry().getValue() : entry.getValue();
+    }
+
+    public Map<String, Integer> getNodeCapacities() {
+        return nodeCapacities;
+    }
+
+    private static long hash(String key) {
+        return HASH_FUNCTION.hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,22 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 实例分配节点的策略
+ */
+public interface JobPartitionStrategy {
+
+    String name();
+
+    /**
+     * 创建一次分配使用的 NodeAssigner
+     *
+     * @param aliveNodes      存活的节点，不能为空
+     * @param nodeQueueSizes  各节点当前的队列大小，可能包含不存活的节点，没有时为空
+     * @param jobSize         本次要分配的实例数
+     */
+    NodeAssigner assigner(List<String> aliveNodes, Map<String, Integer> nodeQueueSizes, int jobSize);
+}
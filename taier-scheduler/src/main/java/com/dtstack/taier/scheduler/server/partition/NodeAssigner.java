@@ -0,0 +1,15 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 为实例分配节点，需要线程安全
+ */
+@FunctionalInterface
+public interface NodeAssigner {
+
+    /**
+     * @param key 实例的 key，jobKey 或者 jobId
+     * @return 节点地址
+     */
+    String assign(String key);
+}
@@ -0,0 +1,67 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import com.dtstack.taier.common.exception.RdosDefineException;
+import com.google.common.collect.Maps;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 按各节点的队列大小分配，队列小的节点多分配，使各节点的队列接近平均值
+ */
+public class QueueSizePartitionStrategy implements JobPartitionStrategy {
+
+    public static final String NAME = "queueSize";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public NodeAssigner assigner(List<String> aliveNodes, Map<String, Integer> nodeQueueSizes, int jobSize) {
+        return new WeightedNodeAssigner(computeJobSize(aliveNodes, nodeQueueSizes, jobSize));
+    }
+
+    /**
+     * 计算每个节点分配的实例数
+     */
+    public Map<String, Integer> computeJobSize(List<String> aliveNodes, Map<String, Integer> nodeQueueSizes, int jobSize) {
+        if (CollectionUtils.isEmpty(aliveNodes)) {
+            throw new RdosDefineException("no alive node to assign job");
+        }
+        if (MapUtils.isEmpty(nodeQueueSizes)) {
+            return getDefaultJobSize(aliveNodes, jobSize);
+        }
+        Map<String, Integer> nodeSort = Maps.newHashMap();
+        int total = jobSize;
+        for (Map.Entry<String, Integer> queueSizeEntry : nodeQueueSizes.entrySet()) {
+            total += queueSizeEntry.getValue();
+            //排除宕机节点
+            if (aliveNodes.contains(queueSizeEntry.getKey())) {
+                nodeSort.put(queueSizeEntry.getKey(), queueSizeEntry.getValue());
+            }
+        }
+        if (nodeSort.isEmpty()) {
+            return getDefaultJobSize(aliveNodes, jobSize);
+        }
+        int avg = (total / nodeSort.size()) + 1;
+        for (Map.Entry<String, Integer> entry : nodeSort.entrySet()) {
+            entry.setValue(avg - entry.getValue());
+        }
+        return nodeSort;
+    }
+
+    private Map<String, Integer> getDefaultJobSize(List<String> aliveNodes, int jobSize) {
+        Map<String, Integer> jobSizeInfo = new HashMap<>(aliveNodes.size());
+        int size = (jobSize / aliveNodes.size()) + 1;
+        for (String aliveNode : aliveNodes) {
+            jobSizeInfo.put(aliveNode, size);
+        }
+        return jobSizeInfo;
+    }
+}
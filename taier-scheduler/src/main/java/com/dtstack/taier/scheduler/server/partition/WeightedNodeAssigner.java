@@ -0,0 +1,59 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import com.dtstack.taier.common.exception.RdosDefineException;
+import org.apache.commons.collections.MapUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @Date: 2026/10/17 11:10 PM
+ * @Description: 按各节点分配的实例数作为比例轮流分配，不使用实例的 key
+ * <p>
+ * 分配数小于等于 0 的节点(队列已经超过平均值)不再分配，全部节点都小于等于 0 时平均分配
+ */
+public class WeightedNodeAssigner implements NodeAssigner {
+
+    /**
+     * 节点和节点分配比例的前缀和，按分配序号取模后二分查找节点
+     */
+    private final String[] nodes;
+
+    private final long[] nodeBounds;
+
+    private final AtomicLong assignCount = new AtomicLong();
+
+    public WeightedNodeAssigner(Map<String, Integer> nodeJobSize) {
+        if (MapUtils.isEmpty(nodeJobSize)) {
+            throw new RdosDefineException("no alive node to assign job");
+        }
+        boolean allFull = nodeJobSize.values().stream().allMatch(size -> size == null || size <= 0);
+        List<String> assignNodes = new ArrayList<>(nodeJobSize.size());
+        List<Long> assignBounds = new ArrayList<>(nodeJobSize.size());
+        long bound = 0;
+        for (Map.Entry<String, Integer> entry : nodeJobSize.entrySet()) {
+            Integer size = entry.getValue();
+            if (!allFull && (size == null || size <= 0)) {
+                continue;
+            }
+            bound += allFull ? 1 : size;
+            assignNodes.add(entry.getKey());
+            assignBounds.add(bound);
+        }
+        this.nodes = assignNodes.toArray(new String[0]);
+        this.nodeBounds = assignBounds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Override
+    public String assign(String key) {
+        long index = assignCount.getAndIncrement() % nodeBounds[nodeBounds.length - 1];
+        int position = Arrays.binarySearch(nodeBounds, index + 1);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return nodes[position];
+    }
+}
@@ -0,0 +1,61 @@
+package com.dtstack.taier.scheduler.server.pipeline;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @Date: 2026/10/18 2:10 AM
+ * @Description: 解析后的 pipeline 配置，按顺序执行各个 pipeline，不可变，相同配置的任务共用
+ * <p>
+ * 各个 pipeline 只有 pipelineKey，执行时的数据都在 actionParam、pipelineParam 中，可以多线程同时执行
+ */
+public final class CompiledPipeline implements IPipeline {
+
+    private final List<IPipeline> pipelines;
+
+    /**
+     * params 中是否有 uploadPath，需要在 pipelineParam 中填充上传需要的参数
+     */
+    private final boolean needUpload;
+
+    CompiledPipeline(IPipeline firstPipeline, boolean needUpload) {
+        List<IPipeline> pipelines = new ArrayList<>();
+        for (IPipeline current = firstPipeline; current != null; current = current.getNextPipeline()) {
+            pipelines.add(current);
+        }
+        this.pipelines = Collections.unmodifiableList(pipelines);
+        this.needUpload = needUpload;
+    }
+
+    @Override
+    public void pipeline(Map<String, Object> actionParam, Map<String, Object> pipelineParam) throws Exception {
+        execute(actionParam, pipelineParam);
+    }
+
+    @Override
+    public IPipeline getNextPipeline() {
+        return null;
+    }
+
+    @Override
+    public void setNextPipeline(IPipeline nextPipeline) {
+        throw new UnsupportedOperationException("compiled pipeline is immutable");
+    }
+
+    @Override
+    public void execute(Map<String, Object> actionParam, Map<String, Object> pipelineParam) throws Exception {
+        for (IPipeline pipeline : pipelines) {
+            pipeline.pipeline(actionParam, pipelineParam);
+        }
+    }
+
+    public boolean isNeedUpload() {
+        return needUpload;
+    }
+
+    boolean isEmpty() {
+        return pipelines.isEmpty();
+    }
+}
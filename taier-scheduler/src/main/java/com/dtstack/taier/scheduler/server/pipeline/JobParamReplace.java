@@ -21,13 +21,21 @@ package com.dtstack.taier.scheduler.server.pipeline;
 import com.dtstack.taier.common.enums.EParamType;
 import com.dtstack.taier.common.util.TimeParamOperator;
 import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.sql.Timestamp;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 变量替换
@@ -43,38 +51,137 @@ public class JobParamReplace {
     private static final Logger LOGGER = LoggerFactory.getLogger(JobParamReplace.class);
 
 
-    private static final Pattern PARAM_PATTERN = Pattern.compile("\\$\\{(.*?)\\}|\\@@\\{(.*?)\\}");
-
     private final static String VAR_FORMAT = "${%s}";
 
     private final static String VAR_COMPONENT = "@@{%s}";
 
+    private static final String VAR_PREFIX = "${";
+
+    private static final String COMPONENT_PREFIX = "@@{";
+
+    /**
+     * 参数名包含这些字符时占位符可能互相重叠，按原来的方式逐个替换
+     */
+    private static final char[] UNSAFE_NAME_CHARS = {'$', '@', '{', '}'};
+
+    /**
+     * 缓存的 sql 总字符数上限
+     */
+    private static final long MAX_CACHE_CHARS = 32 * 1024 * 1024;
+
+    private static final int MAX_VALUE_CACHE_SIZE = 100000;
+
+    /**
+     * 依赖当前时间的参数: ${bdp.system.currenttime}、$(...)
+     */
+    private static final String CURRENT_TIME = "bdp.system.currenttime";
+
+    private static final String CURRENT_TIME_PREFIX = "$(";
+
+    private static final Cache<String, String> VALUE_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_VALUE_CACHE_SIZE)
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
+    private static final Cache<TemplateKey, ParamTemplate> TEMPLATE_CACHE = CacheBuilder.newBuilder()
+            .maximumWeight(MAX_CACHE_CHARS)
+            .weigher((TemplateKey key, ParamTemplate template) -> template.length())
+            .expireAfterAccess(1, TimeUnit.HOURS)
+            .build();
+
 
     public static String paramReplace(String sql, List<ScheduleTaskParamShade> paramList, String cycTime) {
 
-        if (CollectionUtils.isEmpty(paramList)) {
+        if (CollectionUtils.isEmpty(paramList) || StringUtils.isEmpty(sql)) {
             return sql;
         }
+        return render(ParamTemplate.compile(sql), sql, paramList, cycTime);
+    }
+
+    /**
+     * 同一个任务版本的 sql 只编译一次，按 taskId、gmtModified 和 sql 内容缓存编译结果
+     *
+     * @param taskId      任务id
+     * @param gmtModified 任务的修改时间，任务修改后重新编译
+     */
+    public static String paramReplace(String sql, List<ScheduleTaskParamShade> paramList, String cycTime, Long taskId, Timestamp gmtModified) {
 
-        Matcher matcher = PARAM_PATTERN.matcher(sql);
-        if (!matcher.find()) {
+        if (CollectionUtils.isEmpty(paramList) || StringUtils.isEmpty(sql)) {
             return sql;
         }
+        if (taskId == null || gmtModified == null) {
+            return paramReplace(sql, paramList, cycTime);
+        }
+        ParamTemplate template;
+        try {
+            template = TEMPLATE_CACHE.get(new TemplateKey(taskId, gmtModified.getTime(), sql), () -> ParamTemplate.compile(sql));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOGGER.warn("compile param template of task {} error", taskId, e);
+            template = ParamTemplate.compile(sql);
+        }
+        return render(template, sql, paramList, cycTime);
+    }
 
-        for (Object param : paramList) {
-            Integer type;
-            String paramName;
-            String paramCommand;
-            type = ((ScheduleTaskParamShade) param).getType();
-            paramName = ((ScheduleTaskParamShade) param).getParamName();
-            paramCommand = ((ScheduleTaskParamShade) param).getParamCommand();
-
-            String targetVal = convertParam(type, paramName, paramCommand, cycTime, ((ScheduleTaskParamShade) param).getTaskId());
-            String parseSymbol = convertSymbol(type);
-            String replaceStr = String.format(parseSymbol, paramName);
-            sql = sql.replace(replaceStr, targetVal);
+    private static String render(ParamTemplate template, String sql, List<ScheduleTaskParamShade> paramList, String cycTime) {
+        if (!template.hasSlot()) {
+            return sql;
+        }
+        // 同名参数以第一个为准，和逐个 replace 时前面的参数先替换掉占位符一致
+        Map<String, ScheduleTaskParamShade> params = new HashMap<>(paramList.size() * 2);
+        for (ScheduleTaskParamShade param : paramList) {
+            String paramName = param.getParamName();
+            if (paramName == null || StringUtils.containsAny(paramName, UNSAFE_NAME_CHARS)) {
+                return sequentialReplace(sql, paramList, cycTime);
+            }
+            params.putIfAbsent(String.format(convertSymbol(param.getType()), paramName), param);
         }
 
+        // 每个参数只计算一次，sql 中没有引用的参数不计算
+        Map<String, String> values = new HashMap<>(params.size() * 2);
+        for (String slot : template.slots()) {
+            ScheduleTaskParamShade param = params.get(slot);
+            if (param == null || values.containsKey(slot)) {
+                continue;
+            }
+            String value = cachedConvertParam(param, cycTime);
+            if (value != null && (value.contains(VAR_PREFIX) || value.contains(COMPONENT_PREFIX))) {
+                // 参数值里还有占位符时，逐个 replace 会被后面的参数继续替换，保持原来的行为
+                return sequentialReplace(sql, paramList, cycTime);
+            }
+            values.put(slot, value);
+        }
+        return template.render(values::get);
+    }
+
+    /**
+     * 相同计划时间的实例大多引用同一批参数(如 bizdate)，参数值按 类型、名称、命令、计划时间 缓存，
+     * 依赖当前时间的参数每次重新计算
+     */
+    private static String cachedConvertParam(ScheduleTaskParamShade param, String cycTime) {
+        String command = param.getParamCommand();
+        if (command == null || command.contains(CURRENT_TIME) || command.trim().startsWith(CURRENT_TIME_PREFIX)) {
+            return convertParam(param.getType(), param.getParamName(), command, cycTime, param.getTaskId());
+        }
+        String key = param.getType() + "\0" + param.getParamName() + "\0" + command + "\0" + cycTime;
+        String value = VALUE_CACHE.getIfPresent(key);
+        if (value == null) {
+            value = convertParam(param.getType(), param.getParamName(), command, cycTime, param.getTaskId());
+            if (value != null) {
+                VALUE_CACHE.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /**
+     * 按参数顺序对整个 sql 逐个 replace
+     */
+    private static String sequentialReplace(String sql, List<ScheduleTaskParamShade> paramList, String cycTime) {
+        for (ScheduleTaskParamShade param : paramList) {
+            String targetVal = convertParam(param.getType(), param.getParamName(), param.getParamCommand(), cycTime, param.getTaskId());
+            String replaceStr = String.format(convertSymbol(param.getType()), param.getParamName());
+            sql = sql.replace(replaceStr, targetVal);
+        }
         return sql;
     }
 
@@ -103,4 +210,42 @@ public class JobParamReplace {
             return TimeParamOperator.dealCustomizeTimeOperator(command, cycTime);
         }
     }
+
+    /**
+     * 同一任务版本可能有多段 sql(如数据同步的 job 和日志展示的 sqlText)，key 中带上 sql 的长度和 hash 区分
+     */
+    private static class TemplateKey {
+
+        private final long taskId;
+
+        private final long version;
+
+        private final int length;
+
+        private final int hash;
+
+        private TemplateKey(long taskId, long version, String sql) {
+            this.taskId = taskId;
+            this.version = version;
+            this.length = sql.length();
+            this.hash = sql.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof TemplateKey)) {
+                return false;
+            }
+            TemplateKey that = (TemplateKey) o;
+            return taskId == that.taskId && version == that.version && length == that.length && hash == that.hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(taskId, version, length, hash);
+        }
+    }
 }
@@ -20,6 +20,7 @@ package com.dtstack.taier.scheduler.server.pipeline;
 
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.dtstack.taier.common.exception.RdosDefineException;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
@@ -27,12 +28,17 @@ import com.dtstack.taier.scheduler.server.pipeline.operator.*;
 import com.dtstack.taier.scheduler.server.pipeline.params.FileParamPipeline;
 import com.dtstack.taier.scheduler.server.pipeline.params.JobIdParamPipeline;
 import com.dtstack.taier.scheduler.server.pipeline.params.UploadParamPipeline;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang.StringUtils;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 /**
@@ -52,6 +58,29 @@ public class PipelineBuilder {
     private static final String operatorKey = "operator";
     public static final String pipelineKey = "pipeline";
 
+    private static final String DEFAULT_SQL_PIPELINE_CONFIG = "{\n" +
+            "    \"params\":[\n" +
+            "        \"jobId\"\n" +
+            "    ],\n" +
+            "    \"operator\":[\n" +
+            "        {\n" +
+            "            \"sqlText\":[\n" +
+            "                \"jobParam\",\n" +
+            "                \"replace\"\n" +
+            "            ]\n" +
+            "        }\n" +
+            "    ]\n" +
+            "}";
+
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    /**
+     * key: pipeline 配置，组件配置修改后是新的 key
+     */
+    private static final Cache<String, CompiledPipeline> PIPELINE_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(MAX_CACHE_SIZE)
+            .build();
+
     /**
      * {
      * "params":[
@@ -86,6 +115,8 @@ public class PipelineBuilder {
      * exeArgs ——> replace
      * <p>
      * 合并 operator的值到actionMap
+     * <p>
+     * 同一配置只解析一次，返回的 pipeline 不可变，多个任务共用
      *
      * @param pipelineConfig
      * @return
@@ -94,6 +125,20 @@ public class PipelineBuilder {
         if (StringUtils.isBlank(pipelineConfig)) {
             return null;
         }
+        CompiledPipeline pipeline = getCompiledPipeline(pipelineConfig);
+        return pipeline.isEmpty() ? null : pipeline;
+    }
+
+    private static CompiledPipeline getCompiledPipeline(String pipelineConfig) {
+        try {
+            return PIPELINE_CACHE.get(pipelineConfig, () -> compile(pipelineConfig));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwables.throwIfUnchecked(e.getCause());
+            throw new RdosDefineException("build pipeline error: " + pipelineConfig, e.getCause());
+        }
+    }
+
+    private static CompiledPipeline compile(String pipelineConfig) {
         JSONObject config = JSONObject.parseObject(pipelineConfig);
         JSONArray params = config.getJSONArray(paramKey);
         IPipeline firstPipeline = null;
@@ -142,7 +187,8 @@ public class PipelineBuilder {
         if (null != currentPipeline) {
             currentPipeline.setNextPipeline(new MergeOperatorPipeline());
         }
-        return firstPipeline;
+        boolean needUpload = CollectionUtils.isNotEmpty(params) && params.contains(UploadParamPipeline.pipelineKey);
+        return new CompiledPipeline(firstPipeline, needUpload);
     }
 
 
@@ -183,15 +229,10 @@ public class PipelineBuilder {
         pipelineMap.put(IPipeline.AbstractPipeline.scheduleJobKey, scheduleJob);
         pipelineMap.put(IPipeline.AbstractPipeline.taskShadeKey, scheduleTaskShade);
         pipelineMap.put(IPipeline.AbstractPipeline.taskParamsToReplaceKey, taskParamsToReplace);
-        JSONObject config = JSONObject.parseObject(pipelineConfig);
-        if (null == config || config.size() == 0 || !config.containsKey(paramKey)) {
-            return pipelineMap;
-        }
-        List<String> params = config.getJSONArray(paramKey).toJavaList(String.class);
-        if (CollectionUtils.isEmpty(params)) {
+        if (StringUtils.isBlank(pipelineConfig)) {
             return pipelineMap;
         }
-        if (params.contains(UploadParamPipeline.pipelineKey)) {
+        if (getCompiledPipeline(pipelineConfig).isNeedUpload()) {
             //填充upload必要的参数
             uploadConsumer.accept(pipelineMap);
         }
@@ -218,20 +259,7 @@ public class PipelineBuilder {
      * @return
      */
     public static IPipeline buildDefaultSqlPipeline() {
-        String defaultSqlPipeConfig = "{\n" +
-                "    \"params\":[\n" +
-                "        \"jobId\"\n" +
-                "    ],\n" +
-                "    \"operator\":[\n" +
-                "        {\n" +
-                "            \"sqlText\":[\n" +
-                "                \"jobParam\",\n" +
-                "                \"replace\"\n" +
-                "            ]\n" +
-                "        }\n" +
-                "    ]\n" +
-                "}";
-        return buildPipeline(defaultSqlPipeConfig);
+        return buildPipeline(DEFAULT_SQL_PIPELINE_CONFIG);
     }
 
 }
@@ -175,7 +175,7 @@ public class SyncOperatorPipeline extends IPipeline.AbstractPipeline {
         }
 
         //替换系统参数
-        job = JobParamReplace.paramReplace(job, taskParamsToReplace, scheduleJob.getCycTime());
+        job = JobParamReplace.paramReplace(job, taskParamsToReplace, scheduleJob.getCycTime(), taskShade.getTaskId(), taskShade.getGmtModified());
 
         Integer sourceType = (Integer) actionParam.getOrDefault("dataSourceType", DataSourceType.HIVE.getVal());
         //有可能 mysql-kudu 脏数据表是hive 用以区分数据同步目标表类型 还是脏数据表类型
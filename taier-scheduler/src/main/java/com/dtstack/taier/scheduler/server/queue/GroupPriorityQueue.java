@@ -20,6 +20,8 @@ package com.dtstack.taier.scheduler.server.queue;
 
 import com.dtstack.taier.common.enums.EJobCacheStage;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.queue.IndexedPriorityBlockingQueue;
 import com.dtstack.taier.common.queue.comparator.JobClientComparator;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
@@ -37,14 +39,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.ApplicationContext;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * company: www.dtstack.com
  * author: toutian
  * create: 2020/2/16
+ * <p>
+ * 队列达到 queueSizeLimited 后 blocked，新任务只写入数据库(stage=DB)。
+ * 队列中的任务数降到低水位时立即补充，按优先级从数据库取出正好等于空余容量的任务，
+ * 数据库中的任务全部取出后解除 blocked。定时检查只作为兜底，处理其他途径写入数据库的任务
  */
 public class GroupPriorityQueue {
 
@@ -56,6 +64,22 @@ public class GroupPriorityQueue {
 
     private String jobResource;
     private int queueSizeLimited;
+    private int lowWatermark;
+    private long refillInterval;
+
+    /**
+     * 补充信号，refillRequested 保证同一时间只有一个未处理的信号
+     */
+    private final Semaphore refillSignal = new Semaphore(0);
+    private final AtomicBoolean refillRequested = new AtomicBoolean(false);
+    private volatile long refillRequestTime;
+
+    private final AtomicLong refillCount = new AtomicLong();
+    private final AtomicLong refillJobCount = new AtomicLong();
+    private final AtomicLong emptyPollCount = new AtomicLong();
+    private final AtomicLong refillLatencyTotal = new AtomicLong();
+    private final AtomicLong refillLatencyCount = new AtomicLong();
+    private volatile long maxRefillLatency;
 
     private ApplicationContext applicationContext;
     private EnvironmentContext environmentContext;
@@ -64,7 +88,7 @@ public class GroupPriorityQueue {
     private JobPartitioner jobPartitioner;
     private WorkerOperator workerOperator;
 
-    private PriorityBlockingQueue<JobClient> queue = null;
+    private IndexedPriorityBlockingQueue<String, JobClient> queue = null;
     private JobSubmitDealer jobSubmitDealer = null;
 
     private GroupPriorityQueue() {
@@ -92,15 +116,18 @@ public class GroupPriorityQueue {
     }
 
     private boolean addRedirect(JobClient jobClient, boolean insert) {
-        if (queue.contains(jobClient)) {
+        if (queue.containsKey(jobClient.getJobId())) {
             LOGGER.info("jobId:{} unable add to queue, because jobId already exist.", jobClient.getJobId());
             return true;
         }
 
         jobDealer.saveCache(jobClient, jobResource, EJobCacheStage.PRIORITY.getStage(), insert);
 
-        queue.put(jobClient);
-        LOGGER.info("jobId:{} redirect add job to queue.", jobClient.getJobId());
+        if (queue.offer(jobClient)) {
+            LOGGER.info("jobId:{} redirect add job to queue.", jobClient.getJobId());
+        } else {
+            LOGGER.info("jobId:{} unable add to queue, because jobId already exist.", jobClient.getJobId());
+        }
         return true;
     }
 
@@ -108,15 +135,45 @@ public class GroupPriorityQueue {
         return jobSubmitDealer.tryPutRestartJob(jobClient);
     }
 
-    public PriorityBlockingQueue<JobClient> getQueue() {
+    public IndexedPriorityBlockingQueue<String, JobClient> getQueue() {
         return queue;
     }
 
     public boolean remove(JobClient jobClient) {
-        if (queue.remove(jobClient)) {
-            return true;
+        boolean remove = queue.remove(jobClient);
+        if (remove) {
+            checkRefill();
+        }
+        return remove;
+    }
+
+    /**
+     * 任务从队列中取出后调用，blocked 且队列降到低水位时立即补充
+     */
+    public void checkRefill() {
+        if (isBlocked() && priorityQueueSize() <= lowWatermark) {
+            requestRefill();
+        }
+    }
+
+    /**
+     * 任务写入数据库(stage=DB)后调用，此时队列可能已经低于低水位，
+     * 或者补充线程在写入之前查询过数据库并解除了 blocked，都需要重新补充，避免任务在数据库中等待兜底检查
+     */
+    public void checkSpilled() {
+        if (!isBlocked() || priorityQueueSize() <= lowWatermark) {
+            requestRefill();
+        }
+    }
+
+    /**
+     * 请求从数据库补充任务
+     */
+    public void requestRefill() {
+        if (refillRequested.compareAndSet(false, true)) {
+            refillRequestTime = System.currentTimeMillis();
+            refillSignal.release();
         }
-        return false;
     }
 
     private boolean isBlocked() {
@@ -136,83 +193,134 @@ public class GroupPriorityQueue {
     }
 
     /**
-     * @return false: blocked | true: unblocked
+     * 按空余容量从数据库补充任务
+     *
+     * @return 补充的任务数
      */
-    private boolean emitJob2PriorityQueue() {
-        boolean empty = false;
-        String localAddress = "";
+    private int refill() {
+        int credits = getQueueSizeLimited() - (int) priorityQueueSize();
+        if (credits <= 0) {
+            return 0;
+        }
+        String localAddress = environmentContext.getLocalAddress();
+        List<ScheduleEngineJobCache> jobCaches = Collections.emptyList();
+        int added = 0;
+        boolean full = false;
         try {
-            if (priorityQueueSize() >= getQueueSizeLimited()) {
-                return false;
-            }
-            localAddress = environmentContext.getLocalAddress();
-            long startId = 0L;
-            outLoop:
-            while (true) {
-                List<ScheduleEngineJobCache> jobCaches = ScheduleJobCacheService.listByStage(startId, localAddress, EJobCacheStage.DB.getStage(), jobResource);
-                if (CollectionUtils.isEmpty(jobCaches)) {
-                    empty = true;
-                    break;
+            jobCaches = ScheduleJobCacheService.listByStageOrderByPriority(localAddress, EJobCacheStage.DB.getStage(), jobResource, credits);
+            for (ScheduleEngineJobCache jobCache : jobCaches) {
+                // stage 已经变更但还没有写入数据库
+                if (!Integer.valueOf(EJobCacheStage.DB.getStage()).equals(jobCache.getStage())) {
+                    continue;
                 }
-                for (ScheduleEngineJobCache jobCache : jobCaches) {
-                    try {
-                        ParamAction paramAction = PublicUtil.jsonStrToObject(jobCache.getJobInfo(), ParamAction.class);
-                        JobClient jobClient = new JobClient(paramAction);
-                        jobClient.setCallBack((jobStatus) -> {
-                            jobDealer.updateJobStatus(jobClient.getJobId(), jobStatus);
-                        });
-
-                        boolean addInner = this.addInner(jobClient, false);
-                        LOGGER.info("jobId:{} load from db, {} emit job to queue.", jobClient.getJobId(), addInner ? "success" : "failed");
-                        if (!addInner) {
-                            empty = false;
-                            break outLoop;
-                        }
-                        startId = jobCache.getId();
-                    } catch (Exception e) {
-                        LOGGER.error("", e);
-                        //数据转换异常--打日志
-                        jobDealer.dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + e.toString());
+                try {
+                    ParamAction paramAction = PublicUtil.jsonStrToObject(jobCache.getJobInfo(), ParamAction.class);
+                    JobClient jobClient = new JobClient(paramAction);
+                    jobClient.setCallBack((jobStatus) -> {
+                        jobDealer.updateJobStatus(jobClient.getJobId(), jobStatus);
+                    });
+
+                    boolean addInner = this.addInner(jobClient, false);
+                    LOGGER.info("jobId:{} load from db, {} emit job to queue.", jobClient.getJobId(), addInner ? "success" : "failed");
+                    if (!addInner) {
+                        full = true;
+                        break;
                     }
+                    added++;
+                } catch (Exception e) {
+                    LOGGER.error("", e);
+                    //数据转换异常--打日志
+                    jobDealer.dealSubmitFailJob(jobCache.getJobId(), "This task stores information exception and cannot be converted." + e.toString());
                 }
             }
         } catch (Exception e) {
-            LOGGER.error("emitJob2PriorityQueue localAddress:{} error:", localAddress, e);
+            LOGGER.error("refill localAddress:{} error:", localAddress, e);
+            return added;
+        }
+        if (jobCaches.isEmpty()) {
+            emptyPollCount.incrementAndGet();
         }
-        if (empty) {
+        // 查询到的任务少于空余容量，数据库中已经没有等待的任务
+        if (!full && jobCaches.size() < credits) {
             blocked.set(false);
         }
-        return empty;
+        refillCount.incrementAndGet();
+        refillJobCount.addAndGet(added);
+        return added;
     }
 
     private class AcquireGroupQueueJob implements Runnable {
 
         /**
-         * blocked=true，已存储的任务数据超出队列limited上限
-         * <p>
-         * 如果队列中的任务数量小于
+         * 等待补充信号，没有信号时按 refillInterval 兜底检查数据库中是否有等待的任务
          *
-         * @see GroupPriorityQueue#queueSizeLimited ,
-         * 并且没有查询到新的数据，则停止调度
          * @see GroupPriorityQueue#blocked
          */
         @Override
         public void run() {
-            try {
-                if (Boolean.FALSE == blocked.get()) {
-                    int jobSize = ScheduleJobCacheService.countByStage(jobResource, EJobCacheStage.unSubmitted(), environmentContext.getLocalAddress());
-                    if (jobSize == 0) {
-                        return;
+            long waitTime = WAIT_INTERVAL * 10L;
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    boolean signaled = refillSignal.tryAcquire(waitTime, TimeUnit.MILLISECONDS);
+                    waitTime = refillInterval;
+                    long requestTime = refillRequestTime;
+                    refillRequested.set(false);
+                    if (!signaled && Boolean.FALSE == blocked.get()) {
+                        int jobSize = ScheduleJobCacheService.countByStage(jobResource, Collections.singletonList(EJobCacheStage.DB.getStage()), environmentContext.getLocalAddress());
+                        if (jobSize == 0) {
+                            continue;
+                        }
                     }
-                }
 
-                emitJob2PriorityQueue();
-            } catch (Exception e) {
-                LOGGER.error("AcquireGroupQueueJob localAddress:{} error:",  environmentContext.getLocalAddress(), e);
+                    refill();
+                    if (signaled) {
+                        long latency = System.currentTimeMillis() - requestTime;
+                        refillLatencyTotal.addAndGet(latency);
+                        refillLatencyCount.incrementAndGet();
+                        maxRefillLatency = Math.max(maxRefillLatency, latency);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    LOGGER.error("AcquireGroupQueueJob localAddress:{} error:", environmentContext.getLocalAddress(), e);
+                }
             }
         }
     }
 
+    /**
+     * 从数据库补充任务的次数
+     */
+    public long getRefillCount() {
+        return refillCount.get();
+    }
+
+    /**
+     * 从数据库补充的任务数
+     */
+    public long getRefillJobCount() {
+        return refillJobCount.get();
+    }
+
+    /**
+     * 没有查询到任务的补充次数
+     */
+    public long getEmptyPollCount() {
+        return emptyPollCount.get();
+    }
+
+    /**
+     * 从请求补充到补充完成的平均耗时，毫秒
+     */
+    public long getAvgRefillLatency() {
+        long count = refillLatencyCount.get();
+        return count == 0 ? 0 : refillLatencyTotal.get() / count;
+    }
+
+    public long getMaxRefillLatency() {
+        return maxRefillLatency;
+    }
+
     public GroupPriorityQueue setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
         return this;
@@ -254,7 +362,7 @@ public class GroupPriorityQueue {
     }
 
     /**
-     * 每个GroupPriorityQueue中增加独立线程，以定时调度方式从数据库中获取任务。（数据库查询以id和优先级为条件）
+     * 每个GroupPriorityQueue中增加独立线程，收到补充信号或者兜底检查时从数据库中获取任务。（数据库查询以优先级为条件）
      */
     public GroupPriorityQueue build() {
         this.environmentContext = applicationContext.getBean(EnvironmentContext.class);
@@ -263,21 +371,32 @@ public class GroupPriorityQueue {
         this.workerOperator = applicationContext.getBean(WorkerOperator.class);
 
         this.queueSizeLimited = environmentContext.getQueueSize();
+        this.lowWatermark = (int) (queueSizeLimited * environmentContext.getQueueRefillLowWatermark());
+        this.refillInterval = Math.max(WAIT_INTERVAL, environmentContext.getQueueRefillInterval());
 
         checkParams();
 
-        this.queue = new PriorityBlockingQueue<>(queueSizeLimited * 2, new JobClientComparator());
+        // 队列长度由 queueSizeLimited 在入队前控制，这里不限制容量，避免提交线程重新放回任务时阻塞
+        this.queue = new IndexedPriorityBlockingQueue<>(Integer.MAX_VALUE, JobClient::getJobId, new JobClientComparator());
         this.jobSubmitDealer = new JobSubmitDealer(environmentContext.getLocalAddress(), this, applicationContext);
 
-        ScheduledExecutorService scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_AcquireJob"));
-        scheduledService.scheduleWithFixedDelay(
-                new AcquireGroupQueueJob(),
-                WAIT_INTERVAL * 10L,
-                WAIT_INTERVAL,
-                TimeUnit.MILLISECONDS);
+        ExecutorService acquireJobService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_AcquireJob"));
+        acquireJobService.submit(new AcquireGroupQueueJob());
 
         ExecutorService jobSubmitService = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(), new CustomThreadFactory(this.getClass().getSimpleName() + "_" + jobResource + "_JobSubmit"));
         jobSubmitService.submit(jobSubmitDealer);
+        registerMetrics();
         return this;
     }
+
+    private void registerMetrics() {
+        MetricRegistry.gauge("taier_queue_size", "jobs in priority queue", queue::size, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_delay_size", "jobs waiting for delay or restart", jobSubmitDealer::getDelayJobQueueSize, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_blocked", "1 if jobs are left in database because queue is full", () -> blocked.get() ? 1 : 0, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_refill_count", "refill times from database", refillCount::get, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_refill_job_count", "jobs refilled from database", refillJobCount::get, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_refill_latency_max_ms", "max latency from refill request to refilled", this::getMaxRefillLatency, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_refill_latency_avg_ms", "avg latency from refill request to refilled", this::getAvgRefillLatency, "job_resource", jobResource);
+        MetricRegistry.gauge("taier_queue_empty_poll_count", "refills that found no job in database", this::getEmptyPollCount, "job_resource", jobResource);
+    }
 }
@@ -3,6 +3,8 @@ package com.dtstack.taier.scheduler.server.scheduler;
 import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.JobCheckStatus;
 import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.common.metric.registry.MetricRegistry;
+import com.dtstack.taier.common.metric.registry.MetricTimer;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleTaskShade;
 import com.dtstack.taier.pluginapi.CustomThreadFactory;
@@ -25,6 +27,7 @@ import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -49,6 +52,16 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
     @Autowired
     protected ScheduleTaskShadeService scheduleTaskService;
 
+    /**
+     * 一轮扫描的耗时
+     */
+    private MetricTimer scanTimer;
+
+    /**
+     * 扫描到的实例数
+     */
+    private LongAdder scanRows;
+
     /**
      * 获得实例列表
      * @param startSort 开始id
@@ -71,6 +84,16 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
      */
     protected abstract List<SubmitInterceptor> getInterceptor();
 
+    /**
+     * 本轮扫描是否跳过实例，例如实例已经在依赖索引中等待上游
+     *
+     * @param scheduleJob 实例
+     * @return true 跳过
+     */
+    protected boolean skipScanning(ScheduleJob scheduleJob) {
+        return false;
+    }
+
 
     /**
      * 扫描实例
@@ -87,6 +110,7 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
             }
             LOGGER.info("scanningJob start scheduleType : {} nodeAddress:{}", getSchedulerName(),nodeAddress);
 
+            long startTime = System.nanoTime();
             // 2. 获得排序最小序号
             Long minSort = getMinSort();
             LOGGER.info("scanning start param: scheduleType {} nodeAddress {} minSort {} ", getSchedulerName(), nodeAddress, minSort);
@@ -94,6 +118,7 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
             // 3. 扫描实例
             List<ScheduleJobDetails> scheduleJobDetails = listExecJob(minSort, nodeAddress, Boolean.TRUE);
             while (CollectionUtils.isNotEmpty(scheduleJobDetails)) {
+                scanRows.add(scheduleJobDetails.size());
                 // 查询任务
                 List<Long> taskIds = scheduleJobDetails.stream().map(ScheduleJobDetails::getScheduleJob).map(ScheduleJob::getTaskId).collect(Collectors.toList());
                 Map<Long, ScheduleTaskShade> scheduleTaskShadeMap = scheduleTaskService.lambdaQuery()
@@ -106,6 +131,13 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
                 for (ScheduleJobDetails scheduleJobDetail : scheduleJobDetails) {
                     // 提交实例
                     ScheduleJob scheduleJob = scheduleJobDetail.getScheduleJob();
+                    if (minSort < scheduleJob.getJobExecuteOrder()) {
+                        minSort = scheduleJob.getJobExecuteOrder();
+                    }
+
+                    if (skipScanning(scheduleJob)) {
+                        continue;
+                    }
                     ScheduleTaskShade scheduleTaskShade = scheduleTaskShadeMap.get(scheduleJob.getTaskId());
 
                     if (scheduleTaskShade == null) {
@@ -119,13 +151,10 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
                     // 提交任务
                     InterceptorInvocation interceptorInvocation = new InterceptorInvocation(this, getInterceptor());
                     interceptorInvocation.submit(scheduleJobDetail);
-
-                    if (minSort < scheduleJob.getJobExecuteOrder()) {
-                        minSort = scheduleJob.getJobExecuteOrder();
-                    }
                 }
                 scheduleJobDetails = listExecJob(minSort, nodeAddress, Boolean.FALSE);
             }
+            scanTimer.recordSince(startTime);
         } catch (Exception e) {
             LOGGER.error("scheduleType:{} emitJob2Queue error:", getSchedulerName(), e);
         }
@@ -134,6 +163,8 @@ public abstract class AbstractJobScanningScheduler implements Scheduler, Initial
     @Override
     public void afterPropertiesSet() throws Exception {
         LOGGER.info("Initializing scheduleType:{} acquireQueueJobInterval:{} queueSize:{}", getSchedulerName(), env.getJobAcquireQueueJobInterval(), env.getQueueSize());
+        scanTimer = MetricRegistry.timer("taier_job_scan_seconds", "latency of one round of scanning jobs", "scheduler", getSchedulerName());
+        scanRows = MetricRegistry.counter("taier_job_scan_rows_total", "jobs scanned", "scheduler", getSchedulerName());
         ScheduledExecutorService scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(getSchedulerName() + "_AcquireJob"));
         scheduledService.scheduleWithFixedDelay(this::scanningJob, 0, env.getJobAcquireQueueJobInterval(), TimeUnit.MILLISECONDS);
     }
@@ -2,6 +2,7 @@ package com.dtstack.taier.scheduler.server.scheduler;
 
 import com.dtstack.taier.common.CustomThreadRunsPolicy;
 import com.dtstack.taier.common.enums.EScheduleJobType;
+import com.dtstack.taier.common.queue.IndexedPriorityBlockingQueue;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.exception.ExceptionUtil;
@@ -37,9 +38,9 @@ public abstract class AbstractJobSummitScheduler extends AbstractJobScanningSche
     private ExecutorService executorService;
 
     /**
-     * 队列用于控制提交速度
+     * 队列用于控制提交速度，按jobId索引，先进先出
      */
-    private LinkedBlockingQueue<ScheduleJobDetails> scheduleJobQueue;
+    private IndexedPriorityBlockingQueue<String, ScheduleJobDetails> scheduleJobQueue;
 
     @Autowired
     private ScheduleJobService scheduleJobService;
@@ -59,14 +60,17 @@ public abstract class AbstractJobSummitScheduler extends AbstractJobScanningSche
     public Boolean submitJob(ScheduleJobDetails scheduleJobDetails) {
         try {
             ScheduleJob scheduleJob = scheduleJobDetails.getScheduleJob();
-            if (scheduleJobQueue.contains(scheduleJobDetails)) {
+            if (scheduleJobQueue.containsKey(scheduleJob.getJobId())) {
                 //元素已存在，返回true
                 LOGGER.info("jobId:{} scheduleType:{} queue has contains ", scheduleJob.getJobId(), getSchedulerName());
                 return false;
             }
             if (putFlagPredicate.test(scheduleJob)) {
-                scheduleJobQueue.put(scheduleJobDetails);
-                LOGGER.info("jobId:{} scheduleType:{} enter queue", scheduleJob.getJobId(), getSchedulerName());
+                if (scheduleJobQueue.put(scheduleJobDetails)) {
+                    LOGGER.info("jobId:{} scheduleType:{} enter queue", scheduleJob.getJobId(), getSchedulerName());
+                } else {
+                    LOGGER.info("jobId:{} scheduleType:{} queue has contains ", scheduleJob.getJobId(), getSchedulerName());
+                }
             }
             return true;
         } catch (InterruptedException e) {
@@ -115,7 +119,7 @@ public abstract class AbstractJobSummitScheduler extends AbstractJobScanningSche
     @Override
     public void afterPropertiesSet() throws Exception {
         super.afterPropertiesSet();
-        scheduleJobQueue = new LinkedBlockingQueue<>(env.getQueueSize());
+        scheduleJobQueue = new IndexedPriorityBlockingQueue<>(env.getQueueSize(), details -> details.getScheduleJob().getJobId(), null);
 
         String threadName = this.getClass().getSimpleName() + "_" + getSchedulerName() + "_startJobProcessor";
         executorService = new ThreadPoolExecutor(env.getJobExecutorPoolCorePoolSize(), env.getJobExecutorPoolMaximumPoolSize(), env.getJobExecutorPoolKeepAliveTime(), TimeUnit.MILLISECONDS,
@@ -1,14 +1,20 @@
 package com.dtstack.taier.scheduler.server.scheduler;
 
+import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import com.dtstack.taier.dao.domain.ScheduleTaskShade;
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.scheduler.enums.JobPhaseStatus;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.server.scheduler.interceptor.InterceptorInvocation;
 import com.dtstack.taier.scheduler.server.scheduler.interceptor.SubmitInterceptor;
 import com.dtstack.taier.scheduler.service.ScheduleJobJobService;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import com.dtstack.taier.scheduler.utils.JobExecuteOrderUtil;
+import org.apache.commons.collections.CollectionUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,8 +22,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /**
@@ -37,6 +46,9 @@ public class CycleJobScheduler extends AbstractJobSummitScheduler {
     @Autowired
     private ScheduleJobJobService scheduleJobJobService;
 
+    @Autowired
+    private DependencyCountdownIndex dependencyCountdownIndex;
+
     @Autowired(required = false)
     private List<SubmitInterceptor> submitInterceptorList;
 
@@ -62,6 +74,112 @@ public class CycleJobScheduler extends AbstractJobSummitScheduler {
         return scheduleJobDetailsList;
     }
 
+    @Override
+    protected boolean skipScanning(ScheduleJob scheduleJob) {
+        // 依赖索引中等待上游的实例由父实例结束事件触发提交，扫描器只做定期校对
+        return dependencyCountdownIndex.isWaiting(scheduleJob.getJobId());
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        seedDependencyIndex();
+        super.afterPropertiesSet();
+        ExecutorService readyJobService = Executors.newSingleThreadExecutor(new CustomThreadFactory(getSchedulerName() + "_ReadyJob"));
+        readyJobService.submit(this::submitReadyJob);
+    }
+
+    /**
+     * 启动时根据 schedule_job_job 登记本节点等待上游的实例，不必等扫描器逐个校验后再登记
+     * 只登记父实例都在本节点且都未结束的实例，父实例缺失或已经结束的实例仍由扫描器处理
+     */
+    private void seedDependencyIndex() {
+        try {
+            if (!env.isOpenJobSchedule()) {
+                return;
+            }
+            String nodeAddress = env.getLocalAddress();
+            long startTime = System.currentTimeMillis();
+            int seedCount = 0;
+            Long minSort = getMinSort();
+            List<ScheduleJobDetails> scheduleJobDetailsList = listExecJob(minSort, nodeAddress, Boolean.TRUE);
+            while (CollectionUtils.isNotEmpty(scheduleJobDetailsList)) {
+                List<String> parentJobKeys = new ArrayList<>();
+                for (ScheduleJobDetails scheduleJobDetails : scheduleJobDetailsList) {
+                    minSort = Math.max(minSort, scheduleJobDetails.getScheduleJob().getJobExecuteOrder());
+                    if (CollectionUtils.isNotEmpty(scheduleJobDetails.getJobJobList())) {
+                        scheduleJobDetails.getJobJobList().forEach(jobJob -> parentJobKeys.add(jobJob.getParentJobKey()));
+                    }
+                }
+                Map<String, ScheduleJob> parentJobMap = parentJobKeys.isEmpty() ? Collections.emptyMap() : scheduleJobService.lambdaQuery()
+                        .select(ScheduleJob::getStatus, ScheduleJob::getJobId, ScheduleJob::getJobKey, ScheduleJob::getNodeAddress)
+                        .in(ScheduleJob::getJobKey, parentJobKeys)
+                        .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
+                        .list().stream().collect(Collectors.toMap(ScheduleJob::getJobKey, g -> (g), (a, b) -> a));
+
+                for (ScheduleJobDetails scheduleJobDetails : scheduleJobDetailsList) {
+                    List<String> unfinishedParentJobIds = listLocalUnfinishedParents(scheduleJobDetails, parentJobMap, nodeAddress);
+                    if (CollectionUtils.isNotEmpty(unfinishedParentJobIds)
+                            && dependencyCountdownIndex.await(scheduleJobDetails, unfinishedParentJobIds)) {
+                        seedCount++;
+                    }
+                }
+                scheduleJobDetailsList = listExecJob(minSort, nodeAddress, Boolean.FALSE);
+            }
+            LOGGER.info("seed dependency index {} jobs cost {}ms", seedCount, System.currentTimeMillis() - startTime);
+        } catch (Exception e) {
+            // 登记失败时由扫描器逐个校验后登记
+            LOGGER.error("seed dependency index error", e);
+        }
+    }
+
+    /**
+     * @return 父实例都在本节点且都未结束时返回父实例jobId，否则返回空
+     */
+    private List<String> listLocalUnfinishedParents(ScheduleJobDetails scheduleJobDetails, Map<String, ScheduleJob> parentJobMap, String nodeAddress) {
+        List<ScheduleJobJob> jobJobList = scheduleJobDetails.getJobJobList();
+        if (CollectionUtils.isEmpty(jobJobList)) {
+            return Collections.emptyList();
+        }
+        List<String> unfinishedParentJobIds = new ArrayList<>(jobJobList.size());
+        for (ScheduleJobJob scheduleJobJob : jobJobList) {
+            ScheduleJob parentScheduleJob = parentJobMap.get(scheduleJobJob.getParentJobKey());
+            if (parentScheduleJob == null
+                    || TaskStatus.STOPPED_STATUS.contains(parentScheduleJob.getStatus())
+                    || !nodeAddress.equals(parentScheduleJob.getNodeAddress())) {
+                return Collections.emptyList();
+            }
+            unfinishedParentJobIds.add(parentScheduleJob.getJobId());
+        }
+        return unfinishedParentJobIds;
+    }
+
+    /**
+     * 提交依赖索引中父实例全部结束的实例
+     */
+    private void submitReadyJob() {
+        while (RUNNING.get()) {
+            ScheduleJobDetails scheduleJobDetails = null;
+            try {
+                scheduleJobDetails = dependencyCountdownIndex.takeReady();
+                ScheduleJob scheduleJob = scheduleJobDetails.getScheduleJob();
+                // 等待期间任务可能被冻结或删除，重新获取任务信息
+                ScheduleTaskShade scheduleTaskShade = scheduleTaskService.lambdaQuery()
+                        .eq(ScheduleTaskShade::getTaskId, scheduleJob.getTaskId())
+                        .eq(ScheduleTaskShade::getIsDeleted, Deleted.NORMAL.getStatus())
+                        .one();
+                scheduleJobDetails.setScheduleTaskShade(scheduleTaskShade);
+
+                InterceptorInvocation interceptorInvocation = new InterceptorInvocation(this, getInterceptor());
+                interceptorInvocation.submit(scheduleJobDetails);
+            } catch (InterruptedException ie) {
+                // ignore, RUNNING decides whether to exit
+            } catch (Exception e) {
+                LOGGER.error("jobId:{} scheduleType:{} submit ready job error:",
+                        scheduleJobDetails == null ? null : scheduleJobDetails.getScheduleJob().getJobId(), getSchedulerName(), e);
+            }
+        }
+    }
+
     @Override
     protected Long getMinSort() {
         String triggerTime = new DateTime().toString(DATA_YMD);
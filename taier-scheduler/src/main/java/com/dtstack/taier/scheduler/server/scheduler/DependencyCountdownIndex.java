@@ -0,0 +1,209 @@
+package com.dtstack.taier.scheduler.server.scheduler;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.scheduler.event.ScheduleJobBatchEvent;
+import com.dtstack.taier.scheduler.event.ScheduleJobEventLister;
+import com.dtstack.taier.scheduler.event.ScheduleJobEventPublisher;
+import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.collections.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Date: 2026/10/17 10:12 AM
+ * @Description: 实例依赖倒计时索引
+ * <p>
+ * 周期实例在父实例未结束时会登记到索引中，父实例进入结束状态时(通过 {@link ScheduleJobEventPublisher} 事件)
+ * 扣减子实例的剩余父实例，全部结束的子实例直接进入就绪队列，不再依赖扫描器每轮重新查询。
+ * 事件由 ScheduleJobService 在状态写入后发布，只能收到本节点的状态变更，所以只登记父实例都在本节点的实例。
+ * 登记超过 job.dependency.reconcile.interval 的实例会重新交给扫描器校对，用于兜底故障转移和漏掉的事件。
+ * 启动时由 {@link CycleJobScheduler} 根据 schedule_job_job 预先登记本节点等待上游的实例，之后由扫描器补充登记。
+ */
+@Component
+public class DependencyCountdownIndex implements ScheduleJobEventLister, InitializingBean, DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DependencyCountdownIndex.class);
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
+    /**
+     * key: 子实例jobId, value: 等待中的子实例
+     */
+    private final Map<String, WaitingJob> waitingJobs = new ConcurrentHashMap<>();
+
+    /**
+     * key: 父实例jobId, value: 等待该父实例的子实例jobId
+     */
+    private final Map<String, Set<String>> childrenByParent = new ConcurrentHashMap<>();
+
+    /**
+     * 父实例全部结束的子实例
+     */
+    private final BlockingQueue<ScheduleJobDetails> readyQueue = new LinkedBlockingQueue<>();
+
+    /**
+     * 最近结束的实例状态，状态写入日志或所在事务尚未提交时，子实例校验上游时以此覆盖数据库中的旧状态
+     */
+    private Cache<String, Integer> terminalStatus;
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        terminalStatus = CacheBuilder.newBuilder()
+                .maximumSize(environmentContext.getJobDependencyIndexSize())
+                .expireAfterWrite(environmentContext.getJobDependencyReconcileInterval(), TimeUnit.MILLISECONDS)
+                .build();
+        ScheduleJobEventPublisher.getInstance().register(this);
+    }
+
+    @Override
+    public void destroy() {
+        ScheduleJobEventPublisher.getInstance().unregister(this);
+    }
+
+    /**
+     * 登记等待上游的实例
+     *
+     * @param scheduleJobDetails 实例详情
+     * @param parentJobIds       未结束的父实例jobId
+     * @return 是否登记成功，索引已满时不登记，由扫描器继续处理
+     */
+    public boolean await(ScheduleJobDetails scheduleJobDetails, Collection<String> parentJobIds) {
+        if (CollectionUtils.isEmpty(parentJobIds)) {
+            return false;
+        }
+        String jobId = scheduleJobDetails.getScheduleJob().getJobId();
+        if (waitingJobs.size() >= environmentContext.getJobDependencyIndexSize() && !waitingJobs.containsKey(jobId)) {
+            return false;
+        }
+        Set<String> parents = ConcurrentHashMap.newKeySet();
+        parents.addAll(parentJobIds);
+        WaitingJob waitingJob = new WaitingJob(scheduleJobDetails, parents);
+        waitingJobs.put(jobId, waitingJob);
+        for (String parentJobId : parentJobIds) {
+            childrenByParent.computeIfAbsent(parentJobId, k -> ConcurrentHashMap.newKeySet()).add(jobId);
+            // 登记期间父实例已经结束
+            if (terminalStatus.getIfPresent(parentJobId) != null) {
+                countDown(parentJobId, jobId);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 实例是否在索引中等待上游，超过校对间隔的实例会被移出索引
+     *
+     * @param jobId 实例id
+     * @return true 等待中，扫描器可以跳过
+     */
+    public boolean isWaiting(String jobId) {
+        WaitingJob waitingJob = waitingJobs.get(jobId);
+        if (waitingJob == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - waitingJob.registerTime > environmentContext.getJobDependencyReconcileInterval()) {
+            remove(jobId, waitingJob);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 获得最近结束实例的状态
+     *
+     * @param jobId 实例id
+     * @return 结束状态，没有记录返回null
+     */
+    public Integer getTerminalStatus(String jobId) {
+        return terminalStatus.getIfPresent(jobId);
+    }
+
+    /**
+     * 获得就绪实例，没有就绪实例时阻塞
+     *
+     * @return 就绪实例
+     */
+    public ScheduleJobDetails takeReady() throws InterruptedException {
+        return readyQueue.take();
+    }
+
+    public int waitingSize() {
+        return waitingJobs.size();
+    }
+
+    @Override
+    public void publishBatchEvent(ScheduleJobBatchEvent event) {
+        Integer status = event.getStatus();
+        if (!TaskStatus.getStoppedStatus().contains(status)) {
+            // 实例被重跑等情况，清除结束状态
+            terminalStatus.invalidateAll(event.getJobIds());
+            return;
+        }
+        for (String parentJobId : event.getJobIds()) {
+            terminalStatus.put(parentJobId, status);
+            Set<String> children = childrenByParent.remove(parentJobId);
+            if (children == null) {
+                continue;
+            }
+            for (String childJobId : children) {
+                countDown(parentJobId, childJobId);
+            }
+        }
+    }
+
+    private void countDown(String parentJobId, String childJobId) {
+        WaitingJob waitingJob = waitingJobs.get(childJobId);
+        if (waitingJob == null || !waitingJob.parents.remove(parentJobId) || !waitingJob.parents.isEmpty()) {
+            return;
+        }
+        if (waitingJobs.remove(childJobId, waitingJob)) {
+            readyQueue.offer(waitingJob.scheduleJobDetails);
+            LOGGER.info("jobId:{} all parents stopped, ready to submit", childJobId);
+        }
+    }
+
+    private void remove(String jobId, WaitingJob waitingJob) {
+        if (!waitingJobs.remove(jobId, waitingJob)) {
+            return;
+        }
+        for (String parentJobId : waitingJob.parents) {
+            Set<String> children = childrenByParent.get(parentJobId);
+            if (children != null) {
+                children.remove(jobId);
+                if (children.isEmpty()) {
+                    childrenByParent.remove(parentJobId, children);
+                }
+            }
+        }
+    }
+
+    private static class WaitingJob {
+
+        private final ScheduleJobDetails scheduleJobDetails;
+
+        private final Set<String> parents;
+
+        private final long registerTime;
+
+        private WaitingJob(ScheduleJobDetails scheduleJobDetails, Set<String> parents) {
+            this.scheduleJobDetails = scheduleJobDetails;
+            this.parents = parents;
+            this.registerTime = System.currentTimeMillis();
+        }
+    }
+}
@@ -3,12 +3,14 @@ package com.dtstack.taier.scheduler.server.scheduler.interceptor;
 import com.dtstack.taier.common.enums.Deleted;
 import com.dtstack.taier.common.enums.EScheduleType;
 import com.dtstack.taier.common.enums.JobCheckStatus;
+import com.dtstack.taier.common.env.EnvironmentContext;
 import com.dtstack.taier.dao.domain.ScheduleJob;
 import com.dtstack.taier.dao.domain.ScheduleJobJob;
 import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.scheduler.enums.RelyRule;
 import com.dtstack.taier.scheduler.enums.RelyType;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.server.scheduler.DependencyCountdownIndex;
 import com.dtstack.taier.scheduler.service.ScheduleJobService;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
@@ -16,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -34,6 +37,12 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
     @Autowired
     private ScheduleJobService scheduleJobService;
 
+    @Autowired
+    private DependencyCountdownIndex dependencyCountdownIndex;
+
+    @Autowired
+    private EnvironmentContext environmentContext;
+
     @Override
     public Integer getSort() {
         return 0;
@@ -51,11 +60,13 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
 
             Map<String, ScheduleJob> scheduleJobMap = scheduleJobService.lambdaQuery()
                     .select(ScheduleJob::getStatus, ScheduleJob::getJobId,
-                            ScheduleJob::getJobKey, ScheduleJob::getJobName)
+                            ScheduleJob::getJobKey, ScheduleJob::getJobName, ScheduleJob::getNodeAddress)
                     .in(ScheduleJob::getJobKey, parentJobKeys)
                     .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
                     .list().stream().collect(Collectors.toMap(ScheduleJob::getJobKey, g -> (g)));
 
+            List<String> unfinishedParentJobIds = new ArrayList<>(jobJobList.size());
+            boolean localParents = true;
 
             for (ScheduleJobJob scheduleJobJob : jobJobList) {
                 ScheduleJob parentScheduleJob = scheduleJobMap.get(scheduleJobJob.getParentJobKey());
@@ -81,7 +92,8 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
                 //  1. 父实例运行完成，可以运行,也就是说父实例状态不影响子任务状态
                 //  2. 父实例运行成功，可以运行,也就是说父实例影响子任务状态
                 Integer rule = scheduleJobJob.getRule();
-                Integer status = parentScheduleJob.getStatus();
+                Integer terminalStatus = dependencyCountdownIndex.getTerminalStatus(parentScheduleJob.getJobId());
+                Integer status = terminalStatus != null ? terminalStatus : parentScheduleJob.getStatus();
                 if (RelyRule.RUN_SUCCESS.getType().equals(rule)) {
                     Integer jobKeyType = scheduleJobJob.getJobKeyType();
                     // 父任务有运行失败的
@@ -124,8 +136,21 @@ public class JobUpStreamSubmitInterceptor extends SubmitInterceptorAdapter {
 
                 if (!TaskStatus.FINISHED.getStatus().equals(status) &&
                         !TaskStatus.MANUALSUCCESS.getStatus().equals(status)) {
-                    return Boolean.FALSE;
+                    if (TaskStatus.STOPPED_STATUS.contains(status)) {
+                        return Boolean.FALSE;
+                    }
+                    unfinishedParentJobIds.add(parentScheduleJob.getJobId());
+                    localParents &= environmentContext.getLocalAddress().equals(parentScheduleJob.getNodeAddress());
+                }
+            }
+
+            // 父实例未结束: 父实例都在本节点的周期实例登记到依赖索引，父实例结束后直接进入提交队列
+            // 其他节点的状态变更事件收不到，仍由扫描器每轮校验
+            if (CollectionUtils.isNotEmpty(unfinishedParentJobIds)) {
+                if (EScheduleType.NORMAL_SCHEDULE.getType().equals(scheduleJob.getType()) && localParents) {
+                    dependencyCountdownIndex.await(scheduleJobDetails, unfinishedParentJobIds);
                 }
+                return Boolean.FALSE;
             }
         }
 
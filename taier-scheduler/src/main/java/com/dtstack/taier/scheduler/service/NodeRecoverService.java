@@ -67,6 +67,7 @@ public class NodeRecoverService {
             jobExecutorTrigger.recoverOtherNode();
             LOGGER.info("--- deal recoverOtherNode done ------");
             recoverJobCaches();
+            jobDealer.requestRefill();
         } catch (Exception e) {
             LOGGER.error("", e);
         }
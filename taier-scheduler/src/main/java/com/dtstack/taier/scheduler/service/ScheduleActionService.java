@@ -485,11 +485,25 @@ public class ScheduleActionService {
     }
 
     public String generateUniqueSign() {
+        return getJobIdWorker().nextJobId();
+    }
+
+    /**
+     * 批量生成jobId
+     *
+     * @param size 数量
+     * @return jobId
+     */
+    public List<String> generateUniqueSigns(int size) {
+        return getJobIdWorker().nextJobIds(size);
+    }
+
+    private DtJobIdWorker getJobIdWorker() {
         if (null == jobIdWorker) {
             String[] split = AddressUtil.getOneIp().split("\\.");
             jobIdWorker = DtJobIdWorker.getInstance(split.length >= 4 ? Integer.parseInt(split[3]) : 0, 0);
         }
-        return jobIdWorker.nextJobId();
+        return jobIdWorker;
     }
 
     public String getCycTime(Integer beforeDay) {
@@ -2,8 +2,11 @@ package com.dtstack.taier.scheduler.service;
 
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.dtstack.taier.common.enums.EJobCacheStage;
 import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
 import com.dtstack.taier.dao.mapper.ScheduleEngineJobCacheMapper;
+import com.dtstack.taier.scheduler.jobdealer.cache.JobStateJournal;
+import org.apache.commons.collections.CollectionUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -16,12 +19,16 @@ public class ScheduleJobCacheService extends ServiceImpl<ScheduleEngineJobCacheM
     @Autowired
     private ScheduleEngineJobCacheMapper scheduleEngineJobCacheMapper;
 
+    @Autowired
+    private JobStateJournal jobStateJournal;
+
     public ScheduleEngineJobCache getJobCacheByJobId(String jobId) {
-        return scheduleEngineJobCacheMapper.selectOne(Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
-                .eq(ScheduleEngineJobCache::getJobId, jobId));
+        return jobStateJournal.overlay(scheduleEngineJobCacheMapper.selectOne(Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
+                .eq(ScheduleEngineJobCache::getJobId, jobId)));
     }
 
     public int deleteByJobId(String jobId) {
+        jobStateJournal.discardStage(jobId);
         return scheduleEngineJobCacheMapper.delete(Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
                 .eq(ScheduleEngineJobCache::getJobId, jobId));
     }
@@ -31,6 +38,12 @@ public class ScheduleJobCacheService extends ServiceImpl<ScheduleEngineJobCacheM
     }
 
     public int updateStage(String jobId, int stage, String nodeAddress, long priority, String waitReason) {
+        // stage=DB 的任务由队列从数据库补充，直接写入，保证补充时能查询到
+        if (jobStateJournal.isEnabled() && EJobCacheStage.DB.getStage() != stage) {
+            jobStateJournal.putStage(jobId, stage, nodeAddress, priority, waitReason);
+            return 1;
+        }
+        jobStateJournal.discardStage(jobId);
         ScheduleEngineJobCache engineJobCache = new ScheduleEngineJobCache();
         engineJobCache.setJobId(jobId);
         engineJobCache.setNodeAddress(nodeAddress);
@@ -61,10 +74,22 @@ public class ScheduleJobCacheService extends ServiceImpl<ScheduleEngineJobCacheM
         ScheduleEngineJobCache engineJobCache = new ScheduleEngineJobCache();
         engineJobCache.setNodeAddress(nodeAddress);
         engineJobCache.setStage(stage);
+        jobIds.forEach(jobStateJournal::discardStage);
         return scheduleEngineJobCacheMapper.update(engineJobCache, Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
                 .in(ScheduleEngineJobCache::getJobId, jobIds));
     }
 
+    /**
+     * 批量更新 stage，每个任务的优先级不同
+     */
+    public int updateStageAndPriorityBatch(List<ScheduleEngineJobCache> engineJobCaches, int stage, String nodeAddress) {
+        if (CollectionUtils.isEmpty(engineJobCaches)) {
+            return 0;
+        }
+        engineJobCaches.forEach(engineJobCache -> jobStateJournal.discardStage(engineJobCache.getJobId()));
+        return scheduleEngineJobCacheMapper.updateStageAndPriorityBatch(engineJobCaches, stage, nodeAddress);
+    }
+
     public void insert(String jobId, Integer computeType, int stage, String jobInfo, String nodeAddress, String jobName, long priority, String jobResource, Long tenantId) {
         ScheduleEngineJobCache engineJobCache = new ScheduleEngineJobCache();
         engineJobCache.setJobId(jobId);
@@ -76,24 +101,37 @@ public class ScheduleJobCacheService extends ServiceImpl<ScheduleEngineJobCacheM
         engineJobCache.setJobResource(jobResource);
         engineJobCache.setJobName(jobName);
         engineJobCache.setTenantId(tenantId);
+        jobStateJournal.discardStage(jobId);
         this.save(engineJobCache);
     }
 
 
     public ScheduleEngineJobCache getByJobId(String jobId) {
-        return getBaseMapper()
+        return jobStateJournal.overlay(getBaseMapper()
                 .selectOne(Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
-                        .eq(ScheduleEngineJobCache::getJobId, jobId));
+                        .eq(ScheduleEngineJobCache::getJobId, jobId)));
     }
 
     public List<ScheduleEngineJobCache> listByStage(Long startId, String nodeAddress, Integer stage, String resource) {
         return getBaseMapper().listByStage(startId, nodeAddress, stage, resource, Boolean.FALSE);
     }
 
+    /**
+     * 按优先级顺序查询节点上某个 stage 的任务，返回的任务已经应用还没有写入数据库的 stage 变更，调用方需要再按 stage 过滤
+     *
+     * @param limit 最多查询的任务数
+     */
+    public List<ScheduleEngineJobCache> listByStageOrderByPriority(String nodeAddress, Integer stage, String jobResource, int limit) {
+        List<ScheduleEngineJobCache> engineJobCaches = getBaseMapper().listByStageOrderByPriority(nodeAddress, stage, jobResource, limit);
+        engineJobCaches.forEach(jobStateJournal::overlay);
+        return engineJobCaches;
+    }
+
     public int updateNodeAddressFailover(String nodeAddress, List<String> jobIds, Integer stage) {
         ScheduleEngineJobCache jobCache = new ScheduleEngineJobCache();
         jobCache.setNodeAddress(nodeAddress);
         jobCache.setStage(stage);
+        jobIds.forEach(jobStateJournal::discardStage);
         return getBaseMapper()
                 .update(jobCache, Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
                         .in(ScheduleEngineJobCache::getJobId, jobIds));
@@ -102,9 +140,11 @@ public class ScheduleJobCacheService extends ServiceImpl<ScheduleEngineJobCacheM
 
 
     public List<ScheduleEngineJobCache> getByJobIds(List<String> jobIds) {
-        return getBaseMapper()
+        List<ScheduleEngineJobCache> engineJobCaches = getBaseMapper()
                 .selectList(Wrappers.lambdaQuery(ScheduleEngineJobCache.class)
                         .in(ScheduleEngineJobCache::getJobId, jobIds));
+        engineJobCaches.forEach(jobStateJournal::overlay);
+        return engineJobCaches;
     }
 
 
@@ -12,6 +12,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -37,6 +38,17 @@ public class ScheduleJobExpandService extends ServiceImpl<ScheduleJobExpandMappe
         return 0;
     }
 
+    /**
+     * 多值批量插入扩展信息
+     *
+     * @param scheduleJobExpands 扩展信息
+     */
+    public void insertBatch(List<ScheduleJobExpand> scheduleJobExpands) {
+        if (CollectionUtils.isNotEmpty(scheduleJobExpands)) {
+            this.baseMapper.insertBatch(scheduleJobExpands);
+        }
+    }
+
     public ScheduleJobExpand getByJobId(String jobId) {
         return getBaseMapper().selectOne(Wrappers.lambdaQuery(ScheduleJobExpand.class)
                 .eq(ScheduleJobExpand::getJobId, jobId));
@@ -68,6 +80,16 @@ public class ScheduleJobExpandService extends ServiceImpl<ScheduleJobExpandMappe
                 .eq(ScheduleJobExpand::getJobId, jobId));
     }
 
+    /**
+     * 批量更新 jobExtraInfo 和 logInfo
+     */
+    public void updateExtraInfoAndLogBatch(List<ScheduleJobExpand> scheduleJobExpands) {
+        if (CollectionUtils.isEmpty(scheduleJobExpands)) {
+            return;
+        }
+        getBaseMapper().updateExtraInfoAndLogBatch(scheduleJobExpands);
+    }
+
     public String getJobGraphJson(String jobId) {
         String jobExtraInfo =getByJobId(jobId).getJobExtraInfo();
         JSONObject jobExtraObj = JSONObject.parseObject(jobExtraInfo);
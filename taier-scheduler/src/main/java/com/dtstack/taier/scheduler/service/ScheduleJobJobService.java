@@ -33,4 +33,15 @@ public class ScheduleJobJobService extends ServiceImpl<ScheduleJobJobMapper, Sch
         }
         return Lists.newArrayList();
     }
+
+    /**
+     * 多值批量插入实例依赖
+     *
+     * @param jobJobs 实例依赖
+     */
+    public void insertBatch(List<ScheduleJobJob> jobJobs) {
+        if (CollectionUtils.isNotEmpty(jobJobs)) {
+            this.baseMapper.insertBatch(jobJobs);
+        }
+    }
 }
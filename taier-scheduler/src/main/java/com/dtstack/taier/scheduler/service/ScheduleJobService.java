@@ -18,12 +18,15 @@ import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.util.RetryUtil;
 import com.dtstack.taier.scheduler.dto.scheduler.SimpleScheduleJobDTO;
 import com.dtstack.taier.scheduler.enums.JobPhaseStatus;
+import com.dtstack.taier.scheduler.event.ScheduleJobBatchEvent;
+import com.dtstack.taier.scheduler.event.ScheduleJobEventPublisher;
 import com.dtstack.taier.scheduler.impl.pojo.ParamActionExt;
+import com.dtstack.taier.scheduler.jobdealer.cache.JobStateJournal;
 import com.dtstack.taier.scheduler.mapstruct.ScheduleJobMapStruct;
 import com.dtstack.taier.scheduler.server.JobPartitioner;
 import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.server.partition.NodeAssigner;
 import com.dtstack.taier.scheduler.server.pipeline.operator.UnnecessaryPreprocessJobPipeline;
-import com.dtstack.taier.scheduler.zookeeper.ZkService;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
@@ -49,9 +52,6 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ScheduleJobService.class);
 
-    @Autowired
-    private ZkService zkService;
-
     @Autowired
     private ScheduleActionService actionService;
 
@@ -76,6 +76,9 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
     @Autowired
     private UnnecessaryPreprocessJobPipeline unnecessaryPreprocessJobPipeline;
 
+    @Autowired
+    private JobStateJournal jobStateJournal;
+
     /**
      * 开始运行实例
      *
@@ -143,6 +146,7 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
                         .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus())
                         .in(ScheduleJob::getJobId, jobIds)
                         .update(scheduleJob);
+                publishStatus(new ArrayList<>(jobIds), TaskStatus.UNSUBMIT.getStatus());
 
                 // 清除日志
                 scheduleJobExpandService.clearData(jobIds);
@@ -164,8 +168,6 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
             return null;
         }
 
-        Iterator<ScheduleJobDetails> batchJobIterator = jobBuilderBeanCollection.iterator();
-
         //count%20 为一批
         //1: 批量插入BatchJob
         //2: 批量插入BatchJobJobList
@@ -176,55 +178,47 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         List<ScheduleJob> jobWaitForSave = Lists.newArrayList();
         List<ScheduleJobJob> jobJobWaitForSave = Lists.newArrayList();
 
-        Map<String, Integer> nodeJobSize = computeJobSizeForNode(jobBuilderBeanCollection.size(), scheduleType);
-        for (Map.Entry<String, Integer> nodeJobSizeEntry : nodeJobSize.entrySet()) {
-            String nodeAddress = nodeJobSizeEntry.getKey();
-            int nodeSize = nodeJobSizeEntry.getValue();
-            final int finalBatchNodeSize = nodeSize;
-            while (nodeSize > 0 && batchJobIterator.hasNext()) {
-                nodeSize--;
-                count++;
+        NodeAssigner nodeAssigner = getJobNodeAssigner(jobBuilderBeanCollection.size(), scheduleType);
+        for (ScheduleJobDetails jobBuilderBean : jobBuilderBeanCollection) {
+            count++;
 
-                ScheduleJobDetails jobBuilderBean = batchJobIterator.next();
+            ScheduleJob scheduleJob = jobBuilderBean.getScheduleJob();
+            scheduleJob.setNodeAddress(nodeAssigner.assign(scheduleJob.getJobKey()));
 
-                ScheduleJob scheduleJob = jobBuilderBean.getScheduleJob();
-                scheduleJob.setNodeAddress(nodeAddress);
+            jobWaitForSave.add(scheduleJob);
+            jobJobWaitForSave.addAll(jobBuilderBean.getJobJobList());
 
-                jobWaitForSave.add(scheduleJob);
-                jobJobWaitForSave.addAll(jobBuilderBean.getJobJobList());
-
-                LOGGER.debug("insertJobList count:{} batchJobs:{} finalBatchNodeSize:{}", count, jobBuilderBeanCollection.size(), finalBatchNodeSize);
-                if (count % jobBatchSize == 0 || count == (jobBuilderBeanCollection.size() - 1) || jobJobWaitForSave.size() > jobJobBatchSize) {
-                    minJobId = persistJobs(jobWaitForSave, jobJobWaitForSave, minJobId, jobJobBatchSize);
-                    LOGGER.info("insertJobList count:{} batchJobs:{} finalBatchNodeSize:{} jobJobSize:{}", count, jobBuilderBeanCollection.size(), finalBatchNodeSize, jobJobWaitForSave.size());
-                }
+            LOGGER.debug("insertJobList count:{} batchJobs:{}", count, jobBuilderBeanCollection.size());
+            if (count % jobBatchSize == 0 || count == (jobBuilderBeanCollection.size() - 1) || jobJobWaitForSave.size() > jobJobBatchSize) {
+                minJobId = persistJobs(jobWaitForSave, jobJobWaitForSave, minJobId, jobJobBatchSize);
+                LOGGER.info("insertJobList count:{} batchJobs:{} jobJobSize:{}", count, jobBuilderBeanCollection.size(), jobJobWaitForSave.size());
             }
-            LOGGER.info("insertJobList count:{} batchJobs:{} finalBatchNodeSize:{}", count, jobBuilderBeanCollection.size(), finalBatchNodeSize);
-            //结束前persist一次，flush所有jobs
-            minJobId = persistJobs(jobWaitForSave, jobJobWaitForSave, minJobId, jobJobBatchSize);
-
         }
+        LOGGER.info("insertJobList count:{} batchJobs:{}", count, jobBuilderBeanCollection.size());
+        //结束前persist一次，flush所有jobs
+        minJobId = persistJobs(jobWaitForSave, jobJobWaitForSave, minJobId, jobJobBatchSize);
         return minJobId;
     }
 
     /**
-     * 获得调度各个节点的ip
+     * 批量插入实例和实例依赖，实例生成流水线的写入线程调用，实例需要已经分配好节点
+     *
+     * @param jobWaitForSave    实例
+     * @param jobJobWaitForSave 实例依赖
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public void insertJobBatch(List<ScheduleJob> jobWaitForSave, List<ScheduleJobJob> jobJobWaitForSave) {
+        insertJobs(jobWaitForSave, jobJobWaitForSave, environmentContext.getBatchJobJobInsertSize());
+    }
+
+    /**
+     * 获得实例分配节点的策略
      *
      * @param jobSize      实例数
      * @param scheduleType 调度类型 正常调度 和 补数据
      */
-    private Map<String, Integer> computeJobSizeForNode(int jobSize, int scheduleType) {
-        Map<String, Integer> jobSizeInfo = jobPartitioner.computeBatchJobSize(scheduleType, jobSize);
-        if (jobSizeInfo == null) {
-            //if empty
-            List<String> aliveNodes = zkService.getAliveBrokersChildren();
-            jobSizeInfo = new HashMap<>(aliveNodes.size());
-            int size = jobSize / aliveNodes.size() + 1;
-            for (String aliveNode : aliveNodes) {
-                jobSizeInfo.put(aliveNode, size);
-            }
-        }
-        return jobSizeInfo;
+    public NodeAssigner getJobNodeAssigner(int jobSize, int scheduleType) {
+        return jobPartitioner.getBatchJobAssigner(scheduleType, jobSize);
     }
 
     /**
@@ -234,29 +228,12 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         try {
             return RetryUtil.executeWithRetry(() -> {
                 Long curMinJobId = minJobId;
-                if (jobWaitForSave.size() > 0) {
-                    this.saveBatch(jobWaitForSave);
-                    if (Objects.isNull(minJobId)) {
-                        curMinJobId = jobWaitForSave.stream().map(ScheduleJob::getId).min(Long::compareTo).orElse(null);
-                    }
-
-                    // 插入扩展数据
-                    List<ScheduleJobExpand> scheduleJobExpandList = ScheduleJobMapStruct.INSTANCE.scheduleJobTOScheduleJobExpand(jobWaitForSave);
-                    scheduleJobExpandService.saveBatch(scheduleJobExpandList);
-                    jobWaitForSave.clear();
-                }
-                if (jobJobWaitForSave.size() > 0) {
-                    if (jobJobWaitForSave.size() > jobJobSize) {
-                        List<List<ScheduleJobJob>> partition = Lists.partition(jobJobWaitForSave, jobJobSize);
-                        for (List<ScheduleJobJob> scheduleJobJobs : partition) {
-                            scheduleJobJobService.saveBatch(scheduleJobJobs);
-                            jobJobWaitForSave.removeAll(scheduleJobJobs);
-                        }
-                    } else {
-                        scheduleJobJobService.saveBatch(jobJobWaitForSave);
-                    }
-                    jobJobWaitForSave.clear();
+                insertJobs(jobWaitForSave, jobJobWaitForSave, jobJobSize);
+                if (Objects.isNull(minJobId)) {
+                    curMinJobId = jobWaitForSave.stream().map(ScheduleJob::getId).filter(Objects::nonNull).min(Long::compareTo).orElse(null);
                 }
+                jobWaitForSave.clear();
+                jobJobWaitForSave.clear();
                 return curMinJobId;
             }, environmentContext.getBuildJobErrorRetry(), 200, false);
         } catch (Exception e) {
@@ -272,6 +249,24 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         }
     }
 
+    /**
+     * 多值批量插入实例、扩展信息和实例依赖
+     *
+     * @param jobWaitForSave    实例
+     * @param jobJobWaitForSave 实例依赖
+     * @param jobJobSize        每条insert语句的实例依赖数
+     */
+    private void insertJobs(List<ScheduleJob> jobWaitForSave, List<ScheduleJobJob> jobJobWaitForSave, int jobJobSize) {
+        for (List<ScheduleJob> scheduleJobs : Lists.partition(jobWaitForSave, environmentContext.getBatchInsertSize())) {
+            this.baseMapper.insertBatch(scheduleJobs);
+            // 插入扩展数据
+            scheduleJobExpandService.insertBatch(ScheduleJobMapStruct.INSTANCE.scheduleJobTOScheduleJobExpand(scheduleJobs));
+        }
+        for (List<ScheduleJobJob> scheduleJobJobs : Lists.partition(jobJobWaitForSave, jobJobSize)) {
+            scheduleJobJobService.insertBatch(scheduleJobJobs);
+        }
+    }
+
     /**
      * 更新实例状态和版本
      *
@@ -322,7 +317,15 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
      */
     public Integer updateJobStatusAndExecTime(String jobId, Integer status) {
         if (StringUtils.isNotBlank(jobId) && status != null) {
-            return this.baseMapper.updateJobStatusAndExecTime(jobId, status);
+            if (isJournalStatus(status)) {
+                jobStateJournal.putStatus(jobId, status, true);
+                publishStatus(Lists.newArrayList(jobId), status);
+                return 1;
+            }
+            jobStateJournal.discardStatus(jobId);
+            Integer count = this.baseMapper.updateJobStatusAndExecTime(jobId, status);
+            publishStatus(Lists.newArrayList(jobId), status);
+            return count;
         }
         return 0;
     }
@@ -337,6 +340,10 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         if (StringUtils.isBlank(jobId)) {
             return null;
         }
+        Integer journalStatus = jobStateJournal.getStatus(jobId);
+        if (journalStatus != null) {
+            return journalStatus;
+        }
         ScheduleJob scheduleJob = this.lambdaQuery().eq(ScheduleJob::getJobId, jobId).eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()).one();
 
         if (scheduleJob == null) {
@@ -392,8 +399,8 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
      * @return 实例
      */
     public ScheduleJob getByJobId(String jobId) {
-        return this.baseMapper
-                .selectOne(Wrappers.lambdaQuery(ScheduleJob.class).eq(ScheduleJob::getJobId, jobId));
+        return jobStateJournal.overlay(this.baseMapper
+                .selectOne(Wrappers.lambdaQuery(ScheduleJob.class).eq(ScheduleJob::getJobId, jobId)));
     }
 
     /**
@@ -403,8 +410,10 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
      * @return 实例
      */
     public List<ScheduleJob> getByJobIds(List<String> jobIds) {
-        return this.baseMapper
+        List<ScheduleJob> scheduleJobs = this.baseMapper
                 .selectList(Wrappers.lambdaQuery(ScheduleJob.class).in(ScheduleJob::getJobId, jobIds));
+        scheduleJobs.forEach(jobStateJournal::overlay);
+        return scheduleJobs;
     }
 
     /**
@@ -417,9 +426,14 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         if (null == scheduleJob || StringUtils.isBlank(scheduleJob.getJobId())) {
             return 0;
         }
-        return this.baseMapper.update(scheduleJob,
+        if (null != scheduleJob.getStatus()) {
+            jobStateJournal.discardStatus(scheduleJob.getJobId());
+        }
+        int count = this.baseMapper.update(scheduleJob,
                 Wrappers.lambdaQuery(ScheduleJob.class)
                         .eq(ScheduleJob::getJobId, scheduleJob.getJobId()));
+        publishStatus(Lists.newArrayList(scheduleJob.getJobId()), scheduleJob.getStatus());
+        return count;
     }
 
     /**
@@ -467,7 +481,7 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
      */
     @Transactional(rollbackFor = Exception.class)
     public void jobFail(String jobId, Integer status, String generateErrorMsg) {
-        updateStatus(jobId, status);
+        updateStatusDirectly(jobId, status);
         updateExpandByJobId(jobId, null, generateErrorMsg);
     }
 
@@ -482,8 +496,13 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         ScheduleJob scheduleJob = new ScheduleJob();
         scheduleJob.setStatus(status);
         scheduleJob.setPhaseStatus(phaseStatus);
-        return this.baseMapper.update(scheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
+        if (null != status) {
+            jobIds.forEach(jobStateJournal::discardStatus);
+        }
+        int count = this.baseMapper.update(scheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
                 .in(ScheduleJob::getJobId, jobIds));
+        publishStatus(jobIds, status);
+        return count;
     }
 
     /**
@@ -518,6 +537,18 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         this.baseMapper.update(scheduleJob, updateWrapper);
     }
 
+    /**
+     * 批量更新提交成功的实例
+     *
+     * @param scheduleJobs 实例，只使用 jobId、engineJobId、applicationId
+     */
+    public void updateJobSubmitSuccessBatch(List<ScheduleJob> scheduleJobs) {
+        if (CollectionUtils.isEmpty(scheduleJobs)) {
+            return;
+        }
+        this.baseMapper.updateJobSubmitSuccessBatch(scheduleJobs);
+    }
+
     /**
      * 更新状态
      *
@@ -525,11 +556,45 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
      * @param status 状态
      */
     public void updateStatus(String jobId, Integer status) {
+        if (isJournalStatus(status)) {
+            jobStateJournal.putStatus(jobId, status, false);
+            publishStatus(Lists.newArrayList(jobId), status);
+            return;
+        }
+        updateStatusDirectly(jobId, status);
+    }
+
+    /**
+     * 只有未结束的状态延迟写入，结束状态之后会删除 engine_job_cache，必须先落库，否则节点宕机后实例一直是运行中
+     */
+    private boolean isJournalStatus(Integer status) {
+        return jobStateJournal.isEnabled() && !TaskStatus.getStoppedStatus().contains(status);
+    }
+
+    /**
+     * 直接写入状态，丢弃延迟写入日志中还未写入的状态
+     *
+     * @param jobId  实例id
+     * @param status 状态
+     */
+    private void updateStatusDirectly(String jobId, Integer status) {
+        jobStateJournal.discardStatus(jobId);
         ScheduleJob updateScheduleJob = new ScheduleJob();
         updateScheduleJob.setJobId(jobId);
         updateScheduleJob.setStatus(status);
         this.baseMapper.update(updateScheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
                 .eq(ScheduleJob::getJobId, jobId));
+        publishStatus(Lists.newArrayList(jobId), status);
+    }
+
+    /**
+     * 状态写入后发布事件，依赖索引据此释放等待该实例的下游实例
+     *
+     * @param jobIds 实例id
+     * @param status 状态，为空时不发布
+     */
+    private void publishStatus(List<String> jobIds, Integer status) {
+        ScheduleJobEventPublisher.getInstance().publishBatchEvent(new ScheduleJobBatchEvent(jobIds, status));
     }
 
     /**
@@ -569,14 +634,53 @@ public class ScheduleJobService extends ServiceImpl<ScheduleJobMapper, ScheduleJ
         return ScheduleJobMapStruct.INSTANCE.scheduleJobTOSimpleScheduleJobDTO(simpleScheduleJobPOS);
     }
 
+    /**
+     * 容灾迁移实例到目标节点，只迁移还在原节点的实例
+     *
+     * @param nodeAddress    目标节点
+     * @param oldNodeAddress 宕机节点
+     * @param ids            实例的记录id
+     * @return 迁移的实例数
+     */
+    public int updateNodeAddressFailover(String nodeAddress, String oldNodeAddress, List<Long> ids) {
+        if (CollectionUtils.isEmpty(ids)) {
+            return 0;
+        }
+        Integer count = this.baseMapper.updateNodeAddressFailover(nodeAddress, oldNodeAddress, ids);
+        return count == null ? 0 : count;
+    }
+
     public void updateStatusWithExecTime(ScheduleJob job) {
         ScheduleJob updateScheduleJob = new ScheduleJob();
         updateScheduleJob.setExecStartTime(job.getExecStartTime());
         updateScheduleJob.setExecEndTime(job.getExecEndTime());
         updateScheduleJob.setExecTime(job.getExecTime());
         updateScheduleJob.setStatus(job.getStatus());
+        jobStateJournal.discardStatus(job.getJobId());
         this.baseMapper.update(updateScheduleJob, Wrappers.lambdaQuery(ScheduleJob.class)
                 .eq(ScheduleJob::getJobId, job.getJobId()));
+        publishStatus(Lists.newArrayList(job.getJobId()), job.getStatus());
+    }
+
+    /**
+     * 批量查询已经存在的实例key
+     *
+     * @param jobKeys 实例key
+     * @return 存在的实例key
+     */
+    public Set<String> listExistJobKeys(Collection<String> jobKeys) {
+        Set<String> existJobKeys = new HashSet<>();
+        if (CollectionUtils.isEmpty(jobKeys)) {
+            return existJobKeys;
+        }
+        for (List<String> partitionJobKeys : Lists.partition(new ArrayList<>(jobKeys), environmentContext.getBatchInsertSize())) {
+            this.baseMapper.selectList(Wrappers.lambdaQuery(ScheduleJob.class)
+                            .select(ScheduleJob::getJobKey)
+                            .in(ScheduleJob::getJobKey, partitionJobKeys)
+                            .eq(ScheduleJob::getIsDeleted, Deleted.NORMAL.getStatus()))
+                    .forEach(scheduleJob -> existJobKeys.add(scheduleJob.getJobKey()));
+        }
+        return existJobKeys;
     }
 
     /**
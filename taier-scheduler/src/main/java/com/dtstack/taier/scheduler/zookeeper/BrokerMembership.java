@@ -0,0 +1,230 @@
+package com.dtstack.taier.scheduler.zookeeper;
+
+import com.dtstack.taier.pluginapi.CustomThreadFactory;
+import com.dtstack.taier.scheduler.zookeeper.data.BrokerHeartNode;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.curator.framework.CuratorFramework;
+import org.apache.curator.framework.recipes.cache.ChildData;
+import org.apache.curator.framework.recipes.cache.TreeCache;
+import org.apache.curator.framework.recipes.cache.TreeCacheEvent;
+import org.apache.curator.utils.ZKPaths;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Date: 2026/10/17 10:50 PM
+ * @Description: 基于 TreeCache 的节点成员视图
+ * <p>
+ * 监听 brokers 下每个节点的 heart 节点，本地记录心跳 seq 最近一次变化的时间，
+ * alive=true 且心跳在超时时间内有变化的节点认为存活，超时判断在本地定时执行，不再访问 zk。
+ * 存活节点变化时通知 BrokerMembershipListener。
+ * 缓存还未初始化完成或者与 zk 断开连接时 {@link #isAvailable()} 为 false，调用方需要直接查询 zk
+ */
+public class BrokerMembership implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BrokerMembership.class);
+
+    private static final String HEART_NODE = "heart";
+
+    private static final long CHECK_INTERVAL = 1000;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final String brokersNode;
+
+    private final long aliveTimeout;
+
+    private final TreeCache treeCache;
+
+    private final List<BrokerMembershipListener> listeners;
+
+    private final ScheduledExecutorService scheduledService;
+
+    /**
+     * key: 节点地址
+     */
+    private final Map<String, Member> members = new ConcurrentHashMap<>();
+
+    private volatile List<String> aliveBrokers = Collections.emptyList();
+
+    private volatile boolean initialized = false;
+
+    private volatile boolean connected = true;
+
+    /**
+     * @param listeners 由调用方持有，启动前后添加的 listener 都会收到通知
+     */
+    public BrokerMembership(CuratorFramework zkClient, String brokersNode, long aliveTimeout, List<BrokerMembershipListener> listeners) {
+        this.brokersNode = brokersNode;
+        this.aliveTimeout = aliveTimeout;
+        this.listeners = listeners;
+        this.treeCache = TreeCache.newBuilder(zkClient, brokersNode)
+                .setMaxDepth(2)
+                .setCacheData(true)
+                .build();
+        this.scheduledService = new ScheduledThreadPoolExecutor(1, new CustomThreadFactory(this.getClass().getSimpleName()));
+    }
+
+    public void start() throws Exception {
+        treeCache.getListenable().addListener((client, event) -> onEvent(event));
+        treeCache.start();
+        scheduledService.scheduleWithFixedDelay(this::refreshQuietly, CHECK_INTERVAL, CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isAvailable() {
+        return initialized && connected;
+    }
+
+    public List<String> getBrokers() {
+        return new ArrayList<>(members.keySet());
+    }
+
+    public List<String> getAliveBrokers() {
+        return new ArrayList<>(aliveBrokers);
+    }
+
+    /**
+     * 缓存中的心跳节点，不存在时返回 null
+     */
+    public BrokerHeartNode getBrokerHeartNode(String broker) {
+        Member member = members.get(broker);
+        return member == null ? null : member.heartNode;
+    }
+
+    private void onEvent(TreeCacheEvent event) {
+        switch (event.getType()) {
+            case NODE_ADDED:
+            case NODE_UPDATED:
+                updateNode(event.getData());
+                break;
+            case NODE_REMOVED:
+                removeNode(event.getData());
+                break;
+            case INITIALIZED:
+                initialized = true;
+                LOGGER.info("broker membership initialized, brokers:{}", members.keySet());
+                break;
+            case CONNECTION_SUSPENDED:
+            case CONNECTION_LOST:
+                connected = false;
+                LOGGER.warn("broker membership {}, fallback to read zk directly", event.getType());
+                break;
+            case CONNECTION_RECONNECTED:
+                // 断开期间收不到心跳，重新计算超时时间
+                long now = System.currentTimeMillis();
+                members.values().forEach(member -> member.seqChangeTime = now);
+                connected = true;
+                LOGGER.info("broker membership reconnected");
+                break;
+            default:
+                break;
+        }
+        refreshQuietly();
+    }
+
+    private void updateNode(ChildData data) {
+        if (data == null || brokersNode.equals(data.getPath())) {
+            return;
+        }
+        List<String> nodes = ZKPaths.split(data.getPath().substring(brokersNode.length()));
+        Member member = members.computeIfAbsent(nodes.get(0), k -> new Member());
+        if (nodes.size() != 2 || !HEART_NODE.equals(nodes.get(1)) || data.getData() == null) {
+            return;
+        }
+        try {
+            BrokerHeartNode heartNode = OBJECT_MAPPER.readValue(data.getData(), BrokerHeartNode.class);
+            BrokerHeartNode previous = member.heartNode;
+            if (previous == null || !Objects.equals(previous.getSeq(), heartNode.getSeq())
+                    || !Objects.equals(previous.getAlive(), heartNode.getAlive())) {
+                member.seqChangeTime = System.currentTimeMillis();
+            }
+            member.heartNode = heartNode;
+        } catch (Exception e) {
+            LOGGER.error("{}:parse broker heart node error", data.getPath(), e);
+        }
+    }
+
+    private void removeNode(ChildData data) {
+        if (data == null || brokersNode.equals(data.getPath())) {
+            return;
+        }
+        List<String> nodes = ZKPaths.split(data.getPath().substring(brokersNode.length()));
+        if (nodes.size() == 1) {
+            members.remove(nodes.get(0));
+        } else if (HEART_NODE.equals(nodes.get(1))) {
+            Member member = members.get(nodes.get(0));
+            if (member != null) {
+                member.heartNode = null;
+            }
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (Throwable e) {
+            LOGGER.error("refresh broker membership error", e);
+        }
+    }
+
+    private synchronized void refresh() {
+        if (!isAvailable()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        List<String> alives = Lists.newArrayList();
+        for (Map.Entry<String, Member> entry : members.entrySet()) {
+            if (entry.getValue().isAlive(now, aliveTimeout)) {
+                alives.add(entry.getKey());
+            }
+        }
+        Collections.sort(alives);
+        if (alives.equals(aliveBrokers)) {
+            return;
+        }
+        Set<String> joined = Sets.difference(new HashSet<>(alives), new HashSet<>(aliveBrokers)).immutableCopy();
+        Set<String> left = Sets.difference(new HashSet<>(aliveBrokers), new HashSet<>(alives)).immutableCopy();
+        aliveBrokers = Collections.unmodifiableList(alives);
+        LOGGER.warn("alive brokers changed:{}, joined:{}, left:{}", alives, joined, left);
+        for (BrokerMembershipListener listener : listeners) {
+            try {
+                listener.onChange(aliveBrokers, joined, left);
+            } catch (Exception e) {
+                LOGGER.error("notify {} broker membership change error", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduledService.shutdownNow();
+        treeCache.close();
+    }
+
+    private static class Member {
+
+        private volatile BrokerHeartNode heartNode;
+
+        private volatile long seqChangeTime = System.currentTimeMillis();
+
+        private boolean isAlive(long now, long aliveTimeout) {
+            BrokerHeartNode heart = heartNode;
+            return heart != null && Boolean.TRUE.equals(heart.getAlive()) && now - seqChangeTime <= aliveTimeout;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.dtstack.taier.scheduler.zookeeper;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * @Date: 2026/10/17 10:50 PM
+ * @Description: 存活节点变化的回调，在 BrokerMembership 的事件线程中执行，不能阻塞
+ */
+public interface BrokerMembershipListener {
+
+    /**
+     * @param aliveBrokers 当前存活的节点
+     * @param joined       新加入存活的节点
+     * @param left         不再存活的节点
+     */
+    void onChange(List<String> aliveBrokers, Set<String> joined, Set<String> left);
+}
@@ -49,6 +49,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -85,6 +86,10 @@ public class ZkService implements InitializingBean, DisposableBean {
      */
     private List<Listener> listeners = Lists.newArrayList();
 
+    private BrokerMembership brokerMembership;
+
+    private final List<BrokerMembershipListener> membershipListeners = new CopyOnWriteArrayList<>();
+
     @Autowired
     private EnvironmentContext environmentContext;
 
@@ -178,10 +183,16 @@ public class ZkService implements InitializingBean, DisposableBean {
         // 初始化分布式锁节点
         createNodeIfNotExists(this.lockNode, null);
         createLocalBrokerHeartNode();
+        initBrokerMembership();
         initScheduledExecutorService();
         LOGGER.warn("init zk server success...");
     }
 
+    private void initBrokerMembership() throws Exception {
+        brokerMembership = new BrokerMembership(zkClient, brokersNode, environmentContext.getBrokerAliveTimeout(), membershipListeners);
+        brokerMembership.start();
+    }
+
     private void initScheduledExecutorService() throws Exception {
         listeners.add(new HeartBeatListener(this));
         String latchPath = String.format("%s/%s", this.distributeRootNode, "masterLatchLock");
@@ -253,7 +264,21 @@ public class ZkService implements InitializingBean, DisposableBean {
         return BrokerHeartNode.initNullBrokerHeartNode();
     }
 
+    /**
+     * 缓存的心跳节点，缓存不可用时查询 zk
+     */
+    public BrokerHeartNode getCachedBrokerHeartNode(String node) {
+        if (isMembershipAvailable()) {
+            BrokerHeartNode brokerHeartNode = brokerMembership.getBrokerHeartNode(node);
+            return brokerHeartNode == null ? BrokerHeartNode.initNullBrokerHeartNode() : brokerHeartNode;
+        }
+        return getBrokerHeartNode(node);
+    }
+
     public List<String> getBrokersChildren() {
+        if (isMembershipAvailable()) {
+            return brokerMembership.getBrokers();
+        }
         try {
             return zkClient.getChildren().forPath(this.brokersNode);
         } catch (Exception e) {
@@ -263,6 +288,9 @@ public class ZkService implements InitializingBean, DisposableBean {
     }
 
     public List<String> getAliveBrokersChildren() {
+        if (isMembershipAvailable()) {
+            return brokerMembership.getAliveBrokers();
+        }
         List<String> alives = Lists.newArrayList();
         try {
             if (null != zkClient) {
@@ -281,6 +309,23 @@ public class ZkService implements InitializingBean, DisposableBean {
         return alives;
     }
 
+    /**
+     * 成员视图是否可用，不可用时(如与 zk 断开)订阅的存活节点可能已经过期
+     */
+    public boolean isMembershipAvailable() {
+        return brokerMembership != null && brokerMembership.isAvailable();
+    }
+
+    /**
+     * 订阅存活节点的变化，订阅时成员视图已经可用则立即通知一次当前的存活节点
+     */
+    public void addBrokerMembershipListener(BrokerMembershipListener listener) {
+        membershipListeners.add(listener);
+        if (isMembershipAvailable()) {
+            listener.onChange(brokerMembership.getAliveBrokers(), Collections.emptySet(), Collections.emptySet());
+        }
+    }
+
     public List<Map<String, Object>> getAllBrokerWorkersNode() {
         List<Map<String, Object>> allWorkers = new ArrayList<>();
         List<String> children = this.getBrokersChildren();
@@ -311,6 +356,9 @@ public class ZkService implements InitializingBean, DisposableBean {
     @Override
     public void destroy() throws Exception {
         disableBrokerHeartNode(this.localAddress, false);
+        if (brokerMembership != null) {
+            brokerMembership.close();
+        }
         for (Listener listener : listeners) {
             try {
                 listener.close();
@@ -0,0 +1,138 @@
+package com.dtstack.taier.scheduler.jobdealer.cache;
+
+import com.dtstack.taier.common.enums.EJobCacheStage;
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.dao.domain.ScheduleEngineJobCache;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.mapper.ScheduleEngineJobCacheMapper;
+import com.dtstack.taier.dao.mapper.ScheduleJobMapper;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class JobStateJournalTest {
+
+    @Mock
+    private EnvironmentContext environmentContext;
+
+    @Mock
+    private ScheduleJobMapper scheduleJobMapper;
+
+    @Mock
+    private ScheduleEngineJobCacheMapper scheduleEngineJobCacheMapper;
+
+    @InjectMocks
+    private JobStateJournal jobStateJournal;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(environmentContext.isJobStateJournalEnabled()).thenReturn(true);
+        Mockito.when(environmentContext.getJobStateJournalBatchSize()).thenReturn(500);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCollapseAndFlush() {
+        for (int i = 0; i < 1000; i++) {
+            String jobId = "job" + i;
+            jobStateJournal.putStage(jobId, EJobCacheStage.PRIORITY.getStage(), "node1", i, null);
+            jobStateJournal.putStage(jobId, EJobCacheStage.LACKING.getStage(), "node1", i, "lacking");
+            jobStateJournal.putStage(jobId, EJobCacheStage.PRIORITY.getStage(), "node1", i, null);
+            jobStateJournal.putStage(jobId, EJobCacheStage.SUBMITTED.getStage(), "node1", i, null);
+            jobStateJournal.putStatus(jobId, TaskStatus.WAITENGINE.getStatus(), false);
+            jobStateJournal.putStatus(jobId, TaskStatus.SUBMITTED.getStatus(), false);
+            jobStateJournal.putStatus(jobId, TaskStatus.RUNNING.getStatus(), false);
+            jobStateJournal.putStatus(jobId, TaskStatus.FINISHED.getStatus(), i % 2 == 0);
+        }
+        Assert.assertEquals(TaskStatus.FINISHED.getStatus(), jobStateJournal.getStatus("job1"));
+        ScheduleEngineJobCache engineJobCache = new ScheduleEngineJobCache();
+        engineJobCache.setJobId("job1");
+        jobStateJournal.overlay(engineJobCache);
+        Assert.assertEquals(EJobCacheStage.SUBMITTED.getStage(), engineJobCache.getStage().intValue());
+        // 后面的变更没有 waitReason 时保留之前的
+        Assert.assertEquals("lacking", engineJobCache.getWaitReason());
+
+        jobStateJournal.flush();
+
+        Assert.assertEquals(0, jobStateJournal.getPendingSize());
+        Assert.assertNull(jobStateJournal.getStatus("job1"));
+        Assert.assertEquals(8000, jobStateJournal.getChangeCount());
+        Assert.assertEquals(2000, jobStateJournal.getWriteRowCount());
+        // 逐条写入时每次变更一条语句，合并后每个批次每张表最多两条
+        Assert.assertEquals(6, jobStateJournal.getWriteStatementCount());
+
+        ArgumentCaptor<List> execTimeJobs = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(scheduleJobMapper, Mockito.times(2)).updateJobStatusBatch(Mockito.anyList());
+        Mockito.verify(scheduleJobMapper, Mockito.times(2)).updateJobStatusAndExecTimeBatch(execTimeJobs.capture());
+        Mockito.verify(scheduleEngineJobCacheMapper, Mockito.times(2)).updateStageByJobIdBatch(Mockito.anyList());
+        for (List<ScheduleJob> jobs : (List<List<ScheduleJob>>) (List) execTimeJobs.getAllValues()) {
+            for (ScheduleJob job : jobs) {
+                Assert.assertEquals(TaskStatus.FINISHED.getStatus(), job.getStatus());
+                Assert.assertNotNull(job.getExecEndTime());
+            }
+        }
+    }
+
+    @Test
+    public void testFlushFailAndDiscard() {
+        Mockito.when(scheduleJobMapper.updateJobStatusBatch(Mockito.anyList())).thenThrow(new RuntimeException("db down"));
+        jobStateJournal.putStatus("job1", TaskStatus.RUNNING.getStatus(), false);
+        jobStateJournal.putStatus("job2", TaskStatus.RUNNING.getStatus(), false);
+
+        jobStateJournal.flush();
+        Assert.assertEquals(2, jobStateJournal.getPendingSize());
+        Assert.assertEquals(1, jobStateJournal.getFlushFailCount());
+
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setJobId("job1");
+        scheduleJob.setStatus(TaskStatus.SUBMITTED.getStatus());
+        Assert.assertEquals(TaskStatus.RUNNING.getStatus(), jobStateJournal.overlay(scheduleJob).getStatus());
+
+        jobStateJournal.discardStatus("job1");
+        Assert.assertNull(jobStateJournal.getStatus("job1"));
+        Assert.assertEquals(1, jobStateJournal.getPendingSize());
+    }
+
+    @Test
+    public void testDiscardWaitFlush() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Mockito.when(scheduleJobMapper.updateJobStatusBatch(Mockito.anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return 1;
+        });
+        jobStateJournal.putStatus("job1", TaskStatus.RUNNING.getStatus(), false);
+        Thread flushThread = new Thread(jobStateJournal::flush);
+        flushThread.start();
+        Assert.assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // 正在写入的批次已经取到 job1，丢弃要等写入结束，之后的直接写入才不会被旧状态覆盖
+        AtomicBoolean discarded = new AtomicBoolean(false);
+        Thread discardThread = new Thread(() -> {
+            jobStateJournal.discardStatus("job1");
+            discarded.set(true);
+        });
+        discardThread.start();
+        discardThread.join(200);
+        Assert.assertFalse(discarded.get());
+
+        release.countDown();
+        discardThread.join(5000);
+        flushThread.join(5000);
+        Assert.assertTrue(discarded.get());
+        Assert.assertEquals(0, jobStateJournal.getPendingSize());
+    }
+}
@@ -0,0 +1,85 @@
+package com.dtstack.taier.scheduler.server.action.fill;
+
+import com.google.common.collect.Sets;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+public class FillDataDagTest {
+
+    @Test
+    public void testDiamond() {
+        // 1 -> 2 -> 4 -> 5 -> 7
+        // 1 -> 3 -> 4 -> 6
+        FillDataDag dag = FillDataDag.builder()
+                .addEdge(1L, 2L).addEdge(1L, 3L).addEdge(2L, 4L).addEdge(3L, 4L)
+                .addEdge(4L, 5L).addEdge(4L, 6L).addEdge(5L, 7L)
+                .build();
+        Assert.assertEquals(Sets.newHashSet(1L, 2L, 3L, 4L, 5L), dag.getAllList(Sets.newHashSet(1L, 5L)));
+        // 8 不在图中
+        Assert.assertEquals(Sets.newHashSet(2L, 4L, 6L, 8L), dag.getAllList(Sets.newHashSet(2L, 6L, 8L)));
+        Assert.assertEquals(Sets.newHashSet(3L, 4L, 5L, 7L), dag.getAllList(Sets.newHashSet(3L, 7L)));
+        Assert.assertEquals(Sets.newHashSet(6L, 7L), dag.getAllList(Sets.newHashSet(6L, 7L)));
+    }
+
+    @Test
+    public void testRandomDag() {
+        Random random = new Random(7);
+        int size = 200;
+        List<List<Integer>> children = new ArrayList<>();
+        FillDataDag.Builder builder = FillDataDag.builder();
+        for (int i = 0; i < size; i++) {
+            children.add(new ArrayList<>());
+            builder.addTask((long) i);
+        }
+        for (int i = 0; i < size * 3; i++) {
+            int parent = random.nextInt(size - 1);
+            int child = parent + 1 + random.nextInt(Math.min(20, size - parent - 1));
+            children.get(parent).add(child);
+            builder.addEdge((long) parent, (long) child);
+        }
+        FillDataDag dag = builder.build();
+
+        for (int round = 0; round < 20; round++) {
+            Set<Long> run = new HashSet<>();
+            for (int i = 0; i < 10; i++) {
+                run.add((long) random.nextInt(size));
+            }
+            Set<Long> expected = new HashSet<>(run);
+            for (int node = 0; node < size; node++) {
+                boolean fromRun = false;
+                boolean toRun = false;
+                for (Long r : run) {
+                    fromRun |= reachable(children, r.intValue(), node);
+                    toRun |= reachable(children, node, r.intValue());
+                }
+                if (fromRun && toRun) {
+                    expected.add((long) node);
+                }
+            }
+            Assert.assertEquals(expected, dag.getAllList(run));
+        }
+    }
+
+    private static boolean reachable(List<List<Integer>> children, int from, int to) {
+        Deque<Integer> stack = new ArrayDeque<>(children.get(from));
+        Set<Integer> visited = new HashSet<>();
+        while (!stack.isEmpty()) {
+            int node = stack.pop();
+            if (node == to) {
+                return true;
+            }
+            if (visited.add(node)) {
+                stack.addAll(children.get(node));
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,158 @@
+package com.dtstack.taier.scheduler.server.action.restart;
+
+import com.dtstack.taier.common.enums.EScheduleJobType;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DownstreamJobCollectorTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DownstreamJobCollectorTest.class);
+
+    private static final int LEVEL = 10;
+
+    private static final int WIDTH = 5000;
+
+    private static final int BATCH_SIZE = 1000;
+
+    @Test
+    public void testCollectLargeGraph() {
+        // 10 层，每层 5000 个实例，每个实例依赖上一层的 3 个实例
+        InMemoryCollector collector = new InMemoryCollector(60000);
+        List<ScheduleJob> roots = collector.buildGraph();
+
+        long startTime = System.currentTimeMillis();
+        Map<String, String> results = collector.collect(roots, false);
+        LOGGER.info("result:{} queries:{} cost:{}ms", results.size(), collector.queries.get(), System.currentTimeMillis() - startTime);
+        // 1 ~ 9 层 + 工作流的 3 个子任务 + 环回到的 job_0_0，不包含第二天的实例
+        Assert.assertEquals((LEVEL - 1) * WIDTH + 3 + 1, results.size());
+        Assert.assertTrue(results.containsKey("job_0_0"));
+        Assert.assertFalse(results.containsKey("job_0_1"));
+        Assert.assertTrue(results.containsKey("flow_2"));
+        Assert.assertEquals("20221001000000", results.get("job_9_4999"));
+        Assert.assertFalse(results.keySet().stream().anyMatch(jobId -> jobId.startsWith("next_")));
+        // 每层 3 次查询，每次最多 1000 个
+        Assert.assertTrue(collector.queries.get() <= (LEVEL + 1) * 3 * (WIDTH / BATCH_SIZE + 1));
+    }
+
+    @Test
+    public void testCollectNextChild() {
+        InMemoryCollector collector = new InMemoryCollector(60000);
+        List<ScheduleJob> roots = collector.buildGraph();
+        Map<String, String> results = collector.collect(roots, true);
+        Assert.assertEquals(WIDTH + 3, results.size());
+        Assert.assertTrue(results.keySet().stream().allMatch(jobId -> jobId.startsWith("job_1_") || jobId.startsWith("flow_")));
+
+        // 超时返回 null
+        Assert.assertNull(new InMemoryCollector(-1).collect(roots, false));
+    }
+
+    private static class InMemoryCollector extends DownstreamJobCollector {
+
+        private final Map<String, ScheduleJob> jobs = new HashMap<>();
+
+        private final Map<String, String> jobKeys = new HashMap<>();
+
+        private final Map<String, List<ScheduleJobJob>> jobJobs = new HashMap<>();
+
+        private final Map<String, List<ScheduleJob>> flowJobs = new HashMap<>();
+
+        private final AtomicInteger queries = new AtomicInteger();
+
+        private InMemoryCollector(long timeoutMillis) {
+            super(null, null, BATCH_SIZE, timeoutMillis);
+        }
+
+        private List<ScheduleJob> buildGraph() {
+            List<ScheduleJob> roots = new ArrayList<>();
+            for (int level = 0; level < LEVEL; level++) {
+                for (int i = 0; i < WIDTH; i++) {
+                    ScheduleJob job = addJob("job_" + level + "_" + i, level * WIDTH + i, "20221001000000");
+                    if (level == 0) {
+                        roots.add(job);
+                    } else {
+                        for (int j = 0; j < 3; j++) {
+                            addJobJob(jobKeys.get("job_" + (level - 1) + "_" + ((i * 7 + j) % WIDTH)), job.getJobKey());
+                        }
+                    }
+                    // 自依赖和第二天的下游都要排除
+                    addJobJob(job.getJobKey(), job.getJobKey());
+                    addJobJob(job.getJobKey(), addJob("next_" + level + "_" + i, LEVEL * WIDTH + level * WIDTH + i, "20221002000000").getJobKey());
+                }
+            }
+            // 环
+            addJobJob(jobKeys.get("job_9_0"), jobKeys.get("job_0_0"));
+            // 工作流的子任务
+            ScheduleJob workFlow = jobs.get(jobKeys.get("job_0_1"));
+            workFlow.setTaskType(EScheduleJobType.WORK_FLOW.getType());
+            for (int i = 0; i < 3; i++) {
+                ScheduleJob flowJob = addJob("flow_" + i, 2 * LEVEL * WIDTH + i, "20221001000000");
+                flowJob.setFlowJobId(workFlow.getJobId());
+                flowJobs.computeIfAbsent(workFlow.getJobId(), k -> new ArrayList<>()).add(flowJob);
+                addJobJob(workFlow.getJobKey(), flowJob.getJobKey());
+            }
+            return roots;
+        }
+
+        private ScheduleJob addJob(String jobId, long taskShadeId, String cycTime) {
+            ScheduleJob job = new ScheduleJob();
+            job.setJobId(jobId);
+            job.setJobKey("cronTrigger_" + taskShadeId + "_" + cycTime);
+            job.setCycTime(cycTime);
+            job.setTaskType(EScheduleJobType.SPARK_SQL.getType());
+            job.setFlowJobId("0");
+            jobs.put(job.getJobKey(), job);
+            jobKeys.put(jobId, job.getJobKey());
+            return job;
+        }
+
+        private void addJobJob(String parentJobKey, String jobKey) {
+            ScheduleJobJob jobJob = new ScheduleJobJob();
+            jobJob.setParentJobKey(parentJobKey);
+            jobJob.setJobKey(jobKey);
+            jobJobs.computeIfAbsent(parentJobKey, k -> new ArrayList<>()).add(jobJob);
+        }
+
+        @Override
+        protected List<ScheduleJobJob> listJobJobByParentJobKeys(List<String> parentJobKeys) {
+            return query(parentJobKeys, jobJobs);
+        }
+
+        @Override
+        protected List<ScheduleJob> listJobByFlowJobIds(List<String> flowJobIds) {
+            return query(flowJobIds, flowJobs);
+        }
+
+        @Override
+        protected List<ScheduleJob> listJobByJobKeys(List<String> jobKeys) {
+            Assert.assertTrue(jobKeys.size() <= BATCH_SIZE);
+            queries.incrementAndGet();
+            List<ScheduleJob> list = new ArrayList<>();
+            for (String jobKey : jobKeys) {
+                if (jobs.containsKey(jobKey)) {
+                    list.add(jobs.get(jobKey));
+                }
+            }
+            return list;
+        }
+
+        private <T> List<T> query(List<String> keys, Map<String, List<T>> values) {
+            Assert.assertTrue(keys.size() <= BATCH_SIZE);
+            queries.incrementAndGet();
+            List<T> list = new ArrayList<>();
+            for (String key : keys) {
+                list.addAll(values.getOrDefault(key, new ArrayList<>()));
+            }
+            return list;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.dtstack.taier.scheduler.server.builder;
+
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.domain.ScheduleJobJob;
+import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import com.google.common.collect.Lists;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class JobGraphPersistPipelineTest {
+
+    @Test
+    public void testPersistAllJobsByNodeRatio() throws Exception {
+        Map<String, AtomicInteger> nodeCount = new ConcurrentHashMap<>();
+        AtomicInteger jobJobCount = new AtomicInteger();
+        ScheduleJobService scheduleJobService = new ScheduleJobService() {
+            @Override
+            public void insertJobBatch(List<ScheduleJob> jobWaitForSave, List<ScheduleJobJob> jobJobWaitForSave) {
+                Assert.assertTrue(jobWaitForSave.size() <= 100);
+                for (ScheduleJob scheduleJob : jobWaitForSave) {
+                    nodeCount.computeIfAbsent(scheduleJob.getNodeAddress(), k -> new AtomicInteger()).incrementAndGet();
+                }
+                jobJobCount.addAndGet(jobJobWaitForSave.size());
+            }
+        };
+
+        Map<String, Integer> nodeJobSize = new LinkedHashMap<>();
+        nodeJobSize.put("node1", 3);
+        nodeJobSize.put("node2", 1);
+        // 队列已经超过平均值的节点
+        nodeJobSize.put("node3", -5);
+        JobGraphPersistPipeline pipeline = new JobGraphPersistPipeline("test", scheduleJobService, nodeJobSize, 3, 50, 100, 1);
+
+        for (int i = 0; i < 1000; i++) {
+            ScheduleJobDetails flowBean = details();
+            ScheduleJobDetails scheduleJobDetails = details();
+            scheduleJobDetails.setFlowBean(Lists.newArrayList(flowBean));
+            pipeline.put(Lists.newArrayList(scheduleJobDetails));
+        }
+        pipeline.finish();
+
+        Assert.assertEquals(0, pipeline.getFailCount());
+        Assert.assertEquals(1500, nodeCount.get("node1").get());
+        Assert.assertEquals(500, nodeCount.get("node2").get());
+        Assert.assertNull(nodeCount.get("node3"));
+        Assert.assertEquals(2000, jobJobCount.get());
+    }
+
+    @Test
+    public void testKeepTaskJobsInOneBatchAndRetryFailed() throws Exception {
+        Map<Long, AtomicInteger> taskInsertCount = new ConcurrentHashMap<>();
+        ScheduleJobService scheduleJobService = new ScheduleJobService() {
+            @Override
+            public void insertJobBatch(List<ScheduleJob> jobWaitForSave, List<ScheduleJobJob> jobJobWaitForSave) {
+                Map<Long, Integer> taskJobCount = new HashMap<>();
+                jobWaitForSave.forEach(scheduleJob -> taskJobCount.merge(scheduleJob.getTaskId(), 1, Integer::sum));
+                // 一个任务的实例不拆分
+                taskJobCount.values().forEach(count -> Assert.assertEquals(5, count.intValue()));
+                // 多个任务的批次和任务 3 写入失败
+                if (taskJobCount.size() > 1 || taskJobCount.containsKey(3L)) {
+                    throw new RuntimeException("insert failed");
+                }
+                taskJobCount.keySet().forEach(taskId -> taskInsertCount.computeIfAbsent(taskId, k -> new AtomicInteger()).incrementAndGet());
+            }
+        };
+
+        Map<String, Integer> nodeJobSize = new LinkedHashMap<>();
+        nodeJobSize.put("node1", 1);
+        JobGraphPersistPipeline pipeline = new JobGraphPersistPipeline("test", scheduleJobService, nodeJobSize, 1, 8, 8, 1);
+        for (long taskId = 1; taskId <= 10; taskId++) {
+            // 工作流实例带 4 个子实例
+            ScheduleJobDetails scheduleJobDetails = details(taskId);
+            List<ScheduleJobDetails> flowBean = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                flowBean.add(details(taskId));
+            }
+            scheduleJobDetails.setFlowBean(flowBean);
+            pipeline.put(Lists.newArrayList(scheduleJobDetails));
+        }
+        pipeline.finish();
+
+        // 失败的批次按任务重新写入，只有任务 3 的实例没有写入
+        Assert.assertEquals(5, pipeline.getFailCount());
+        Assert.assertEquals(9, taskInsertCount.size());
+        Assert.assertNull(taskInsertCount.get(3L));
+        taskInsertCount.values().forEach(count -> Assert.assertEquals(1, count.get()));
+    }
+
+    private ScheduleJobDetails details(Long taskId) {
+        ScheduleJobDetails scheduleJobDetails = details();
+        scheduleJobDetails.getScheduleJob().setTaskId(taskId);
+        return scheduleJobDetails;
+    }
+
+    private ScheduleJobDetails details() {
+        ScheduleJobDetails scheduleJobDetails = new ScheduleJobDetails();
+        scheduleJobDetails.setScheduleJob(new ScheduleJob());
+        scheduleJobDetails.setJobJobList(Lists.newArrayList(new ScheduleJobJob()));
+        return scheduleJobDetails;
+    }
+}
@@ -0,0 +1,59 @@
+package com.dtstack.taier.scheduler.server.builder.cron;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class ScheduleCornTest {
+
+    private static final String[] CRONS = {
+            "0 30 1 * * ?",
+            "0 0/5 0-23 * * ?",
+            "0 15 0-23/2 * * ?",
+            "0 10 20-4/3 * * ?",
+            "0 0 8 ? * 1,3,5",
+            "0 0 8 ? * 2-6",
+            "0 20 6 1,15,31 * ?",
+            "0 0 0 L * ?",
+            "0 0 12 ? * MON-FRI",
+            "10,40 */7 3-5 * 2,3 ? *",
+            "0 0 1 ? * 6#3",
+    };
+
+    @Test
+    public void testFireTimesSameAsStepping() throws Exception {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        Date[][] ranges = {
+                {format.parse("2022-01-01 00:00:00"), format.parse("2022-01-01 23:59:59")},
+                {format.parse("2022-02-27 07:13:00"), format.parse("2022-03-02 18:00:59")},
+                {format.parse("2022-12-25 00:00:00"), format.parse("2023-01-10 23:59:59")},
+        };
+
+        for (String cron : CRONS) {
+            ScheduleCorn corn = new ScheduleCorn();
+            corn.setCron(cron);
+            for (Date[] range : ranges) {
+                Assert.assertEquals(cron, stepping(corn, range[0], range[1]), corn.fireTimes(range[0], range[1]));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledCronShared() {
+        Assert.assertSame(CompiledCron.compile("0 30 1 * * ?"), CompiledCron.compile("0 30 1 * * ?"));
+    }
+
+    private List<Date> stepping(ScheduleCorn corn, Date start, Date end) {
+        List<Date> fireTimes = new ArrayList<>();
+        Date next = corn.isMatch(start) ? start : corn.next(start);
+        while (next != null && !next.after(end)) {
+            fireTimes.add(next);
+            next = corn.next(next);
+        }
+        return fireTimes;
+    }
+}
@@ -0,0 +1,103 @@
+package com.dtstack.taier.scheduler.server.failover;
+
+import com.dtstack.taier.scheduler.server.partition.ConsistentHashRing;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class FailoverRedistributorTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FailoverRedistributorTest.class);
+
+    @Test
+    public void testApplyAllJobsInBatches() {
+        // 宕机节点 node_0 上的 100000 个实例迁移到其他 4 个节点
+        Map<String, Integer> capacities = new HashMap<>();
+        for (int i = 1; i < 5; i++) {
+            capacities.put("node_" + i, 1);
+        }
+        ConsistentHashRing ring = new ConsistentHashRing(capacities, 160);
+        Map<String, List<String>> nodeJobs = new HashMap<>();
+        for (int i = 0; i < 100000; i++) {
+            String jobId = "job_" + i;
+            nodeJobs.computeIfAbsent(ring.assign(jobId), k -> new ArrayList<>()).add(jobId);
+        }
+
+        Map<String, String> moved = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        FailoverRedistributor redistributor = new FailoverRedistributor(4, 500);
+        try {
+            long startTime = System.currentTimeMillis();
+            int count = redistributor.apply(nodeJobs, (nodeAddress, batch) -> {
+                Assert.assertTrue(batch.size() <= 500);
+                threads.add(Thread.currentThread().getName());
+                for (String jobId : batch) {
+                    Assert.assertNull(moved.put(jobId, nodeAddress));
+                }
+                return batch.size();
+            });
+            LOGGER.info("moved:{} threads:{} cost:{}ms", count, threads.size(), System.currentTimeMillis() - startTime);
+            Assert.assertEquals(100000, count);
+            Assert.assertEquals(100000, moved.size());
+            Assert.assertEquals(100000, redistributor.getMovedCount());
+            Assert.assertFalse(moved.containsValue("node_0"));
+        } finally {
+            redistributor.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchFailNotAffectOthers() {
+        Map<String, List<String>> nodeJobs = new HashMap<>();
+        nodeJobs.put("node_1", Arrays.asList("job_1", "job_2", "job_3"));
+        nodeJobs.put("node_2", Arrays.asList("job_4", "job_5"));
+        FailoverRedistributor redistributor = new FailoverRedistributor(2, 2);
+        try {
+            int count = redistributor.apply(nodeJobs, (nodeAddress, batch) -> {
+                if (batch.contains("job_3")) {
+                    throw new RuntimeException("mock update error");
+                }
+                return batch.size();
+            });
+            Assert.assertEquals(4, count);
+            Assert.assertEquals(1, redistributor.getFailCount());
+        } finally {
+            redistributor.shutdown();
+        }
+    }
+
+    @Test
+    public void testNotifyNodesConcurrently() {
+        List<String> nodes = Arrays.asList("node_1", "node_2", "node_3", "node_4");
+        // 每个通知都要等到所有节点开始通知才结束，串行通知会超时
+        CountDownLatch started = new CountDownLatch(nodes.size());
+        Set<String> notified = ConcurrentHashMap.newKeySet();
+        FailoverRedistributor redistributor = new FailoverRedistributor(4, 500);
+        try {
+            redistributor.notifyNodes(nodes, node -> {
+                started.countDown();
+                try {
+                    if (started.await(5, TimeUnit.SECONDS)) {
+                        notified.add(node);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, 10000);
+            Assert.assertEquals(nodes.size(), notified.size());
+        } finally {
+            redistributor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.dtstack.taier.scheduler.server.partition;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ConsistentHashRingTest {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConsistentHashRingTest.class);
+
+    private static final int KEY_SIZE = 100000;
+
+    private static final int VIRTUAL_NODES = 160;
+
+    private static final int[] NODE_SIZES = {3, 5, 10, 20, 50};
+
+    @Test
+    public void testMovedKeysWhenNodeJoinOrLeave() {
+        for (int nodeSize : NODE_SIZES) {
+            Map<String, String> before = assignAll(new ConsistentHashRing(capacities(nodeSize), VIRTUAL_NODES));
+
+            // 加入一个节点，只有分配到新节点的 key 移动
+            Map<String, String> joined = assignAll(new ConsistentHashRing(capacities(nodeSize + 1), VIRTUAL_NODES));
+            int joinMoved = 0;
+            for (Map.Entry<String, String> entry : joined.entrySet()) {
+                if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                    Assert.assertEquals(node(nodeSize), entry.getValue());
+                    joinMoved++;
+                }
+            }
+
+            // 移除一个节点，只有原来在该节点的 key 移动
+            Map<String, Integer> leftCapacities = capacities(nodeSize);
+            leftCapacities.remove(node(0));
+            Map<String, String> left = assignAll(new ConsistentHashRing(leftCapacities, VIRTUAL_NODES));
+            int leaveMoved = 0;
+            for (Map.Entry<String, String> entry : left.entrySet()) {
+                if (!entry.getValue().equals(before.get(entry.getKey()))) {
+                    Assert.assertEquals(node(0), before.get(entry.getKey()));
+                    leaveMoved++;
+                }
+            }
+
+            double joinRatio = (double) joinMoved / KEY_SIZE;
+            double leaveRatio = (double) leaveMoved / KEY_SIZE;
+            double skew = skew(before, nodeSize);
+            LOGGER.info("nodes:{} join moved:{} ({}) leave moved:{} ({}) expect:{} skew(max/avg):{}",
+                    nodeSize, joinMoved, format(joinRatio), leaveMoved, format(leaveRatio),
+                    format(1.0 / (nodeSize + 1)), format(skew));
+            Assert.assertTrue(joinRatio <= 2.0 / (nodeSize + 1));
+            Assert.assertTrue(leaveRatio <= 2.0 / nodeSize);
+            Assert.assertTrue(skew < 1.3);
+        }
+    }
+
+    @Test
+    public void testAssignByCapacity() {
+        Map<String, Integer> capacities = capacities(4);
+        capacities.put(node(0), 2);
+        Map<String, Integer> count = new HashMap<>();
+        for (String node : assignAll(new ConsistentHashRing(capacities, VIRTUAL_NODES)).values()) {
+            count.merge(node, 1, Integer::sum);
+        }
+        double otherAvg = (count.get(node(1)) + count.get(node(2)) + count.get(node(3))) / 3.0;
+        double ratio = count.get(node(0)) / otherAvg;
+        LOGGER.info("capacity 2 node ratio:{}", format(ratio));
+        Assert.assertTrue(ratio > 1.7 && ratio < 2.3);
+    }
+
+    @Test
+    public void testSameKeySameNode() {
+        ConsistentHashRing ring = new ConsistentHashRing(capacities(10), VIRTUAL_NODES);
+        ConsistentHashRing rebuild = new ConsistentHashRing(new TreeMap<>(capacities(10)), VIRTUAL_NODES);
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertEquals(ring.assign("job_" + i), rebuild.assign("job_" + i));
+        }
+    }
+
+    @Test
+    public void testStrategyReuseRing() {
+        ConsistentHashPartitionStrategy strategy = new ConsistentHashPartitionStrategy("node_0=3", VIRTUAL_NODES);
+        ConsistentHashRing ring = strategy.getRing(Arrays.asList("node_1", "node_0"));
+        Assert.assertSame(ring, strategy.getRing(Arrays.asList("node_0", "node_1")));
+        Assert.assertEquals(Integer.valueOf(3), ring.getNodeCapacities().get("node_0"));
+        Assert.assertNotSame(ring, strategy.getRing(Arrays.asList("node_0")));
+    }
+
+    private static Map<String, String> assignAll(ConsistentHashRing ring) {
+        Map<String, String> assigned = new HashMap<>(KEY_SIZE * 2);
+        for (int i = 0; i < KEY_SIZE; i++) {
+            String key = "job_" + i;
+            assigned.put(key, ring.assign(key));
+        }
+        return assigned;
+    }
+
+    private static double skew(Map<String, String> assigned, int nodeSize) {
+        Map<String, Integer> count = new HashMap<>();
+        for (String node : assigned.values()) {
+            count.merge(node, 1, Integer::sum);
+        }
+        int max = count.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        return max / ((double) KEY_SIZE / nodeSize);
+    }
+
+    private static Map<String, Integer> capacities(int nodeSize) {
+        Map<String, Integer> capacities = new HashMap<>();
+        for (int i = 0; i < nodeSize; i++) {
+            capacities.put(node(i), 1);
+        }
+        return capacities;
+    }
+
+    private static String node(int i) {
+        return "node_" + i;
+    }
+
+    private static String format(double value) {
+        return String.format("%.4f", value);
+    }
+}
@@ -0,0 +1,52 @@
+package com.dtstack.taier.scheduler.server.pipeline;
+
+import com.dtstack.taier.common.enums.EParamType;
+import com.dtstack.taier.dao.dto.ScheduleTaskParamShade;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+public class JobParamReplaceTest {
+
+    private static final String CYC_TIME = "20221001000000";
+
+    private static ScheduleTaskParamShade param(EParamType type, String name, String command) {
+        ScheduleTaskParamShade param = new ScheduleTaskParamShade();
+        param.setTaskId(1L);
+        param.setType(type.getType());
+        param.setParamName(name);
+        param.setParamCommand(command);
+        return param;
+    }
+
+    @Test
+    public void testParamReplace() {
+        List<ScheduleTaskParamShade> params = Arrays.asList(
+                param(EParamType.SYS_TYPE, "bdp.system.bizdate", "yyyyMMdd-1"),
+                param(EParamType.CUSTOMIZE_TYPE, "month", "$[add_months(yyyyMM,-1)]"),
+                param(EParamType.CUSTOMIZE_TYPE, "month", "$[yyyyMMdd]"),
+                param(EParamType.COMPONENT, "queue", "root.default"),
+                param(EParamType.CUSTOMIZE_TYPE, "unused", "$[illegal"));
+        String sql = "select '${bdp.system.bizdate}', '${month}', '${a${month}}', '$${month}', '@@@{queue}', '${queue}', '${other}', '${month";
+        String expected = "select '20220930', '202209', '${a202209}', '$202209', '@root.default', '${queue}', '${other}', '${month";
+        Assert.assertEquals(expected, JobParamReplace.paramReplace(sql, params, CYC_TIME));
+
+        Timestamp version = new Timestamp(System.currentTimeMillis());
+        Assert.assertEquals(expected, JobParamReplace.paramReplace(sql, params, CYC_TIME, 1L, version));
+        // 命中缓存
+        Assert.assertEquals(expected, JobParamReplace.paramReplace(sql, params, CYC_TIME, 1L, version));
+        Assert.assertEquals("select 20220930", JobParamReplace.paramReplace("select ${bdp.system.bizdate}", params, CYC_TIME, 1L, version));
+    }
+
+    @Test
+    public void testValueContainsPlaceholder() {
+        // 参数值里还有占位符时，后面的参数继续替换
+        List<ScheduleTaskParamShade> params = Arrays.asList(
+                param(EParamType.COMPONENT, "path", "/data/${bizdate}"),
+                param(EParamType.CUSTOMIZE_TYPE, "bizdate", "$[yyyyMMdd-1]"));
+        Assert.assertEquals("load '/data/20220930'", JobParamReplace.paramReplace("load '@@{path}'", params, CYC_TIME));
+    }
+}
@@ -0,0 +1,48 @@
+package com.dtstack.taier.scheduler.server.pipeline;
+
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class PipelineBuilderTest {
+
+    private static final String PIPELINE_CONFIG = "{\"params\":[\"uploadPath\",\"file\",\"jobId\"],"
+            + "\"operator\":[{\"launch-cmd\":[\"replace\",\"base64\"]},{\"exeArgs\":[\"replace\"]}]}";
+
+    @Test
+    public void testCompiledPipeline() throws Exception {
+        IPipeline pipeline = PipelineBuilder.buildPipeline(PIPELINE_CONFIG);
+        Assert.assertSame(pipeline, PipelineBuilder.buildPipeline(PIPELINE_CONFIG));
+        Assert.assertSame(PipelineBuilder.buildDefaultSqlPipeline(), PipelineBuilder.buildDefaultSqlPipeline());
+        Assert.assertNull(PipelineBuilder.buildPipeline("{\"params\":[\"unknown\"]}"));
+
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setJobId("job1");
+        scheduleJob.setCycTime("20221001000000");
+        AtomicBoolean upload = new AtomicBoolean();
+        Map<String, Object> pipelineParam = PipelineBuilder.getPipelineInitMap(PIPELINE_CONFIG, scheduleJob, null, Collections.emptyList(), map -> {
+            upload.set(true);
+            // 已经上传过时 UploadParamPipeline 直接使用
+            map.put("uploadPath", "hdfs://ns/taier/job1.sql");
+        });
+        Assert.assertTrue(upload.get());
+
+        Map<String, Object> actionParam = new HashMap<>();
+        actionParam.put("exeArgs", "-file ${file} -jobId ${jobId}");
+        actionParam.put("launch-cmd", "run ${uploadPath}");
+        pipeline.execute(actionParam, pipelineParam);
+        Assert.assertEquals("-file job1.sql -jobId job1", actionParam.get("exeArgs"));
+        Assert.assertEquals("cnVuIGhkZnM6Ly9ucy90YWllci9qb2IxLnNxbA==", actionParam.get("launch-cmd"));
+        Assert.assertFalse(actionParam.containsKey(IPipeline.AbstractPipeline.scheduleJobKey));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testImmutable() {
+        PipelineBuilder.buildDefaultSqlPipeline().setNextPipeline(null);
+    }
+}
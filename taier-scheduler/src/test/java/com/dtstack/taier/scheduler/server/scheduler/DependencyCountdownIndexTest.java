@@ -0,0 +1,109 @@
+package com.dtstack.taier.scheduler.server.scheduler;
+
+import com.dtstack.taier.common.env.EnvironmentContext;
+import com.dtstack.taier.dao.domain.ScheduleJob;
+import com.dtstack.taier.dao.mapper.ScheduleJobMapper;
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.scheduler.jobdealer.cache.JobStateJournal;
+import com.dtstack.taier.scheduler.server.ScheduleJobDetails;
+import com.dtstack.taier.scheduler.service.ScheduleJobService;
+import com.google.common.collect.Lists;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class DependencyCountdownIndexTest {
+
+    @Mock
+    private EnvironmentContext environmentContext;
+
+    @Mock
+    private ScheduleJobMapper scheduleJobMapper;
+
+    @Mock
+    private JobStateJournal jobStateJournal;
+
+    @InjectMocks
+    private DependencyCountdownIndex dependencyCountdownIndex;
+
+    private ScheduleJobService scheduleJobService;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(environmentContext.getJobDependencyIndexSize()).thenReturn(1000);
+        Mockito.when(environmentContext.getJobDependencyReconcileInterval()).thenReturn(60000L);
+        Mockito.when(jobStateJournal.isEnabled()).thenReturn(true);
+        dependencyCountdownIndex.afterPropertiesSet();
+
+        scheduleJobService = new ScheduleJobService();
+        ReflectionTestUtils.setField(scheduleJobService, "baseMapper", scheduleJobMapper);
+        ReflectionTestUtils.setField(scheduleJobService, "jobStateJournal", jobStateJournal);
+    }
+
+    @After
+    public void tearDown() {
+        dependencyCountdownIndex.destroy();
+    }
+
+    @Test
+    public void testParentStoppedReleaseChild() throws Exception {
+        String parent1 = "parent1_" + System.nanoTime();
+        String parent2 = "parent2_" + System.nanoTime();
+        ScheduleJobDetails child = buildJobDetails("child_" + System.nanoTime());
+        String childJobId = child.getScheduleJob().getJobId();
+
+        Assert.assertTrue(dependencyCountdownIndex.await(child, Lists.newArrayList(parent1, parent2)));
+        Assert.assertTrue(dependencyCountdownIndex.isWaiting(childJobId));
+
+        scheduleJobService.updateJobStatusAndExecTime(parent1, TaskStatus.FINISHED.getStatus());
+        Assert.assertTrue(dependencyCountdownIndex.isWaiting(childJobId));
+        Assert.assertEquals(TaskStatus.FINISHED.getStatus(), dependencyCountdownIndex.getTerminalStatus(parent1));
+
+        // 非结束状态不释放
+        scheduleJobService.updateStatus(parent2, TaskStatus.RUNNING.getStatus());
+        Assert.assertTrue(dependencyCountdownIndex.isWaiting(childJobId));
+
+        scheduleJobService.updateJobStatusAndExecTime(parent2, TaskStatus.FAILED.getStatus());
+        Assert.assertFalse(dependencyCountdownIndex.isWaiting(childJobId));
+        ScheduleJobDetails ready = dependencyCountdownIndex.takeReady();
+        Assert.assertEquals(childJobId, ready.getScheduleJob().getJobId());
+
+        // 结束状态直接写库，不经过日志
+        Mockito.verify(jobStateJournal).putStatus(parent2, TaskStatus.RUNNING.getStatus(), false);
+        Mockito.verify(jobStateJournal, Mockito.never()).putStatus(Mockito.anyString(), Mockito.eq(TaskStatus.FINISHED.getStatus()), Mockito.anyBoolean());
+        Mockito.verify(scheduleJobMapper).updateJobStatusAndExecTime(parent1, TaskStatus.FINISHED.getStatus());
+        Mockito.verify(scheduleJobMapper).updateJobStatusAndExecTime(parent2, TaskStatus.FAILED.getStatus());
+    }
+
+    @Test
+    public void testParentStoppedBeforeAwait() throws Exception {
+        String parent = "parent_" + System.nanoTime();
+        ScheduleJobDetails child = buildJobDetails("child_" + System.nanoTime());
+
+        scheduleJobService.updateJobStatusByJobIds(Lists.newArrayList(parent), TaskStatus.MANUALSUCCESS.getStatus(), null);
+        // 父实例已经结束，登记时直接就绪
+        Assert.assertTrue(dependencyCountdownIndex.await(child, Lists.newArrayList(parent)));
+        Assert.assertFalse(dependencyCountdownIndex.isWaiting(child.getScheduleJob().getJobId()));
+        Assert.assertEquals(0, dependencyCountdownIndex.waitingSize());
+        Assert.assertEquals(child, dependencyCountdownIndex.takeReady());
+
+        // 重跑后清除结束状态
+        scheduleJobService.updateJobStatusByJobIds(Lists.newArrayList(parent), TaskStatus.UNSUBMIT.getStatus(), null);
+        Assert.assertNull(dependencyCountdownIndex.getTerminalStatus(parent));
+    }
+
+    private ScheduleJobDetails buildJobDetails(String jobId) {
+        ScheduleJob scheduleJob = new ScheduleJob();
+        scheduleJob.setJobId(jobId);
+        ScheduleJobDetails scheduleJobDetails = new ScheduleJobDetails();
+        scheduleJobDetails.setScheduleJob(scheduleJob);
+        return scheduleJobDetails;
+    }
+}
@@ -24,7 +24,11 @@ import com.dtstack.taier.pluginapi.enums.TaskStatus;
 import com.dtstack.taier.pluginapi.pojo.*;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -42,6 +46,29 @@ public interface IClient {
 
     TaskStatus getJobStatus(JobIdentifier jobIdentifier) throws IOException;
 
+    /**
+     * 批量获取任务状态，默认逐个调用 getJobStatus，可以批量查询的插件覆盖此方法
+     *
+     * @param jobIdentifiers 任务标识
+     * @return key: jobId, value: 任务状态
+     */
+    default Map<String, TaskStatus> getJobStatuses(Collection<JobIdentifier> jobIdentifiers) throws IOException {
+        Map<String, TaskStatus> statuses = new HashMap<>(jobIdentifiers.size() * 2);
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            statuses.put(jobIdentifier.getJobId(), getJobStatus(jobIdentifier));
+        }
+        return statuses;
+    }
+
+    /**
+     * 插件内部的统计，客户端创建后按返回的 key 注册为 gauge，采集时调用，不能阻塞
+     *
+     * @return key: 指标名(不含前缀)，同一个插件返回的 key 固定
+     */
+    default Map<String, Number> getMetrics() {
+        return Collections.emptyMap();
+    }
+
 	String getJobMaster(JobIdentifier jobIdentifier);
 
 	String getMessageByHttp(String path);
@@ -21,7 +21,6 @@ package com.dtstack.taier.base.resource;
 import com.dtstack.taier.pluginapi.pojo.JudgeResult;
 import com.google.common.collect.Lists;
 import org.apache.commons.collections.CollectionUtils;
-import org.apache.hadoop.yarn.api.records.ApplicationReport;
 import org.apache.hadoop.yarn.api.records.NodeReport;
 import org.apache.hadoop.yarn.api.records.NodeState;
 import org.apache.hadoop.yarn.api.records.QueueInfo;
@@ -35,7 +34,6 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 /**
@@ -161,40 +159,14 @@ public abstract class AbstractYarnResourceInfo implements EngineResourceInfo {
 
     public JudgeResult getYarnSlots(YarnClient yarnClient, String queueName, int yarnAccepterTaskNumber) {
         try {
-            EnumSet<YarnApplicationState> enumSet = EnumSet.noneOf(YarnApplicationState.class);
-            enumSet.add(YarnApplicationState.ACCEPTED);
-            List<ApplicationReport> acceptedApps = yarnClient.getApplications(enumSet).stream().
-                    filter(report -> report.getQueue().endsWith(queueName)).collect(Collectors.toList());
-            if (acceptedApps.size() > yarnAccepterTaskNumber) {
-                logger.info("queueName:{} acceptedApps:{} >= yarnAccepterTaskNumber:{}", queueName, acceptedApps.size(), yarnAccepterTaskNumber);
-                return JudgeResult.notOk( "queueName:" + queueName + " acceptedApps:" + acceptedApps.size() + " >= yarnAccepterTaskNumber:" + yarnAccepterTaskNumber);
-            }
-
-            List<NodeReport> nodeReports = yarnClient.getNodeReports(NodeState.RUNNING);
-            if (!elasticCapacity) {
-                getQueueRemainCapacity(1, queueName, yarnClient.getRootQueueInfos());
-            }
-            for (NodeReport report : nodeReports) {
-                Resource capability = report.getCapability();
-                Resource used = report.getUsed();
-                int totalMem = capability.getMemory();
-                int totalCores = capability.getVirtualCores();
-
-                int usedMem = used.getMemory();
-                int usedCores = used.getVirtualCores();
-
-                int freeCores = totalCores - usedCores;
-                int freeMem = totalMem - usedMem;
-
-                if (freeCores > containerCoreMax) {
-                    containerCoreMax = freeCores;
-                }
-                if (freeMem > containerMemoryMax) {
-                    containerMemoryMax = freeMem;
-                }
-                this.addNodeResource(new NodeResourceDetail(report.getNodeId().toString(), totalCores, usedCores, freeCores, totalMem, usedMem, freeMem));
+            long createTime = System.currentTimeMillis();
+            int acceptedApps = countAcceptedApps(yarnClient, queueName);
+            if (acceptedApps > yarnAccepterTaskNumber) {
+                logger.info("queueName:{} acceptedApps:{} >= yarnAccepterTaskNumber:{}", queueName, acceptedApps, yarnAccepterTaskNumber);
+                return JudgeResult.notOk( "queueName:" + queueName + " acceptedApps:" + acceptedApps + " >= yarnAccepterTaskNumber:" + yarnAccepterTaskNumber);
             }
 
+            loadNodeResources(yarnClient, queueName);
             calc();
             return JudgeResult.ok();
         } catch (IOException | YarnException e) {
@@ -202,6 +174,96 @@ public abstract class AbstractYarnResourceInfo implements EngineResourceInfo {
         }
     }
 
+    /**
+     * 通过资源台账判断：ResourceManager 快照按间隔刷新，扣减其他任务的预留资源后再判断，通过后为任务预留资源
+     */
+    protected JudgeResult judgeYarnResource(YarnResourceLedger resourceLedger, String jobId, YarnClient yarnClient, String queueName,
+                                            int yarnAccepterTaskNumber, List<InstanceInfo> instanceInfos) {
+        return resourceLedger.admit(jobId, queueName, yarnAccepterTaskNumber, instanceInfos, this, yarnClient);
+    }
+
+    /**
+     * 请求 ResourceManager 生成队列的资源快照
+     */
+    YarnResourceLedger.Snapshot takeSnapshot(YarnClient yarnClient, String queueName) {
+        try {
+            long createTime = System.currentTimeMillis();
+            int acceptedApps = countAcceptedApps(yarnClient, queueName);
+            nodeResources = Lists.newArrayList();
+            containerCoreMax = 0;
+            containerMemoryMax = 0;
+            loadNodeResources(yarnClient, queueName);
+            return new YarnResourceLedger.Snapshot(createTime, acceptedApps, nodeResources, capacity, queueCapacity, containerCoreMax, containerMemoryMax);
+        } catch (IOException | YarnException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * 从快照恢复资源信息
+     */
+    void restoreSnapshot(YarnResourceLedger.Snapshot snapshot) {
+        nodeResources = Lists.newArrayList(snapshot.nodeResources);
+        capacity = snapshot.capacity;
+        queueCapacity = snapshot.queueCapacity;
+        containerCoreMax = snapshot.containerCoreMax;
+        containerMemoryMax = snapshot.containerMemoryMax;
+        totalFreeCore = 0;
+        totalFreeMem = 0;
+        totalCore = 0;
+        totalMem = 0;
+        calc();
+    }
+
+    /**
+     * 扣减已经预留的资源，快照可能已经包含了部分预留任务的资源，节点上不够扣减时忽略
+     */
+    void deductResource(List<InstanceInfo> instanceInfos) {
+        for (InstanceInfo instanceInfo : instanceInfos) {
+            for (int i = 0; i < instanceInfo.instances; i++) {
+                allocateResource(nmFreeCore, instanceInfo.coresPerInstance);
+                allocateResource(nmFreeMem, instanceInfo.memPerInstance);
+            }
+            totalFreeCore = Math.max(totalFreeCore - instanceInfo.instances * instanceInfo.coresPerInstance, 0);
+            totalFreeMem = Math.max(totalFreeMem - instanceInfo.instances * instanceInfo.memPerInstance, 0);
+        }
+    }
+
+    private int countAcceptedApps(YarnClient yarnClient, String queueName) throws IOException, YarnException {
+        EnumSet<YarnApplicationState> enumSet = EnumSet.noneOf(YarnApplicationState.class);
+        enumSet.add(YarnApplicationState.ACCEPTED);
+        return (int) yarnClient.getApplications(enumSet).stream()
+                .filter(report -> report.getQueue().endsWith(queueName))
+                .count();
+    }
+
+    private void loadNodeResources(YarnClient yarnClient, String queueName) throws IOException, YarnException {
+        List<NodeReport> nodeReports = yarnClient.getNodeReports(NodeState.RUNNING);
+        if (!elasticCapacity) {
+            getQueueRemainCapacity(1, queueName, yarnClient.getRootQueueInfos());
+        }
+        for (NodeReport report : nodeReports) {
+            Resource capability = report.getCapability();
+            Resource used = report.getUsed();
+            int totalMem = capability.getMemory();
+            int totalCores = capability.getVirtualCores();
+
+            int usedMem = used.getMemory();
+            int usedCores = used.getVirtualCores();
+
+            int freeCores = totalCores - usedCores;
+            int freeMem = totalMem - usedMem;
+
+            if (freeCores > containerCoreMax) {
+                containerCoreMax = freeCores;
+            }
+            if (freeMem > containerMemoryMax) {
+                containerMemoryMax = freeMem;
+            }
+            this.addNodeResource(new NodeResourceDetail(report.getNodeId().toString(), totalCores, usedCores, freeCores, totalMem, usedMem, freeMem));
+        }
+    }
+
     private float getQueueRemainCapacity(float coefficient, String queueName, List<QueueInfo> queueInfos) {
         float capacity = 0;
         for (QueueInfo queueInfo : queueInfos) {
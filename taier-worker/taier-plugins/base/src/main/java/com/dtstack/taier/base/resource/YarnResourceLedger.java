@@ -0,0 +1,307 @@
+package com.dtstack.taier.base.resource;
+
+import com.dtstack.taier.pluginapi.enums.TaskStatus;
+import com.dtstack.taier.pluginapi.pojo.JudgeResult;
+import org.apache.hadoop.yarn.client.api.YarnClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @Date: 2026/10/17 9:30 PM
+ * @Description: yarn 资源台账
+ * <p>
+ * 每个插件客户端(即每个集群)持有一个，按队列缓存 ResourceManager 的资源快照，快照超过刷新间隔时才重新请求 ResourceManager。
+ * 准入时在快照上扣减已预留的任务资源后再判断，通过后为当前任务预留资源；
+ * 任务 RUNNING 后资源会体现在之后生成的快照中，预留保留到生成更新的快照时再释放，避免在旧快照上重复分配；
+ * 任务失败或提交失败后资源不再需要，直接释放预留；没有被释放的预留超时后自动失效。
+ * 预留数、快照时间和拒绝次数通过 {@link #getMetrics()} 由插件客户端导出
+ */
+public class YarnResourceLedger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(YarnResourceLedger.class);
+
+    public static final long DEFAULT_SNAPSHOT_INTERVAL = 10 * 1000L;
+
+    public static final long DEFAULT_RESERVATION_TIMEOUT = 10 * 60 * 1000L;
+
+    private static final String ACCEPTED_LIMIT = "ACCEPTED_LIMIT";
+
+    private final long snapshotInterval;
+
+    private final long reservationTimeout;
+
+    private final Map<String, QueueLedger> queueLedgers = new ConcurrentHashMap<>();
+
+    /**
+     * key: jobId, value: 预留资源所在的队列
+     */
+    private final Map<String, String> reservedQueues = new ConcurrentHashMap<>();
+
+    /**
+     * key: 拒绝原因, value: 拒绝次数
+     */
+    private final Map<String, LongAdder> rejections = new ConcurrentHashMap<>();
+
+    public YarnResourceLedger() {
+        this(DEFAULT_SNAPSHOT_INTERVAL, DEFAULT_RESERVATION_TIMEOUT);
+    }
+
+    public YarnResourceLedger(long snapshotInterval, long reservationTimeout) {
+        this.snapshotInterval = snapshotInterval;
+        this.reservationTimeout = reservationTimeout;
+    }
+
+    /**
+     * 判断队列资源是否满足任务，满足时为任务预留资源
+     *
+     * @param resourceInfo 计算资源使用的 resourceInfo，快照过期时通过它请求 ResourceManager
+     */
+    public JudgeResult admit(String jobId, String queueName, int yarnAccepterTaskNumber,
+                             List<AbstractYarnResourceInfo.InstanceInfo> instanceInfos,
+                             AbstractYarnResourceInfo resourceInfo, YarnClient yarnClient) {
+        QueueLedger queueLedger = queueLedgers.computeIfAbsent(queueName, QueueLedger::new);
+        synchronized (queueLedger) {
+            long now = System.currentTimeMillis();
+            queueLedger.expireReservations(now);
+            // 同一个任务重复判断时(如资源不足后重新判断)先释放之前的预留
+            queueLedger.reservations.remove(jobId);
+
+            if (queueLedger.snapshot == null || now - queueLedger.snapshot.createTime >= snapshotInterval) {
+                queueLedger.snapshot = resourceInfo.takeSnapshot(yarnClient, queueName);
+                queueLedger.removeRunningBefore(queueLedger.snapshot.createTime);
+                LOGGER.info("queueName:{} refresh yarn resource snapshot, acceptedApps:{} nodes:{} reservations:{} rejections:{}",
+                        queueName, queueLedger.snapshot.acceptedApps, queueLedger.snapshot.nodeResources.size(),
+                        queueLedger.reservations.size(), getRejections());
+            }
+
+            Snapshot snapshot = queueLedger.snapshot;
+            int acceptedApps = snapshot.acceptedApps + queueLedger.countReservedAfter(snapshot.createTime);
+            if (acceptedApps > yarnAccepterTaskNumber) {
+                reject(ACCEPTED_LIMIT);
+                return JudgeResult.notOk("queueName:" + queueName + " acceptedApps:" + acceptedApps + " >= yarnAccepterTaskNumber:" + yarnAccepterTaskNumber);
+            }
+
+            resourceInfo.restoreSnapshot(snapshot);
+            for (Reservation reservation : queueLedger.reservations.values()) {
+                resourceInfo.deductResource(reservation.instanceInfos);
+            }
+            JudgeResult judgeResult = resourceInfo.judgeYarnResource(instanceInfos);
+            if (judgeResult.available()) {
+                queueLedger.reservations.put(jobId, new Reservation(instanceInfos, now));
+                reservedQueues.put(jobId, queueName);
+            } else {
+                reject(judgeResult.getResult().name());
+            }
+            return judgeResult;
+        }
+    }
+
+    /**
+     * 根据任务状态释放预留：已经结束的任务直接释放，RUNNING 的任务等到生成更新的快照时释放
+     */
+    public void release(String jobId, TaskStatus taskStatus) {
+        if (taskStatus == null) {
+            return;
+        }
+        if (TaskStatus.STOPPED_STATUS.contains(taskStatus.getStatus())) {
+            release(jobId);
+        } else if (TaskStatus.RUNNING == taskStatus) {
+            running(jobId);
+        }
+    }
+
+    /**
+     * 任务已经运行，当前快照还没有包含它占用的资源，保留预留直到生成更新的快照
+     */
+    private void running(String jobId) {
+        String queueName = reservedQueues.get(jobId);
+        QueueLedger queueLedger = queueName == null ? null : queueLedgers.get(queueName);
+        if (queueLedger == null) {
+            return;
+        }
+        synchronized (queueLedger) {
+            Reservation reservation = queueLedger.reservations.get(jobId);
+            if (reservation != null && reservation.runningTime == 0L) {
+                reservation.runningTime = System.currentTimeMillis();
+            }
+        }
+    }
+
+    public void release(String jobId) {
+        if (jobId == null) {
+            return;
+        }
+        String queueName = reservedQueues.remove(jobId);
+        if (queueName == null) {
+            return;
+        }
+        QueueLedger queueLedger = queueLedgers.get(queueName);
+        if (queueLedger != null) {
+            synchronized (queueLedger) {
+                queueLedger.reservations.remove(jobId);
+            }
+        }
+    }
+
+    /**
+     * 导出的指标，key 固定，插件客户端创建后注册为 gauge
+     */
+    public Map<String, Number> getMetrics() {
+        Map<String, Number> metrics = new LinkedHashMap<>();
+        metrics.put("yarn_ledger_reservations", getReservationCount());
+        metrics.put("yarn_ledger_snapshot_age_max_ms", getMaxSnapshotAge());
+        metrics.put("yarn_ledger_rejections", getRejectionCount());
+        return metrics;
+    }
+
+    /**
+     * 各队列中最旧的快照距今的时间，没有快照时返回 -1
+     */
+    public long getMaxSnapshotAge() {
+        long now = System.currentTimeMillis();
+        long maxAge = -1;
+        for (QueueLedger queueLedger : queueLedgers.values()) {
+            Snapshot snapshot = queueLedger.snapshot;
+            if (snapshot != null) {
+                maxAge = Math.max(maxAge, now - snapshot.createTime);
+            }
+        }
+        return maxAge;
+    }
+
+    public int getReservationCount() {
+        return reservedQueues.size();
+    }
+
+    public long getRejectionCount() {
+        long count = 0;
+        for (LongAdder adder : rejections.values()) {
+            count += adder.sum();
+        }
+        return count;
+    }
+
+    public Map<String, Long> getRejections() {
+        Map<String, Long> counts = new HashMap<>(rejections.size() * 2);
+        rejections.forEach((reason, count) -> counts.put(reason, count.sum()));
+        return counts;
+    }
+
+    private void reject(String reason) {
+        rejections.computeIfAbsent(reason, k -> new LongAdder()).increment();
+    }
+
+    private class QueueLedger {
+
+        private final String queueName;
+
+        private volatile Snapshot snapshot;
+
+        private final Map<String, Reservation> reservations = new LinkedHashMap<>();
+
+        private QueueLedger(String queueName) {
+            this.queueName = queueName;
+        }
+
+        private void expireReservations(long now) {
+            Iterator<Map.Entry<String, Reservation>> iterator = reservations.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Reservation> entry = iterator.next();
+                if (now - entry.getValue().reserveTime >= reservationTimeout) {
+                    iterator.remove();
+                    reservedQueues.remove(entry.getKey(), queueName);
+                    LOGGER.info("jobId:{} queueName:{} resource reservation expired", entry.getKey(), queueName);
+                }
+            }
+        }
+
+        /**
+         * 释放快照生成前已经运行的任务的预留，它们占用的资源已经体现在快照中
+         */
+        private void removeRunningBefore(long time) {
+            Iterator<Map.Entry<String, Reservation>> iterator = reservations.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<String, Reservation> entry = iterator.next();
+                long runningTime = entry.getValue().runningTime;
+                if (runningTime != 0L && runningTime < time) {
+                    iterator.remove();
+                    reservedQueues.remove(entry.getKey(), queueName);
+                }
+            }
+        }
+
+        /**
+         * 快照之后预留的任务还没有体现在快照的 ACCEPTED 任务中，已经运行的任务不再是 ACCEPTED
+         */
+        private int countReservedAfter(long time) {
+            int count = 0;
+            for (Reservation reservation : reservations.values()) {
+                if (reservation.reserveTime >= time && reservation.runningTime == 0L) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    private static class Reservation {
+
+        private final List<AbstractYarnResourceInfo.InstanceInfo> instanceInfos;
+
+        private final long reserveTime;
+
+        /**
+         * 任务进入 RUNNING 的时间，0 表示还没有运行
+         */
+        private long runningTime;
+
+        private Reservation(List<AbstractYarnResourceInfo.InstanceInfo> instanceInfos, long reserveTime) {
+            this.instanceInfos = instanceInfos;
+            this.reserveTime = reserveTime;
+        }
+    }
+
+    /**
+     * ResourceManager 的资源快照，创建后不再修改
+     */
+    public static class Snapshot {
+
+        final int acceptedApps;
+
+        final List<AbstractYarnResourceInfo.NodeResourceDetail> nodeResources;
+
+        final float capacity;
+
+        final float queueCapacity;
+
+        final int containerCoreMax;
+
+        final int containerMemoryMax;
+
+        /**
+         * 开始请求 ResourceManager 的时间，之前运行的任务都已经包含在快照中
+         */
+        final long createTime;
+
+        Snapshot(long createTime, int acceptedApps, List<AbstractYarnResourceInfo.NodeResourceDetail> nodeResources, float capacity,
+                 float queueCapacity, int containerCoreMax, int containerMemoryMax) {
+            this.acceptedApps = acceptedApps;
+            this.nodeResources = Collections.unmodifiableList(new ArrayList<>(nodeResources));
+            this.capacity = capacity;
+            this.queueCapacity = queueCapacity;
+            this.containerCoreMax = containerCoreMax;
+            this.containerMemoryMax = containerMemoryMax;
+            this.createTime = createTime;
+        }
+    }
+}
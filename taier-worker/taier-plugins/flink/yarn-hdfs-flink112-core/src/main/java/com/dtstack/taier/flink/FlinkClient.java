@@ -3,6 +3,7 @@ package com.dtstack.taier.flink;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
 import com.dtstack.taier.base.filesystem.FilesystemManager;
+import com.dtstack.taier.base.resource.YarnResourceLedger;
 import com.dtstack.taier.base.util.HadoopUtils;
 import com.dtstack.taier.base.util.HttpClientUtil;
 import com.dtstack.taier.base.util.KerberosUtils;
@@ -102,6 +103,11 @@ public class FlinkClient extends AbstractClient {
     /** client that submit the job */
     private AbstractClientManager clientManager;
 
+    /**
+     * perjob 模式每个任务单独启动 yarn application，通过资源台账准入
+     */
+    private final YarnResourceLedger resourceLedger = new YarnResourceLedger();
+
     private FilesystemManager filesystemManager;
 
     private final Map<String, List<String>> cacheFile = Maps.newConcurrentMap();
@@ -239,12 +245,16 @@ public class FlinkClient extends AbstractClient {
                     if (jobResult != null) {
                         LOG.info("taskId: {}, submit job success, result: {}", jobClient.getJobId(), jobResult);
                     }
+                    if (jobResult == null || StringUtils.isEmpty(jobResult.getData(JobResult.JOB_ID_KEY))) {
+                        resourceLedger.release(jobClient.getJobId());
+                    }
                     return jobResult;
                 } catch (Exception e) {
                     throw new PluginDefineException(e);
                 }
             }, clientManager.getHadoopConfig().getYarnConfiguration());
         } catch (Exception e) {
+            resourceLedger.release(jobClient.getJobId());
             String errMsg = jobClient.getJobId() + " submit job error";
             throw new PluginDefineException(errMsg, e);
         }
@@ -475,6 +485,7 @@ public class FlinkClient extends AbstractClient {
                         .withQueueName(flinkConfig.getQueue())
                         .withYarnAccepterTaskNumber(flinkConfig.getYarnAccepterTaskNumber())
                         .withProperties(flinkExtProp)
+                        .withResourceLedger(isPerJob ? resourceLedger : null)
                         .build();
 
                 return perJobResourceInfo.judgeSlots(jobClient);
@@ -599,6 +610,81 @@ public class FlinkClient extends AbstractClient {
         }
     }
 
+    /**
+     * 同一个flink集群(webInterfaceURL相同)的任务一次请求 /jobs/overview 获取状态，
+     * 不在 overview 中的任务(已经从jobManager清理、集群已停止等)按 getJobStatus 逐个查询
+     */
+    @Override
+    public Map<String, TaskStatus> getJobStatuses(Collection<JobIdentifier> jobIdentifiers) {
+        Map<String, List<JobIdentifier>> clusterJobs = new HashMap<>();
+        List<JobIdentifier> singleJobs = new ArrayList<>();
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            String webInterfaceURL = null;
+            if (StringUtils.isNotEmpty(jobIdentifier.getEngineJobId())) {
+                try {
+                    webInterfaceURL = clientManager.getClusterClient(jobIdentifier).getWebInterfaceURL();
+                } catch (Exception e) {
+                    LOG.warn("taskId: {}, get clusterClient error: {}", jobIdentifier.getJobId(), e.getMessage());
+                }
+            }
+            if (StringUtils.isEmpty(webInterfaceURL)) {
+                singleJobs.add(jobIdentifier);
+            } else {
+                clusterJobs.computeIfAbsent(webInterfaceURL, k -> new ArrayList<>()).add(jobIdentifier);
+            }
+        }
+
+        Map<String, TaskStatus> statuses = Maps.newHashMapWithExpectedSize(jobIdentifiers.size());
+        for (Map.Entry<String, List<JobIdentifier>> entry : clusterJobs.entrySet()) {
+            Map<String, String> jobStates = getJobStatesFromOverview(entry.getKey());
+            for (JobIdentifier jobIdentifier : entry.getValue()) {
+                String state = jobStates.get(jobIdentifier.getEngineJobId());
+                if (state == null) {
+                    singleJobs.add(jobIdentifier);
+                } else {
+                    statuses.put(jobIdentifier.getJobId(), TaskStatus.getTaskStatus(StringUtils.upperCase(state)));
+                }
+            }
+        }
+        for (JobIdentifier jobIdentifier : singleJobs) {
+            statuses.put(jobIdentifier.getJobId(), getJobStatus(jobIdentifier));
+        }
+        statuses.forEach(resourceLedger::release);
+        return statuses;
+    }
+
+    /**
+     * 资源预留的统计：预留数、最旧的快照距今时间和准入拒绝次数
+     */
+    @Override
+    public Map<String, Number> getMetrics() {
+        return resourceLedger.getMetrics();
+    }
+
+    /**
+     * @return key: flink jobId, value: state
+     */
+    private Map<String, String> getJobStatesFromOverview(String webInterfaceURL) {
+        Map<String, String> jobStates = new HashMap<>();
+        try {
+            String response = PoolHttpClient.get(webInterfaceURL + ConfigConstant.JOBS_OVERVIEW_URL);
+            if (StringUtils.isEmpty(response)) {
+                return jobStates;
+            }
+            JSONArray jobs = JSONObject.parseObject(response).getJSONArray("jobs");
+            if (jobs == null) {
+                return jobStates;
+            }
+            for (int i = 0; i < jobs.size(); i++) {
+                JSONObject job = jobs.getJSONObject(i);
+                jobStates.put(job.getString("jid"), job.getString("state"));
+            }
+        } catch (Exception e) {
+            LOG.warn("request jobs overview error from {}: {}", webInterfaceURL, e.getMessage());
+        }
+        return jobStates;
+    }
+
     /**
      * per-job模式其实获取的任务状态是yarn-application状态
      */
@@ -6,6 +6,7 @@ import com.dtstack.taier.pluginapi.JobClient;
 import com.dtstack.taier.flink.constant.ConfigConstant;
 import com.dtstack.taier.flink.util.FlinkUtil;
 import com.dtstack.taier.base.resource.AbstractYarnResourceInfo;
+import com.dtstack.taier.base.resource.YarnResourceLedger;
 import com.google.common.collect.Lists;
 import org.apache.flink.configuration.JobManagerOptions;
 import org.apache.flink.configuration.MemorySize;
@@ -34,12 +35,14 @@ public class FlinkPerJobResourceInfo extends AbstractYarnResourceInfo {
     private final String queueName;
     private final int yarnAccepterTaskNumber;
     private final Properties envProperties;
+    private final YarnResourceLedger resourceLedger;
 
-    private FlinkPerJobResourceInfo(YarnClient yarnClient, String queueName, int yarnAccepterTaskNumber, Properties envProperties) {
+    private FlinkPerJobResourceInfo(YarnClient yarnClient, String queueName, int yarnAccepterTaskNumber, Properties envProperties, YarnResourceLedger resourceLedger) {
         this.yarnClient = yarnClient;
         this.queueName = queueName;
         this.yarnAccepterTaskNumber = yarnAccepterTaskNumber;
         this.envProperties = envProperties;
+        this.resourceLedger = resourceLedger;
     }
 
     @Override
@@ -49,11 +52,6 @@ public class FlinkPerJobResourceInfo extends AbstractYarnResourceInfo {
 
     private JudgeResult judgePerJobResource(JobClient jobClient) {
 
-        JudgeResult jr = getYarnSlots(yarnClient, queueName, yarnAccepterTaskNumber);
-        if (!jr.available()) {
-            return jr;
-        }
-
         setTaskResourceInfo(jobClient);
 
         List<InstanceInfo> instanceInfos = Lists.newArrayList(
@@ -61,6 +59,14 @@ public class FlinkPerJobResourceInfo extends AbstractYarnResourceInfo {
                 InstanceInfo.newRecord(1, 1, jobManagerMemoryMb),
                 InstanceInfo.newRecord(numberTaskManagers, slotsPerTaskManager, taskManagerMemoryMb));
 
+        if (resourceLedger != null) {
+            return judgeYarnResource(resourceLedger, jobClient.getJobId(), yarnClient, queueName, yarnAccepterTaskNumber, instanceInfos);
+        }
+
+        JudgeResult jr = getYarnSlots(yarnClient, queueName, yarnAccepterTaskNumber);
+        if (!jr.available()) {
+            return jr;
+        }
         return judgeYarnResource(instanceInfos);
     }
 
@@ -107,6 +113,7 @@ public class FlinkPerJobResourceInfo extends AbstractYarnResourceInfo {
         private String queueName;
         private Integer yarnAccepterTaskNumber;
         private Properties envProperties;
+        private YarnResourceLedger resourceLedger;
 
         public FlinkPerJobResourceInfoBuilder withYarnClient(YarnClient yarnClient) {
             this.yarnClient = yarnClient;
@@ -128,8 +135,13 @@ public class FlinkPerJobResourceInfo extends AbstractYarnResourceInfo {
             return this;
         }
 
+        public FlinkPerJobResourceInfoBuilder withResourceLedger(YarnResourceLedger resourceLedger) {
+            this.resourceLedger = resourceLedger;
+            return this;
+        }
+
         public FlinkPerJobResourceInfo build() {
-            return new FlinkPerJobResourceInfo(yarnClient, queueName, yarnAccepterTaskNumber, envProperties);
+            return new FlinkPerJobResourceInfo(yarnClient, queueName, yarnAccepterTaskNumber, envProperties, resourceLedger);
         }
     }
 
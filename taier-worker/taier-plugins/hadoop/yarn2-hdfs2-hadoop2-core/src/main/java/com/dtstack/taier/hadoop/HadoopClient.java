@@ -77,10 +77,14 @@ import java.io.InputStream;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.UUID;
 
 public class HadoopClient extends AbstractClient {
@@ -91,6 +95,18 @@ public class HadoopClient extends AbstractClient {
     private static final String HDFS_PREFIX = "hdfs://";
     private static final String HADOOP_USER_NAME = "HADOOP_USER_NAME";
     private static final String QUEUE = "queue";
+    /**
+     * 批量获取任务状态时，任务数小于该值直接逐个查询
+     */
+    private static final int BATCH_STATUS_MIN_SIZE = 10;
+
+    private static final Set<String> MAPREDUCE_APPLICATION_TYPES = Collections.singleton("MAPREDUCE");
+
+    /**
+     * 批量查询只查询未结束的 application，结束的任务不在结果中，退化为逐个查询
+     */
+    private static final EnumSet<YarnApplicationState> ACTIVE_APPLICATION_STATES = EnumSet.of(YarnApplicationState.NEW,
+            YarnApplicationState.NEW_SAVING, YarnApplicationState.SUBMITTED, YarnApplicationState.ACCEPTED, YarnApplicationState.RUNNING);
     private EngineResourceInfo resourceInfo = new HadoopResourceInfo();
     private Configuration conf = new Configuration();
     private volatile YarnClient yarnClient;
@@ -177,38 +193,7 @@ public class HadoopClient extends AbstractClient {
 
                 try {
                     ApplicationReport report = getYarnClient().getApplicationReport(appId);
-                    YarnApplicationState applicationState = report.getYarnApplicationState();
-                    switch (applicationState) {
-                        case KILLED:
-                            return TaskStatus.KILLED;
-                        case NEW:
-                        case NEW_SAVING:
-                            return TaskStatus.CREATED;
-                        case SUBMITTED:
-                            //FIXME 特殊逻辑,认为已提交到计算引擎的状态为等待资源状态
-                            return TaskStatus.WAITCOMPUTE;
-                        case ACCEPTED:
-                            return TaskStatus.SCHEDULED;
-                        case RUNNING:
-                            return TaskStatus.RUNNING;
-                        case FINISHED:
-                            //state 为finished状态下需要兼顾判断finalStatus.
-                            FinalApplicationStatus finalApplicationStatus = report.getFinalApplicationStatus();
-                            if (finalApplicationStatus == FinalApplicationStatus.FAILED) {
-                                return TaskStatus.FAILED;
-                            } else if (finalApplicationStatus == FinalApplicationStatus.SUCCEEDED) {
-                                return TaskStatus.FINISHED;
-                            } else if (finalApplicationStatus == FinalApplicationStatus.KILLED) {
-                                return TaskStatus.KILLED;
-                            } else {
-                                return TaskStatus.RUNNING;
-                            }
-
-                        case FAILED:
-                            return TaskStatus.FAILED;
-                        default:
-                            throw new PluginDefineException("Unsupported application state");
-                    }
+                    return convertTaskStatus(report);
                 } catch (Exception e) {
                     return TaskStatus.NOTFOUND;
                 }
@@ -219,6 +204,90 @@ public class HadoopClient extends AbstractClient {
         }
     }
 
+    /**
+     * 任务数量较多时一次 getApplications 获取集群中 MAPREDUCE 类型未结束的 application，再按 applicationId 匹配；
+     * 不在结果中的任务(两次查询之间结束或者已经被yarn淘汰)退化为逐个查询，数量与本轮结束的任务数相当
+     */
+    @Override
+    public Map<String, TaskStatus> getJobStatuses(Collection<JobIdentifier> jobIdentifiers) throws IOException {
+        if (jobIdentifiers.size() < BATCH_STATUS_MIN_SIZE) {
+            return super.getJobStatuses(jobIdentifiers);
+        }
+
+        Map<ApplicationId, ApplicationReport> reports;
+        try {
+            reports = KerberosUtils.login(config, () -> {
+                try {
+                    Map<ApplicationId, ApplicationReport> reportMap = Maps.newHashMap();
+                    for (ApplicationReport report : getYarnClient().getApplications(MAPREDUCE_APPLICATION_TYPES, ACTIVE_APPLICATION_STATES)) {
+                        reportMap.put(report.getApplicationId(), report);
+                    }
+                    return reportMap;
+                } catch (Exception e) {
+                    throw new PluginDefineException(e);
+                }
+            }, conf);
+        } catch (Exception e) {
+            LOG.error("get applications error, get job status one by one", e);
+            return super.getJobStatuses(jobIdentifiers);
+        }
+
+        Map<String, TaskStatus> statuses = Maps.newHashMapWithExpectedSize(jobIdentifiers.size());
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            ApplicationReport report = null;
+            try {
+                report = reports.get(generateApplicationId(jobIdentifier.getEngineJobId()));
+            } catch (Exception e) {
+                LOG.warn("jobId:{} engineJobId:{} is not a yarn job", jobIdentifier.getJobId(), jobIdentifier.getEngineJobId());
+            }
+            if (report == null) {
+                statuses.put(jobIdentifier.getJobId(), getJobStatus(jobIdentifier));
+                continue;
+            }
+            try {
+                statuses.put(jobIdentifier.getJobId(), convertTaskStatus(report));
+            } catch (Exception e) {
+                statuses.put(jobIdentifier.getJobId(), TaskStatus.NOTFOUND);
+            }
+        }
+        return statuses;
+    }
+
+    private TaskStatus convertTaskStatus(ApplicationReport report) {
+        YarnApplicationState applicationState = report.getYarnApplicationState();
+        switch (applicationState) {
+            case KILLED:
+                return TaskStatus.KILLED;
+            case NEW:
+            case NEW_SAVING:
+                return TaskStatus.CREATED;
+            case SUBMITTED:
+                //FIXME 特殊逻辑,认为已提交到计算引擎的状态为等待资源状态
+                return TaskStatus.WAITCOMPUTE;
+            case ACCEPTED:
+                return TaskStatus.SCHEDULED;
+            case RUNNING:
+                return TaskStatus.RUNNING;
+            case FINISHED:
+                //state 为finished状态下需要兼顾判断finalStatus.
+                FinalApplicationStatus finalApplicationStatus = report.getFinalApplicationStatus();
+                if (finalApplicationStatus == FinalApplicationStatus.FAILED) {
+                    return TaskStatus.FAILED;
+                } else if (finalApplicationStatus == FinalApplicationStatus.SUCCEEDED) {
+                    return TaskStatus.FINISHED;
+                } else if (finalApplicationStatus == FinalApplicationStatus.KILLED) {
+                    return TaskStatus.KILLED;
+                } else {
+                    return TaskStatus.RUNNING;
+                }
+
+            case FAILED:
+                return TaskStatus.FAILED;
+            default:
+                throw new PluginDefineException("Unsupported application state");
+        }
+    }
+
     @Override
     public String getJobMaster(JobIdentifier jobIdentifier) {
         throw new PluginDefineException("hadoop client not support method 'getJobMaster'");
@@ -21,6 +21,7 @@ package com.dtstack.taier.sparkyarn.sparkyarn;
 import com.alibaba.fastjson.JSON;
 import com.dtstack.taier.base.filesystem.FilesystemManager;
 import com.dtstack.taier.base.monitor.AcceptedApplicationMonitor;
+import com.dtstack.taier.base.resource.YarnResourceLedger;
 import com.dtstack.taier.base.util.HadoopConfTool;
 import com.dtstack.taier.base.util.KerberosUtils;
 import com.dtstack.taier.base.util.Splitter;
@@ -112,6 +113,17 @@ public class SparkYarnClient extends AbstractClient {
     /**如果请求 CLUSTER_INFO_WS_FORMAT 返回信息包含该特征则表示是alive*/
     private static final String ALIVE_WEB_FLAG = "clusterInfo";
 
+    /**批量获取任务状态时，任务数小于该值直接逐个查询*/
+    private static final int BATCH_STATUS_MIN_SIZE = 10;
+
+    private static final Set<String> SPARK_APPLICATION_TYPES = Collections.singleton("SPARK");
+
+    /**
+     * 批量查询只查询未结束的 application，结束的任务不在结果中，退化为逐个查询
+     */
+    private static final EnumSet<YarnApplicationState> ACTIVE_APPLICATION_STATES = EnumSet.of(YarnApplicationState.NEW,
+            YarnApplicationState.NEW_SAVING, YarnApplicationState.SUBMITTED, YarnApplicationState.ACCEPTED, YarnApplicationState.RUNNING);
+
     private List<String> webAppAddrList = Lists.newArrayList();
 
     private SparkYarnConfig sparkYarnConfig;
@@ -126,6 +138,8 @@ public class SparkYarnClient extends AbstractClient {
 
     private ThreadPoolExecutor threadPoolExecutor;
 
+    private final YarnResourceLedger resourceLedger = new YarnResourceLedger();
+
     private static String userDir = System.getProperty("user.dir");
 
     private static final String SPARK_CONF_DIR = "sparkconf";
@@ -184,10 +198,14 @@ public class SparkYarnClient extends AbstractClient {
                 } else if (EJobType.PYTHON.equals(jobType)) {
                     jobResult = submitPythonJob(jobClient);
                 }
+                if (jobResult == null || StringUtils.isEmpty(jobResult.getData(JobResult.JOB_ID_KEY))) {
+                    resourceLedger.release(jobClient.getJobId());
+                }
                 return jobResult;
             }, yarnConf, true);
         } catch (Exception e) {
             logger.info("", e);
+            resourceLedger.release(jobClient.getJobId());
             return JobResult.createErrorResult("submit job get unknown error\n" + ExceptionUtil.getErrorMessage(e));
         }
     }
@@ -621,38 +639,9 @@ public class SparkYarnClient extends AbstractClient {
                 ApplicationId appId = ConverterUtils.toApplicationId(jobId);
                 try {
                     ApplicationReport report = getYarnClient().getApplicationReport(appId);
-                    YarnApplicationState applicationState = report.getYarnApplicationState();
-                    switch(applicationState) {
-                        case KILLED:
-                            return TaskStatus.KILLED;
-                        case NEW:
-                        case NEW_SAVING:
-                            return TaskStatus.CREATED;
-                        case SUBMITTED:
-                            //FIXME 特殊逻辑,认为已提交到计算引擎的状态为等待资源状态
-                            return TaskStatus.WAITCOMPUTE;
-                        case ACCEPTED:
-                            return TaskStatus.SCHEDULED;
-                        case RUNNING:
-                            return TaskStatus.RUNNING;
-                        case FINISHED:
-                            //state 为finished状态下需要兼顾判断finalStatus.
-                            FinalApplicationStatus finalApplicationStatus = report.getFinalApplicationStatus();
-                            if(finalApplicationStatus == FinalApplicationStatus.FAILED){
-                                return TaskStatus.FAILED;
-                            }else if(finalApplicationStatus == FinalApplicationStatus.SUCCEEDED){
-                                return TaskStatus.FINISHED;
-                            }else if(finalApplicationStatus == FinalApplicationStatus.KILLED){
-                                return TaskStatus.KILLED;
-                            }else{
-                                return TaskStatus.RUNNING;
-                            }
-
-                        case FAILED:
-                            return TaskStatus.FAILED;
-                        default:
-                            throw new PluginDefineException("Unsupported application state");
-                    }
+                    TaskStatus taskStatus = convertTaskStatus(report);
+                    resourceLedger.release(jobIdentifier.getJobId(), taskStatus);
+                    return taskStatus;
                 } catch (Exception e) {
                     logger.error("", e);
                     return TaskStatus.NOTFOUND;
@@ -664,6 +653,96 @@ public class SparkYarnClient extends AbstractClient {
         }
     }
 
+    /**
+     * 任务数量较多时一次 getApplications 获取集群中 SPARK 类型未结束的 application，再按 applicationId 匹配；
+     * 不在结果中的任务(两次查询之间结束或者已经被yarn淘汰)退化为逐个查询，数量与本轮结束的任务数相当
+     */
+    @Override
+    public Map<String, TaskStatus> getJobStatuses(Collection<JobIdentifier> jobIdentifiers) throws IOException {
+        if (jobIdentifiers.size() < BATCH_STATUS_MIN_SIZE) {
+            return super.getJobStatuses(jobIdentifiers);
+        }
+
+        Map<String, ApplicationReport> reports;
+        try {
+            reports = KerberosUtils.login(sparkYarnConfig, () -> {
+                try {
+                    Map<String, ApplicationReport> reportMap = Maps.newHashMap();
+                    for (ApplicationReport report : getYarnClient().getApplications(SPARK_APPLICATION_TYPES, ACTIVE_APPLICATION_STATES)) {
+                        reportMap.put(report.getApplicationId().toString(), report);
+                    }
+                    return reportMap;
+                } catch (Exception e) {
+                    throw new PluginDefineException(e);
+                }
+            }, yarnConf, false);
+        } catch (Exception e) {
+            logger.error("get applications error, get job status one by one", e);
+            return super.getJobStatuses(jobIdentifiers);
+        }
+
+        Map<String, TaskStatus> statuses = Maps.newHashMapWithExpectedSize(jobIdentifiers.size());
+        for (JobIdentifier jobIdentifier : jobIdentifiers) {
+            ApplicationReport report = StringUtils.isEmpty(jobIdentifier.getApplicationId()) ? null : reports.get(jobIdentifier.getApplicationId());
+            if (report == null) {
+                statuses.put(jobIdentifier.getJobId(), getJobStatus(jobIdentifier));
+                continue;
+            }
+            try {
+                TaskStatus taskStatus = convertTaskStatus(report);
+                resourceLedger.release(jobIdentifier.getJobId(), taskStatus);
+                statuses.put(jobIdentifier.getJobId(), taskStatus);
+            } catch (Exception e) {
+                logger.error("", e);
+                statuses.put(jobIdentifier.getJobId(), TaskStatus.NOTFOUND);
+            }
+        }
+        return statuses;
+    }
+
+    /**
+     * 资源预留的统计：预留数、最旧的快照距今时间和准入拒绝次数
+     */
+    @Override
+    public Map<String, Number> getMetrics() {
+        return resourceLedger.getMetrics();
+    }
+
+    private TaskStatus convertTaskStatus(ApplicationReport report) {
+        YarnApplicationState applicationState = report.getYarnApplicationState();
+        switch(applicationState) {
+            case KILLED:
+                return TaskStatus.KILLED;
+            case NEW:
+            case NEW_SAVING:
+                return TaskStatus.CREATED;
+            case SUBMITTED:
+                //FIXME 特殊逻辑,认为已提交到计算引擎的状态为等待资源状态
+                return TaskStatus.WAITCOMPUTE;
+            case ACCEPTED:
+                return TaskStatus.SCHEDULED;
+            case RUNNING:
+                return TaskStatus.RUNNING;
+            case FINISHED:
+                //state 为finished状态下需要兼顾判断finalStatus.
+                FinalApplicationStatus finalApplicationStatus = report.getFinalApplicationStatus();
+                if(finalApplicationStatus == FinalApplicationStatus.FAILED){
+                    return TaskStatus.FAILED;
+                }else if(finalApplicationStatus == FinalApplicationStatus.SUCCEEDED){
+                    return TaskStatus.FINISHED;
+                }else if(finalApplicationStatus == FinalApplicationStatus.KILLED){
+                    return TaskStatus.KILLED;
+                }else{
+                    return TaskStatus.RUNNING;
+                }
+
+            case FAILED:
+                return TaskStatus.FAILED;
+            default:
+                throw new PluginDefineException("Unsupported application state");
+        }
+    }
+
     @Override
     public String getJobMaster(JobIdentifier jobIdentifier) {
         //解析config,获取web-address
@@ -770,6 +849,7 @@ public class SparkYarnClient extends AbstractClient {
                             .withYarnClient(getYarnClient())
                             .withQueueName(sparkYarnConfig.getQueue())
                             .withYarnAccepterTaskNumber(sparkYarnConfig.getYarnAccepterTaskNumber())
+                            .withResourceLedger(resourceLedger)
                             .build();
                     return resourceInfo.judgeSlots(jobClient);
             }, yarnConf, false);
@@ -23,6 +23,7 @@ import com.dtstack.taier.pluginapi.util.MathUtil;
 import com.dtstack.taier.pluginapi.util.UnitConvertUtil;
 import com.dtstack.taier.pluginapi.JobClient;
 import com.dtstack.taier.base.resource.AbstractYarnResourceInfo;
+import com.dtstack.taier.base.resource.YarnResourceLedger;
 import com.google.common.collect.Lists;
 import org.apache.hadoop.yarn.client.api.YarnClient;
 
@@ -63,21 +64,21 @@ public class SparkYarnResourceInfo extends AbstractYarnResourceInfo {
     private YarnClient yarnClient;
     private String queueName;
     private Integer yarnAccepterTaskNumber;
+    private YarnResourceLedger resourceLedger;
 
     public SparkYarnResourceInfo(YarnClient yarnClient, String queueName, Integer yarnAccepterTaskNumber) {
+        this(yarnClient, queueName, yarnAccepterTaskNumber, null);
+    }
+
+    public SparkYarnResourceInfo(YarnClient yarnClient, String queueName, Integer yarnAccepterTaskNumber, YarnResourceLedger resourceLedger) {
         this.yarnClient = yarnClient;
         this.queueName = queueName;
         this.yarnAccepterTaskNumber = yarnAccepterTaskNumber;
+        this.resourceLedger = resourceLedger;
     }
 
     @Override
     public JudgeResult judgeSlots(JobClient jobClient) {
-
-        JudgeResult jr = getYarnSlots(yarnClient, queueName, yarnAccepterTaskNumber);
-        if (!jr.available()) {
-            return jr;
-        }
-
         Properties properties = jobClient.getConfProperties();
         int driverCores = DEFAULT_CORES;
         if(properties != null && properties.containsKey(DRIVER_CORE_KEY)){
@@ -119,6 +120,15 @@ public class SparkYarnResourceInfo extends AbstractYarnResourceInfo {
         List<InstanceInfo> instanceInfos = Lists.newArrayList(
                 InstanceInfo.newRecord(1, driverCores, driverMem),
                 InstanceInfo.newRecord(executorNum, executorCores, executorMem));
+
+        if (resourceLedger != null) {
+            return judgeYarnResource(resourceLedger, jobClient.getJobId(), yarnClient, queueName, yarnAccepterTaskNumber, instanceInfos);
+        }
+
+        JudgeResult jr = getYarnSlots(yarnClient, queueName, yarnAccepterTaskNumber);
+        if (!jr.available()) {
+            return jr;
+        }
         return judgeYarnResource(instanceInfos);
     }
 
@@ -131,6 +141,7 @@ public class SparkYarnResourceInfo extends AbstractYarnResourceInfo {
         private YarnClient yarnClient;
         private String queueName;
         private Integer yarnAccepterTaskNumber;
+        private YarnResourceLedger resourceLedger;
 
         public SparkYarnResourceInfoBuilder withYarnClient(YarnClient yarnClient) {
             this.yarnClient = yarnClient;
@@ -147,8 +158,13 @@ public class SparkYarnResourceInfo extends AbstractYarnResourceInfo {
             return this;
         }
 
+        public SparkYarnResourceInfoBuilder withResourceLedger(YarnResourceLedger resourceLedger) {
+            this.resourceLedger = resourceLedger;
+            return this;
+        }
+
         public SparkYarnResourceInfo build() {
-            return new SparkYarnResourceInfo(yarnClient, queueName, yarnAccepterTaskNumber);
+            return new SparkYarnResourceInfo(yarnClient, queueName, yarnAccepterTaskNumber, resourceLedger);
         }
     }
 